@@ -0,0 +1,616 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link DataBuffer} that presents a number of component buffers as a single
+ * buffer, without copying their contents. Used by
+ * {@link DataBufferUtils#join(org.reactivestreams.Publisher)} for runtimes
+ * other than Netty, where {@code CompositeByteBuf} serves the same purpose.
+ *
+ * <p>Reads, {@link #asInputStream()}, {@link #indexOf(IntPredicate, int)} and
+ * friends operate across the components directly. {@link #asByteBuffer(int, int)}
+ * and {@link #slice(int, int)} share memory with this buffer if the requested
+ * range falls within a single component; otherwise the former returns a copy,
+ * and the latter another composite. Writes beyond the capacity add a new
+ * component, allocated through the {@linkplain #factory() factory}.
+ *
+ * <p>The components are owned by this buffer: they are released once this
+ * buffer is {@linkplain #release() released}. A composite of non-pooled
+ * buffers from a {@link DefaultDataBufferFactory} is not reference counted
+ * either: like a {@link DefaultDataBuffer}, it remains allocated, and
+ * {@link #retain()} and {@link #release()} have no effect.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see DataBufferUtils#join(org.reactivestreams.Publisher)
+ */
+public class CompositeDataBuffer implements PooledDataBuffer {
+
+	private static final int MIN_COMPONENT_CAPACITY = 256;
+
+
+	private final DataBufferFactory dataBufferFactory;
+
+	private DataBuffer[] components;
+
+	/** The index, in each component, at which its part of this buffer starts. */
+	private int[] starts;
+
+	/** Shared views on the part of each component that belongs to this buffer. */
+	private ByteBuffer[] views;
+
+	/** The index, in this buffer, at which each component starts. */
+	private int[] offsets;
+
+	private int componentCount;
+
+	private int readPosition;
+
+	private int writePosition;
+
+	/** Whether this buffer is reference counted. */
+	private final boolean pooled;
+
+	private final AtomicInteger refCount = new AtomicInteger(1);
+
+
+	/**
+	 * Create a new {@code CompositeDataBuffer} with the readable bytes of the
+	 * given buffers as contents. The buffers are owned by the new buffer
+	 * from this point onwards.
+	 * @param dataBufferFactory the factory used to allocate new components
+	 * @param dataBuffers the buffers to compose
+	 */
+	public CompositeDataBuffer(DataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
+		Assert.notNull(dataBuffers, "DataBuffer List must not be null");
+		this.dataBufferFactory = dataBufferFactory;
+		this.pooled = (!(dataBufferFactory instanceof DefaultDataBufferFactory) ||
+				dataBuffers.stream().anyMatch(PooledDataBuffer.class::isInstance));
+		int size = Math.max(dataBuffers.size(), 1);
+		this.components = new DataBuffer[size];
+		this.starts = new int[size];
+		this.views = new ByteBuffer[size];
+		this.offsets = new int[size + 1];
+		for (DataBuffer dataBuffer : dataBuffers) {
+			addComponent(dataBuffer, dataBuffer.readPosition(), dataBuffer.readableByteCount());
+		}
+		this.writePosition = capacity();
+	}
+
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	/**
+	 * Return the number of components of this buffer.
+	 */
+	public int componentCount() {
+		return this.componentCount;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		int index = fromIndex;
+		for (int i = componentIndex(index); i < this.componentCount && index < this.writePosition; i++) {
+			ByteBuffer view = this.views[i];
+			int offset = this.offsets[i];
+			int end = Math.min(this.offsets[i + 1], this.writePosition);
+			for (; index < end; index++) {
+				if (predicate.test(view.get(index - offset))) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		int index = Math.min(fromIndex, this.writePosition - 1);
+		if (index < 0) {
+			return -1;
+		}
+		for (int i = componentIndex(index); i >= 0; i--) {
+			ByteBuffer view = this.views[i];
+			int offset = this.offsets[i];
+			for (; index >= offset; index--) {
+				if (predicate.test(view.get(index - offset))) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.writePosition - this.readPosition;
+	}
+
+	@Override
+	public int writableByteCount() {
+		return capacity() - this.writePosition;
+	}
+
+	@Override
+	public int capacity() {
+		return this.offsets[this.componentCount];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>A composite buffer can only grow, by adding a component.
+	 */
+	@Override
+	public CompositeDataBuffer capacity(int newCapacity) {
+		if (newCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("'newCapacity' %d must be higher than 0", newCapacity));
+		}
+		int capacity = capacity();
+		if (newCapacity > capacity) {
+			DataBuffer component = this.dataBufferFactory.allocateBuffer(newCapacity - capacity);
+			addComponent(component, 0, component.capacity());
+		}
+		else if (newCapacity < capacity) {
+			throw new UnsupportedOperationException("Decreasing the capacity of a composite buffer is not supported");
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer ensureCapacity(int length) {
+		int writable = writableByteCount();
+		if (length > writable) {
+			capacity(capacity() + Math.max(length - writable, MIN_COMPONENT_CAPACITY));
+		}
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.readPosition;
+	}
+
+	@Override
+	public CompositeDataBuffer readPosition(int readPosition) {
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.writePosition;
+	}
+
+	@Override
+	public CompositeDataBuffer writePosition(int writePosition) {
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= capacity(), "'writePosition' %d must be <= %d",
+				writePosition, capacity());
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d", index, this.writePosition - 1);
+		int i = componentIndex(index);
+		return this.views[i].get(index - this.offsets[i]);
+	}
+
+	@Override
+	public byte read() {
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+		byte b = getByte(this.readPosition);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "Byte array must not be null");
+		read(destination, 0, destination.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "Byte array must not be null");
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+		copyTo(this.readPosition, destination, offset, length);
+		this.readPosition += length;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte b) {
+		ensureCapacity(1);
+		int i = componentIndex(this.writePosition);
+		this.views[i].put(this.writePosition - this.offsets[i], b);
+		this.writePosition++;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source) {
+		Assert.notNull(source, "Byte array must not be null");
+		write(source, 0, source.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source, int offset, int length) {
+		Assert.notNull(source, "Byte array must not be null");
+		write(ByteBuffer.wrap(source, offset, length));
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(DataBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			write(Arrays.stream(buffers).map(DataBuffer::asByteBuffer).toArray(ByteBuffer[]::new));
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(ByteBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			int capacity = Arrays.stream(buffers).mapToInt(ByteBuffer::remaining).sum();
+			ensureCapacity(capacity);
+			for (ByteBuffer buffer : buffers) {
+				copyFrom(buffer.duplicate());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>If the range spans more than one component, the slice is another
+	 * {@code CompositeDataBuffer}, composed of slices of those components.
+	 */
+	@Override
+	public DataBuffer slice(int index, int length) {
+		return slice(index, length, false);
+	}
+
+	@Override
+	public DataBuffer retainedSlice(int index, int length) {
+		return slice(index, length, true);
+	}
+
+	private DataBuffer slice(int index, int length, boolean retain) {
+		checkIndex(index, length);
+		if (length == 0) {
+			return this.dataBufferFactory.wrap(new byte[0]);
+		}
+		int first = componentIndex(index);
+		int last = componentIndex(index + length - 1);
+		if (first == last) {
+			return sliceComponent(first, index - this.offsets[first], length, retain);
+		}
+		DataBuffer[] slices = new DataBuffer[last - first + 1];
+		for (int i = first; i <= last; i++) {
+			int start = Math.max(index, this.offsets[i]);
+			int end = Math.min(index + length, this.offsets[i + 1]);
+			slices[i - first] = sliceComponent(i, start - this.offsets[i], end - start, retain);
+		}
+		return new CompositeDataBuffer(this.dataBufferFactory, Arrays.asList(slices));
+	}
+
+	private DataBuffer sliceComponent(int i, int index, int length, boolean retain) {
+		DataBuffer component = this.components[i];
+		int start = this.starts[i] + index;
+		return (retain ? component.retainedSlice(start, length) : component.slice(start, length));
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(this.readPosition, readableByteCount());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Data is shared only if the range falls within a single component;
+	 * otherwise, the returned {@code ByteBuffer} contains a copy.
+	 */
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		checkIndex(index, length);
+		if (length > 0) {
+			int i = componentIndex(index);
+			if (index + length <= this.offsets[i + 1]) {
+				ByteBuffer duplicate = this.views[i].duplicate();
+				// Explicit access via Buffer base type for compatibility
+				// with covariant return type on JDK 9's ByteBuffer...
+				Buffer buffer = duplicate;
+				buffer.position(index - this.offsets[i]);
+				buffer.limit(index - this.offsets[i] + length);
+				return duplicate.slice();
+			}
+		}
+		byte[] bytes = new byte[length];
+		copyTo(index, bytes, 0, length);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new CompositeDataBufferInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new CompositeDataBufferInputStream(releaseOnClose);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return new CompositeDataBufferOutputStream();
+	}
+
+	@Override
+	public String toString(int index, int length, Charset charset) {
+		checkIndex(index, length);
+		Assert.notNull(charset, "Charset must not be null");
+		if (length > 0) {
+			int i = componentIndex(index);
+			ByteBuffer view = this.views[i];
+			if (index + length <= this.offsets[i + 1] && view.hasArray()) {
+				int offset = view.arrayOffset() + index - this.offsets[i];
+				return new String(view.array(), offset, length, charset);
+			}
+		}
+		byte[] bytes = new byte[length];
+		copyTo(index, bytes, 0, length);
+		return new String(bytes, charset);
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return (!this.pooled || this.refCount.get() > 0);
+	}
+
+	@Override
+	public CompositeDataBuffer retain() {
+		if (!this.pooled) {
+			return this;
+		}
+		int count;
+		do {
+			count = this.refCount.get();
+			if (count <= 0) {
+				throw new IllegalStateException("Buffer has already been released");
+			}
+		}
+		while (!this.refCount.compareAndSet(count, count + 1));
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Once the reference count reaches zero, all components are released.
+	 * Has no effect, and returns {@code false}, for a composite of non-pooled
+	 * buffers.
+	 */
+	@Override
+	public boolean release() {
+		if (!this.pooled) {
+			return false;
+		}
+		int count;
+		do {
+			count = this.refCount.get();
+			if (count <= 0) {
+				throw new IllegalStateException("Buffer has already been released");
+			}
+		}
+		while (!this.refCount.compareAndSet(count, count - 1));
+		if (count == 1) {
+			for (int i = 0; i < this.componentCount; i++) {
+				DataBufferUtils.release(this.components[i]);
+			}
+			return true;
+		}
+		return false;
+	}
+
+
+	private void addComponent(DataBuffer component, int start, int length) {
+		int count = this.componentCount;
+		if (count == this.components.length) {
+			int newLength = count * 2;
+			this.components = Arrays.copyOf(this.components, newLength);
+			this.starts = Arrays.copyOf(this.starts, newLength);
+			this.views = Arrays.copyOf(this.views, newLength);
+			this.offsets = Arrays.copyOf(this.offsets, newLength + 1);
+		}
+		this.components[count] = component;
+		this.starts[count] = start;
+		this.views[count] = component.asByteBuffer(start, length);
+		this.offsets[count + 1] = this.offsets[count] + length;
+		this.componentCount = count + 1;
+	}
+
+	/**
+	 * Return the index of the component that contains the given index,
+	 * skipping empty components.
+	 */
+	private int componentIndex(int index) {
+		int low = 0;
+		int high = this.componentCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (index >= this.offsets[mid + 1]) {
+				low = mid + 1;
+			}
+			else if (index < this.offsets[mid]) {
+				high = mid - 1;
+			}
+			else {
+				return mid;
+			}
+		}
+		throw new IndexOutOfBoundsException(String.format("index %d must be < %d", index, capacity()));
+	}
+
+	private void copyTo(int index, byte[] destination, int offset, int length) {
+		while (length > 0) {
+			int i = componentIndex(index);
+			int local = index - this.offsets[i];
+			int count = Math.min(length, this.offsets[i + 1] - index);
+			ByteBuffer duplicate = this.views[i].duplicate();
+			Buffer buffer = duplicate;
+			buffer.position(local);
+			duplicate.get(destination, offset, count);
+			index += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	private void copyFrom(ByteBuffer source) {
+		while (source.hasRemaining()) {
+			int i = componentIndex(this.writePosition);
+			int local = this.writePosition - this.offsets[i];
+			int count = Math.min(source.remaining(), this.offsets[i + 1] - this.writePosition);
+			ByteBuffer duplicate = this.views[i].duplicate();
+			Buffer buffer = duplicate;
+			buffer.position(local);
+			ByteBuffer chunk = source.duplicate();
+			Buffer chunkBuffer = chunk;
+			chunkBuffer.limit(chunk.position() + count);
+			duplicate.put(chunk);
+			Buffer sourceBuffer = source;
+			sourceBuffer.position(source.position() + count);
+			this.writePosition += count;
+		}
+	}
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index <= capacity() - length, "index %d and length %d must be <= %d",
+				index, length, capacity());
+	}
+
+	private void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("CompositeDataBuffer (r: %d, w: %d, c: %d, components: %d)",
+				this.readPosition, this.writePosition, capacity(), this.componentCount);
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		CompositeDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				release();
+			}
+		}
+	}
+
+
+	private class CompositeDataBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+			CompositeDataBuffer.this.write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			CompositeDataBuffer.this.write(bytes, off, len);
+		}
+	}
+
+}
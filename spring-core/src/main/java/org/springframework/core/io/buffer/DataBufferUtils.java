@@ -31,6 +31,7 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -561,10 +562,31 @@ public abstract class DataBufferUtils {
 		return Flux.from(buffers)
 				.collect(() -> new LimitedDataBufferList(maxByteCount), LimitedDataBufferList::add)
 				.filter(list -> !list.isEmpty())
-				.map(list -> list.get(0).factory().join(list))
+				.map(DataBufferUtils::joinBuffers)
 				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 	}
 
+	/**
+	 * Join the given buffers without copying: a single buffer is returned as
+	 * is, buffers from a {@link DefaultDataBufferFactory} or a
+	 * {@link PooledDataBufferFactory} are wrapped in a {@link CompositeDataBuffer},
+	 * and other factories are asked to {@linkplain DataBufferFactory#join join}
+	 * the buffers themselves (i.e. into a {@code CompositeByteBuf} on Netty).
+	 * <p>A composite of {@code DefaultDataBufferFactory} buffers is not
+	 * reference counted, so {@link #release} has no effect on it, as for a
+	 * {@code DefaultDataBuffer}.
+	 */
+	private static DataBuffer joinBuffers(List<DataBuffer> dataBuffers) {
+		if (dataBuffers.size() == 1) {
+			return dataBuffers.get(0);
+		}
+		DataBufferFactory factory = dataBuffers.get(0).factory();
+		if (factory instanceof DefaultDataBufferFactory || factory instanceof PooledDataBufferFactory) {
+			return new CompositeDataBuffer(factory, dataBuffers);
+		}
+		return factory.join(dataBuffers);
+	}
+
 	/**
 	 * Return a {@link Matcher} for the given delimiter.
 	 * The matcher can be used to find the delimiters in a stream of data buffers.
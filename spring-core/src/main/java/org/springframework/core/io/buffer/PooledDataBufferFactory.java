@@ -0,0 +1,799 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Implementation of the {@code DataBufferFactory} interface that recycles the
+ * {@link ByteBuffer} memory of released buffers, for use on runtimes that do
+ * not provide a pooled allocator of their own (i.e. Servlet and Undertow).
+ *
+ * <p>Allocated buffers implement {@link PooledDataBuffer}. Their memory is
+ * taken from power-of-two size classes, starting at 256 bytes and ending at
+ * the configured maximum pooled capacity; larger buffers are allocated on
+ * demand and left to the garbage collector. Released memory is kept in a
+ * small per-thread cache first, and in a bounded pool shared across threads
+ * after that, so that buffers released on a different thread than they
+ * were allocated on are reused as well. Thread caches that have not been
+ * used for a while, or whose thread has terminated, are periodically
+ * drained into the shared pool; see {@link #trimThreadCaches()}.
+ *
+ * <p>As with Netty buffers, any access to the content of a buffer after it
+ * has been fully released results in an {@link IllegalStateException}.
+ *
+ * <p>Buffers that are never released are simply garbage collected, but their
+ * memory is not returned to the pool. To find such buffers, enable
+ * {@linkplain #setLeakDetection(boolean) leak detection}, which records the
+ * allocation site of every buffer and logs it for buffers that are garbage
+ * collected without having been released. As this is expensive, it is meant
+ * for debugging only.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see PooledDataBuffer
+ * @see DataBufferUtils#release(DataBuffer)
+ */
+public class PooledDataBufferFactory implements DataBufferFactory {
+
+	/**
+	 * The default capacity when none is specified.
+	 */
+	public static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+	/**
+	 * The default maximum capacity of pooled buffers.
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default number of buffers kept per size class in each thread cache.
+	 */
+	public static final int DEFAULT_THREAD_CACHE_SIZE = 16;
+
+	/**
+	 * The default number of buffers kept per size class in the shared pool.
+	 */
+	public static final int DEFAULT_SHARED_POOL_SIZE = 256;
+
+	private static final int MIN_POOLED_CAPACITY = 256;
+
+	/** Number of allocations per thread between checks for a due trim. */
+	private static final int TRIM_CHECK_INTERVAL = 1024;
+
+	/** Minimum time in milliseconds between automatic thread cache trims. */
+	private static final long TRIM_INTERVAL = 10_000;
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final DefaultDataBufferFactory unpooledFactory;
+
+	private final boolean preferDirect;
+
+	private final int defaultInitialCapacity;
+
+	private final int maxPooledCapacity;
+
+	private final int threadCacheSize;
+
+	private final SharedPool[] sharedPools;
+
+	private final ThreadLocal<ThreadCache> threadCaches;
+
+	private final Set<ThreadCache> threadCacheRegistry = ConcurrentHashMap.newKeySet();
+
+	private final AtomicBoolean trimming = new AtomicBoolean();
+
+	private volatile long lastTrimTime = System.currentTimeMillis();
+
+	private volatile boolean leakDetection;
+
+	private final ReferenceQueue<Object> leakQueue = new ReferenceQueue<>();
+
+	private final Set<LeakTracker> leakTrackers = ConcurrentHashMap.newKeySet();
+
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory} with default settings.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_POOLED_CAPACITY,
+				DEFAULT_THREAD_CACHE_SIZE, DEFAULT_SHARED_POOL_SIZE);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory} with the given settings.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity used for {@link #allocateBuffer()}
+	 * @param maxPooledCapacity the maximum capacity of pooled buffers, rounded up
+	 * to the next power of two; larger buffers are not pooled
+	 * @param threadCacheSize the number of buffers kept per size class in
+	 * each thread cache, or 0 to disable thread caches
+	 * @param sharedPoolSize the number of buffers kept per size class in the
+	 * pool shared across threads
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity,
+			int maxPooledCapacity, int threadCacheSize, int sharedPoolSize) {
+
+		Assert.isTrue(defaultInitialCapacity > 0, "'defaultInitialCapacity' should be larger than 0");
+		Assert.isTrue(maxPooledCapacity >= MIN_POOLED_CAPACITY,
+				"'maxPooledCapacity' should be at least " + MIN_POOLED_CAPACITY);
+		Assert.isTrue(maxPooledCapacity <= (1 << 30), "'maxPooledCapacity' should be at most 2^30");
+		Assert.isTrue(threadCacheSize >= 0, "'threadCacheSize' should not be negative");
+		Assert.isTrue(sharedPoolSize >= 0, "'sharedPoolSize' should not be negative");
+
+		this.unpooledFactory = new DefaultDataBufferFactory(preferDirect, defaultInitialCapacity);
+		this.preferDirect = preferDirect;
+		this.defaultInitialCapacity = defaultInitialCapacity;
+		int sizeClassCount = sizeClass(maxPooledCapacity) + 1;
+		this.maxPooledCapacity = MIN_POOLED_CAPACITY << (sizeClassCount - 1);
+		this.threadCacheSize = threadCacheSize;
+		this.sharedPools = new SharedPool[sizeClassCount];
+		for (int i = 0; i < sizeClassCount; i++) {
+			this.sharedPools[i] = new SharedPool(sharedPoolSize);
+		}
+		this.threadCaches = ThreadLocal.withInitial(() -> {
+			ThreadCache threadCache = new ThreadCache(Thread.currentThread(), sizeClassCount);
+			this.threadCacheRegistry.add(threadCache);
+			return threadCache;
+		});
+	}
+
+
+	/**
+	 * Enable or disable leak detection, i.e. whether to record the allocation
+	 * site of each buffer, and to log it at error level when the buffer is
+	 * garbage collected without having been released.
+	 * <p>By default this is set to {@code false}.
+	 */
+	public void setLeakDetection(boolean leakDetection) {
+		this.leakDetection = leakDetection;
+	}
+
+	/**
+	 * Return whether {@linkplain #setLeakDetection(boolean) leak detection}
+	 * is enabled.
+	 */
+	public boolean isLeakDetection() {
+		return this.leakDetection;
+	}
+
+	/**
+	 * Return the maximum capacity of pooled buffers.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Drain the caches of threads that have terminated, or that have not
+	 * used their cache since the previous trim, into the shared pool.
+	 * <p>This is done automatically at most every 10 seconds while buffers
+	 * are being allocated, but may also be called explicitly, e.g. from a
+	 * scheduled task, to release memory held by idle threads.
+	 */
+	public void trimThreadCaches() {
+		if (!this.trimming.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.lastTrimTime = System.currentTimeMillis();
+			for (ThreadCache threadCache : this.threadCacheRegistry) {
+				if (!threadCache.isOwnerAlive()) {
+					this.threadCacheRegistry.remove(threadCache);
+					threadCache.drainTo(this.sharedPools);
+				}
+				else if (!threadCache.checkAndResetUsed()) {
+					threadCache.drainTo(this.sharedPools);
+				}
+			}
+		}
+		finally {
+			this.trimming.set(false);
+		}
+	}
+
+
+	@Override
+	public PooledDataBuffer allocateBuffer() {
+		return allocateBuffer(this.defaultInitialCapacity);
+	}
+
+	@Override
+	public PooledDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		Memory memory;
+		if (initialCapacity <= this.maxPooledCapacity) {
+			int sizeClass = sizeClass(initialCapacity);
+			memory = new Memory(acquire(sizeClass), sizeClass);
+		}
+		else {
+			memory = new Memory(allocate(initialCapacity), -1);
+		}
+		if (this.leakDetection) {
+			reportLeaks();
+			memory.tracker = new LeakTracker(memory);
+		}
+		ByteBuffer byteBuffer = memory.byteBuffer.duplicate();
+		byteBuffer.clear().limit(initialCapacity);
+		return new PooledDefaultDataBuffer(this, memory,
+				DefaultDataBuffer.fromEmptyByteBuffer(this.unpooledFactory, byteBuffer));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The given memory is not owned by this factory, so the resulting
+	 * buffer is not pooled.
+	 */
+	@Override
+	public DataBuffer wrap(ByteBuffer byteBuffer) {
+		return this.unpooledFactory.wrap(byteBuffer);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The given memory is not owned by this factory, so the resulting
+	 * buffer is not pooled.
+	 */
+	@Override
+	public DataBuffer wrap(byte[] bytes) {
+		return this.unpooledFactory.wrap(bytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>This implementation allocates a single pooled buffer to contain the
+	 * data in {@code dataBuffers}, and releases the given buffers.
+	 */
+	@Override
+	public DataBuffer join(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		int capacity = dataBuffers.stream().mapToInt(DataBuffer::readableByteCount).sum();
+		DataBuffer result = allocateBuffer(capacity);
+		dataBuffers.forEach(result::write);
+		dataBuffers.forEach(DataBufferUtils::release);
+		return result;
+	}
+
+
+	private static int sizeClass(int capacity) {
+		if (capacity <= MIN_POOLED_CAPACITY) {
+			return 0;
+		}
+		return (32 - Integer.numberOfLeadingZeros(capacity - 1)) -
+				(32 - Integer.numberOfLeadingZeros(MIN_POOLED_CAPACITY - 1));
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private ByteBuffer acquire(int sizeClass) {
+		ByteBuffer byteBuffer = null;
+		if (this.threadCacheSize > 0) {
+			ThreadCache threadCache = this.threadCaches.get();
+			byteBuffer = threadCache.poll(sizeClass);
+			if (threadCache.isTrimCheckDue() && System.currentTimeMillis() - this.lastTrimTime >= TRIM_INTERVAL) {
+				trimThreadCaches();
+			}
+		}
+		if (byteBuffer == null) {
+			byteBuffer = this.sharedPools[sizeClass].poll();
+		}
+		if (byteBuffer == null) {
+			byteBuffer = allocate(MIN_POOLED_CAPACITY << sizeClass);
+		}
+		return byteBuffer;
+	}
+
+	private void recycle(Memory memory) {
+		LeakTracker tracker = memory.tracker;
+		if (tracker != null) {
+			tracker.close();
+		}
+		int sizeClass = memory.sizeClass;
+		if (sizeClass < 0) {
+			return;
+		}
+		ByteBuffer byteBuffer = memory.byteBuffer;
+		byteBuffer.clear();
+		if (this.threadCacheSize > 0 && this.threadCaches.get().offer(sizeClass, byteBuffer, this.threadCacheSize)) {
+			return;
+		}
+		this.sharedPools[sizeClass].offer(byteBuffer);
+	}
+
+	private void reportLeaks() {
+		Reference<?> reference;
+		while ((reference = this.leakQueue.poll()) != null) {
+			if (this.leakTrackers.remove(reference)) {
+				logger.error("DataBuffer was garbage collected without having been released; " +
+						"see the stack trace for where it was allocated", ((LeakTracker) reference).allocationSite);
+			}
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ")";
+	}
+
+
+	/**
+	 * Pooled memory shared by a buffer and its slices, holding their
+	 * common reference count.
+	 */
+	private final class Memory {
+
+		private final ByteBuffer byteBuffer;
+
+		private final int sizeClass;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		@Nullable
+		private LeakTracker tracker;
+
+		Memory(ByteBuffer byteBuffer, int sizeClass) {
+			this.byteBuffer = byteBuffer;
+			this.sizeClass = sizeClass;
+		}
+
+		boolean isAllocated() {
+			return (this.refCount.get() > 0);
+		}
+
+		void retain() {
+			int count;
+			do {
+				count = this.refCount.get();
+				if (count <= 0) {
+					throw new IllegalStateException("Buffer has already been released");
+				}
+			}
+			while (!this.refCount.compareAndSet(count, count + 1));
+		}
+
+		boolean release() {
+			int count;
+			do {
+				count = this.refCount.get();
+				if (count <= 0) {
+					throw new IllegalStateException("Buffer has already been released");
+				}
+			}
+			while (!this.refCount.compareAndSet(count, count - 1));
+			if (count == 1) {
+				recycle(this);
+				return true;
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Bounded pool of released memory for a single size class, shared
+	 * across threads.
+	 */
+	private static final class SharedPool {
+
+		private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger size = new AtomicInteger();
+
+		private final int maxSize;
+
+		SharedPool(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		@Nullable
+		ByteBuffer poll() {
+			ByteBuffer byteBuffer = this.queue.poll();
+			if (byteBuffer != null) {
+				this.size.decrementAndGet();
+			}
+			return byteBuffer;
+		}
+
+		void offer(ByteBuffer byteBuffer) {
+			if (this.size.incrementAndGet() <= this.maxSize) {
+				this.queue.offer(byteBuffer);
+			}
+			else {
+				this.size.decrementAndGet();
+			}
+		}
+	}
+
+
+	/**
+	 * Released memory cached for a single thread. Only the owning thread
+	 * adds and takes buffers, while a trim may drain them from any thread.
+	 */
+	private static final class ThreadCache {
+
+		private final WeakReference<Thread> owner;
+
+		private final Deque<ByteBuffer>[] queues;
+
+		private int allocationCount;
+
+		private volatile boolean used = true;
+
+		@SuppressWarnings("unchecked")
+		ThreadCache(Thread owner, int sizeClassCount) {
+			this.owner = new WeakReference<>(owner);
+			this.queues = (Deque<ByteBuffer>[]) new Deque<?>[sizeClassCount];
+			for (int i = 0; i < sizeClassCount; i++) {
+				this.queues[i] = new ConcurrentLinkedDeque<>();
+			}
+		}
+
+		@Nullable
+		ByteBuffer poll(int sizeClass) {
+			this.used = true;
+			return this.queues[sizeClass].pollFirst();
+		}
+
+		boolean offer(int sizeClass, ByteBuffer byteBuffer, int maxSize) {
+			this.used = true;
+			Deque<ByteBuffer> queue = this.queues[sizeClass];
+			if (queue.size() < maxSize) {
+				queue.offerFirst(byteBuffer);
+				return true;
+			}
+			return false;
+		}
+
+		boolean isTrimCheckDue() {
+			return (++this.allocationCount % TRIM_CHECK_INTERVAL == 0);
+		}
+
+		boolean isOwnerAlive() {
+			Thread thread = this.owner.get();
+			return (thread != null && thread.isAlive());
+		}
+
+		boolean checkAndResetUsed() {
+			boolean wasUsed = this.used;
+			this.used = false;
+			return wasUsed;
+		}
+
+		void drainTo(SharedPool[] sharedPools) {
+			for (int i = 0; i < this.queues.length; i++) {
+				ByteBuffer byteBuffer;
+				while ((byteBuffer = this.queues[i].pollLast()) != null) {
+					sharedPools[i].offer(byteBuffer);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Records the allocation site of a buffer, and is enqueued once the
+	 * memory of that buffer is no longer reachable.
+	 */
+	private final class LeakTracker extends PhantomReference<Object> {
+
+		private final Throwable allocationSite = new Throwable("DataBuffer allocation site");
+
+		LeakTracker(Memory memory) {
+			super(memory, leakQueue);
+			leakTrackers.add(this);
+		}
+
+		void close() {
+			leakTrackers.remove(this);
+			clear();
+		}
+	}
+
+
+	/**
+	 * {@link PooledDataBuffer} that delegates to a {@link DefaultDataBuffer}
+	 * based on pooled memory. Slices share the reference count of the buffer
+	 * they were created from.
+	 */
+	private static final class PooledDefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDataBufferFactory factory;
+
+		private final Memory memory;
+
+		private final DataBuffer delegate;
+
+		PooledDefaultDataBuffer(PooledDataBufferFactory factory, Memory memory, DataBuffer delegate) {
+			this.factory = factory;
+			this.memory = memory;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public PooledDataBufferFactory factory() {
+			return this.factory;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.memory.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.memory.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.memory.release();
+		}
+
+		@Override
+		public int indexOf(IntPredicate predicate, int fromIndex) {
+			checkAllocated();
+			return this.delegate.indexOf(predicate, fromIndex);
+		}
+
+		@Override
+		public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+			checkAllocated();
+			return this.delegate.lastIndexOf(predicate, fromIndex);
+		}
+
+		@Override
+		public int readableByteCount() {
+			return this.delegate.readableByteCount();
+		}
+
+		@Override
+		public int writableByteCount() {
+			return this.delegate.writableByteCount();
+		}
+
+		@Override
+		public int capacity() {
+			return this.delegate.capacity();
+		}
+
+		@Override
+		public PooledDataBuffer capacity(int capacity) {
+			checkAllocated();
+			this.delegate.capacity(capacity);
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer ensureCapacity(int capacity) {
+			checkAllocated();
+			this.delegate.ensureCapacity(capacity);
+			return this;
+		}
+
+		@Override
+		public int readPosition() {
+			return this.delegate.readPosition();
+		}
+
+		@Override
+		public PooledDataBuffer readPosition(int readPosition) {
+			this.delegate.readPosition(readPosition);
+			return this;
+		}
+
+		@Override
+		public int writePosition() {
+			return this.delegate.writePosition();
+		}
+
+		@Override
+		public PooledDataBuffer writePosition(int writePosition) {
+			this.delegate.writePosition(writePosition);
+			return this;
+		}
+
+		@Override
+		public byte getByte(int index) {
+			checkAllocated();
+			return this.delegate.getByte(index);
+		}
+
+		@Override
+		public byte read() {
+			checkAllocated();
+			return this.delegate.read();
+		}
+
+		@Override
+		public PooledDataBuffer read(byte[] destination) {
+			checkAllocated();
+			this.delegate.read(destination);
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer read(byte[] destination, int offset, int length) {
+			checkAllocated();
+			this.delegate.read(destination, offset, length);
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer write(byte b) {
+			checkAllocated();
+			this.delegate.write(b);
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer write(byte[] source) {
+			checkAllocated();
+			this.delegate.write(source);
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer write(byte[] source, int offset, int length) {
+			checkAllocated();
+			this.delegate.write(source, offset, length);
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer write(DataBuffer... buffers) {
+			checkAllocated();
+			this.delegate.write(buffers);
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer write(ByteBuffer... buffers) {
+			checkAllocated();
+			this.delegate.write(buffers);
+			return this;
+		}
+
+		@Override
+		public PooledDataBuffer slice(int index, int length) {
+			checkAllocated();
+			return new PooledDefaultDataBuffer(this.factory, this.memory, this.delegate.slice(index, length));
+		}
+
+		@Override
+		public PooledDataBuffer retainedSlice(int index, int length) {
+			PooledDataBuffer slice = slice(index, length);
+			this.memory.retain();
+			return slice;
+		}
+
+		@Override
+		public ByteBuffer asByteBuffer() {
+			checkAllocated();
+			return this.delegate.asByteBuffer();
+		}
+
+		@Override
+		public ByteBuffer asByteBuffer(int index, int length) {
+			checkAllocated();
+			return this.delegate.asByteBuffer(index, length);
+		}
+
+		@Override
+		public InputStream asInputStream() {
+			checkAllocated();
+			return this.delegate.asInputStream();
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			checkAllocated();
+			InputStream inputStream = this.delegate.asInputStream();
+			if (!releaseOnClose) {
+				return inputStream;
+			}
+			return new FilterInputStream(inputStream) {
+				private boolean closed;
+				@Override
+				public void close() throws IOException {
+					if (!this.closed) {
+						this.closed = true;
+						release();
+					}
+				}
+			};
+		}
+
+		@Override
+		public OutputStream asOutputStream() {
+			checkAllocated();
+			return this.delegate.asOutputStream();
+		}
+
+		@Override
+		public String toString(int index, int length, Charset charset) {
+			checkAllocated();
+			return this.delegate.toString(index, length, charset);
+		}
+
+		private void checkAllocated() {
+			if (!this.memory.isAllocated()) {
+				throw new IllegalStateException("Buffer has already been released");
+			}
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			return (this == other || (other instanceof PooledDefaultDataBuffer &&
+					this.delegate.equals(((PooledDefaultDataBuffer) other).delegate)));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.delegate.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("PooledDataBuffer (r: %d, w: %d, c: %d)",
+					readPosition(), writePosition(), capacity());
+		}
+	}
+
+}
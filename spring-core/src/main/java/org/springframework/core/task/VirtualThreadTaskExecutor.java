@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * A {@link SimpleAsyncTaskExecutor} variant which fires up a new virtual
+ * thread for each task, on a JDK that supports virtual threads (JDK 21+).
+ * Since virtual threads are cheap to create and do not pin a platform
+ * thread while blocked on I/O, this is a good fit for offloading blocking
+ * work without having to size a thread pool.
+ *
+ * <p>The JDK API is accessed reflectively, so this class can be used with
+ * the JDK 8 baseline: check {@link #isSupported()} before instantiating it.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+@SuppressWarnings("serial")
+public class VirtualThreadTaskExecutor extends SimpleAsyncTaskExecutor {
+
+	@Nullable
+	private static final Method ofVirtualMethod;
+
+	@Nullable
+	private static final Method nameMethod;
+
+	@Nullable
+	private static final Method factoryMethod;
+
+	static {
+		Method ofVirtual = ClassUtils.getMethodIfAvailable(Thread.class, "ofVirtual");
+		Method name = null;
+		Method factory = null;
+		if (ofVirtual != null) {
+			try {
+				Class<?> builderClass = ClassUtils.forName("java.lang.Thread$Builder", Thread.class.getClassLoader());
+				name = builderClass.getMethod("name", String.class, long.class);
+				factory = builderClass.getMethod("factory");
+			}
+			catch (Throwable ex) {
+				ofVirtual = null;
+			}
+		}
+		ofVirtualMethod = ofVirtual;
+		nameMethod = name;
+		factoryMethod = factory;
+	}
+
+
+	/**
+	 * Create a new {@code VirtualThreadTaskExecutor} with a default thread name prefix.
+	 * @throws IllegalStateException if virtual threads are not supported
+	 */
+	public VirtualThreadTaskExecutor() {
+		this("virtual-");
+	}
+
+	/**
+	 * Create a new {@code VirtualThreadTaskExecutor} with the given thread name prefix.
+	 * @param threadNamePrefix the prefix for the names of newly created virtual threads
+	 * @throws IllegalStateException if virtual threads are not supported
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		super(threadNamePrefix);
+		setThreadFactory(virtualThreadFactory(threadNamePrefix));
+	}
+
+
+	/**
+	 * Whether the current JDK supports virtual threads.
+	 */
+	public static boolean isSupported() {
+		return (ofVirtualMethod != null);
+	}
+
+	private static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+		if (ofVirtualMethod == null || nameMethod == null || factoryMethod == null) {
+			throw new IllegalStateException("Virtual threads not supported on this JDK");
+		}
+		Object builder = ReflectionUtils.invokeMethod(ofVirtualMethod, null);
+		builder = ReflectionUtils.invokeMethod(nameMethod, builder, threadNamePrefix, 0L);
+		ThreadFactory factory = (ThreadFactory) ReflectionUtils.invokeMethod(factoryMethod, builder);
+		if (factory == null) {
+			throw new IllegalStateException("No virtual thread factory returned by " + builder);
+		}
+		return factory;
+	}
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Limits concurrent access to a resource like {@link ConcurrencyThrottleSupport},
+ * but rejects excess attempts immediately instead of blocking, and adapts the
+ * limit to the observed latency through a {@link LimitAlgorithm}.
+ *
+ * <p>Callers {@link #tryAcquire() acquire} a {@link Permit} before accessing
+ * the resource, and {@link Permit#release() release} it once done, which
+ * feeds the latency of the access back into the algorithm.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see #aimd(int, int, Duration)
+ * @see #gradient(int, int)
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private final LimitAlgorithm algorithm;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private volatile int limit;
+
+
+	/**
+	 * Create a limiter with a {@link #gradient(int, int) gradient} algorithm
+	 * between 1 and 1000, and an initial limit of 20.
+	 */
+	public AdaptiveConcurrencyLimiter() {
+		this(gradient(1, 1000), 20);
+	}
+
+	/**
+	 * Create a limiter with the given algorithm and initial limit.
+	 * @param algorithm the algorithm to adapt the limit with; not to be
+	 * shared with other limiters
+	 * @param initialLimit the limit to start with
+	 */
+	public AdaptiveConcurrencyLimiter(LimitAlgorithm algorithm, int initialLimit) {
+		Assert.notNull(algorithm, "LimitAlgorithm must not be null");
+		Assert.isTrue(initialLimit > 0, "Initial limit must be positive");
+		this.algorithm = algorithm;
+		this.limit = initialLimit;
+	}
+
+
+	/**
+	 * Try to acquire a permit for an access.
+	 * @return the permit to release once the access completes, or
+	 * {@code null} if the limit has been reached
+	 */
+	@Nullable
+	public Permit tryAcquire() {
+		int current;
+		do {
+			current = this.inFlight.get();
+			if (current >= this.limit) {
+				this.rejectedCount.incrementAndGet();
+				return null;
+			}
+		}
+		while (!this.inFlight.compareAndSet(current, current + 1));
+		return new Permit(current + 1);
+	}
+
+	/**
+	 * Return the current limit.
+	 */
+	public int getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * Return the number of permits currently acquired.
+	 */
+	public int getInFlight() {
+		return this.inFlight.get();
+	}
+
+	/**
+	 * Return the number of rejected attempts so far.
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	private void release(Permit permit, boolean dropped) {
+		long latency = System.nanoTime() - permit.startTime;
+		this.inFlight.decrementAndGet();
+		synchronized (this.algorithm) {
+			this.limit = Math.max(1, this.algorithm.update(this.limit, permit.inFlight, latency, dropped));
+		}
+	}
+
+
+	/**
+	 * Return an additive increase, multiplicative decrease algorithm that
+	 * grows the limit by one after each access that completed within the
+	 * given timeout while the limit was being used, and shrinks it by 10%
+	 * after each dropped or timed out access.
+	 * @param minLimit the lower bound for the limit
+	 * @param maxLimit the upper bound for the limit
+	 * @param timeout the latency beyond which an access counts as timed out
+	 */
+	public static LimitAlgorithm aimd(int minLimit, int maxLimit, Duration timeout) {
+		Assert.isTrue(minLimit > 0 && minLimit <= maxLimit, "Invalid limit bounds");
+		long timeoutNanos = timeout.toNanos();
+		return (limit, inFlight, latencyNanos, dropped) -> {
+			if (dropped || latencyNanos > timeoutNanos) {
+				return Math.max(minLimit, (int) (limit * 0.9));
+			}
+			if (inFlight * 2 >= limit) {
+				return Math.min(maxLimit, limit + 1);
+			}
+			return limit;
+		};
+	}
+
+	/**
+	 * Return an algorithm that compares each latency with a long-term
+	 * average: the limit grows by a queue allowance while the latency stays
+	 * close to the average, and shrinks in proportion as latency rises above
+	 * it, i.e. as requests start to queue.
+	 * @param minLimit the lower bound for the limit
+	 * @param maxLimit the upper bound for the limit
+	 */
+	public static LimitAlgorithm gradient(int minLimit, int maxLimit) {
+		Assert.isTrue(minLimit > 0 && minLimit <= maxLimit, "Invalid limit bounds");
+		return new GradientAlgorithm(minLimit, maxLimit);
+	}
+
+
+	/**
+	 * Strategy to adapt a limit with, invoked after every access.
+	 * Invocations for the same limiter are serialized.
+	 */
+	@FunctionalInterface
+	public interface LimitAlgorithm {
+
+		/**
+		 * Return the new limit.
+		 * @param limit the current limit
+		 * @param inFlight the number of accesses in flight, including this
+		 * one, when this access started
+		 * @param latencyNanos the latency of the access in nanoseconds
+		 * @param dropped whether the access was dropped, e.g. timed out
+		 * @return the limit to use from now on
+		 */
+		int update(int limit, int inFlight, long latencyNanos, boolean dropped);
+	}
+
+
+	/**
+	 * A permit for a single access, to be released exactly once; further
+	 * releases are ignored.
+	 */
+	public final class Permit {
+
+		private final long startTime = System.nanoTime();
+
+		private final int inFlight;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+
+		private Permit(int inFlight) {
+			this.inFlight = inFlight;
+		}
+
+
+		/**
+		 * Release this permit after the access completed.
+		 */
+		public void release() {
+			if (this.released.compareAndSet(false, true)) {
+				AdaptiveConcurrencyLimiter.this.release(this, false);
+			}
+		}
+
+		/**
+		 * Release this permit after the access was dropped, e.g. timed out,
+		 * which makes the limit shrink.
+		 */
+		public void releaseDropped() {
+			if (this.released.compareAndSet(false, true)) {
+				AdaptiveConcurrencyLimiter.this.release(this, true);
+			}
+		}
+	}
+
+
+	private static class GradientAlgorithm implements LimitAlgorithm {
+
+		/** Smoothing of the long-term latency average, over about 600 samples. */
+		private static final double LONG_LATENCY_FACTOR = 2.0 / 601;
+
+		/** How much the limit moves towards a new estimate at a time. */
+		private static final double SMOOTHING = 0.2;
+
+		/** Latency increase tolerated before the limit shrinks. */
+		private static final double TOLERANCE = 1.5;
+
+
+		private final int minLimit;
+
+		private final int maxLimit;
+
+		private double estimatedLimit;
+
+		private double longLatency;
+
+
+		GradientAlgorithm(int minLimit, int maxLimit) {
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+		}
+
+
+		@Override
+		public int update(int limit, int inFlight, long latencyNanos, boolean dropped) {
+			if (this.estimatedLimit == 0) {
+				this.estimatedLimit = limit;
+			}
+			double latency = Math.max(1, latencyNanos);
+			if (this.longLatency == 0) {
+				this.longLatency = latency;
+			}
+			else {
+				this.longLatency += (latency - this.longLatency) * LONG_LATENCY_FACTOR;
+			}
+			if (this.longLatency / latency > 2) {
+				// Recover faster after a period of high latency
+				this.longLatency *= 0.95;
+			}
+			if (!dropped && inFlight < this.estimatedLimit / 2) {
+				// Limit not in use, nothing learned about it
+				return (int) this.estimatedLimit;
+			}
+			double gradient = (dropped ? 0.5 : Math.max(0.5, Math.min(1.0, TOLERANCE * this.longLatency / latency)));
+			double newLimit = this.estimatedLimit * gradient + Math.sqrt(this.estimatedLimit);
+			newLimit = this.estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+			this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+			return (int) this.estimatedLimit;
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.util.StreamUtils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ *
+ * @author agent
+ */
+class CompositeDataBufferTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+
+
+	@Test
+	void readAcrossComponents() {
+		CompositeDataBuffer buffer = composite("foo", "", "bar", "baz");
+		assertThat(buffer.componentCount()).isEqualTo(4);
+		assertThat(buffer.readableByteCount()).isEqualTo(9);
+		assertThat(buffer.getByte(3)).isEqualTo((byte) 'b');
+
+		byte[] bytes = new byte[5];
+		buffer.read(bytes);
+		assertThat(new String(bytes, UTF_8)).isEqualTo("fooba");
+		assertThat(buffer.read()).isEqualTo((byte) 'r');
+		assertThat(buffer.toString(UTF_8)).isEqualTo("baz");
+		release(buffer);
+	}
+
+	@Test
+	void componentReadPosition() {
+		PooledDataBuffer foo = stringBuffer("xxfoo");
+		foo.readPosition(2);
+		CompositeDataBuffer buffer = new CompositeDataBuffer(this.bufferFactory,
+				Arrays.asList(foo, stringBuffer("bar")));
+		assertThat(buffer.toString(UTF_8)).isEqualTo("foobar");
+		release(buffer);
+	}
+
+	@Test
+	void indexOf() {
+		CompositeDataBuffer buffer = composite("foo", "bar", "baz");
+		assertThat(buffer.indexOf(b -> b == 'a', 0)).isEqualTo(4);
+		assertThat(buffer.indexOf(b -> b == 'a', 5)).isEqualTo(7);
+		assertThat(buffer.indexOf(b -> b == 'x', 0)).isEqualTo(-1);
+		assertThat(buffer.lastIndexOf(b -> b == 'a', 8)).isEqualTo(7);
+		assertThat(buffer.lastIndexOf(b -> b == 'a', 6)).isEqualTo(4);
+		assertThat(buffer.lastIndexOf(b -> b == 'o', 0)).isEqualTo(-1);
+		release(buffer);
+	}
+
+	@Test
+	void asByteBuffer() {
+		CompositeDataBuffer buffer = composite("foo", "bar");
+
+		ByteBuffer shared = buffer.asByteBuffer(3, 3);
+		shared.put(0, (byte) 'c');
+		assertThat(buffer.toString(UTF_8)).isEqualTo("foocar");
+
+		ByteBuffer copy = buffer.asByteBuffer(2, 3);
+		byte[] bytes = new byte[3];
+		copy.get(bytes);
+		assertThat(new String(bytes, UTF_8)).isEqualTo("oca");
+		release(buffer);
+	}
+
+	@Test
+	void slice() {
+		CompositeDataBuffer buffer = composite("foo", "bar", "baz");
+		assertThat(buffer.slice(3, 3).toString(UTF_8)).isEqualTo("bar");
+
+		DataBuffer slice = buffer.retainedSlice(2, 5);
+		assertThat(slice).isInstanceOf(CompositeDataBuffer.class);
+		assertThat(slice.toString(UTF_8)).isEqualTo("obarb");
+
+		assertThat(buffer.release()).isTrue();
+		assertThat(release(slice)).isTrue();
+	}
+
+	@Test
+	void writeAddsComponent() {
+		CompositeDataBuffer buffer = composite("foo", "bar");
+		assertThat(buffer.writableByteCount()).isEqualTo(0);
+
+		buffer.write("baz".getBytes(UTF_8)).write((byte) '!');
+		assertThat(buffer.componentCount()).isEqualTo(3);
+		assertThat(buffer.toString(UTF_8)).isEqualTo("foobarbaz!");
+		release(buffer);
+	}
+
+	@Test
+	void asInputStream() throws Exception {
+		CompositeDataBuffer buffer = composite("foo", "bar", "baz");
+		InputStream inputStream = buffer.asInputStream(true);
+		assertThat(StreamUtils.copyToString(inputStream, UTF_8)).isEqualTo("foobarbaz");
+		inputStream.close();
+		assertThat(buffer.isAllocated()).isFalse();
+	}
+
+	@Test
+	void releaseReleasesComponents() {
+		PooledDataBuffer foo = stringBuffer("foo");
+		PooledDataBuffer bar = stringBuffer("bar");
+		CompositeDataBuffer buffer = new CompositeDataBuffer(this.bufferFactory, Arrays.asList(foo, bar));
+
+		buffer.retain();
+		assertThat(buffer.release()).isFalse();
+		assertThat(foo.isAllocated()).isTrue();
+		assertThat(buffer.release()).isTrue();
+		assertThat(foo.isAllocated()).isFalse();
+		assertThat(bar.isAllocated()).isFalse();
+	}
+
+	@Test
+	void joinReturnsComposite() {
+		Flux<DataBuffer> source = Flux.just(stringBuffer("foo"), stringBuffer("bar"));
+		DataBuffer result = DataBufferUtils.join(source).block();
+		assertThat(result).isInstanceOf(CompositeDataBuffer.class);
+		assertThat(result.toString(UTF_8)).isEqualTo("foobar");
+		release(result);
+	}
+
+	@Test
+	void joinDefaultBuffersReturnsNonPooledComposite() {
+		DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+		DataBuffer foo = factory.wrap("foo".getBytes(UTF_8));
+		DataBuffer bar = factory.wrap("bar".getBytes(UTF_8));
+		DataBuffer result = DataBufferUtils.join(Flux.just(foo, bar)).block();
+		assertThat(result).isInstanceOf(CompositeDataBuffer.class);
+		assertThat(result.toString(UTF_8)).isEqualTo("foobar");
+		assertThat(result.asByteBuffer(0, 3).hasArray()).isTrue();
+		assertThat(result.asByteBuffer(0, 3).array()).isSameAs(foo.asByteBuffer().array());
+		assertThat(release(result)).isFalse();
+		assertThat(release(result)).isFalse();
+		assertThat(((PooledDataBuffer) result).isAllocated()).isTrue();
+		assertThat(result.toString(UTF_8)).isEqualTo("foobar");
+	}
+
+
+	private CompositeDataBuffer composite(String... values) {
+		DataBuffer[] buffers = Arrays.stream(values).map(this::stringBuffer).toArray(DataBuffer[]::new);
+		return new CompositeDataBuffer(this.bufferFactory, Arrays.asList(buffers));
+	}
+
+	private PooledDataBuffer stringBuffer(String value) {
+		byte[] bytes = value.getBytes(UTF_8);
+		return this.bufferFactory.allocateBuffer(bytes.length).write(bytes);
+	}
+
+	private static boolean release(DataBuffer buffer) {
+		return DataBufferUtils.release(buffer);
+	}
+
+}
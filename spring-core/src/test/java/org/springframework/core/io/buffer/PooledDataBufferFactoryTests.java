@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ *
+ * @author agent
+ */
+class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory factory = new PooledDataBufferFactory();
+
+
+	@Test
+	void allocateBuffer() {
+		PooledDataBuffer buffer = this.factory.allocateBuffer(300);
+		assertThat(buffer.capacity()).isEqualTo(300);
+		assertThat(buffer.factory()).isSameAs(this.factory);
+		assertThat(buffer.isAllocated()).isTrue();
+		assertThat(buffer.release()).isTrue();
+		assertThat(buffer.isAllocated()).isFalse();
+	}
+
+	@Test
+	void releasedMemoryIsReused() {
+		PooledDataBuffer buffer = this.factory.allocateBuffer(100);
+		buffer.write("foo".getBytes(UTF_8));
+		ByteBuffer memory = buffer.asByteBuffer(0, 1);
+		buffer.release();
+
+		PooledDataBuffer other = this.factory.allocateBuffer(200);
+		assertThat(other.readableByteCount()).isEqualTo(0);
+		other.write((byte) 'b');
+		assertThat(memory.get(0)).isEqualTo((byte) 'b');
+		other.release();
+	}
+
+	@Test
+	void writeReturnsPooledBuffer() {
+		PooledDataBuffer buffer = this.factory.allocateBuffer(8);
+		DataBuffer result = buffer.write("foo", UTF_8).write((byte) '!');
+		assertThat(result).isSameAs(buffer);
+		assertThat(buffer.toString(UTF_8)).isEqualTo("foo!");
+		buffer.release();
+	}
+
+	@Test
+	void slicesShareReferenceCount() {
+		PooledDataBuffer buffer = this.factory.allocateBuffer(8);
+		buffer.write("foobar".getBytes(UTF_8));
+
+		DataBuffer slice = buffer.retainedSlice(3, 3);
+		assertThat(slice).isInstanceOf(PooledDataBuffer.class);
+		assertThat(slice.toString(UTF_8)).isEqualTo("bar");
+
+		assertThat(buffer.release()).isFalse();
+		assertThat(((PooledDataBuffer) slice).isAllocated()).isTrue();
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(buffer.isAllocated()).isFalse();
+		assertThatIllegalStateException().isThrownBy(buffer::release);
+	}
+
+	@Test
+	void accessAfterRelease() {
+		PooledDataBuffer buffer = this.factory.allocateBuffer(8);
+		buffer.write("foo".getBytes(UTF_8));
+		buffer.release();
+
+		assertThatIllegalStateException().isThrownBy(() -> buffer.getByte(0));
+		assertThatIllegalStateException().isThrownBy(buffer::read);
+		assertThatIllegalStateException().isThrownBy(() -> buffer.write((byte) 'a'));
+		assertThatIllegalStateException().isThrownBy(() -> buffer.toString(UTF_8));
+		assertThatIllegalStateException().isThrownBy(buffer::asByteBuffer);
+	}
+
+	@Test
+	void threadCacheDrainedWhenThreadEnds() throws Exception {
+		AtomicReference<ByteBuffer> memory = new AtomicReference<>();
+		Thread thread = new Thread(() -> {
+			PooledDataBuffer buffer = this.factory.allocateBuffer(100);
+			memory.set(buffer.asByteBuffer(0, 1));
+			buffer.release();
+		});
+		thread.start();
+		thread.join();
+
+		this.factory.trimThreadCaches();
+
+		PooledDataBuffer other = this.factory.allocateBuffer(200);
+		other.write((byte) 'b');
+		assertThat(memory.get().get(0)).isEqualTo((byte) 'b');
+		other.release();
+	}
+
+	@Test
+	void idleThreadCacheDrainedOnTrim() throws Exception {
+		PooledDataBuffer buffer = this.factory.allocateBuffer(100);
+		ByteBuffer memory = buffer.asByteBuffer(0, 1);
+		buffer.release();
+
+		this.factory.trimThreadCaches();
+		this.factory.trimThreadCaches();
+
+		AtomicReference<PooledDataBuffer> otherRef = new AtomicReference<>();
+		Thread thread = new Thread(() -> otherRef.set(this.factory.allocateBuffer(200).write((byte) 'b')));
+		thread.start();
+		thread.join();
+		assertThat(memory.get(0)).isEqualTo((byte) 'b');
+		otherRef.get().release();
+	}
+
+	@Test
+	void largeBuffersAreNotPooled() {
+		int capacity = this.factory.getMaxPooledCapacity() + 1;
+		PooledDataBuffer buffer = this.factory.allocateBuffer(capacity);
+		assertThat(buffer.capacity()).isEqualTo(capacity);
+		ByteBuffer memory = buffer.asByteBuffer(0, 1);
+		buffer.release();
+
+		PooledDataBuffer other = this.factory.allocateBuffer(capacity);
+		other.write((byte) 'a');
+		assertThat(memory.get(0)).isEqualTo((byte) 0);
+		other.release();
+	}
+
+	@Test
+	void join() {
+		PooledDataBuffer foo = this.factory.allocateBuffer(3).write("foo".getBytes(UTF_8));
+		DataBuffer bar = this.factory.wrap("bar".getBytes(UTF_8));
+
+		DataBuffer result = this.factory.join(Arrays.asList(foo, bar));
+		assertThat(result.toString(UTF_8)).isEqualTo("foobar");
+		assertThat(foo.isAllocated()).isFalse();
+		assertThat(DataBufferUtils.release(result)).isTrue();
+	}
+
+	@Test
+	void releaseOnClose() throws Exception {
+		PooledDataBuffer buffer = this.factory.allocateBuffer(3).write("foo".getBytes(UTF_8));
+		buffer.asInputStream(true).close();
+		assertThat(buffer.isAllocated()).isFalse();
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for {@link VirtualThreadTaskExecutor}.
+ *
+ * @author agent
+ */
+class VirtualThreadTaskExecutorTests {
+
+	@Test
+	void executeOnVirtualThread() throws Exception {
+		assumeTrue(VirtualThreadTaskExecutor.isSupported());
+
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("test-");
+		Future<String> future = executor.submit(() -> Thread.currentThread().getName());
+		assertThat(future.get()).startsWith("test-");
+	}
+
+	@Test
+	void notSupported() {
+		assumeFalse(VirtualThreadTaskExecutor.isSupported());
+
+		assertThatIllegalStateException().isThrownBy(VirtualThreadTaskExecutor::new);
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimiter}.
+ *
+ * @author agent
+ */
+class AdaptiveConcurrencyLimiterTests {
+
+	@Test
+	void rejectsBeyondLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter((limit, inFlight, latency, dropped) -> limit, 2);
+		AdaptiveConcurrencyLimiter.Permit permit1 = limiter.tryAcquire();
+		AdaptiveConcurrencyLimiter.Permit permit2 = limiter.tryAcquire();
+		assertThat(permit1).isNotNull();
+		assertThat(permit2).isNotNull();
+		assertThat(limiter.tryAcquire()).isNull();
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+		assertThat(limiter.getRejectedCount()).isEqualTo(1);
+
+		permit1.release();
+		permit1.release();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+		assertThat(limiter.tryAcquire()).isNotNull();
+	}
+
+	@Test
+	void aimd() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+				AdaptiveConcurrencyLimiter.aimd(1, 3, Duration.ofMinutes(1)), 2);
+
+		// Limit in use: grows up to the max
+		for (int i = 0; i < 5; i++) {
+			AdaptiveConcurrencyLimiter.Permit permit1 = limiter.tryAcquire();
+			AdaptiveConcurrencyLimiter.Permit permit2 = limiter.tryAcquire();
+			permit1.release();
+			permit2.release();
+		}
+		assertThat(limiter.getLimit()).isEqualTo(3);
+
+		// Dropped: shrinks
+		limiter.tryAcquire().releaseDropped();
+		assertThat(limiter.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void gradientShrinksWhenLatencyRises() {
+		AdaptiveConcurrencyLimiter.LimitAlgorithm algorithm = AdaptiveConcurrencyLimiter.gradient(1, 100);
+		int limit = 20;
+		for (int i = 0; i < 100; i++) {
+			limit = algorithm.update(limit, limit, 1_000_000, false);
+		}
+		int steadyLimit = limit;
+		assertThat(steadyLimit).isGreaterThan(20);
+
+		for (int i = 0; i < 10; i++) {
+			limit = algorithm.update(limit, limit, 10_000_000, false);
+		}
+		assertThat(limit).isLessThan(steadyLimit);
+	}
+
+	@Test
+	void gradientDoesNotGrowWhenLimitNotInUse() {
+		AdaptiveConcurrencyLimiter.LimitAlgorithm algorithm = AdaptiveConcurrencyLimiter.gradient(1, 100);
+		int limit = 20;
+		for (int i = 0; i < 100; i++) {
+			limit = algorithm.update(limit, 1, 1_000_000, false);
+		}
+		assertThat(limit).isEqualTo(20);
+	}
+
+}
@@ -0,0 +1,472 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link BeanPropertyRowMapper} variant that resolves the mapping for a given
+ * set of result columns once, on the first row of a result set, and then
+ * applies that mapping plan to every row without further meta-data access,
+ * name lookups or {@link org.springframework.beans.BeanWrapper} creation.
+ *
+ * <p>A mapping plan binds each column index to a typed {@link ResultSet}
+ * getter (e.g. {@code getLong} or {@code getString}, as appropriate for the
+ * target property) and to the property's write method. Plans are cached
+ * per mapped class and column signature across all mapper instances, so
+ * repeated queries with the same select list share the same plan, even
+ * with a new mapper per query.
+ *
+ * <p>Like a data class mapper, this mapper also supports constructor binding:
+ * if the mapped class declares a Kotlin primary constructor, or a single public
+ * constructor with arguments, column values are passed to that constructor
+ * by parameter name, with any remaining columns bound to writable properties.
+ * Parameter names need to be discoverable, e.g. through compiling with
+ * {@code -parameters}.
+ *
+ * <p>Type conversion for values that do not match the target type directly
+ * is performed through the configured {@link #setConversionService
+ * ConversionService} only; {@link #initBeanWrapper} is not called, since no
+ * {@code BeanWrapper} is involved.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @param <T> the result type
+ */
+public class CompiledBeanPropertyRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	private static final int PLAN_CACHE_SIZE = 256;
+
+	private static final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+	/** Mapper with default column naming, used to create shared plans. */
+	private static final CompiledBeanPropertyRowMapper<?> defaultMapper = new CompiledBeanPropertyRowMapper<>();
+
+	private static final ConcurrentLruCache<PlanKey, MappingPlan> planCache = new ConcurrentLruCache<>(
+			PLAN_CACHE_SIZE, key -> defaultMapper.createMappingPlan(key.mappedClass, key.columns));
+
+
+	/** Whether a subclass overrides {@link #getColumnValue}. */
+	private final boolean customColumnValue = isOverridden("getColumnValue",
+			ResultSet.class, int.class, PropertyDescriptor.class);
+
+	/** Whether a subclass overrides {@link #lowerCaseName} or {@link #underscoreName}. */
+	private final boolean customNaming = (isOverridden("lowerCaseName", String.class) ||
+			isOverridden("underscoreName", String.class));
+
+	/** The plans for the result sets currently mapped by this mapper. */
+	private final Map<ResultSet, MappingPlan> resultSetPlans =
+			new ConcurrentReferenceHashMap<>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+
+	/**
+	 * Create a new {@code CompiledBeanPropertyRowMapper} for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setCheckFullyPopulated
+	 */
+	public CompiledBeanPropertyRowMapper() {
+	}
+
+	/**
+	 * Create a new {@code CompiledBeanPropertyRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public CompiledBeanPropertyRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+
+	/**
+	 * Map the current row, using the mapping plan for the columns of the
+	 * given result set, as resolved once for that result set. Result sets
+	 * are only weakly referenced, so that a shared mapper can be used for
+	 * concurrent queries without retaining them.
+	 */
+	@Override
+	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		MappingPlan plan = this.resultSetPlans.get(rs);
+		if (plan == null) {
+			plan = resolveMappingPlan(rs);
+			this.resultSetPlans.put(rs, plan);
+		}
+		return plan.mapRow(this, rs, rowNumber);
+	}
+
+	private MappingPlan resolveMappingPlan(ResultSet rs) throws SQLException {
+		Class<T> mappedClass = getMappedClass();
+		Assert.state(mappedClass != null, "Mapped class was not specified");
+		List<String> columns = getColumnNames(rs.getMetaData());
+		// Plans depend on the column naming, so only share those for the default naming
+		MappingPlan plan = (this.customNaming ? createMappingPlan(mappedClass, columns) :
+				planCache.get(new PlanKey(mappedClass, columns)));
+		if (isCheckFullyPopulated() && !plan.fullyPopulated) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of " + mappedClass + ": " + plan.mappedProperties);
+		}
+		if (logger.isDebugEnabled()) {
+			for (ColumnBinding binding : plan.propertyBindings) {
+				logger.debug("Mapping column '" + binding.column + "' to property '" + binding.name +
+						"' of type '" + ClassUtils.getQualifiedName(binding.type) + "'");
+			}
+		}
+		return plan;
+	}
+
+	private boolean isOverridden(String methodName, Class<?>... paramTypes) {
+		Method method = ReflectionUtils.findMethod(getClass(), methodName, paramTypes);
+		return (method != null && method.getDeclaringClass() != BeanPropertyRowMapper.class);
+	}
+
+	private static List<String> getColumnNames(ResultSetMetaData rsmd) throws SQLException {
+		int columnCount = rsmd.getColumnCount();
+		List<String> columns = new ArrayList<>(columnCount);
+		for (int index = 1; index <= columnCount; index++) {
+			columns.add(JdbcUtils.lookupColumnName(rsmd, index));
+		}
+		return columns;
+	}
+
+	private MappingPlan createMappingPlan(Class<?> mappedClass, List<String> columns) {
+		Map<String, Integer> columnIndexes = new HashMap<>();
+		for (int i = 0; i < columns.size(); i++) {
+			columnIndexes.putIfAbsent(lowerCaseName(StringUtils.delete(columns.get(i), " ")), i + 1);
+		}
+
+		Set<String> mappedProperties = new HashSet<>();
+		Set<String> boundProperties = new HashSet<>();
+		Constructor<?> constructor = determineConstructor(mappedClass);
+		ColumnBinding[] constructorBindings = new ColumnBinding[constructor.getParameterCount()];
+		if (constructorBindings.length > 0) {
+			String[] paramNames = parameterNameDiscoverer.getParameterNames(constructor);
+			if (paramNames == null) {
+				throw new InvalidDataAccessApiUsageException("Cannot resolve parameter names for constructor " +
+						constructor + ": compile with '-parameters' or use a default constructor");
+			}
+			Class<?>[] paramTypes = constructor.getParameterTypes();
+			for (int i = 0; i < paramNames.length; i++) {
+				Integer index = findColumnIndex(columnIndexes, paramNames[i]);
+				constructorBindings[i] = new ColumnBinding((index != null ? index : 0),
+						(index != null ? columns.get(index - 1) : null), paramNames[i], paramTypes[i], null, null);
+				mappedProperties.add(paramNames[i]);
+				if (index != null) {
+					boundProperties.add(paramNames[i]);
+				}
+			}
+		}
+
+		List<ColumnBinding> propertyBindings = new ArrayList<>();
+		for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(mappedClass)) {
+			Method writeMethod = pd.getWriteMethod();
+			if (writeMethod == null) {
+				continue;
+			}
+			mappedProperties.add(pd.getName());
+			if (boundProperties.contains(pd.getName())) {
+				continue;
+			}
+			Integer index = findColumnIndex(columnIndexes, pd.getName());
+			if (index != null) {
+				ReflectionUtils.makeAccessible(writeMethod);
+				propertyBindings.add(new ColumnBinding(index, columns.get(index - 1),
+						pd.getName(), pd.getPropertyType(), pd, writeMethod));
+				boundProperties.add(pd.getName());
+			}
+		}
+
+		return new MappingPlan(constructor, constructorBindings, propertyBindings.toArray(new ColumnBinding[0]),
+				mappedProperties, boundProperties.containsAll(mappedProperties));
+	}
+
+	@Nullable
+	private Integer findColumnIndex(Map<String, Integer> columnIndexes, String name) {
+		Integer index = columnIndexes.get(lowerCaseName(name));
+		if (index == null) {
+			index = columnIndexes.get(underscoreName(name));
+		}
+		return index;
+	}
+
+	/**
+	 * Determine the constructor to bind column values to: a Kotlin primary
+	 * constructor, a single public constructor, or the default constructor.
+	 */
+	private static Constructor<?> determineConstructor(Class<?> mappedClass) {
+		Constructor<?> constructor = BeanUtils.findPrimaryConstructor(mappedClass);
+		if (constructor == null) {
+			Constructor<?>[] candidates = mappedClass.getConstructors();
+			if (candidates.length == 1) {
+				constructor = candidates[0];
+			}
+			else {
+				try {
+					constructor = ReflectionUtils.accessibleConstructor(mappedClass);
+				}
+				catch (NoSuchMethodException ex) {
+					throw new InvalidDataAccessApiUsageException("No default constructor and no unique " +
+							"public constructor found in " + mappedClass);
+				}
+			}
+		}
+		ReflectionUtils.makeAccessible(constructor);
+		return constructor;
+	}
+
+	/**
+	 * Convert the given column value to the target type, if necessary.
+	 */
+	@Nullable
+	private Object convertIfNecessary(@Nullable Object value, Class<?> targetType) {
+		if (value == null || ClassUtils.isAssignableValue(targetType, value)) {
+			return value;
+		}
+		ConversionService conversionService = getConversionService();
+		if (conversionService != null && conversionService.canConvert(value.getClass(), targetType)) {
+			return conversionService.convert(value, targetType);
+		}
+		throw new TypeMismatchException(value, targetType);
+	}
+
+	/**
+	 * Return a reader calling the typed {@link ResultSet} getter for the given
+	 * target type, or falling back on {@link JdbcUtils#getResultSetValue}.
+	 */
+	private static ColumnReader getColumnReader(Class<?> type) {
+		if (String.class == type) {
+			return ResultSet::getString;
+		}
+		else if (long.class == type || Long.class == type) {
+			return (rs, index) -> {
+				long value = rs.getLong(index);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (int.class == type || Integer.class == type) {
+			return (rs, index) -> {
+				int value = rs.getInt(index);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (boolean.class == type || Boolean.class == type) {
+			return (rs, index) -> {
+				boolean value = rs.getBoolean(index);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (double.class == type || Double.class == type) {
+			return (rs, index) -> {
+				double value = rs.getDouble(index);
+				return (rs.wasNull() ? null : value);
+			};
+		}
+		else if (BigDecimal.class == type) {
+			return ResultSet::getBigDecimal;
+		}
+		else {
+			return (rs, index) -> JdbcUtils.getResultSetValue(rs, index, type);
+		}
+	}
+
+	private static Object getDefaultValue(Class<?> primitiveType) {
+		return Array.get(Array.newInstance(primitiveType, 1), 0);
+	}
+
+	/**
+	 * Static factory method to create a new {@code CompiledBeanPropertyRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> CompiledBeanPropertyRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new CompiledBeanPropertyRowMapper<>(mappedClass);
+	}
+
+
+	/**
+	 * Strategy for reading a typed column value from a result set.
+	 */
+	@FunctionalInterface
+	private interface ColumnReader {
+
+		@Nullable
+		Object read(ResultSet rs, int index) throws SQLException;
+	}
+
+
+	/**
+	 * Binding of a column index to a constructor parameter or to a property.
+	 */
+	private static final class ColumnBinding {
+
+		/** The 1-based column index, or 0 if there is no matching column. */
+		final int index;
+
+		@Nullable
+		final String column;
+
+		final String name;
+
+		final Class<?> type;
+
+		@Nullable
+		final PropertyDescriptor propertyDescriptor;
+
+		@Nullable
+		final Method writeMethod;
+
+		final ColumnReader reader;
+
+		ColumnBinding(int index, @Nullable String column, String name, Class<?> type,
+				@Nullable PropertyDescriptor propertyDescriptor, @Nullable Method writeMethod) {
+
+			this.index = index;
+			this.column = column;
+			this.name = name;
+			this.type = type;
+			this.propertyDescriptor = propertyDescriptor;
+			this.writeMethod = writeMethod;
+			this.reader = getColumnReader(type);
+		}
+	}
+
+
+	/**
+	 * Cache key for a mapping plan: the mapped class and the column labels.
+	 */
+	private static final class PlanKey {
+
+		final Class<?> mappedClass;
+
+		final List<String> columns;
+
+		PlanKey(Class<?> mappedClass, List<String> columns) {
+			this.mappedClass = mappedClass;
+			this.columns = columns;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof PlanKey)) {
+				return false;
+			}
+			PlanKey otherKey = (PlanKey) other;
+			return (this.mappedClass == otherKey.mappedClass && this.columns.equals(otherKey.columns));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.mappedClass.hashCode() * 31 + this.columns.hashCode();
+		}
+	}
+
+
+	/**
+	 * Resolved mapping for a given mapped class and column signature,
+	 * independent of the settings of a specific mapper instance.
+	 */
+	private static final class MappingPlan {
+
+		private final Constructor<?> constructor;
+
+		private final ColumnBinding[] constructorBindings;
+
+		final ColumnBinding[] propertyBindings;
+
+		final Set<String> mappedProperties;
+
+		final boolean fullyPopulated;
+
+		MappingPlan(Constructor<?> constructor, ColumnBinding[] constructorBindings,
+				ColumnBinding[] propertyBindings, Set<String> mappedProperties, boolean fullyPopulated) {
+
+			this.constructor = constructor;
+			this.constructorBindings = constructorBindings;
+			this.propertyBindings = propertyBindings;
+			this.mappedProperties = mappedProperties;
+			this.fullyPopulated = fullyPopulated;
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> T mapRow(CompiledBeanPropertyRowMapper<T> mapper, ResultSet rs, int rowNumber) throws SQLException {
+			Object[] args = new Object[this.constructorBindings.length];
+			for (int i = 0; i < args.length; i++) {
+				ColumnBinding binding = this.constructorBindings[i];
+				Object value = null;
+				if (binding.index > 0) {
+					value = mapper.convertIfNecessary(binding.reader.read(rs, binding.index), binding.type);
+				}
+				args[i] = (value == null && binding.type.isPrimitive() ? getDefaultValue(binding.type) : value);
+			}
+			T mappedObject = (T) BeanUtils.instantiateClass(this.constructor, args);
+
+			for (ColumnBinding binding : this.propertyBindings) {
+				Object value;
+				if (mapper.customColumnValue) {
+					// Respect a getColumnValue override in a subclass
+					Assert.state(binding.propertyDescriptor != null, "No PropertyDescriptor");
+					value = mapper.getColumnValue(rs, binding.index, binding.propertyDescriptor);
+				}
+				else {
+					value = binding.reader.read(rs, binding.index);
+				}
+				value = mapper.convertIfNecessary(value, binding.type);
+				if (value == null && binding.type.isPrimitive()) {
+					if (mapper.isPrimitivesDefaultedForNullValue()) {
+						if (mapper.logger.isDebugEnabled()) {
+							mapper.logger.debug("Skipping null value for row " + rowNumber +
+									" and primitive property '" + binding.name + "' on object: " + mappedObject);
+						}
+						continue;
+					}
+					throw new TypeMismatchException((Object) null, binding.type);
+				}
+				Assert.state(binding.writeMethod != null, "No write method");
+				ReflectionUtils.invokeMethod(binding.writeMethod, mappedObject, value);
+			}
+			return mappedObject;
+		}
+	}
+
+}
@@ -28,27 +28,38 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.InvalidResultSetAccessException;
 import org.springframework.jdbc.SQLWarningException;
 import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.ConnectionHolder;
 import org.springframework.jdbc.datasource.ConnectionProxy;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcAccessor;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.SqlValue;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedCaseInsensitiveMap;
 import org.springframework.util.StringUtils;
@@ -147,6 +158,12 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private boolean resultsMapCaseInsensitive = false;
 
+	/**
+	 * If this variable is set to a positive value, parameterized updates within a
+	 * transaction will be buffered and flushed as JDBC batches of at most this size.
+	 */
+	private int writeBehindBatchSize = 0;
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -311,6 +328,117 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.resultsMapCaseInsensitive;
 	}
 
+	/**
+	 * Set the maximum number of parameterized updates to buffer within a
+	 * transaction before executing them as a single JDBC batch.
+	 * <p>Default is 0, executing every update immediately. If set to a positive
+	 * value, {@link #update(String, Object...)} and
+	 * {@link #update(String, Object[], int[])} calls within a transaction with
+	 * a transaction-bound Connection (e.g. as managed by
+	 * {@link org.springframework.jdbc.datasource.DataSourceTransactionManager})
+	 * are buffered while they share the same SQL, and flushed as a JDBC batch when
+	 * the SQL changes, when any other operation is executed against the same
+	 * DataSource through a JdbcTemplate, when the size threshold is reached, and
+	 * before transaction commit. Updates are not buffered while a savepoint is
+	 * active, e.g. within a {@code PROPAGATION_NESTED} transaction, and buffered
+	 * updates are flushed before {@code DataSourceTransactionManager} creates a
+	 * savepoint. Updates with arguments that need to be expanded, such as a
+	 * {@link Collection} with an SQL type other than {@link Types#ARRAY}, or
+	 * cleaned up, such as {@link SqlValue} or {@link DisposableSqlTypeValue}
+	 * arguments, are always executed immediately.
+	 * <p>Note that buffered updates return {@link Statement#SUCCESS_NO_INFO} as
+	 * row count, and that any exception will only be thrown once they are flushed.
+	 * Data access that bypasses JdbcTemplate within the same transaction needs to
+	 * call {@link #flushWriteBehindUpdates()} first.
+	 * @since 5.2.13
+	 * @see #flushWriteBehindUpdates()
+	 */
+	public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+		this.writeBehindBatchSize = writeBehindBatchSize;
+	}
+
+	/**
+	 * Return the maximum number of parameterized updates to buffer within a
+	 * transaction before executing them as a single JDBC batch.
+	 * @since 5.2.13
+	 */
+	public int getWriteBehindBatchSize() {
+		return this.writeBehindBatchSize;
+	}
+
+	/**
+	 * Execute any parameterized updates that have been buffered for the
+	 * current transaction against this template's DataSource.
+	 * <p>This is called automatically before any other operation on a
+	 * JdbcTemplate and before transaction commit.
+	 * @throws DataAccessException if there is any problem executing the updates
+	 * @since 5.2.13
+	 * @see #setWriteBehindBatchSize
+	 */
+	public void flushWriteBehindUpdates() throws DataAccessException {
+		DataSource dataSource = getDataSource();
+		if (dataSource != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+			WriteBehindUpdates updates = (WriteBehindUpdates)
+					TransactionSynchronizationManager.getResource(new WriteBehindKey(dataSource));
+			if (updates != null) {
+				updates.flush();
+			}
+		}
+	}
+
+	/**
+	 * Buffer the given update for the current transaction, if applicable.
+	 * @return {@code true} if the update has been buffered, {@code false} if it
+	 * needs to be executed immediately
+	 */
+	private boolean deferUpdate(String sql, @Nullable Object[] args, int[] argTypes) {
+		if (this.writeBehindBatchSize <= 0 || !TransactionSynchronizationManager.isSynchronizationActive() ||
+				!TransactionSynchronizationManager.isActualTransactionActive() ||
+				TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return false;
+		}
+		DataSource dataSource = obtainDataSource();
+		Object conHolder = TransactionSynchronizationManager.getResource(dataSource);
+		if (conHolder == null || (conHolder instanceof ConnectionHolder &&
+				((ConnectionHolder) conHolder).hasActiveSavepoint()) || !isDeferrable(args, argTypes)) {
+			return false;
+		}
+		WriteBehindKey key = new WriteBehindKey(dataSource);
+		WriteBehindUpdates updates = (WriteBehindUpdates) TransactionSynchronizationManager.getResource(key);
+		if (updates == null) {
+			updates = new WriteBehindUpdates(key);
+			TransactionSynchronizationManager.bindResource(key, updates);
+			TransactionSynchronizationManager.registerSynchronization(updates);
+		}
+		updates.add(this, sql, (args != null ? args.clone() : new Object[0]), argTypes);
+		return true;
+	}
+
+	/**
+	 * Determine whether the given update arguments can be executed as part of
+	 * a batch, without expansion or cleanup as applied by
+	 * {@link ArgumentTypePreparedStatementSetter} and
+	 * {@link ArgumentPreparedStatementSetter}.
+	 */
+	private static boolean isDeferrable(@Nullable Object[] args, int[] argTypes) {
+		if (args == null) {
+			return true;
+		}
+		for (int i = 0; i < args.length; i++) {
+			Object arg = args[i];
+			if (arg instanceof SqlParameterValue) {
+				arg = ((SqlParameterValue) arg).getValue();
+			}
+			if (arg instanceof SqlValue || arg instanceof DisposableSqlTypeValue) {
+				return false;
+			}
+			if (arg instanceof Collection && i < argTypes.length && argTypes[i] != Types.ARRAY) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with a plain java.sql.Connection
@@ -320,6 +448,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	@Nullable
 	public <T> T execute(ConnectionCallback<T> action) throws DataAccessException {
 		Assert.notNull(action, "Callback object must not be null");
+		flushWriteBehindUpdates();
 
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		try {
@@ -366,7 +495,22 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	@Override
 	@Nullable
 	public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+		return execute(action, true);
+	}
+
+	/**
+	 * Execute a JDBC data access operation, implemented as callback action
+	 * working on a JDBC Statement.
+	 * @param action the callback to execute
+	 * @param closeResources whether to close the Statement and release the
+	 * Connection once the callback returns, or to leave that to the caller
+	 * @return a result object returned by the action, or {@code null}
+	 * @throws DataAccessException if there is any problem
+	 */
+	@Nullable
+	private <T> T execute(StatementCallback<T> action, boolean closeResources) throws DataAccessException {
 		Assert.notNull(action, "Callback object must not be null");
+		flushWriteBehindUpdates();
 
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		Statement stmt = null;
@@ -387,9 +531,18 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			con = null;
 			throw translateException("StatementCallback", sql, ex);
 		}
+		catch (RuntimeException | Error ex) {
+			if (!closeResources) {
+				JdbcUtils.closeStatement(stmt);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
+			throw ex;
+		}
 		finally {
-			JdbcUtils.closeStatement(stmt);
-			DataSourceUtils.releaseConnection(con, getDataSource());
+			if (closeResources) {
+				JdbcUtils.closeStatement(stmt);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
 		}
 	}
 
@@ -462,6 +615,37 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper) throws DataAccessException {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing SQL query [" + sql + "]");
+		}
+
+		/**
+		 * Callback to execute the query, leaving the ResultSet open.
+		 */
+		class StreamStatementCallback implements StatementCallback<Stream<T>>, SqlProvider {
+			@Override
+			public Stream<T> doInStatement(Statement stmt) throws SQLException {
+				ResultSet rs = stmt.executeQuery(sql);
+				Connection con = stmt.getConnection();
+				return new ResultSetSpliterator<>(rs, rowMapper, () -> {
+					JdbcUtils.closeResultSet(rs);
+					JdbcUtils.closeStatement(stmt);
+					DataSourceUtils.releaseConnection(con, getDataSource());
+				}).stream();
+			}
+			@Override
+			public String getSql() {
+				return sql;
+			}
+		}
+
+		return result(execute(new StreamStatementCallback(), false));
+	}
+
 	@Override
 	public Map<String, Object> queryForMap(String sql) throws DataAccessException {
 		return result(queryForObject(sql, getColumnMapRowMapper()));
@@ -602,6 +786,23 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
 			throws DataAccessException {
 
+		return execute(psc, action, true);
+	}
+
+	/**
+	 * Execute a JDBC data access operation, implemented as callback action
+	 * working on a JDBC PreparedStatement.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param action a callback that specifies the action
+	 * @param closeResources whether to close the PreparedStatement and release
+	 * the Connection once the callback returns, or to leave that to the caller
+	 * @return a result object returned by the action, or {@code null}
+	 * @throws DataAccessException if there is any problem
+	 */
+	@Nullable
+	private <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action, boolean closeResources)
+			throws DataAccessException {
+
 		Assert.notNull(psc, "PreparedStatementCreator must not be null");
 		Assert.notNull(action, "Callback object must not be null");
 		if (logger.isDebugEnabled()) {
@@ -609,6 +810,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing prepared SQL statement" + (sql != null ? " [" + sql + "]" : ""));
 		}
 
+		flushWriteBehindUpdates();
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		PreparedStatement ps = null;
 		try {
@@ -632,12 +834,24 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			con = null;
 			throw translateException("PreparedStatementCallback", sql, ex);
 		}
+		catch (RuntimeException | Error ex) {
+			if (!closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
+			throw ex;
+		}
 		finally {
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
+			if (closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
 			}
-			JdbcUtils.closeStatement(ps);
-			DataSourceUtils.releaseConnection(con, getDataSource());
 		}
 	}
 
@@ -768,6 +982,66 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	/**
+	 * Query using a prepared statement, allowing for a PreparedStatementCreator
+	 * and a PreparedStatementSetter, mapping each row to a result object via a
+	 * RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>The Connection, PreparedStatement and ResultSet are held open until
+	 * the Stream is closed, or until an exception occurs while reading rows.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if there is any problem
+	 * @since 5.2.13
+	 */
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+			RowMapper<T> rowMapper) throws DataAccessException {
+
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		logger.debug("Executing prepared SQL query");
+
+		return result(execute(psc, ps -> {
+			if (pss != null) {
+				pss.setValues(ps);
+			}
+			ResultSet rs = ps.executeQuery();
+			Connection con = ps.getConnection();
+			return new ResultSetSpliterator<>(rs, rowMapper, () -> {
+				JdbcUtils.closeResultSet(rs);
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}).stream();
+		}, false));
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+		return queryForStream(psc, null, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -919,11 +1193,17 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 	@Override
 	public int update(String sql, Object[] args, int[] argTypes) throws DataAccessException {
+		if (deferUpdate(sql, args, argTypes)) {
+			return Statement.SUCCESS_NO_INFO;
+		}
 		return update(sql, newArgTypePreparedStatementSetter(args, argTypes));
 	}
 
 	@Override
 	public int update(String sql, @Nullable Object... args) throws DataAccessException {
+		if (deferUpdate(sql, args, new int[0])) {
+			return Statement.SUCCESS_NO_INFO;
+		}
 		return update(sql, newArgPreparedStatementSetter(args));
 	}
 
@@ -1084,6 +1364,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Calling stored procedure" + (sql != null ? " [" + sql  + "]" : ""));
 		}
 
+		flushWriteBehindUpdates();
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		CallableStatement cs = null;
 		try {
@@ -1610,4 +1891,178 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+
+	/**
+	 * Transaction resource key for the write-behind updates against a DataSource.
+	 */
+	private static final class WriteBehindKey {
+
+		private final DataSource dataSource;
+
+		WriteBehindKey(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			return (this == other || (other instanceof WriteBehindKey &&
+					this.dataSource == ((WriteBehindKey) other).dataSource));
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.dataSource);
+		}
+	}
+
+
+	/**
+	 * Parameterized updates buffered within a transaction, sharing the same SQL,
+	 * and flushed as a JDBC batch.
+	 */
+	private static final class WriteBehindUpdates implements TransactionSynchronization {
+
+		private final WriteBehindKey key;
+
+		@Nullable
+		private JdbcTemplate template;
+
+		@Nullable
+		private String sql;
+
+		private int[] argTypes = new int[0];
+
+		private List<Object[]> batchArgs = new ArrayList<>();
+
+		WriteBehindUpdates(WriteBehindKey key) {
+			this.key = key;
+		}
+
+		void add(JdbcTemplate template, String sql, Object[] args, int[] argTypes) {
+			if (template != this.template || !sql.equals(this.sql) || !Arrays.equals(argTypes, this.argTypes)) {
+				flush();
+				this.template = template;
+				this.sql = sql;
+				this.argTypes = argTypes;
+			}
+			this.batchArgs.add(args);
+			if (this.batchArgs.size() >= template.getWriteBehindBatchSize()) {
+				flush();
+			}
+		}
+
+		@Override
+		public void flush() {
+			if (this.batchArgs.isEmpty() || this.template == null || this.sql == null) {
+				return;
+			}
+			List<Object[]> batchArgs = this.batchArgs;
+			this.batchArgs = new ArrayList<>();
+			if (this.template.logger.isDebugEnabled()) {
+				this.template.logger.debug("Flushing " + batchArgs.size() +
+						" write-behind updates for SQL [" + this.sql + "]");
+			}
+			this.template.batchUpdate(this.sql, batchArgs, this.argTypes);
+		}
+
+		@Override
+		public void suspend() {
+			flush();
+			TransactionSynchronizationManager.unbindResource(this.key);
+		}
+
+		@Override
+		public void resume() {
+			TransactionSynchronizationManager.bindResource(this.key, this);
+		}
+
+		@Override
+		public void beforeCommit(boolean readOnly) {
+			flush();
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(this.key);
+			this.batchArgs.clear();
+		}
+	}
+
+
+	/**
+	 * Spliterator for queryForStream adaptation of a ResultSet to a Stream,
+	 * releasing the underlying JDBC resources once the last row has been read,
+	 * once reading a row failed, or once the Stream is closed, whichever
+	 * happens first.
+	 * @since 5.2.13
+	 */
+	private static class ResultSetSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+
+		private final RowMapper<T> rowMapper;
+
+		private final Runnable closeHandler;
+
+		private int rowNum = 0;
+
+		private boolean closed;
+
+		public ResultSetSpliterator(ResultSet rs, RowMapper<T> rowMapper, Runnable closeHandler) {
+			this.rs = rs;
+			this.rowMapper = rowMapper;
+			this.closeHandler = closeHandler;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (this.closed) {
+				return false;
+			}
+			try {
+				if (this.rs.next()) {
+					action.accept(this.rowMapper.mapRow(this.rs, this.rowNum++));
+					return true;
+				}
+				close();
+				return false;
+			}
+			catch (SQLException ex) {
+				close();
+				throw new InvalidResultSetAccessException(ex);
+			}
+			catch (RuntimeException | Error ex) {
+				close();
+				throw ex;
+			}
+		}
+
+		@Override
+		@Nullable
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+		public Stream<T> stream() {
+			return StreamSupport.stream(this, false).onClose(this::close);
+		}
+
+		private void close() {
+			if (!this.closed) {
+				this.closed = true;
+				this.closeHandler.run();
+			}
+		}
+	}
+
 }
@@ -73,6 +73,13 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 	private List<String> productsNotSupportingGeneratedKeysColumnNameArray =
 			Arrays.asList("Apache Derby", "HSQL Database Engine");
 
+	/** indicates whether multi-row VALUES lists are supported for inserts. */
+	private boolean multiRowInsertSupported = false;
+
+	/** database products we know supporting multi-row VALUES lists for inserts. */
+	private List<String> productsSupportingMultiRowInsert = Arrays.asList("Apache Derby", "H2",
+			"HSQL Database Engine", "MariaDB", "Microsoft SQL Server", "MySQL", "PostgreSQL");
+
 	/** Collection of TableParameterMetaData objects. */
 	private List<TableParameterMetaData> tableParameterMetaData = new ArrayList<>();
 
@@ -142,6 +149,15 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 		return this.generatedKeysColumnNameArraySupported;
 	}
 
+	public void setMultiRowInsertSupported(boolean multiRowInsertSupported) {
+		this.multiRowInsertSupported = multiRowInsertSupported;
+	}
+
+	@Override
+	public boolean isMultiRowInsertSupported() {
+		return this.multiRowInsertSupported;
+	}
+
 
 	@Override
 	public void initializeWithMetaData(DatabaseMetaData databaseMetaData) throws SQLException {
@@ -179,6 +195,7 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 					setGeneratedKeysColumnNameArraySupported(false);
 				}
 			}
+			setMultiRowInsertSupported(this.productsSupportingMultiRowInsert.contains(databaseProductName));
 		}
 		catch (SQLException ex) {
 			if (logger.isWarnEnabled()) {
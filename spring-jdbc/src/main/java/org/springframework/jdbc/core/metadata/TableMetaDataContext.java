@@ -312,6 +312,27 @@ public class TableMetaDataContext {
 		return insertStatement.toString();
 	}
 
+	/**
+	 * Build the insert string for a multi-row insert, with one VALUES list per row,
+	 * based on configuration and meta-data information.
+	 * @param rowCount the number of rows to insert
+	 * @param generatedKeyNames the names of the generated key columns, if any
+	 * @return the insert string to be used
+	 * @since 5.2.13
+	 * @see #isMultiRowInsertSupported()
+	 */
+	public String createMultiRowInsertString(int rowCount, String... generatedKeyNames) {
+		Assert.isTrue(rowCount > 0, "Row count must be greater than 0");
+		String insertString = createInsertString(generatedKeyNames);
+		String values = insertString.substring(insertString.lastIndexOf(" VALUES") + 7);
+		StringBuilder insertStatement = new StringBuilder(insertString.length() + (values.length() + 2) * rowCount);
+		insertStatement.append(insertString);
+		for (int i = 1; i < rowCount; i++) {
+			insertStatement.append(", ").append(values);
+		}
+		return insertStatement.toString();
+	}
+
 	/**
 	 * Build the array of {@link java.sql.Types} based on configuration and meta-data information.
 	 * @return the array of types to be used
@@ -390,4 +411,13 @@ public class TableMetaDataContext {
 		return obtainMetaDataProvider().isGeneratedKeysColumnNameArraySupported();
 	}
 
+	/**
+	 * Does this database support inserting multiple rows through a single
+	 * {@code INSERT ... VALUES (...), (...)} statement?
+	 * @since 5.2.13
+	 */
+	public boolean isMultiRowInsertSupported() {
+		return obtainMetaDataProvider().isMultiRowInsertSupported();
+	}
+
 }
@@ -117,6 +117,15 @@ public interface TableMetaDataProvider {
 	 */
 	boolean isGeneratedKeysColumnNameArraySupported();
 
+	/**
+	 * Does this database support inserting multiple rows through a single
+	 * {@code INSERT ... VALUES (...), (...)} statement?
+	 * @since 5.2.13
+	 */
+	default boolean isMultiRowInsertSupported() {
+		return false;
+	}
+
 	/**
 	 * Get the table parameter meta-data that is currently used.
 	 * @return a List of {@link TableParameterMetaData}
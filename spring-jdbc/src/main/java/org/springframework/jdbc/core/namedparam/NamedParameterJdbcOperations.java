@@ -18,6 +18,7 @@ package org.springframework.jdbc.core.namedparam;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcOperations;
@@ -213,6 +214,55 @@ public interface NamedParameterJdbcOperations {
 	<T> List<T> query(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
 			throws DataAccessException;
 
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list
+	 * of arguments to bind to the query, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>Rows are fetched lazily, with the underlying JDBC resources held open
+	 * until the Stream is closed.
+	 * <p>The default implementation eagerly queries all rows through
+	 * {@link #query(String, SqlParameterSource, RowMapper)}
+	 * and streams the resulting list, for compatibility with existing
+	 * implementations of this interface; {@link NamedParameterJdbcTemplate} fetches the rows lazily.
+	 * @param sql the SQL query to execute
+	 * @param paramSource container of arguments to bind to the query
+	 * @param rowMapper object that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @since 5.2.13
+	 */
+	default <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return query(sql, paramSource, rowMapper).stream();
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list
+	 * of arguments to bind to the query, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>Rows are fetched lazily, with the underlying JDBC resources held open
+	 * until the Stream is closed.
+	 * <p>The default implementation eagerly queries all rows through
+	 * {@link #query(String, Map, RowMapper)}
+	 * and streams the resulting list, for compatibility with existing
+	 * implementations of this interface; {@link NamedParameterJdbcTemplate} fetches the rows lazily.
+	 * @param sql the SQL query to execute
+	 * @param paramMap map of parameters to bind to the query
+	 * (leaving it to the PreparedStatement to guess the corresponding SQL type)
+	 * @param rowMapper object that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @since 5.2.13
+	 */
+	default <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return query(sql, paramMap, rowMapper).stream();
+	}
+
 	/**
 	 * Query given SQL to create a prepared statement from SQL,
 	 * mapping each row to a Java object via a RowMapper.
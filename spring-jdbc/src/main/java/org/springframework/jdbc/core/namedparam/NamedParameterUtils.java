@@ -270,6 +270,58 @@ public abstract class NamedParameterUtils {
 		if (paramNames.isEmpty()) {
 			return originalSql;
 		}
+		int[] expansion = determineExpansion(parsedSql, paramSource);
+		if (expansion != null) {
+			String substitutedSql = parsedSql.getSubstitutedSql(expansion);
+			if (substitutedSql == null) {
+				substitutedSql = buildSubstitutedSql(parsedSql, paramSource);
+				parsedSql.cacheSubstitutedSql(expansion, substitutedSql);
+			}
+			return substitutedSql;
+		}
+		return buildSubstitutedSql(parsedSql, paramSource);
+	}
+
+	/**
+	 * Determine the shape of placeholder expansion for the given parameter values:
+	 * the number of placeholders per parameter occurrence, or -1 for a single
+	 * placeholder of a non-collection value.
+	 * @return the expansion shape, or {@code null} if not cacheable
+	 * (for expression lists given as {@code Object[]} elements)
+	 */
+	@Nullable
+	private static int[] determineExpansion(ParsedSql parsedSql, @Nullable SqlParameterSource paramSource) {
+		List<String> paramNames = parsedSql.getParameterNames();
+		int[] expansion = new int[paramNames.size()];
+		for (int i = 0; i < paramNames.size(); i++) {
+			expansion[i] = -1;
+			String paramName = paramNames.get(i);
+			if (paramSource != null && paramSource.hasValue(paramName)) {
+				Object value = paramSource.getValue(paramName);
+				if (value instanceof SqlParameterValue) {
+					value = ((SqlParameterValue) value).getValue();
+				}
+				if (value instanceof Iterable) {
+					int count = 0;
+					for (Object entryItem : (Iterable<?>) value) {
+						if (entryItem instanceof Object[]) {
+							return null;
+						}
+						count++;
+					}
+					expansion[i] = count;
+				}
+			}
+		}
+		return expansion;
+	}
+
+	/**
+	 * Build the SQL String with JDBC-style placeholders for the given parameter values.
+	 */
+	private static String buildSubstitutedSql(ParsedSql parsedSql, @Nullable SqlParameterSource paramSource) {
+		String originalSql = parsedSql.getOriginalSql();
+		List<String> paramNames = parsedSql.getParameterNames();
 		StringBuilder actualSql = new StringBuilder(originalSql.length());
 		int lastIndex = 0;
 		for (int i = 0; i < paramNames.size(); i++) {
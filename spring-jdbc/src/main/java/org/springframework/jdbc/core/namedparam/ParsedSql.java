@@ -17,7 +17,12 @@
 package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
 
 /**
  * Holds information about a parsed SQL statement.
@@ -28,6 +33,10 @@ import java.util.List;
  */
 public class ParsedSql {
 
+	/** Maximum number of substituted SQL Strings to cache per statement. */
+	private static final int SUBSTITUTED_SQL_CACHE_LIMIT = 32;
+
+
 	private final String originalSql;
 
 	private final List<String> parameterNames = new ArrayList<>();
@@ -40,6 +49,9 @@ public class ParsedSql {
 
 	private int totalParameterCount;
 
+	/** Cache of substituted SQL Strings, keyed by parameter expansion shape. */
+	private final Map<ExpansionKey, String> substitutedSqlCache = new ConcurrentHashMap<>(4);
+
 
 	/**
 	 * Create a new instance of the {@link ParsedSql} class.
@@ -134,6 +146,34 @@ public class ParsedSql {
 	}
 
 
+	/**
+	 * Return a previously cached substituted SQL String for the given
+	 * parameter expansion shape.
+	 * @param expansion the number of placeholders per parameter occurrence
+	 * (-1 for a single placeholder of a non-collection value)
+	 * @return the cached SQL String, or {@code null} if none
+	 * @since 5.2.13
+	 */
+	@Nullable
+	String getSubstitutedSql(int[] expansion) {
+		return this.substitutedSqlCache.get(new ExpansionKey(expansion));
+	}
+
+	/**
+	 * Cache the substituted SQL String for the given parameter expansion shape,
+	 * unless the per-statement cache limit has been reached.
+	 * @param expansion the number of placeholders per parameter occurrence
+	 * (-1 for a single placeholder of a non-collection value)
+	 * @param substitutedSql the SQL String with JDBC-style placeholders
+	 * @since 5.2.13
+	 */
+	void cacheSubstitutedSql(int[] expansion, String substitutedSql) {
+		if (this.substitutedSqlCache.size() < SUBSTITUTED_SQL_CACHE_LIMIT) {
+			this.substitutedSqlCache.putIfAbsent(new ExpansionKey(expansion), substitutedSql);
+		}
+	}
+
+
 	/**
 	 * Exposes the original SQL String.
 	 */
@@ -142,4 +182,28 @@ public class ParsedSql {
 		return this.originalSql;
 	}
 
+
+	/**
+	 * Key for the substituted SQL cache: the expansion shape per parameter occurrence.
+	 */
+	private static final class ExpansionKey {
+
+		private final int[] expansion;
+
+		ExpansionKey(int[] expansion) {
+			this.expansion = expansion;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			return (this == other || (other instanceof ExpansionKey &&
+					Arrays.equals(this.expansion, ((ExpansionKey) other).expansion)));
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(this.expansion);
+		}
+	}
+
 }
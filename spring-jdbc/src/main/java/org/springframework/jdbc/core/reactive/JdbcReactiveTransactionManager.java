@@ -0,0 +1,413 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.reactive;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.transaction.ReactiveTransactionManager}
+ * implementation for a single JDBC {@link DataSource}, to be used with
+ * {@link ReactiveJdbcTemplate} and
+ * {@link org.springframework.transaction.reactive.TransactionalOperator}.
+ *
+ * <p>Each transaction obtains a JDBC Connection on a worker of a
+ * {@link Scheduler} owned by this transaction manager, and binds it to the
+ * reactive transaction context. All subsequent operations on that Connection,
+ * including those issued by {@code ReactiveJdbcTemplate} as well as commit and
+ * rollback, run on that same worker, so that the blocking Connection is only
+ * ever used from one thread at a time.
+ *
+ * <p>The scheduler is separate from the one that {@code ReactiveJdbcTemplate}
+ * runs non-transactional operations on, and has one thread per concurrent
+ * transaction, up to the configured {@link #setMaxTransactions maximum}.
+ * Since a pinned worker never shares its thread with another transaction or
+ * with non-transactional operations, a transaction can always complete and
+ * release its Connection, even while the Connection pool is exhausted.
+ * Beginning a transaction beyond the maximum fails with a
+ * {@link CannotCreateTransactionException}. The Connection pool should
+ * therefore be sized for the maximum number of transactions plus the
+ * maximum number of concurrent non-transactional operations.
+ *
+ * <p>Transaction isolation levels and read-only flags are applied to the
+ * Connection in the same way as by
+ * {@link org.springframework.jdbc.datasource.DataSourceTransactionManager}.
+ * Transaction timeouts and savepoints are not supported.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see ReactiveJdbcTemplate
+ * @see org.springframework.transaction.reactive.TransactionalOperator
+ */
+@SuppressWarnings("serial")
+public class JdbcReactiveTransactionManager extends AbstractReactiveTransactionManager
+		implements InitializingBean, DisposableBean {
+
+	@Nullable
+	private DataSource dataSource;
+
+	private int maxTransactions = 10;
+
+	@Nullable
+	private Scheduler scheduler;
+
+	private final AtomicInteger activeTransactions = new AtomicInteger();
+
+
+	/**
+	 * Create a new JdbcReactiveTransactionManager instance.
+	 * A DataSource has to be set to be able to use it.
+	 * @see #setDataSource
+	 * @see #setMaxTransactions
+	 */
+	public JdbcReactiveTransactionManager() {
+	}
+
+	/**
+	 * Create a new JdbcReactiveTransactionManager instance.
+	 * @param dataSource the JDBC DataSource to manage transactions for
+	 * @param maxTransactions the maximum number of concurrent transactions
+	 */
+	public JdbcReactiveTransactionManager(DataSource dataSource, int maxTransactions) {
+		this();
+		setDataSource(dataSource);
+		setMaxTransactions(maxTransactions);
+		afterPropertiesSet();
+	}
+
+
+	/**
+	 * Set the JDBC DataSource that this instance should manage transactions for.
+	 * <p>{@link ReactiveJdbcTemplate} instances participate in transactions
+	 * for the same DataSource as exposed by their target JdbcTemplate.
+	 */
+	public void setDataSource(@Nullable DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * Return the JDBC DataSource that this instance manages transactions for.
+	 */
+	@Nullable
+	public DataSource getDataSource() {
+		return this.dataSource;
+	}
+
+	/**
+	 * Obtain the DataSource for actual use.
+	 * @return the DataSource (never {@code null})
+	 * @throws IllegalStateException in case of no DataSource set
+	 */
+	protected DataSource obtainDataSource() {
+		DataSource dataSource = getDataSource();
+		Assert.state(dataSource != null, "No DataSource set");
+		return dataSource;
+	}
+
+	/**
+	 * Set the maximum number of concurrent transactions, which is also the
+	 * number of threads that transactional Connections get pinned to.
+	 * <p>Default is 10.
+	 */
+	public void setMaxTransactions(int maxTransactions) {
+		Assert.isTrue(maxTransactions > 0, "maxTransactions must be greater than 0");
+		this.maxTransactions = maxTransactions;
+	}
+
+	/**
+	 * Return the maximum number of concurrent transactions.
+	 */
+	public int getMaxTransactions() {
+		return this.maxTransactions;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (getDataSource() == null) {
+			throw new IllegalArgumentException("Property 'dataSource' is required");
+		}
+		if (this.scheduler == null) {
+			this.scheduler = Schedulers.newBoundedElastic(
+					this.maxTransactions, Integer.MAX_VALUE, JdbcReactiveTransactionManager.class.getSimpleName());
+		}
+	}
+
+	/**
+	 * Dispose the scheduler that transactional Connections get pinned to.
+	 */
+	@Override
+	public void destroy() {
+		if (this.scheduler != null) {
+			this.scheduler.dispose();
+		}
+	}
+
+
+	@Override
+	protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager)
+			throws TransactionException {
+
+		JdbcTransactionObject txObject = new JdbcTransactionObject();
+		txObject.setConnectionHolder(
+				(ReactiveConnectionHolder) synchronizationManager.getResource(obtainDataSource()));
+		return txObject;
+	}
+
+	@Override
+	protected boolean isExistingTransaction(Object transaction) {
+		return ((JdbcTransactionObject) transaction).hasConnectionHolder();
+	}
+
+	@Override
+	protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager,
+			Object transaction, TransactionDefinition definition) throws TransactionException {
+
+		JdbcTransactionObject txObject = (JdbcTransactionObject) transaction;
+		Scheduler scheduler = this.scheduler;
+		Assert.state(scheduler != null, "JdbcReactiveTransactionManager not initialized");
+
+		return Mono.defer(() -> {
+			// Only ever create as many workers as the scheduler has threads,
+			// so that each transaction gets a thread of its own
+			if (this.activeTransactions.incrementAndGet() > this.maxTransactions) {
+				this.activeTransactions.decrementAndGet();
+				return Mono.error(new CannotCreateTransactionException("Maximum number of concurrent " +
+						"reactive JDBC transactions (" + this.maxTransactions + ") reached"));
+			}
+			ReactiveConnectionHolder conHolder = new ReactiveConnectionHolder(scheduler.createWorker());
+			return beginOnWorker(synchronizationManager, txObject, conHolder, definition);
+		});
+	}
+
+	private Mono<Void> beginOnWorker(TransactionSynchronizationManager synchronizationManager,
+			JdbcTransactionObject txObject, ReactiveConnectionHolder conHolder, TransactionDefinition definition) {
+
+		return Mono.<Void>fromRunnable(() -> {
+			Connection con = null;
+			try {
+				con = obtainDataSource().getConnection();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Acquired Connection [" + con + "] for reactive JDBC transaction");
+				}
+				txObject.setPreviousIsolationLevel(DataSourceUtils.prepareConnectionForTransaction(con, definition));
+				txObject.setReadOnly(definition.isReadOnly());
+				if (con.getAutoCommit()) {
+					txObject.setMustRestoreAutoCommit(true);
+					con.setAutoCommit(false);
+				}
+				conHolder.setConnection(con);
+			}
+			catch (Throwable ex) {
+				DataSourceUtils.releaseConnection(con, obtainDataSource());
+				throw new CannotCreateTransactionException("Could not open JDBC Connection for transaction", ex);
+			}
+		}).subscribeOn(conHolder.getScheduler()).doOnSuccess(ignored -> {
+			txObject.setConnectionHolder(conHolder);
+			synchronizationManager.bindResource(obtainDataSource(), conHolder);
+		}).doOnError(ex -> releaseWorker(conHolder)).doOnCancel(() -> releaseWorker(conHolder));
+	}
+
+	@Override
+	protected Mono<Object> doSuspend(TransactionSynchronizationManager synchronizationManager,
+			Object transaction) throws TransactionException {
+
+		return Mono.defer(() -> {
+			((JdbcTransactionObject) transaction).setConnectionHolder(null);
+			return Mono.justOrEmpty(synchronizationManager.unbindResource(obtainDataSource()));
+		});
+	}
+
+	@Override
+	protected Mono<Void> doResume(TransactionSynchronizationManager synchronizationManager,
+			@Nullable Object transaction, Object suspendedResources) throws TransactionException {
+
+		return Mono.defer(() -> {
+			synchronizationManager.bindResource(obtainDataSource(), suspendedResources);
+			return Mono.empty();
+		});
+	}
+
+	@Override
+	protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager,
+			GenericReactiveTransaction status) throws TransactionException {
+
+		ReactiveConnectionHolder conHolder = ((JdbcTransactionObject) status.getTransaction()).getConnectionHolder();
+		return Mono.<Void>fromRunnable(() -> {
+			Connection con = conHolder.getConnection();
+			if (conHolder.isRollbackOnly()) {
+				rollback(con, status);
+				throw new UnexpectedRollbackException(
+						"Transaction rolled back because it has been marked as rollback-only");
+			}
+			if (status.isDebug()) {
+				logger.debug("Committing reactive JDBC transaction on Connection [" + con + "]");
+			}
+			try {
+				con.commit();
+			}
+			catch (SQLException ex) {
+				throw new TransactionSystemException("Could not commit JDBC transaction", ex);
+			}
+		}).subscribeOn(conHolder.getScheduler());
+	}
+
+	@Override
+	protected Mono<Void> doRollback(TransactionSynchronizationManager synchronizationManager,
+			GenericReactiveTransaction status) throws TransactionException {
+
+		ReactiveConnectionHolder conHolder = ((JdbcTransactionObject) status.getTransaction()).getConnectionHolder();
+		return Mono.<Void>fromRunnable(() -> rollback(conHolder.getConnection(), status))
+				.subscribeOn(conHolder.getScheduler());
+	}
+
+	private void rollback(Connection con, GenericReactiveTransaction status) {
+		if (status.isDebug()) {
+			logger.debug("Rolling back reactive JDBC transaction on Connection [" + con + "]");
+		}
+		try {
+			con.rollback();
+		}
+		catch (SQLException ex) {
+			throw new TransactionSystemException("Could not roll back JDBC transaction", ex);
+		}
+	}
+
+	@Override
+	protected Mono<Void> doSetRollbackOnly(TransactionSynchronizationManager synchronizationManager,
+			GenericReactiveTransaction status) throws TransactionException {
+
+		return Mono.fromRunnable(() -> {
+			JdbcTransactionObject txObject = (JdbcTransactionObject) status.getTransaction();
+			if (status.isDebug()) {
+				logger.debug("Setting reactive JDBC transaction [" +
+						txObject.getConnectionHolder().getConnection() + "] rollback-only");
+			}
+			txObject.getConnectionHolder().setRollbackOnly();
+		});
+	}
+
+	@Override
+	protected Mono<Void> doCleanupAfterCompletion(TransactionSynchronizationManager synchronizationManager,
+			Object transaction) {
+
+		JdbcTransactionObject txObject = (JdbcTransactionObject) transaction;
+		ReactiveConnectionHolder conHolder = txObject.getConnectionHolder();
+
+		return Mono.defer(() -> {
+			synchronizationManager.unbindResource(obtainDataSource());
+			return Mono.empty();
+		}).then(Mono.<Void>fromRunnable(() -> {
+			Connection con = conHolder.getConnection();
+			try {
+				if (txObject.isMustRestoreAutoCommit()) {
+					con.setAutoCommit(true);
+				}
+				DataSourceUtils.resetConnectionAfterTransaction(
+						con, txObject.getPreviousIsolationLevel(), txObject.isReadOnly());
+			}
+			catch (Throwable ex) {
+				logger.debug("Could not reset JDBC Connection after transaction", ex);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Releasing JDBC Connection [" + con + "] after reactive transaction");
+			}
+			DataSourceUtils.releaseConnection(con, obtainDataSource());
+		}).subscribeOn(conHolder.getScheduler())).doFinally(signal -> releaseWorker(conHolder));
+	}
+
+	private void releaseWorker(ReactiveConnectionHolder conHolder) {
+		conHolder.dispose();
+		this.activeTransactions.decrementAndGet();
+	}
+
+
+	/**
+	 * Reactive JDBC transaction object, representing a ReactiveConnectionHolder.
+	 */
+	private static class JdbcTransactionObject {
+
+		@Nullable
+		private ReactiveConnectionHolder connectionHolder;
+
+		@Nullable
+		private Integer previousIsolationLevel;
+
+		private boolean readOnly;
+
+		private boolean mustRestoreAutoCommit;
+
+		public void setConnectionHolder(@Nullable ReactiveConnectionHolder connectionHolder) {
+			this.connectionHolder = connectionHolder;
+		}
+
+		public ReactiveConnectionHolder getConnectionHolder() {
+			Assert.state(this.connectionHolder != null, "No ReactiveConnectionHolder available");
+			return this.connectionHolder;
+		}
+
+		public boolean hasConnectionHolder() {
+			return (this.connectionHolder != null);
+		}
+
+		public void setPreviousIsolationLevel(@Nullable Integer previousIsolationLevel) {
+			this.previousIsolationLevel = previousIsolationLevel;
+		}
+
+		@Nullable
+		public Integer getPreviousIsolationLevel() {
+			return this.previousIsolationLevel;
+		}
+
+		public void setReadOnly(boolean readOnly) {
+			this.readOnly = readOnly;
+		}
+
+		public boolean isReadOnly() {
+			return this.readOnly;
+		}
+
+		public void setMustRestoreAutoCommit(boolean mustRestoreAutoCommit) {
+			this.mustRestoreAutoCommit = mustRestoreAutoCommit;
+		}
+
+		public boolean isMustRestoreAutoCommit() {
+			return this.mustRestoreAutoCommit;
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.reactive;
+
+import java.sql.Connection;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Resource holder wrapping a JDBC {@link Connection} for a reactive transaction,
+ * along with the scheduler worker that the Connection is pinned to.
+ * {@link JdbcReactiveTransactionManager} binds instances of this class to the
+ * reactive transaction context for a specific {@link javax.sql.DataSource}.
+ *
+ * <p>All operations on the Connection are expected to run on the pinned worker,
+ * as exposed through {@link #getScheduler()}.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see JdbcReactiveTransactionManager
+ * @see ReactiveJdbcTemplate
+ */
+final class ReactiveConnectionHolder {
+
+	private final Scheduler.Worker worker;
+
+	private final Scheduler scheduler;
+
+	@Nullable
+	private Connection connection;
+
+	@Nullable
+	private SingleConnectionDataSource dataSource;
+
+	private volatile boolean rollbackOnly;
+
+
+	/**
+	 * Create a new ReactiveConnectionHolder for the given worker.
+	 * @param worker the scheduler worker to pin the Connection to
+	 */
+	ReactiveConnectionHolder(Scheduler.Worker worker) {
+		this.worker = worker;
+		this.scheduler = Schedulers.fromExecutor(worker::schedule);
+	}
+
+
+	/**
+	 * Return a Scheduler that runs all tasks on the pinned worker.
+	 */
+	Scheduler getScheduler() {
+		return this.scheduler;
+	}
+
+	/**
+	 * Set the Connection for this holder, once obtained on the pinned worker.
+	 */
+	void setConnection(Connection connection) {
+		this.connection = connection;
+		this.dataSource = new SingleConnectionDataSource(connection, true);
+	}
+
+	/**
+	 * Return the Connection held by this holder.
+	 */
+	Connection getConnection() {
+		Assert.state(this.connection != null, "No Connection available");
+		return this.connection;
+	}
+
+	/**
+	 * Return a DataSource that always returns the held Connection,
+	 * suppressing close calls.
+	 */
+	SingleConnectionDataSource getDataSource() {
+		Assert.state(this.dataSource != null, "No Connection available");
+		return this.dataSource;
+	}
+
+	/**
+	 * Mark the transaction as rollback-only.
+	 */
+	void setRollbackOnly() {
+		this.rollbackOnly = true;
+	}
+
+	/**
+	 * Return whether the transaction has been marked as rollback-only.
+	 */
+	boolean isRollbackOnly() {
+		return this.rollbackOnly;
+	}
+
+	/**
+	 * Release the pinned worker.
+	 */
+	void dispose() {
+		this.connection = null;
+		this.dataSource = null;
+		this.worker.dispose();
+	}
+
+}
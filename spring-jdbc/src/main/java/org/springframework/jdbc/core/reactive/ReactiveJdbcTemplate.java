@@ -0,0 +1,296 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.reactive;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * Reactive facade over a classic {@link JdbcTemplate}, running its blocking
+ * operations on a dedicated {@link Scheduler} which is meant to be sized in
+ * line with the underlying Connection pool.
+ *
+ * <p>Query results can be streamed as a {@link Flux} with back-pressure:
+ * rows are pulled from the open {@link java.sql.ResultSet} on demand, on the
+ * scheduler, and the JDBC resources are released on completion, error or
+ * cancellation.
+ *
+ * <p>Within a reactive transaction driven by a {@link JdbcReactiveTransactionManager}
+ * for the same DataSource (e.g. through a
+ * {@link org.springframework.transaction.reactive.TransactionalOperator}),
+ * operations run against the transactional Connection, on the scheduler worker
+ * that the transaction's Connection is pinned to. Such workers belong to the
+ * transaction manager rather than to this template, so that transactions never
+ * wait for threads held by non-transactional operations or vice versa.
+ *
+ * <p><b>NOTE: An instance of this class is thread-safe once configured.</b>
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see JdbcReactiveTransactionManager
+ * @see JdbcTemplate#queryForStream
+ */
+public class ReactiveJdbcTemplate implements DisposableBean {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final Scheduler scheduler;
+
+	private final boolean disposeScheduler;
+
+
+	/**
+	 * Create a new ReactiveJdbcTemplate for the given DataSource, with a
+	 * dedicated bounded scheduler of the given size.
+	 * <p>The scheduler will be disposed along with this template.
+	 * @param dataSource the JDBC DataSource to access
+	 * @param maxConnections the maximum number of concurrently executing
+	 * operations, typically the maximum size of the Connection pool
+	 */
+	public ReactiveJdbcTemplate(DataSource dataSource, int maxConnections) {
+		Assert.notNull(dataSource, "DataSource must not be null");
+		Assert.isTrue(maxConnections > 0, "maxConnections must be greater than 0");
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.scheduler = Schedulers.newBoundedElastic(
+				maxConnections, Integer.MAX_VALUE, ReactiveJdbcTemplate.class.getSimpleName());
+		this.disposeScheduler = true;
+	}
+
+	/**
+	 * Create a new ReactiveJdbcTemplate for the given JdbcTemplate and Scheduler.
+	 * @param jdbcTemplate the JdbcTemplate to delegate to
+	 * @param scheduler the Scheduler to run blocking operations on
+	 * (not disposed along with this template)
+	 */
+	public ReactiveJdbcTemplate(JdbcTemplate jdbcTemplate, Scheduler scheduler) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+		this.scheduler = scheduler;
+		this.disposeScheduler = false;
+	}
+
+
+	/**
+	 * Return the JdbcTemplate that this facade delegates to.
+	 */
+	public JdbcTemplate getJdbcTemplate() {
+		return this.jdbcTemplate;
+	}
+
+	/**
+	 * Return the Scheduler that non-transactional blocking operations run on.
+	 */
+	public Scheduler getScheduler() {
+		return this.scheduler;
+	}
+
+
+	/**
+	 * Execute a blocking JDBC action, emitting its result.
+	 * <p>The given action is invoked with a transactional {@link JdbcOperations}
+	 * instance when called within a reactive transaction for the same DataSource.
+	 * @param action the callback to invoke with the JdbcOperations to use
+	 * @return a Mono emitting the result of the action, or completing
+	 * empty for a {@code null} result
+	 */
+	public <T> Mono<T> execute(Function<? super JdbcOperations, ? extends T> action) {
+		return currentTarget().flatMap(target ->
+				Mono.<T>fromCallable(() -> action.apply(target.operations)).subscribeOn(target.scheduler));
+	}
+
+	/**
+	 * Execute a blocking JDBC action returning a lazily populated {@link Stream},
+	 * emitting its elements with back-pressure.
+	 * <p>Elements are pulled from the Stream on the scheduler as requested.
+	 * The Stream gets closed on completion, error or cancellation.
+	 * @param action the callback to invoke with the JdbcOperations to use
+	 * @return a Flux emitting the elements of the Stream
+	 * @see JdbcOperations#queryForStream
+	 */
+	public <T> Flux<T> stream(Function<? super JdbcOperations, ? extends Stream<? extends T>> action) {
+		return currentTarget().flatMapMany(target ->
+				Flux.<T>fromStream(() -> action.apply(target.operations))
+						.subscribeOn(target.scheduler)
+						.cancelOn(target.scheduler));
+	}
+
+	/**
+	 * Query given SQL with the given arguments, mapping each row
+	 * to a result object via a RowMapper and streaming the results.
+	 * @param sql the SQL query to execute
+	 * @param rowMapper a callback that will map one object per row
+	 * @param args arguments to bind to the query
+	 * @return a Flux emitting the mapped rows
+	 * @see JdbcOperations#queryForStream(String, RowMapper, Object...)
+	 */
+	public <T> Flux<T> query(String sql, RowMapper<T> rowMapper, @Nullable Object... args) {
+		return stream(operations -> operations.queryForStream(sql, rowMapper, args));
+	}
+
+	/**
+	 * Query using a prepared statement, mapping each row
+	 * to a result object via a RowMapper and streaming the results.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param rowMapper a callback that will map one object per row
+	 * @return a Flux emitting the mapped rows
+	 * @see JdbcOperations#queryForStream(PreparedStatementCreator, RowMapper)
+	 */
+	public <T> Flux<T> query(PreparedStatementCreator psc, RowMapper<T> rowMapper) {
+		return stream(operations -> operations.queryForStream(psc, rowMapper));
+	}
+
+	/**
+	 * Query given SQL with the given arguments, mapping a single result row
+	 * to a result object via a RowMapper.
+	 * @param sql the SQL query to execute
+	 * @param rowMapper a callback that will map one object per row
+	 * @param args arguments to bind to the query
+	 * @return a Mono emitting the single mapped object, or completing empty
+	 * for a {@code null} result; failing with an
+	 * {@link org.springframework.dao.IncorrectResultSizeDataAccessException}
+	 * if the query does not return exactly one row
+	 * @see JdbcOperations#queryForObject(String, RowMapper, Object...)
+	 */
+	public <T> Mono<T> queryForObject(String sql, RowMapper<T> rowMapper, @Nullable Object... args) {
+		return execute(operations -> operations.queryForObject(sql, rowMapper, args));
+	}
+
+	/**
+	 * Query given SQL with the given arguments, expecting a single result
+	 * row with a single column of the given type.
+	 * @param sql the SQL query to execute
+	 * @param requiredType the type that the result object is expected to match
+	 * @param args arguments to bind to the query
+	 * @return a Mono emitting the result object, or completing empty
+	 * for a {@code null} result
+	 * @see JdbcOperations#queryForObject(String, Class, Object...)
+	 */
+	public <T> Mono<T> queryForObject(String sql, Class<T> requiredType, @Nullable Object... args) {
+		return execute(operations -> operations.queryForObject(sql, requiredType, args));
+	}
+
+	/**
+	 * Issue a single SQL update operation via a prepared statement,
+	 * binding the given arguments.
+	 * @param sql the SQL containing bind parameters
+	 * @param args arguments to bind to the query
+	 * @return a Mono emitting the number of rows affected
+	 * @see JdbcOperations#update(String, Object...)
+	 */
+	public Mono<Integer> update(String sql, @Nullable Object... args) {
+		return execute(operations -> operations.update(sql, args));
+	}
+
+	/**
+	 * Execute a batch using the supplied SQL statement with the batch of supplied arguments.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the List of Object arrays containing the batch of arguments for the query
+	 * @return a Mono emitting an array containing the numbers of rows affected
+	 * by each update in the batch
+	 * @see JdbcOperations#batchUpdate(String, List)
+	 */
+	public Mono<int[]> batchUpdate(String sql, List<Object[]> batchArgs) {
+		return execute(operations -> operations.batchUpdate(sql, batchArgs));
+	}
+
+
+	/**
+	 * Dispose the scheduler if created by this template.
+	 */
+	@Override
+	public void destroy() {
+		if (this.disposeScheduler) {
+			this.scheduler.dispose();
+		}
+	}
+
+	/**
+	 * Determine the JdbcOperations and Scheduler to use: the transactional
+	 * Connection and its pinned worker if within a reactive transaction for
+	 * our DataSource, or the target JdbcTemplate and our scheduler otherwise.
+	 */
+	private Mono<Target> currentTarget() {
+		DataSource dataSource = this.jdbcTemplate.getDataSource();
+		Target defaultTarget = new Target(this.jdbcTemplate, this.scheduler);
+		if (dataSource == null) {
+			return Mono.just(defaultTarget);
+		}
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.map(synchronizationManager -> {
+					Object resource = synchronizationManager.getResource(dataSource);
+					if (resource instanceof ReactiveConnectionHolder) {
+						ReactiveConnectionHolder conHolder = (ReactiveConnectionHolder) resource;
+						return new Target(createTransactionalTemplate(conHolder), conHolder.getScheduler());
+					}
+					return defaultTarget;
+				})
+				.onErrorResume(NoTransactionException.class, ex -> Mono.just(defaultTarget));
+	}
+
+	/**
+	 * Create a JdbcTemplate for the given transactional Connection,
+	 * with the settings of our target JdbcTemplate.
+	 */
+	private JdbcTemplate createTransactionalTemplate(ReactiveConnectionHolder conHolder) {
+		JdbcTemplate template = new JdbcTemplate(conHolder.getDataSource(), true);
+		template.setExceptionTranslator(this.jdbcTemplate.getExceptionTranslator());
+		template.setIgnoreWarnings(this.jdbcTemplate.isIgnoreWarnings());
+		template.setFetchSize(this.jdbcTemplate.getFetchSize());
+		template.setMaxRows(this.jdbcTemplate.getMaxRows());
+		template.setQueryTimeout(this.jdbcTemplate.getQueryTimeout());
+		template.setSkipResultsProcessing(this.jdbcTemplate.isSkipResultsProcessing());
+		template.setSkipUndeclaredResults(this.jdbcTemplate.isSkipUndeclaredResults());
+		template.setResultsMapCaseInsensitive(this.jdbcTemplate.isResultsMapCaseInsensitive());
+		return template;
+	}
+
+
+	/**
+	 * The JdbcOperations to invoke and the Scheduler to invoke them on.
+	 */
+	private static final class Target {
+
+		final JdbcOperations operations;
+
+		final Scheduler scheduler;
+
+		Target(JdbcOperations operations, Scheduler scheduler) {
+			this.operations = operations;
+			this.scheduler = scheduler;
+		}
+	}
+
+}
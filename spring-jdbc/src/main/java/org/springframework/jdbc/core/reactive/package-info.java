@@ -0,0 +1,12 @@
+/**
+ * Reactive facade over the classic JDBC template, running blocking JDBC
+ * operations on a dedicated Reactor scheduler, with a corresponding
+ * {@link org.springframework.transaction.ReactiveTransactionManager}
+ * that pins each transaction's Connection to a scheduler worker.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.jdbc.core.reactive;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
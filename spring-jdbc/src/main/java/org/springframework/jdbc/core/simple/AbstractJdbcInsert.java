@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -88,6 +89,12 @@ public abstract class AbstractJdbcInsert {
 	/** The SQL type information for the insert columns. */
 	private int[] insertTypes = new int[0];
 
+	/** The number of rows to insert per statement execution for bulk inserts. */
+	private int bulkInsertChunkSize = 1000;
+
+	/** Whether to use multi-row insert statements for bulk inserts, if supported. */
+	private boolean multiRowInsert = false;
+
 
 	/**
 	 * Constructor to be used when initializing using a {@link DataSource}.
@@ -221,6 +228,49 @@ public abstract class AbstractJdbcInsert {
 		this.tableMetaDataContext.setOverrideIncludeSynonymsDefault(override);
 	}
 
+	/**
+	 * Specify the number of rows to insert per statement execution for bulk
+	 * inserts: as the size of a JDBC batch, or as the number of VALUES lists
+	 * in a multi-row insert statement.
+	 * <p>The default is 1000. Note that some databases limit the number of
+	 * parameters per statement, which needs to be taken into account for
+	 * multi-row inserts into tables with many columns.
+	 * @since 5.2.13
+	 * @see #setMultiRowInsert
+	 */
+	public void setBulkInsertChunkSize(int bulkInsertChunkSize) {
+		Assert.isTrue(bulkInsertChunkSize > 0, "Bulk insert chunk size must be greater than 0");
+		this.bulkInsertChunkSize = bulkInsertChunkSize;
+	}
+
+	/**
+	 * Return the number of rows to insert per statement execution for bulk inserts.
+	 * @since 5.2.13
+	 */
+	public int getBulkInsertChunkSize() {
+		return this.bulkInsertChunkSize;
+	}
+
+	/**
+	 * Specify whether bulk inserts should be rewritten to multi-row
+	 * {@code INSERT ... VALUES (...), (...)} statements, for databases that
+	 * are known to support those, instead of being executed as JDBC batches.
+	 * <p>The default is {@code false}.
+	 * @since 5.2.13
+	 * @see org.springframework.jdbc.core.metadata.TableMetaDataProvider#isMultiRowInsertSupported()
+	 */
+	public void setMultiRowInsert(boolean multiRowInsert) {
+		this.multiRowInsert = multiRowInsert;
+	}
+
+	/**
+	 * Return whether bulk inserts should be rewritten to multi-row insert statements.
+	 * @since 5.2.13
+	 */
+	public boolean isMultiRowInsert() {
+		return this.multiRowInsert;
+	}
+
 	/**
 	 * Get the insert string to be used.
 	 */
@@ -582,6 +632,67 @@ public abstract class AbstractJdbcInsert {
 				});
 	}
 
+	/**
+	 * Delegate method that executes a bulk insert using the passed-in
+	 * {@link SqlParameterSource SqlParameterSources}, in chunks of
+	 * {@link #setBulkInsertChunkSize bulkInsertChunkSize} rows each.
+	 * <p>Rows are consumed from the given Iterator one chunk at a time, so the
+	 * input does not need to be held in memory as a whole. Each chunk is executed
+	 * as a separate JDBC batch or multi-row insert statement, so the bulk insert
+	 * as a whole is only atomic within a surrounding transaction.
+	 * @param batch an Iterator over the SqlParameterSources with parameter names
+	 * and values to be used in the insert
+	 * @return an array with the number of rows affected per chunk, or
+	 * {@link Statement#SUCCESS_NO_INFO} for a chunk if the JDBC driver did
+	 * not report the number of rows affected
+	 * @since 5.2.13
+	 */
+	protected int[] doExecuteBulk(Iterator<? extends SqlParameterSource> batch) {
+		checkCompiled();
+		List<Integer> rowCounts = new ArrayList<>();
+		List<List<Object>> chunk = new ArrayList<>();
+		while (batch.hasNext()) {
+			chunk.add(matchInParameterValuesWithInsertColumns(batch.next()));
+			if (chunk.size() == this.bulkInsertChunkSize) {
+				rowCounts.add(executeChunkInternal(chunk));
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			rowCounts.add(executeChunkInternal(chunk));
+		}
+		return rowCounts.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Delegate method to execute a chunk of a bulk insert, either as a
+	 * multi-row insert statement or as a JDBC batch.
+	 */
+	private int executeChunkInternal(List<List<Object>> chunk) {
+		if (this.multiRowInsert && chunk.size() > 1 && this.tableMetaDataContext.isMultiRowInsertSupported()) {
+			String multiRowInsertString =
+					this.tableMetaDataContext.createMultiRowInsertString(chunk.size(), getGeneratedKeyNames());
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executing multi-row insert for table [" + getTableName() + "] with " +
+						chunk.size() + " rows");
+			}
+			return getJdbcTemplate().update(multiRowInsertString, ps -> {
+				int offset = 0;
+				for (List<Object> values : chunk) {
+					offset = setParameterValues(ps, offset, values, getInsertTypes());
+				}
+			});
+		}
+		int rowCount = 0;
+		for (int updateCount : executeBatchInternal(chunk)) {
+			if (updateCount < 0) {
+				return Statement.SUCCESS_NO_INFO;
+			}
+			rowCount += updateCount;
+		}
+		return rowCount;
+	}
+
 	/**
 	 * Internal implementation for setting parameter values.
 	 * @param preparedStatement the PreparedStatement
@@ -590,16 +701,33 @@ public abstract class AbstractJdbcInsert {
 	private void setParameterValues(PreparedStatement preparedStatement, List<?> values, @Nullable int... columnTypes)
 			throws SQLException {
 
+		setParameterValues(preparedStatement, 0, values, columnTypes);
+	}
+
+	/**
+	 * Internal implementation for setting parameter values, starting after the
+	 * given parameter offset.
+	 * @param preparedStatement the PreparedStatement
+	 * @param offset the number of parameters already set
+	 * @param values the values to be set
+	 * @return the new parameter offset
+	 */
+	private int setParameterValues(PreparedStatement preparedStatement, int offset, List<?> values,
+			@Nullable int[] columnTypes) throws SQLException {
+
 		int colIndex = 0;
 		for (Object value : values) {
 			colIndex++;
 			if (columnTypes == null || colIndex > columnTypes.length) {
-				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, SqlTypeValue.TYPE_UNKNOWN, value);
+				StatementCreatorUtils.setParameterValue(
+						preparedStatement, offset + colIndex, SqlTypeValue.TYPE_UNKNOWN, value);
 			}
 			else {
-				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, columnTypes[colIndex - 1], value);
+				StatementCreatorUtils.setParameterValue(
+						preparedStatement, offset + colIndex, columnTypes[colIndex - 1], value);
 			}
 		}
+		return offset + colIndex;
 	}
 
 	/**
@@ -18,6 +18,7 @@ package org.springframework.jdbc.core.simple;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -112,6 +113,18 @@ public class SimpleJdbcInsert extends AbstractJdbcInsert implements SimpleJdbcIn
 		return this;
 	}
 
+	@Override
+	public SimpleJdbcInsert withBulkInsertChunkSize(int chunkSize) {
+		setBulkInsertChunkSize(chunkSize);
+		return this;
+	}
+
+	@Override
+	public SimpleJdbcInsert usingMultiRowInserts() {
+		setMultiRowInsert(true);
+		return this;
+	}
+
 	@Override
 	public int execute(Map<String, ?> args) {
 		return doExecute(args);
@@ -153,4 +166,14 @@ public class SimpleJdbcInsert extends AbstractJdbcInsert implements SimpleJdbcIn
 		return doExecuteBatch(batch);
 	}
 
+	@Override
+	public int[] executeBulk(Iterable<? extends SqlParameterSource> batch) {
+		return doExecuteBulk(batch.iterator());
+	}
+
+	@Override
+	public int[] executeBulk(Stream<? extends SqlParameterSource> batch) {
+		return doExecuteBulk(batch.iterator());
+	}
+
 }
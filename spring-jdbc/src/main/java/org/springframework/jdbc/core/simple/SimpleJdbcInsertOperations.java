@@ -16,7 +16,12 @@
 
 package org.springframework.jdbc.core.simple;
 
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.KeyHolder;
@@ -80,6 +85,32 @@ public interface SimpleJdbcInsertOperations {
 	 */
 	SimpleJdbcInsertOperations includeSynonymsForTableColumnMetaData();
 
+	/**
+	 * Specify the number of rows to insert per statement execution for bulk inserts.
+	 * <p>The default implementation ignores the chunk size, in line with the
+	 * default {@link #executeBulk(Iterable)} implementation.
+	 * @param chunkSize the number of rows per chunk
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.2.13
+	 * @see #executeBulk(Iterable)
+	 */
+	default SimpleJdbcInsertOperations withBulkInsertChunkSize(int chunkSize) {
+		return this;
+	}
+
+	/**
+	 * Rewrite bulk inserts to multi-row {@code INSERT ... VALUES (...), (...)}
+	 * statements, if the database is known to support those.
+	 * <p>The default implementation ignores this option, in line with the
+	 * default {@link #executeBulk(Iterable)} implementation.
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.2.13
+	 * @see #executeBulk(Iterable)
+	 */
+	default SimpleJdbcInsertOperations usingMultiRowInserts() {
+		return this;
+	}
+
 
 	/**
 	 * Execute the insert using the values passed in.
@@ -150,4 +181,41 @@ public interface SimpleJdbcInsertOperations {
 	 */
 	int[] executeBatch(SqlParameterSource... batch);
 
+	/**
+	 * Execute a bulk insert using the values passed in, consuming them in
+	 * chunks of the configured bulk insert chunk size.
+	 * <p>The default implementation executes all values as a single chunk
+	 * through {@link #executeBatch(SqlParameterSource...)}.
+	 * @param batch the SqlParameterSources containing values to use for insert
+	 * @return the array of number of rows affected per chunk
+	 * @since 5.2.13
+	 */
+	default int[] executeBulk(Iterable<? extends SqlParameterSource> batch) {
+		List<SqlParameterSource> values = new ArrayList<>();
+		batch.forEach(values::add);
+		if (values.isEmpty()) {
+			return new int[0];
+		}
+		int rowCount = 0;
+		for (int updateCount : executeBatch(values.toArray(new SqlParameterSource[0]))) {
+			if (updateCount < 0) {
+				return new int[] {Statement.SUCCESS_NO_INFO};
+			}
+			rowCount += updateCount;
+		}
+		return new int[] {rowCount};
+	}
+
+	/**
+	 * Execute a bulk insert using the values passed in, consuming them in
+	 * chunks of the configured bulk insert chunk size.
+	 * <p>The given Stream is not closed by this method.
+	 * @param batch the SqlParameterSources containing values to use for insert
+	 * @return the array of number of rows affected per chunk
+	 * @since 5.2.13
+	 */
+	default int[] executeBulk(Stream<? extends SqlParameterSource> batch) {
+		return executeBulk(batch.collect(Collectors.<SqlParameterSource>toList()));
+	}
+
 }
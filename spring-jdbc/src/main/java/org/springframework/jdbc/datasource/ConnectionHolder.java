@@ -55,11 +55,15 @@ public class ConnectionHolder extends ResourceHolderSupport {
 
 	private boolean transactionActive = false;
 
+	private boolean lightweightReadOnly = false;
+
 	@Nullable
 	private Boolean savepointsSupported;
 
 	private int savepointCounter = 0;
 
+	private int activeSavepointCount = 0;
+
 
 	/**
 	 * Create a new ConnectionHolder for the given ConnectionHandle.
@@ -126,6 +130,25 @@ public class ConnectionHolder extends ResourceHolderSupport {
 		return this.transactionActive;
 	}
 
+	/**
+	 * Set whether the transaction represented by this holder is a read-only
+	 * transaction running on a Connection in auto-commit mode.
+	 * @since 5.2.13
+	 * @see DataSourceTransactionManager#setLightweightReadOnly
+	 */
+	protected void setLightweightReadOnly(boolean lightweightReadOnly) {
+		this.lightweightReadOnly = lightweightReadOnly;
+	}
+
+	/**
+	 * Return whether the transaction represented by this holder is a read-only
+	 * transaction running on a Connection in auto-commit mode.
+	 * @since 5.2.13
+	 */
+	protected boolean isLightweightReadOnly() {
+		return this.lightweightReadOnly;
+	}
+
 
 	/**
 	 * Override the existing Connection handle with the given Connection.
@@ -184,7 +207,35 @@ public class ConnectionHolder extends ResourceHolderSupport {
 	 */
 	public Savepoint createSavepoint() throws SQLException {
 		this.savepointCounter++;
-		return getConnection().setSavepoint(SAVEPOINT_NAME_PREFIX + this.savepointCounter);
+		Savepoint savepoint = getConnection().setSavepoint(SAVEPOINT_NAME_PREFIX + this.savepointCounter);
+		this.activeSavepointCount++;
+		return savepoint;
+	}
+
+	/**
+	 * Release the given JDBC 3.0 Savepoint, as created by {@link #createSavepoint()}.
+	 * @param savepoint the Savepoint to release
+	 * @throws SQLException if thrown by the JDBC driver
+	 * @since 5.2.13
+	 */
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+		try {
+			getConnection().releaseSavepoint(savepoint);
+		}
+		finally {
+			if (this.activeSavepointCount > 0) {
+				this.activeSavepointCount--;
+			}
+		}
+	}
+
+	/**
+	 * Return whether a Savepoint created by {@link #createSavepoint()} has not
+	 * been {@linkplain #releaseSavepoint released} yet.
+	 * @since 5.2.13
+	 */
+	public boolean hasActiveSavepoint() {
+		return (this.activeSavepointCount > 0);
 	}
 
 	/**
@@ -210,8 +261,10 @@ public class ConnectionHolder extends ResourceHolderSupport {
 	public void clear() {
 		super.clear();
 		this.transactionActive = false;
+		this.lightweightReadOnly = false;
 		this.savepointsSupported = null;
 		this.savepointCounter = 0;
+		this.activeSavepointCount = 0;
 	}
 
 }
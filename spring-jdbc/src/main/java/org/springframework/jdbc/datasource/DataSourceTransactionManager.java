@@ -25,7 +25,10 @@ import javax.sql.DataSource;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.NestedTransactionNotSupportedException;
 import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 import org.springframework.transaction.support.DefaultTransactionStatus;
@@ -118,6 +121,8 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 
 	private boolean enforceReadOnly = false;
 
+	private boolean lightweightReadOnly = false;
+
 
 	/**
 	 * Create a new DataSourceTransactionManager instance.
@@ -204,6 +209,8 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	 * <p>Note that older Oracle JDBC drivers (9i, 10g) used to enforce this read-only
 	 * mode even for {@code Connection.setReadOnly(true}. However, with recent drivers,
 	 * this strong enforcement needs to be applied explicitly, e.g. through this flag.
+	 * <p>Since enforcement requires an actual database transaction, this flag takes
+	 * precedence over the {@link #setLightweightReadOnly "lightweightReadOnly"} flag.
 	 * @since 4.3.7
 	 * @see #prepareTransactionalConnection
 	 */
@@ -221,6 +228,47 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		return this.enforceReadOnly;
 	}
 
+	/**
+	 * Specify whether to run read-only transactions with default isolation in a
+	 * lightweight mode: that is, on a Connection that remains in auto-commit mode,
+	 * without applying the read-only hint and without commit or rollback calls.
+	 * <p>This avoids all Connection state changes and the corresponding resets
+	 * for simple read-only methods, typically executing a single query. Note
+	 * that each statement executes in its own database transaction then, so
+	 * multiple queries do not get a consistent view of the data. The Connection
+	 * is still bound to the thread for the scope of the transaction, and
+	 * {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()}
+	 * reflects the read-only flag as usual.
+	 * <p>Only applies if the Connection is in auto-commit mode to begin with,
+	 * e.g. as the default state of the Connection pool, and if the
+	 * {@link #setEnforceReadOnly "enforceReadOnly"} flag is not set: enforcing
+	 * read-only mode through "SET TRANSACTION READ ONLY" requires an actual
+	 * database transaction. Default is "false".
+	 * <p>Since the Connection provides neither atomicity nor savepoints in this
+	 * mode, participating in a lightweight read-only transaction with a
+	 * definition that is not read-only, or with
+	 * {@link TransactionDefinition#PROPAGATION_NESTED PROPAGATION_NESTED}, fails
+	 * with an {@link IllegalTransactionStateException} or a
+	 * {@link NestedTransactionNotSupportedException}, respectively. Use
+	 * {@link TransactionDefinition#PROPAGATION_REQUIRES_NEW PROPAGATION_REQUIRES_NEW}
+	 * for such work instead.
+	 * @since 5.2.13
+	 * @see TransactionDefinition#isReadOnly()
+	 */
+	public void setLightweightReadOnly(boolean lightweightReadOnly) {
+		this.lightweightReadOnly = lightweightReadOnly;
+	}
+
+	/**
+	 * Return whether to run read-only transactions with default isolation
+	 * in a lightweight auto-commit mode.
+	 * @since 5.2.13
+	 * @see #setLightweightReadOnly
+	 */
+	public boolean isLightweightReadOnly() {
+		return this.lightweightReadOnly;
+	}
+
 	@Override
 	public void afterPropertiesSet() {
 		if (getDataSource() == null) {
@@ -268,22 +316,33 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 			txObject.getConnectionHolder().setSynchronizedWithTransaction(true);
 			con = txObject.getConnectionHolder().getConnection();
 
-			Integer previousIsolationLevel = DataSourceUtils.prepareConnectionForTransaction(con, definition);
-			txObject.setPreviousIsolationLevel(previousIsolationLevel);
-			txObject.setReadOnly(definition.isReadOnly());
-
-			// Switch to manual commit if necessary. This is very expensive in some JDBC drivers,
-			// so we don't want to do it unnecessarily (for example if we've explicitly
-			// configured the connection pool to set it already).
-			if (con.getAutoCommit()) {
-				txObject.setMustRestoreAutoCommit(true);
+			if (isLightweightReadOnly() && !isEnforceReadOnly() && definition.isReadOnly() &&
+					definition.getIsolationLevel() == TransactionDefinition.ISOLATION_DEFAULT &&
+					con.getAutoCommit()) {
+				// Keep auto-commit mode: no Connection state to change and to reset.
 				if (logger.isDebugEnabled()) {
-					logger.debug("Switching JDBC Connection [" + con + "] to manual commit");
+					logger.debug("Using JDBC Connection [" + con + "] in auto-commit mode for read-only transaction");
 				}
-				con.setAutoCommit(false);
+				txObject.setLightweightReadOnly(true);
 			}
+			else {
+				Integer previousIsolationLevel = DataSourceUtils.prepareConnectionForTransaction(con, definition);
+				txObject.setPreviousIsolationLevel(previousIsolationLevel);
+				txObject.setReadOnly(definition.isReadOnly());
+
+				// Switch to manual commit if necessary. This is very expensive in some JDBC drivers,
+				// so we don't want to do it unnecessarily (for example if we've explicitly
+				// configured the connection pool to set it already).
+				if (con.getAutoCommit()) {
+					txObject.setMustRestoreAutoCommit(true);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Switching JDBC Connection [" + con + "] to manual commit");
+					}
+					con.setAutoCommit(false);
+				}
 
-			prepareTransactionalConnection(con, definition);
+				prepareTransactionalConnection(con, definition);
+			}
 			txObject.getConnectionHolder().setTransactionActive(true);
 
 			int timeout = determineTimeout(definition);
@@ -306,6 +365,28 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		}
 	}
 
+	@Override
+	protected DefaultTransactionStatus newTransactionStatus(
+			TransactionDefinition definition, @Nullable Object transaction, boolean newTransaction,
+			boolean newSynchronization, boolean debug, @Nullable Object suspendedResources) {
+
+		if (!newTransaction && transaction != null &&
+				((DataSourceTransactionObject) transaction).isLightweightReadOnly()) {
+			// Participating in a read-only transaction on a Connection in auto-commit mode:
+			// neither writes nor savepoints could be rolled back along with that transaction.
+			if (definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_NESTED) {
+				throw new NestedTransactionNotSupportedException(
+						"Cannot create a nested transaction within a lightweight read-only transaction");
+			}
+			if (!definition.isReadOnly()) {
+				throw new IllegalTransactionStateException("Participating transaction with definition [" +
+						definition + "] is not marked as read-only but existing transaction is lightweight read-only");
+			}
+		}
+		return super.newTransactionStatus(
+				definition, transaction, newTransaction, newSynchronization, debug, suspendedResources);
+	}
+
 	@Override
 	protected Object doSuspend(Object transaction) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) transaction;
@@ -321,6 +402,9 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	@Override
 	protected void doCommit(DefaultTransactionStatus status) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) status.getTransaction();
+		if (txObject.isLightweightReadOnly()) {
+			return;
+		}
 		Connection con = txObject.getConnectionHolder().getConnection();
 		if (status.isDebug()) {
 			logger.debug("Committing JDBC transaction on Connection [" + con + "]");
@@ -336,6 +420,9 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	@Override
 	protected void doRollback(DefaultTransactionStatus status) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) status.getTransaction();
+		if (txObject.isLightweightReadOnly()) {
+			return;
+		}
 		Connection con = txObject.getConnectionHolder().getConnection();
 		if (status.isDebug()) {
 			logger.debug("Rolling back JDBC transaction on Connection [" + con + "]");
@@ -443,6 +530,14 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 			return this.mustRestoreAutoCommit;
 		}
 
+		public void setLightweightReadOnly(boolean lightweightReadOnly) {
+			getConnectionHolder().setLightweightReadOnly(lightweightReadOnly);
+		}
+
+		public boolean isLightweightReadOnly() {
+			return (hasConnectionHolder() && getConnectionHolder().isLightweightReadOnly());
+		}
+
 		public void setRollbackOnly() {
 			getConnectionHolder().setRollbackOnly();
 		}
@@ -452,6 +547,14 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 			return getConnectionHolder().isRollbackOnly();
 		}
 
+		@Override
+		public Object createSavepoint() throws TransactionException {
+			// Execute pending statements, e.g. JdbcTemplate write-behind updates,
+			// so that they do not end up within the scope of the new savepoint.
+			flush();
+			return super.createSavepoint();
+		}
+
 		@Override
 		public void flush() {
 			if (TransactionSynchronizationManager.isSynchronizationActive()) {
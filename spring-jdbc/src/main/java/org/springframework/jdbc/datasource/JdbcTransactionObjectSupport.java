@@ -188,7 +188,7 @@ public abstract class JdbcTransactionObjectSupport implements SavepointManager,
 	public void releaseSavepoint(Object savepoint) throws TransactionException {
 		ConnectionHolder conHolder = getConnectionHolderForSavepoint();
 		try {
-			conHolder.getConnection().releaseSavepoint((Savepoint) savepoint);
+			conHolder.releaseSavepoint((Savepoint) savepoint);
 		}
 		catch (Throwable ex) {
 			logger.debug("Could not explicitly release JDBC savepoint", ex);
@@ -0,0 +1,519 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Proxy for a target DataSource, caching PreparedStatements and
+ * CallableStatements per Connection handle. Statements are kept in a bounded
+ * LRU cache keyed by SQL and result set type, concurrency, holdability and
+ * generated keys mode; closing a Statement (e.g. through
+ * {@link JdbcUtils#closeStatement}) resets it and returns it to the cache
+ * instead of closing it, so that subsequent requests for the same SQL on the
+ * same Connection handle can reuse it.
+ *
+ * <p>This is useful with DataSources and drivers that do not cache statements
+ * themselves. Since the cache is bound to a Connection handle obtained from
+ * this proxy, it is most effective for Connections that are used for many
+ * statements: for example, within transactions managed by
+ * {@link DataSourceTransactionManager}, or as the target Connection of a
+ * {@link SingleConnectionDataSource}. All cached statements are closed
+ * along with the Connection handle.
+ *
+ * <p><b>NOTE:</b> This DataSource proxy needs to return wrapped Connections
+ * (which implement the {@link ConnectionProxy} interface) in order to
+ * intercept statement creation. Use {@link Connection#unwrap} to retrieve
+ * the native JDBC Connection.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see #setStatementCacheSize
+ */
+public class StatementCachingDataSourceProxy extends DelegatingDataSource {
+
+	private static final Log logger = LogFactory.getLog(StatementCachingDataSourceProxy.class);
+
+	private int statementCacheSize = 64;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+
+	/**
+	 * Create a new StatementCachingDataSourceProxy.
+	 * @see #setTargetDataSource
+	 */
+	public StatementCachingDataSourceProxy() {
+	}
+
+	/**
+	 * Create a new StatementCachingDataSourceProxy.
+	 * @param targetDataSource the target DataSource
+	 */
+	public StatementCachingDataSourceProxy(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+
+	/**
+	 * Set the maximum number of statements to cache per Connection handle.
+	 * <p>Default is 64. Setting this to 0 turns off statement caching.
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		Assert.isTrue(statementCacheSize >= 0, "Statement cache size must not be negative");
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * Return the maximum number of statements to cache per Connection handle.
+	 */
+	public int getStatementCacheSize() {
+		return this.statementCacheSize;
+	}
+
+	/**
+	 * Return the number of statement requests served from a cache.
+	 */
+	public long getStatementCacheHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of statement requests that required a new statement.
+	 */
+	public long getStatementCacheMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the number of cached statements closed to make room for others.
+	 */
+	public long getStatementCacheEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	/**
+	 * Return the ratio of statement requests served from a cache,
+	 * or 0 if no statements have been requested yet.
+	 */
+	public double getStatementCacheHitRatio() {
+		long hits = this.hitCount.get();
+		long total = hits + this.missCount.get();
+		return (total > 0 ? (double) hits / total : 0);
+	}
+
+
+	/**
+	 * Return a Connection handle that caches the statements created from it.
+	 * <p>The returned Connection handle implements the ConnectionProxy interface,
+	 * allowing to retrieve the underlying target Connection.
+	 * @return a statement caching Connection handle
+	 * @see ConnectionProxy#getTargetConnection()
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		return getStatementCachingConnectionProxy(obtainTargetDataSource().getConnection());
+	}
+
+	/**
+	 * Return a Connection handle that caches the statements created from it.
+	 * <p>The returned Connection handle implements the ConnectionProxy interface,
+	 * allowing to retrieve the underlying target Connection.
+	 * @param username the per-Connection username
+	 * @param password the per-Connection password
+	 * @return a statement caching Connection handle
+	 * @see ConnectionProxy#getTargetConnection()
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getStatementCachingConnectionProxy(obtainTargetDataSource().getConnection(username, password));
+	}
+
+	/**
+	 * Wrap the given Connection with a proxy that caches the statements
+	 * created from it.
+	 * @param target the original Connection to wrap
+	 * @return the wrapped Connection
+	 */
+	protected Connection getStatementCachingConnectionProxy(Connection target) {
+		return (Connection) Proxy.newProxyInstance(
+				ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] {ConnectionProxy.class},
+				new StatementCachingInvocationHandler(target));
+	}
+
+
+	/**
+	 * Invocation handler that caches statements created from a target Connection.
+	 */
+	private class StatementCachingInvocationHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		private final Map<StatementKey, CachedStatement> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+		private boolean closed = false;
+
+		public StatementCachingInvocationHandler(Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of Connection proxy.
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Statement caching proxy for target Connection [" + this.target + "]";
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "getTargetConnection":
+					// Handle getTargetConnection method: return underlying Connection.
+					return this.target;
+				case "prepareStatement":
+				case "prepareCall":
+					if (!this.closed && getStatementCacheSize() > 0) {
+						return getStatement((Connection) proxy, method, args);
+					}
+					break;
+				case "close":
+					if (!this.closed) {
+						this.closed = true;
+						closeCachedStatements();
+					}
+					break;
+			}
+
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		private Object getStatement(Connection proxy, Method method, Object[] args) throws Throwable {
+			StatementKey key = new StatementKey(method.getName(), args);
+			CachedStatement statement;
+			synchronized (this.cache) {
+				statement = this.cache.remove(key);
+			}
+			if (statement != null) {
+				hitCount.incrementAndGet();
+			}
+			else {
+				missCount.incrementAndGet();
+				try {
+					statement = new CachedStatement((PreparedStatement) method.invoke(this.target, args),
+							returnsGeneratedKeys(args));
+				}
+				catch (InvocationTargetException ex) {
+					throw ex.getTargetException();
+				}
+			}
+			Class<?> statementType = (statement.statement instanceof CallableStatement ?
+					CallableStatement.class : PreparedStatement.class);
+			return Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[] {statementType},
+					new CachedStatementInvocationHandler(this, key, statement, proxy));
+		}
+
+		private boolean returnsGeneratedKeys(Object[] args) {
+			if (args.length != 2) {
+				return false;
+			}
+			Object keys = args[1];
+			return (keys instanceof int[] || keys instanceof String[] ||
+					(keys instanceof Integer && (Integer) keys == Statement.RETURN_GENERATED_KEYS));
+		}
+
+		private void returnStatement(StatementKey key, CachedStatement statement) {
+			if (!this.closed && statement.isReusable()) {
+				try {
+					statement.reset();
+					CachedStatement evicted = null;
+					synchronized (this.cache) {
+						if (!this.cache.containsKey(key)) {
+							this.cache.put(key, statement);
+							statement = null;
+							if (this.cache.size() > getStatementCacheSize()) {
+								Iterator<CachedStatement> it = this.cache.values().iterator();
+								evicted = it.next();
+								it.remove();
+							}
+						}
+					}
+					if (evicted != null) {
+						evictionCount.incrementAndGet();
+						JdbcUtils.closeStatement(evicted.statement);
+					}
+				}
+				catch (SQLException ex) {
+					logger.debug("Could not reset JDBC Statement for reuse", ex);
+				}
+			}
+			if (statement != null) {
+				JdbcUtils.closeStatement(statement.statement);
+			}
+		}
+
+		private void closeCachedStatements() {
+			List<CachedStatement> statements;
+			synchronized (this.cache) {
+				statements = new ArrayList<>(this.cache.values());
+				this.cache.clear();
+			}
+			for (CachedStatement statement : statements) {
+				JdbcUtils.closeStatement(statement.statement);
+			}
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a statement checked out from the cache,
+	 * returning it to the cache on close.
+	 */
+	private static class CachedStatementInvocationHandler implements InvocationHandler {
+
+		private final StatementCachingInvocationHandler connectionHandler;
+
+		private final StatementKey key;
+
+		private final CachedStatement statement;
+
+		private final Connection connectionProxy;
+
+		private boolean closed = false;
+
+		public CachedStatementInvocationHandler(StatementCachingInvocationHandler connectionHandler,
+				StatementKey key, CachedStatement statement, Connection connectionProxy) {
+
+			this.connectionHandler = connectionHandler;
+			this.key = key;
+			this.statement = statement;
+			this.connectionProxy = connectionProxy;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return (proxy == args[0]);
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Cached statement proxy for target Statement [" + this.statement.statement + "]";
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "getConnection":
+					return this.connectionProxy;
+				case "isClosed":
+					return (this.closed || this.statement.statement.isClosed());
+				case "close":
+					if (!this.closed) {
+						this.closed = true;
+						this.connectionHandler.returnStatement(this.key, this.statement);
+					}
+					return null;
+				case "setEscapeProcessing":
+				case "setCursorName":
+				case "closeOnCompletion":
+					// Settings that cannot be read back and restored on reuse
+					this.statement.markNotReusable();
+					break;
+			}
+
+			if (this.closed) {
+				throw new SQLException("Illegal operation: statement is closed");
+			}
+			try {
+				return method.invoke(this.statement.statement, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+
+	/**
+	 * Cache key for a statement: the creation method and its arguments, i.e.
+	 * the SQL and any result set type, concurrency, holdability or generated
+	 * keys settings.
+	 */
+	private static final class StatementKey {
+
+		private final String methodName;
+
+		private final Object[] args;
+
+		StatementKey(String methodName, Object[] args) {
+			this.methodName = methodName;
+			this.args = args.clone();
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof StatementKey)) {
+				return false;
+			}
+			StatementKey otherKey = (StatementKey) other;
+			return (this.methodName.equals(otherKey.methodName) && Arrays.deepEquals(this.args, otherKey.args));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.methodName.hashCode() * 31 + Arrays.deepHashCode(this.args);
+		}
+	}
+
+
+	/**
+	 * A cached statement along with its initial settings, to be restored on reuse.
+	 * Statements with settings that cannot be restored are not reused.
+	 */
+	private static final class CachedStatement {
+
+		final PreparedStatement statement;
+
+		private final int fetchSize;
+
+		private final int fetchDirection;
+
+		private final int maxRows;
+
+		private final int maxFieldSize;
+
+		private final int queryTimeout;
+
+		private final boolean poolable;
+
+		private final boolean returnsGeneratedKeys;
+
+		private boolean reusable = true;
+
+		CachedStatement(PreparedStatement statement, boolean returnsGeneratedKeys) throws SQLException {
+			this.statement = statement;
+			this.returnsGeneratedKeys = returnsGeneratedKeys;
+			this.fetchSize = statement.getFetchSize();
+			this.fetchDirection = statement.getFetchDirection();
+			this.maxRows = statement.getMaxRows();
+			this.maxFieldSize = statement.getMaxFieldSize();
+			this.queryTimeout = statement.getQueryTimeout();
+			this.poolable = statement.isPoolable();
+		}
+
+		void markNotReusable() {
+			this.reusable = false;
+		}
+
+		boolean isReusable() {
+			return this.reusable;
+		}
+
+		/**
+		 * Close any open result set, including generated keys, clear any
+		 * parameters, batch and warnings, and restore the initial settings
+		 * of the statement.
+		 * @throws SQLException if the statement could not be reset,
+		 * in which case it must not be reused
+		 */
+		void reset() throws SQLException {
+			JdbcUtils.closeResultSet(this.statement.getResultSet());
+			if (this.returnsGeneratedKeys) {
+				JdbcUtils.closeResultSet(this.statement.getGeneratedKeys());
+			}
+			this.statement.clearParameters();
+			this.statement.clearBatch();
+			this.statement.clearWarnings();
+			if (this.statement.getFetchSize() != this.fetchSize) {
+				this.statement.setFetchSize(this.fetchSize);
+			}
+			if (this.statement.getMaxRows() != this.maxRows) {
+				this.statement.setMaxRows(this.maxRows);
+			}
+			if (this.statement.getQueryTimeout() != this.queryTimeout) {
+				this.statement.setQueryTimeout(this.queryTimeout);
+			}
+			if (this.statement.getFetchDirection() != this.fetchDirection) {
+				this.statement.setFetchDirection(this.fetchDirection);
+			}
+			if (this.statement.getMaxFieldSize() != this.maxFieldSize) {
+				this.statement.setMaxFieldSize(this.maxFieldSize);
+			}
+			if (this.statement.isPoolable() != this.poolable) {
+				this.statement.setPoolable(this.poolable);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * {@link javax.sql.DataSource} implementation that routes read-only transactions
+ * to a set of replica DataSources and everything else to a primary DataSource.
+ *
+ * <p>Read-only work is detected through
+ * {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()},
+ * i.e. {@code @Transactional(readOnly = true)} with a thread-bound transaction
+ * manager such as {@link org.springframework.jdbc.datasource.DataSourceTransactionManager}.
+ * Since transaction synchronization is only initialized after the transaction
+ * manager has obtained its Connection, the routing decision is deferred until
+ * the first Statement is created, in the same way as with
+ * {@link LazyConnectionDataSourceProxy}.
+ *
+ * <p>Replicas are chosen in round-robin fashion. A replica that fails to provide
+ * a Connection is skipped for the configured {@link #setReplicaRetryInterval
+ * retry interval}; if no replica is available, read-only work falls back to the
+ * primary DataSource.
+ *
+ * <p>To provide read-your-writes consistency in the face of replica lag, a
+ * non-read-only transaction pins read-only work on the same thread to the
+ * primary DataSource. The pin is cleared on completion of that transaction
+ * through a {@link TransactionSynchronization}: after a commit, read-only work
+ * stays on the primary DataSource for the configured {@link #setReadYourWritesWindow
+ * window}, whereas a rollback leaves nothing to read back. Work outside of a
+ * transaction never pins. A remaining window can be released explicitly at the
+ * end of a request through {@link #releasePrimaryPin()}.
+ *
+ * <p>The primary and replica DataSources can either be specified as DataSource
+ * instances or as data source names, to be resolved through a
+ * {@link #setDataSourceLookup DataSourceLookup}: by default, JNDI names.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see #setPrimaryDataSource
+ * @see #setReplicaDataSources
+ * @see LazyConnectionDataSourceProxy
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements InitializingBean {
+
+	@Nullable
+	private Object primaryDataSource;
+
+	private List<?> replicaDataSources = Collections.emptyList();
+
+	private DataSourceLookup dataSourceLookup = new JndiDataSourceLookup();
+
+	private long readYourWritesWindow = 1000;
+
+	private long replicaRetryInterval = 30000;
+
+	@Nullable
+	private DataSource resolvedPrimaryDataSource;
+
+	private List<Replica> replicas = Collections.emptyList();
+
+	@Nullable
+	private LazyConnectionDataSourceProxy connectionProxy;
+
+	private final AtomicInteger replicaCounter = new AtomicInteger();
+
+	private final ThreadLocal<Long> lastWriteTime = new NamedThreadLocal<>("Last write to primary DataSource");
+
+	private final ThreadLocal<TransactionSynchronization> writeTransaction =
+			new NamedThreadLocal<>("Current write transaction on primary DataSource");
+
+
+	/**
+	 * Specify the primary DataSource for all work other than read-only transactions,
+	 * either as a {@link javax.sql.DataSource} instance or as a data source name
+	 * String (to be resolved via a {@link #setDataSourceLookup DataSourceLookup}).
+	 */
+	public void setPrimaryDataSource(Object primaryDataSource) {
+		this.primaryDataSource = primaryDataSource;
+	}
+
+	/**
+	 * Specify the replica DataSources for read-only transactions, either as
+	 * {@link javax.sql.DataSource} instances or as data source name Strings
+	 * (to be resolved via a {@link #setDataSourceLookup DataSourceLookup}).
+	 * <p>Default is none, routing all work to the primary DataSource.
+	 */
+	public void setReplicaDataSources(List<?> replicaDataSources) {
+		Assert.notNull(replicaDataSources, "Replica DataSources must not be null");
+		this.replicaDataSources = replicaDataSources;
+	}
+
+	/**
+	 * Set the DataSourceLookup implementation to use for resolving data source
+	 * name Strings in the primary and replica DataSources.
+	 * <p>Default is a {@link JndiDataSourceLookup}.
+	 */
+	public void setDataSourceLookup(@Nullable DataSourceLookup dataSourceLookup) {
+		this.dataSourceLookup = (dataSourceLookup != null ? dataSourceLookup : new JndiDataSourceLookup());
+	}
+
+	/**
+	 * Specify the time in milliseconds after the commit of a non-read-only
+	 * transaction on the current thread during which read-only work on that
+	 * thread is still routed to the primary DataSource. This should cover the
+	 * expected replica lag.
+	 * <p>Default is 1000 ms. Setting this to 0 turns off read-your-writes pinning.
+	 * @see #releasePrimaryPin()
+	 */
+	public void setReadYourWritesWindow(long readYourWritesWindow) {
+		Assert.isTrue(readYourWritesWindow >= 0, "Read-your-writes window must not be negative");
+		this.readYourWritesWindow = readYourWritesWindow;
+	}
+
+	/**
+	 * Specify the time in milliseconds to skip a replica after it failed to
+	 * provide a Connection.
+	 * <p>Default is 30000 ms.
+	 */
+	public void setReplicaRetryInterval(long replicaRetryInterval) {
+		Assert.isTrue(replicaRetryInterval >= 0, "Replica retry interval must not be negative");
+		this.replicaRetryInterval = replicaRetryInterval;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.primaryDataSource == null) {
+			throw new IllegalArgumentException("Property 'primaryDataSource' is required");
+		}
+		this.resolvedPrimaryDataSource = resolveSpecifiedDataSource(this.primaryDataSource);
+		List<Replica> replicas = new ArrayList<>(this.replicaDataSources.size());
+		for (Object replicaDataSource : this.replicaDataSources) {
+			replicas.add(new Replica(resolveSpecifiedDataSource(replicaDataSource)));
+		}
+		this.replicas = replicas;
+
+		// Determine default auto-commit and transaction isolation from the primary
+		// DataSource directly, not going through the routing decision.
+		LazyConnectionDataSourceProxy connectionProxy = new LazyConnectionDataSourceProxy();
+		connectionProxy.setTargetDataSource(new RoutingTargetDataSource());
+		try (Connection con = this.resolvedPrimaryDataSource.getConnection()) {
+			connectionProxy.setDefaultAutoCommit(con.getAutoCommit());
+			connectionProxy.setDefaultTransactionIsolation(con.getTransactionIsolation());
+		}
+		catch (SQLException ex) {
+			logger.debug("Could not retrieve default auto-commit and transaction isolation settings", ex);
+		}
+		connectionProxy.afterPropertiesSet();
+		releasePrimaryPin();
+		this.connectionProxy = connectionProxy;
+	}
+
+	/**
+	 * Resolve the specified data source object into a DataSource instance.
+	 * <p>The default implementation handles DataSource instances and data source
+	 * names (to be resolved via a {@link #setDataSourceLookup DataSourceLookup}).
+	 * @param dataSource the data source value object as specified
+	 * @return the resolved DataSource (never {@code null})
+	 * @throws IllegalArgumentException in case of an unsupported value type
+	 */
+	protected DataSource resolveSpecifiedDataSource(Object dataSource) throws IllegalArgumentException {
+		if (dataSource instanceof DataSource) {
+			return (DataSource) dataSource;
+		}
+		else if (dataSource instanceof String) {
+			return this.dataSourceLookup.getDataSource((String) dataSource);
+		}
+		else {
+			throw new IllegalArgumentException(
+					"Illegal data source value - only [javax.sql.DataSource] and String supported: " + dataSource);
+		}
+	}
+
+	/**
+	 * Return the resolved primary DataSource.
+	 * @throws IllegalStateException if not resolved yet
+	 */
+	public DataSource getResolvedPrimaryDataSource() {
+		Assert.state(this.resolvedPrimaryDataSource != null, "DataSources not resolved yet - call afterPropertiesSet");
+		return this.resolvedPrimaryDataSource;
+	}
+
+	/**
+	 * Return the resolved replica DataSources.
+	 * @return an unmodifiable list of replica DataSources
+	 */
+	public List<DataSource> getResolvedReplicaDataSources() {
+		List<DataSource> dataSources = new ArrayList<>(this.replicas.size());
+		for (Replica replica : this.replicas) {
+			dataSources.add(replica.dataSource);
+		}
+		return Collections.unmodifiableList(dataSources);
+	}
+
+
+	/**
+	 * Return a Connection handle that lazily routes to the primary DataSource
+	 * or one of the replicas once the first Statement gets created.
+	 * @see LazyConnectionDataSourceProxy#getConnection()
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		return obtainConnectionProxy().getConnection();
+	}
+
+	/**
+	 * Return a Connection handle that lazily routes to the primary DataSource
+	 * or one of the replicas once the first Statement gets created.
+	 * @see LazyConnectionDataSourceProxy#getConnection(String, String)
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return obtainConnectionProxy().getConnection(username, password);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return (T) this;
+		}
+		return getResolvedPrimaryDataSource().unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return (iface.isInstance(this) || getResolvedPrimaryDataSource().isWrapperFor(iface));
+	}
+
+	private LazyConnectionDataSourceProxy obtainConnectionProxy() {
+		Assert.state(this.connectionProxy != null, "DataSource router not initialized");
+		return this.connectionProxy;
+	}
+
+
+	/**
+	 * Pin read-only work on the current thread to the primary DataSource
+	 * for the configured read-your-writes window, as if a write happened.
+	 * @see #setReadYourWritesWindow
+	 */
+	public void pinToPrimary() {
+		if (this.readYourWritesWindow > 0) {
+			this.lastWriteTime.set(System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Release any read-your-writes window for the current thread,
+	 * typically at the end of a request.
+	 * <p>This does not affect a pin held by a non-read-only transaction
+	 * that is still in progress.
+	 */
+	public void releasePrimaryPin() {
+		this.lastWriteTime.remove();
+	}
+
+	/**
+	 * Determine whether read-only work on the current thread is pinned
+	 * to the primary DataSource after a preceding write.
+	 */
+	public boolean isPinnedToPrimary() {
+		if (this.writeTransaction.get() != null) {
+			return true;
+		}
+		Long lastWrite = this.lastWriteTime.get();
+		if (lastWrite == null) {
+			return false;
+		}
+		if (System.currentTimeMillis() - lastWrite < this.readYourWritesWindow) {
+			return true;
+		}
+		this.lastWriteTime.remove();
+		return false;
+	}
+
+	/**
+	 * Determine whether the current work should be routed to a replica.
+	 * <p>The default implementation checks for a read-only transaction
+	 * without a read-your-writes pin to the primary DataSource.
+	 * @see TransactionSynchronizationManager#isCurrentTransactionReadOnly()
+	 * @see #isPinnedToPrimary()
+	 */
+	protected boolean isReplicaEligible() {
+		return (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isPinnedToPrimary());
+	}
+
+	/**
+	 * Obtain a physical Connection for the current work, from a replica
+	 * if eligible and available, or from the primary DataSource otherwise.
+	 */
+	Connection obtainTargetConnection(@Nullable String username, @Nullable String password) throws SQLException {
+		List<Replica> replicas = this.replicas;
+		if (isReplicaEligible()) {
+			if (!replicas.isEmpty()) {
+				long now = System.currentTimeMillis();
+				int start = Math.floorMod(this.replicaCounter.getAndIncrement(), replicas.size());
+				for (int i = 0; i < replicas.size(); i++) {
+					Replica replica = replicas.get((start + i) % replicas.size());
+					if (replica.isAvailable(now)) {
+						try {
+							return replica.getConnection(username, password);
+						}
+						catch (SQLException ex) {
+							logger.warn("Could not obtain Connection from replica DataSource [" +
+									replica.dataSource + "] - skipping it for " + this.replicaRetryInterval + " ms", ex);
+							replica.markUnavailable(now + this.replicaRetryInterval);
+						}
+					}
+				}
+				logger.debug("No replica DataSource available - falling back to primary DataSource");
+			}
+		}
+		else if (TransactionSynchronizationManager.isActualTransactionActive() &&
+				!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			pinToPrimaryUntilCompletion();
+		}
+		DataSource primary = getResolvedPrimaryDataSource();
+		return (username != null ? primary.getConnection(username, password) : primary.getConnection());
+	}
+
+	/**
+	 * Pin read-only work on the current thread to the primary DataSource
+	 * until the current transaction completes.
+	 */
+	private void pinToPrimaryUntilCompletion() {
+		if (this.readYourWritesWindow > 0 && this.writeTransaction.get() == null &&
+				TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronization synchronization = new WriteTransactionSynchronization();
+			TransactionSynchronizationManager.registerSynchronization(synchronization);
+			this.writeTransaction.set(synchronization);
+		}
+	}
+
+
+	/**
+	 * Internal target DataSource for the {@link LazyConnectionDataSourceProxy},
+	 * making the actual routing decision.
+	 */
+	private class RoutingTargetDataSource extends AbstractDataSource {
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return obtainTargetConnection(null, null);
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return obtainTargetConnection(username, password);
+		}
+	}
+
+
+	/**
+	 * Synchronization that clears the pin of a non-read-only transaction on
+	 * its completion, opening the read-your-writes window after a commit.
+	 */
+	private class WriteTransactionSynchronization implements TransactionSynchronization {
+
+		@Override
+		public void afterCompletion(int status) {
+			if (writeTransaction.get() == this) {
+				writeTransaction.remove();
+			}
+			if (status == STATUS_COMMITTED) {
+				pinToPrimary();
+			}
+		}
+	}
+
+
+	/**
+	 * A replica DataSource along with its availability state.
+	 */
+	private static final class Replica {
+
+		final DataSource dataSource;
+
+		private volatile long unavailableUntil;
+
+		Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		boolean isAvailable(long now) {
+			return (now >= this.unavailableUntil);
+		}
+
+		void markUnavailable(long until) {
+			this.unavailableUntil = until;
+		}
+
+		Connection getConnection(@Nullable String username, @Nullable String password) throws SQLException {
+			return (username != null ? this.dataSource.getConnection(username, password) :
+					this.dataSource.getConnection());
+		}
+	}
+
+}
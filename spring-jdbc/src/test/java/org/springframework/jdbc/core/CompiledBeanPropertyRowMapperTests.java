@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.test.ConcretePerson;
+import org.springframework.jdbc.core.test.ConstructorPerson;
+import org.springframework.jdbc.core.test.DatePerson;
+import org.springframework.jdbc.core.test.ExtendedPerson;
+import org.springframework.jdbc.core.test.Person;
+import org.springframework.jdbc.core.test.SpacePerson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CompiledBeanPropertyRowMapper}.
+ *
+ * @author agent
+ */
+class CompiledBeanPropertyRowMapperTests extends AbstractRowMapperTests {
+
+	@Test
+	void staticQueryWithRowMapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(Person.class));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void mappingPlanIsReused() throws Exception {
+		CompiledBeanPropertyRowMapper<ConcretePerson> mapper = new CompiledBeanPropertyRowMapper<>(ConcretePerson.class);
+		for (int i = 0; i < 2; i++) {
+			Mock mock = new Mock();
+			List<ConcretePerson> result = mock.getJdbcTemplate().query(
+					"select name, age, birth_date, balance from people", mapper);
+			assertThat(result.size()).isEqualTo(1);
+			verifyPerson(result.get(0));
+			mock.verifyClosed();
+		}
+	}
+
+	@Test
+	void mappingPlanIsResolvedOncePerResultSetWithConcurrentUse() throws Exception {
+		CompiledBeanPropertyRowMapper<Person> mapper = new CompiledBeanPropertyRowMapper<>(Person.class);
+		int threadCount = 4;
+		int rowCount = 100;
+		CyclicBarrier barrier = new CyclicBarrier(threadCount);
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<ResultSet>> futures = new ArrayList<>();
+			for (int i = 0; i < threadCount; i++) {
+				futures.add(executor.submit(() -> {
+					ResultSet rs = new Mock().getResultSet();
+					for (int row = 0; row < rowCount; row++) {
+						barrier.await(10, TimeUnit.SECONDS);
+						verifyPerson(mapper.mapRow(rs, row));
+					}
+					return rs;
+				}));
+			}
+			for (Future<ResultSet> future : futures) {
+				verify(future.get(10, TimeUnit.SECONDS)).getMetaData();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void mappingWithUnpopulatedFieldsNotAccepted() throws Exception {
+		Mock mock = new Mock();
+		CompiledBeanPropertyRowMapper<ExtendedPerson> mapper = new CompiledBeanPropertyRowMapper<>(ExtendedPerson.class);
+		mapper.setCheckFullyPopulated(true);
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, age, birth_date, balance from people", mapper));
+	}
+
+	@Test
+	void mappingNullValue() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		CompiledBeanPropertyRowMapper<Person> mapper = new CompiledBeanPropertyRowMapper<>(Person.class);
+		assertThatExceptionOfType(TypeMismatchException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, null as age, birth_date, balance from people", mapper));
+	}
+
+	@Test
+	void mappingNullValueWithPrimitivesDefaulted() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		CompiledBeanPropertyRowMapper<Person> mapper = new CompiledBeanPropertyRowMapper<>(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertThat(result.get(0).getAge()).isEqualTo(0L);
+	}
+
+	@Test
+	void queryWithSpaceInColumnNameAndLocalDateTime() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(SpacePerson.class));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void queryWithSpaceInColumnNameAndLocalDate() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<DatePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(DatePerson.class));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void constructorBinding() throws Exception {
+		Mock mock = new Mock();
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(ConstructorPerson.class));
+		assertThat(result.size()).isEqualTo(1);
+		ConstructorPerson person = result.get(0);
+		assertThat(person.getName()).isEqualTo("Bubba");
+		assertThat(person.getAge()).isEqualTo(22L);
+		assertThat(person.getBirth_date()).usingComparator(Date::compareTo).isEqualTo(new Date(1221222L));
+		assertThat(person.getBalance()).isEqualTo(new BigDecimal("1234.56"));
+		mock.verifyClosed();
+	}
+
+	@Test
+	void constructorBindingWithFullyPopulatedCheck() throws Exception {
+		Mock mock = new Mock();
+		CompiledBeanPropertyRowMapper<ConstructorPerson> mapper =
+				new CompiledBeanPropertyRowMapper<>(ConstructorPerson.class);
+		mapper.setCheckFullyPopulated(true);
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		assertThat(result.size()).isEqualTo(1);
+		assertThat(result.get(0).getName()).isEqualTo("Bubba");
+	}
+
+	@Test
+	void constructorBindingWithUnmatchedParameterNotAccepted() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		CompiledBeanPropertyRowMapper<ConstructorPerson> mapper =
+				new CompiledBeanPropertyRowMapper<>(ConstructorPerson.class);
+		mapper.setCheckFullyPopulated(true);
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query(
+						"select last_name as \"Last Name\", age, birth_date, balance from people", mapper));
+	}
+
+}
@@ -24,8 +24,11 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -33,12 +36,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.InvalidResultSetAccessException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -81,6 +86,8 @@ public class JdbcTemplateQueryTests {
 		given(this.connection.prepareStatement(anyString())).willReturn(this.preparedStatement);
 		given(this.preparedStatement.executeQuery()).willReturn(this.resultSet);
 		given(this.statement.executeQuery(anyString())).willReturn(this.resultSet);
+		given(this.statement.getConnection()).willReturn(this.connection);
+		given(this.preparedStatement.getConnection()).willReturn(this.connection);
 	}
 
 
@@ -264,6 +271,89 @@ public class JdbcTemplateQueryTests {
 		verify(this.statement).close();
 	}
 
+	@Test
+	public void testQueryForStream() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			verify(this.resultSet, never()).next();
+			verify(this.statement, never()).close();
+			assertThat(stream.collect(Collectors.toList())).containsExactly(11, 12);
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithArgsAsIterator() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		this.template.setFetchSize(100);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1), 3)) {
+			Iterator<Integer> iterator = stream.iterator();
+			assertThat(iterator.next()).isEqualTo(11);
+			verify(this.preparedStatement, never()).close();
+			assertThat(iterator.next()).isEqualTo(12);
+			assertThat(iterator.hasNext()).isFalse();
+		}
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.preparedStatement).setFetchSize(100);
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamReleasesResourcesOnClose() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			assertThat(stream.findFirst()).contains(11);
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamReleasesResourcesOnException() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.resultSet.next()).willReturn(true);
+		given(this.resultSet.getInt(1)).willThrow(new SQLException("bad column"));
+		Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1));
+		assertThatExceptionOfType(InvalidResultSetAccessException.class).isThrownBy(() ->
+				stream.collect(Collectors.toList()));
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+		stream.close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamReleasesResourcesOnRuntimeException() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.statement.executeQuery(sql)).willThrow(new IllegalStateException("driver failure"));
+		assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() ->
+				this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1)));
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithArgsReleasesResourcesOnRuntimeException() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		given(this.preparedStatement.executeQuery()).willThrow(new IllegalStateException("driver failure"));
+		assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() ->
+				this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1), 3));
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
 	@Test
 	public void testQueryForListWithArgs() throws Exception {
 		doTestQueryForListWithArgs("SELECT AGE FROM CUSTMR WHERE ID < ?");
@@ -25,6 +25,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
@@ -38,6 +39,7 @@ import javax.sql.DataSource;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
@@ -47,9 +49,12 @@ import org.springframework.jdbc.SQLWarningException;
 import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.jdbc.core.support.AbstractInterruptibleBatchPreparedStatementSetter;
 import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
 import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.LinkedCaseInsensitiveMap;
 import org.springframework.util.StringUtils;
 
@@ -59,6 +64,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -728,6 +734,116 @@ public class JdbcTemplateTests {
 		verify(this.connection, atLeastOnce()).close();
 	}
 
+	@Test
+	public void testWriteBehindUpdatesFlushedBeforeCommit() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 1, 1});
+		mockDatabaseMetaData(true);
+		this.template.setWriteBehindBatchSize(10);
+
+		new TransactionTemplate(new DataSourceTransactionManager(this.dataSource)).executeWithoutResult(status -> {
+			assertThat(this.template.update(sql, 100)).isEqualTo(Statement.SUCCESS_NO_INFO);
+			this.template.update(sql, 200);
+			this.template.update(sql, 300);
+			try {
+				verify(this.connection, never()).prepareStatement(sql);
+			}
+			catch (SQLException ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+
+		InOrder ordered = inOrder(this.connection, this.preparedStatement);
+		ordered.verify(this.connection).prepareStatement(sql);
+		ordered.verify(this.preparedStatement).executeBatch();
+		ordered.verify(this.connection).commit();
+		verify(this.preparedStatement, times(3)).addBatch();
+		verify(this.preparedStatement).setObject(1, 300);
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testWriteBehindUpdatesFlushedOnSqlChangeAndThreshold() throws Exception {
+		final String sql1 = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final String sql2 = "DELETE FROM NOSUCHTABLE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		mockDatabaseMetaData(true);
+		given(this.connection.createStatement()).willReturn(this.statement);
+		this.template.setWriteBehindBatchSize(2);
+
+		new TransactionTemplate(new DataSourceTransactionManager(this.dataSource)).executeWithoutResult(status -> {
+			this.template.update(sql1, 100);
+			this.template.update(sql1, 200);
+			this.template.update(sql2, 300);
+			this.template.execute("SELECT 1");
+		});
+
+		InOrder ordered = inOrder(this.connection);
+		ordered.verify(this.connection).prepareStatement(sql1);
+		ordered.verify(this.connection).prepareStatement(sql2);
+		ordered.verify(this.connection).createStatement();
+		ordered.verify(this.connection).commit();
+		verify(this.preparedStatement, times(2)).executeBatch();
+	}
+
+	@Test
+	public void testWriteBehindUpdatesFlushedBeforeSavepoint() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1});
+		given(this.preparedStatement.executeUpdate()).willReturn(1);
+		DatabaseMetaData databaseMetaData = mock(DatabaseMetaData.class);
+		given(databaseMetaData.supportsBatchUpdates()).willReturn(true);
+		given(databaseMetaData.supportsSavepoints()).willReturn(true);
+		given(this.connection.getMetaData()).willReturn(databaseMetaData);
+		Savepoint savepoint = mock(Savepoint.class);
+		given(this.connection.setSavepoint(anyString())).willReturn(savepoint);
+		this.template.setWriteBehindBatchSize(10);
+
+		DataSourceTransactionManager tm = new DataSourceTransactionManager(this.dataSource);
+		TransactionTemplate nestedTemplate = new TransactionTemplate(tm);
+		nestedTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+		new TransactionTemplate(tm).executeWithoutResult(status -> {
+			this.template.update(sql, 100);
+			nestedTemplate.executeWithoutResult(nestedStatus ->
+					assertThat(this.template.update(sql, 200)).isEqualTo(1));
+		});
+
+		InOrder ordered = inOrder(this.connection, this.preparedStatement);
+		ordered.verify(this.preparedStatement).executeBatch();
+		ordered.verify(this.connection).setSavepoint(anyString());
+		ordered.verify(this.preparedStatement).executeUpdate();
+		ordered.verify(this.connection).releaseSavepoint(savepoint);
+		ordered.verify(this.connection).commit();
+	}
+
+	@Test
+	public void testWriteBehindUpdatesNotBufferedForCollectionArgument() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID IN (?, ?)";
+		given(this.preparedStatement.executeUpdate()).willReturn(2);
+		mockDatabaseMetaData(true);
+		this.template.setWriteBehindBatchSize(10);
+
+		new TransactionTemplate(new DataSourceTransactionManager(this.dataSource)).executeWithoutResult(status ->
+				assertThat(this.template.update(sql, new Object[] {Arrays.asList(100, 200)},
+						new int[] {Types.NUMERIC})).isEqualTo(2));
+
+		verify(this.preparedStatement).setObject(1, 100, Types.NUMERIC);
+		verify(this.preparedStatement).setObject(2, 200, Types.NUMERIC);
+		verify(this.preparedStatement, never()).executeBatch();
+	}
+
+	@Test
+	public void testWriteBehindUpdatesNotBufferedWithoutTransaction() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeUpdate()).willReturn(1);
+		this.template.setWriteBehindBatchSize(10);
+
+		assertThat(this.template.update(sql, 100)).isEqualTo(1);
+		verify(this.preparedStatement).setObject(1, 100);
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
 	@Test
 	public void testBatchUpdateWithListOfObjectArraysPlusTypeInfo() throws Exception {
 		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -125,6 +127,17 @@ public class NamedParameterJdbcTemplateTests {
 		new NamedParameterJdbcTemplate((JdbcOperations) null));
 	}
 
+	@Test
+	public void testParsedSqlCache() {
+		ParsedSql parsedSql = namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS);
+		assertThat(namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS)).isSameAs(parsedSql);
+		assertThat(namedParameterTemplate.getCacheLimit()).isEqualTo(NamedParameterJdbcTemplate.DEFAULT_CACHE_LIMIT);
+
+		namedParameterTemplate.setCacheLimit(0);
+		assertThat(namedParameterTemplate.getCacheLimit()).isEqualTo(0);
+		assertThat(namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS)).isNotSameAs(parsedSql);
+	}
+
 	@Test
 	public void testTemplateConfiguration() {
 		assertThat(namedParameterTemplate.getJdbcTemplate().getDataSource()).isSameAs(dataSource);
@@ -342,6 +355,36 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection).close();
 	}
 
+	@Test
+	public void testQueryForStreamWithRowMapper() throws SQLException {
+		given(resultSet.next()).willReturn(true, false);
+		given(resultSet.getInt("id")).willReturn(1);
+		given(resultSet.getString("forename")).willReturn("rod");
+
+		params.put("id", new SqlParameterValue(Types.DECIMAL, 1));
+		params.put("country", "UK");
+		List<Customer> customers;
+		try (Stream<Customer> stream = namedParameterTemplate.queryForStream(SELECT_NAMED_PARAMETERS, params,
+				(rs, rownum) -> {
+					Customer cust = new Customer();
+					cust.setId(rs.getInt(COLUMN_NAMES[0]));
+					cust.setForename(rs.getString(COLUMN_NAMES[1]));
+					return cust;
+				})) {
+			customers = stream.collect(Collectors.toList());
+		}
+
+		assertThat(customers.size()).isEqualTo(1);
+		assertThat(customers.get(0).getId() == 1).as("Customer id was assigned correctly").isTrue();
+		assertThat(customers.get(0).getForename().equals("rod")).as("Customer forename was assigned correctly").isTrue();
+		verify(connection).prepareStatement(SELECT_NAMED_PARAMETERS_PARSED);
+		verify(preparedStatement).setObject(1, 1, Types.DECIMAL);
+		verify(preparedStatement).setString(2, "UK");
+		verify(resultSet).close();
+		verify(preparedStatement).close();
+		verify(connection).close();
+	}
+
 	@Test
 	public void testQueryWithRowMapperNoParameters() throws SQLException {
 		given(resultSet.next()).willReturn(true, false);
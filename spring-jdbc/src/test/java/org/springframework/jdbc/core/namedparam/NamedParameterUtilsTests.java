@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -303,4 +304,21 @@ public class NamedParameterUtilsTests {
 		assertThat(psql2.getParameterNames().get(0)).isEqualTo("xxx");
 	}
 
+	@Test
+	public void substituteNamedParametersCachedPerExpansion() {
+		ParsedSql psql = NamedParameterUtils.parseSqlStatement("select * from t where a = :a and b in (:b)");
+		MapSqlParameterSource paramSource = new MapSqlParameterSource("a", 1).addValue("b", Arrays.asList(1, 2));
+		String sql = NamedParameterUtils.substituteNamedParameters(psql, paramSource);
+		assertThat(sql).isEqualTo("select * from t where a = ? and b in (?, ?)");
+		assertThat(NamedParameterUtils.substituteNamedParameters(psql,
+				new MapSqlParameterSource("a", 2).addValue("b", Arrays.asList(3, 4)))).isSameAs(sql);
+		assertThat(NamedParameterUtils.substituteNamedParameters(psql,
+				new MapSqlParameterSource("a", 2).addValue("b", Arrays.asList(3, 4, 5))))
+				.isEqualTo("select * from t where a = ? and b in (?, ?, ?)");
+		assertThat(NamedParameterUtils.substituteNamedParameters(psql,
+				new MapSqlParameterSource("a", 2).addValue("b", Collections.singletonList(new Object[] {1, 2}))))
+				.isEqualTo("select * from t where a = ? and b in ((?, ?))");
+		assertThat(NamedParameterUtils.substituteNamedParameters(psql, paramSource)).isSameAs(sql);
+	}
+
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.reactive;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link ReactiveJdbcTemplate} and
+ * {@link JdbcReactiveTransactionManager}.
+ *
+ * @author agent
+ */
+class ReactiveJdbcTemplateTests {
+
+	private EmbeddedDatabase database;
+
+	private ReactiveJdbcTemplate template;
+
+	private JdbcReactiveTransactionManager transactionManager;
+
+	private TransactionalOperator operator;
+
+
+	@BeforeEach
+	void setup() {
+		this.database = new EmbeddedDatabaseBuilder()
+				.generateUniqueName(true)
+				.setType(EmbeddedDatabaseType.HSQL)
+				.build();
+		this.template = new ReactiveJdbcTemplate(this.database, 2);
+		this.template.getJdbcTemplate().execute("create table person (id integer, name varchar(50))");
+		this.template.getJdbcTemplate().batchUpdate("insert into person (id, name) values (?, ?)",
+				Arrays.asList(new Object[] {1, "a"}, new Object[] {2, "b"}, new Object[] {3, "c"}));
+		this.transactionManager = new JdbcReactiveTransactionManager(this.database, 1);
+		this.operator = TransactionalOperator.create(this.transactionManager);
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.transactionManager.destroy();
+		this.template.destroy();
+		this.database.shutdown();
+	}
+
+
+	@Test
+	void queryStreamsRows() {
+		StepVerifier.create(this.template.query("select name from person order by id",
+						(rs, rowNum) -> rs.getString(1)), 1)
+				.expectNext("a")
+				.thenRequest(2)
+				.expectNext("b", "c")
+				.verifyComplete();
+	}
+
+	@Test
+	void queryCancelled() {
+		StepVerifier.create(this.template.query("select name from person order by id",
+						(rs, rowNum) -> rs.getString(1)).take(1))
+				.expectNext("a")
+				.verifyComplete();
+	}
+
+	@Test
+	void queryForObject() {
+		StepVerifier.create(this.template.queryForObject("select count(*) from person", Integer.class))
+				.expectNext(3)
+				.verifyComplete();
+		StepVerifier.create(this.template.queryForObject("select name from person", String.class))
+				.verifyError(IncorrectResultSizeDataAccessException.class);
+	}
+
+	@Test
+	void operationsRunOnScheduler() {
+		StepVerifier.create(this.template.execute(operations -> Thread.currentThread().getName()))
+				.assertNext(name -> assertThat(name).startsWith(ReactiveJdbcTemplate.class.getSimpleName()))
+				.verifyComplete();
+	}
+
+	@Test
+	void transactionCommitted() {
+		Flux<Integer> updates = this.template.update("update person set name = ? where id = ?", "x", 1)
+				.thenMany(this.template.query("select id from person where name = ?",
+						(rs, rowNum) -> rs.getInt(1), "x"));
+		StepVerifier.create(this.operator.transactional(updates))
+				.expectNext(1)
+				.verifyComplete();
+
+		assertThat(this.template.getJdbcTemplate().queryForObject(
+				"select name from person where id = 1", String.class)).isEqualTo("x");
+	}
+
+	@Test
+	void transactionRolledBack() {
+		Flux<Integer> updates = this.template.update("update person set name = ? where id = ?", "x", 1)
+				.thenMany(this.template.query("select id from person where name = ?",
+						(rs, rowNum) -> rs.getInt(1), "x"))
+				.concatWith(Flux.error(new IllegalStateException()));
+		StepVerifier.create(this.operator.transactional(updates))
+				.expectNext(1)
+				.verifyError(IllegalStateException.class);
+
+		assertThat(this.template.getJdbcTemplate().queryForObject(
+				"select name from person where id = 1", String.class)).isEqualTo("a");
+	}
+
+	@Test
+	void transactionUsesSingleThread() {
+		Flux<String> threads = this.template.execute(operations -> Thread.currentThread().getName())
+				.concatWith(this.template.execute(operations -> Thread.currentThread().getName()))
+				.concatWith(this.template.query("select name from person",
+						(rs, rowNum) -> Thread.currentThread().getName()));
+		StepVerifier.create(this.operator.transactional(threads).distinct())
+				.assertNext(name -> assertThat(name).startsWith(JdbcReactiveTransactionManager.class.getSimpleName()))
+				.verifyComplete();
+	}
+
+	@Test
+	void maxTransactionsExceeded() {
+		Disposable transaction = this.operator.transactional(Mono.never()).subscribe();
+		try {
+			StepVerifier.create(this.operator.transactional(this.template.update("delete from person")))
+					.verifyError(CannotCreateTransactionException.class);
+		}
+		finally {
+			transaction.dispose();
+		}
+	}
+
+}
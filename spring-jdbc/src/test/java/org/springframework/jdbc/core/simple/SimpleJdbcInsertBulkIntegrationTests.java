@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.simple;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for bulk inserts with {@link SimpleJdbcInsert}
+ * against the supported embedded databases.
+ *
+ * @author agent
+ */
+class SimpleJdbcInsertBulkIntegrationTests {
+
+	@ParameterizedTest
+	@EnumSource(EmbeddedDatabaseType.class)
+	void executeBulkAsBatches(EmbeddedDatabaseType type) {
+		EmbeddedDatabase database = createDatabase(type);
+		try {
+			SimpleJdbcInsert insert = new SimpleJdbcInsert(database).withTableName("t_bulk")
+					.withBulkInsertChunkSize(3);
+			int[] rowCounts = insert.executeBulk(rows(7).collect(Collectors.toList()));
+
+			assertThat(rowCounts).containsExactly(3, 3, 1);
+			assertInserted(database, 7);
+		}
+		finally {
+			database.shutdown();
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(EmbeddedDatabaseType.class)
+	void executeBulkAsMultiRowInserts(EmbeddedDatabaseType type) {
+		EmbeddedDatabase database = createDatabase(type);
+		try {
+			SimpleJdbcInsertOperations insert = new SimpleJdbcInsert(database).withTableName("t_bulk")
+					.withBulkInsertChunkSize(4).usingMultiRowInserts();
+			int[] rowCounts = insert.executeBulk(rows(10));
+
+			assertThat(rowCounts).containsExactly(4, 4, 2);
+			assertInserted(database, 10);
+		}
+		finally {
+			database.shutdown();
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(EmbeddedDatabaseType.class)
+	void executeBulkWithNoRows(EmbeddedDatabaseType type) {
+		EmbeddedDatabase database = createDatabase(type);
+		try {
+			SimpleJdbcInsertOperations insert = new SimpleJdbcInsert(database).withTableName("t_bulk")
+					.usingMultiRowInserts();
+			assertThat(insert.executeBulk(rows(0))).isEmpty();
+			assertInserted(database, 0);
+		}
+		finally {
+			database.shutdown();
+		}
+	}
+
+
+	private static EmbeddedDatabase createDatabase(EmbeddedDatabaseType type) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(type).build();
+		new JdbcTemplate(database).execute("CREATE TABLE t_bulk (id INTEGER NOT NULL, name VARCHAR(50))");
+		return database;
+	}
+
+	private static Stream<SqlParameterSource> rows(int count) {
+		return IntStream.range(0, count).mapToObj(i ->
+				new MapSqlParameterSource("id", i).addValue("name", "name" + i));
+	}
+
+	private static void assertInserted(EmbeddedDatabase database, int count) {
+		List<String> names = new JdbcTemplate(database).queryForList(
+				"SELECT name FROM t_bulk ORDER BY id", String.class);
+		assertThat(names).hasSize(count);
+		for (int i = 0; i < count; i++) {
+			assertThat(names.get(i)).isEqualTo("name" + i);
+		}
+	}
+
+}
@@ -35,6 +35,7 @@ import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.NestedTransactionNotSupportedException;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
@@ -52,10 +53,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.core.testfixture.TestGroup.PERFORMANCE;
@@ -965,6 +969,156 @@ public class DataSourceTransactionManagerTests  {
 		ordered.verify(con).close();
 	}
 
+	@Test
+	public void testTransactionWithLightweightReadOnly() throws Exception {
+		tm.setLightweightReadOnly(true);
+		given(con.getAutoCommit()).willReturn(true);
+
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setReadOnly(true);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				assertThat(TransactionSynchronizationManager.hasResource(ds)).isTrue();
+				assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+				assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+			}
+		});
+
+		assertThat(TransactionSynchronizationManager.hasResource(ds)).isFalse();
+		verify(con, never()).setReadOnly(anyBoolean());
+		verify(con, never()).setAutoCommit(anyBoolean());
+		verify(con, never()).commit();
+		verify(con).close();
+	}
+
+	@Test
+	public void testTransactionWithLightweightReadOnlyAndAutoCommitFalse() throws Exception {
+		tm.setLightweightReadOnly(true);
+		given(con.getAutoCommit()).willReturn(false);
+
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setReadOnly(true);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+			}
+		});
+
+		InOrder ordered = inOrder(con);
+		ordered.verify(con).setReadOnly(true);
+		ordered.verify(con).commit();
+		ordered.verify(con).setReadOnly(false);
+		ordered.verify(con).close();
+	}
+
+	@Test
+	public void testTransactionWithLightweightReadOnlyAndReadOnlyParticipant() throws Exception {
+		tm.setLightweightReadOnly(true);
+		given(con.getAutoCommit()).willReturn(true);
+
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setReadOnly(true);
+		TransactionTemplate inner = new TransactionTemplate(tm);
+		inner.setReadOnly(true);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				inner.execute(new TransactionCallbackWithoutResult() {
+					@Override
+					protected void doInTransactionWithoutResult(TransactionStatus status) {
+						assertThat(status.isNewTransaction()).isFalse();
+					}
+				});
+			}
+		});
+
+		verify(con, never()).setAutoCommit(anyBoolean());
+		verify(con, never()).commit();
+		verify(con).close();
+	}
+
+	@Test
+	public void testTransactionWithLightweightReadOnlyAndNonReadOnlyParticipant() throws Exception {
+		tm.setLightweightReadOnly(true);
+		given(con.getAutoCommit()).willReturn(true);
+
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setReadOnly(true);
+		TransactionTemplate inner = new TransactionTemplate(tm);
+		assertThatExceptionOfType(IllegalTransactionStateException.class).isThrownBy(() ->
+				tt.execute(new TransactionCallbackWithoutResult() {
+					@Override
+					protected void doInTransactionWithoutResult(TransactionStatus status) {
+						inner.execute(new TransactionCallbackWithoutResult() {
+							@Override
+							protected void doInTransactionWithoutResult(TransactionStatus status) {
+								fail("Should have thrown IllegalTransactionStateException");
+							}
+						});
+					}
+				}));
+
+		assertThat(TransactionSynchronizationManager.hasResource(ds)).isFalse();
+		verify(con, never()).setAutoCommit(anyBoolean());
+		verify(con, never()).rollback();
+		verify(con).close();
+	}
+
+	@Test
+	public void testTransactionWithLightweightReadOnlyAndNestedParticipant() throws Exception {
+		tm.setLightweightReadOnly(true);
+		given(con.getAutoCommit()).willReturn(true);
+
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setReadOnly(true);
+		TransactionTemplate inner = new TransactionTemplate(tm);
+		inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+		inner.setReadOnly(true);
+		assertThatExceptionOfType(NestedTransactionNotSupportedException.class).isThrownBy(() ->
+				tt.execute(new TransactionCallbackWithoutResult() {
+					@Override
+					protected void doInTransactionWithoutResult(TransactionStatus status) {
+						inner.execute(new TransactionCallbackWithoutResult() {
+							@Override
+							protected void doInTransactionWithoutResult(TransactionStatus status) {
+								fail("Should have thrown NestedTransactionNotSupportedException");
+							}
+						});
+					}
+				}));
+
+		assertThat(TransactionSynchronizationManager.hasResource(ds)).isFalse();
+		verify(con, never()).setSavepoint(anyString());
+		verify(con).close();
+	}
+
+	@Test
+	public void testTransactionWithLightweightReadOnlyAndEnforceReadOnly() throws Exception {
+		tm.setLightweightReadOnly(true);
+		tm.setEnforceReadOnly(true);
+		given(con.getAutoCommit()).willReturn(true);
+		Statement stmt = mock(Statement.class);
+		given(con.createStatement()).willReturn(stmt);
+
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setReadOnly(true);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+			}
+		});
+
+		InOrder ordered = inOrder(con, stmt);
+		ordered.verify(con).setAutoCommit(false);
+		ordered.verify(stmt).executeUpdate("SET TRANSACTION READ ONLY");
+		ordered.verify(con).commit();
+		ordered.verify(con).setAutoCommit(true);
+		ordered.verify(con).close();
+	}
+
 	@Test
 	public void testTransactionWithLongTimeout() throws Exception {
 		doTestTransactionWithTimeout(10);
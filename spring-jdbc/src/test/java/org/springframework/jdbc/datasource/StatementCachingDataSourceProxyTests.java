@@ -0,0 +1,286 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link StatementCachingDataSourceProxy}.
+ *
+ * @author agent
+ */
+class StatementCachingDataSourceProxyTests {
+
+	private final DataSource targetDataSource = mock(DataSource.class);
+
+	private final Connection connection = mock(Connection.class);
+
+	private final StatementCachingDataSourceProxy dataSource =
+			new StatementCachingDataSourceProxy(this.targetDataSource);
+
+
+	@BeforeEach
+	void setup() throws SQLException {
+		given(this.targetDataSource.getConnection()).willReturn(this.connection);
+	}
+
+
+	@Test
+	void statementReusedAfterClose() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("select 1")).willReturn(target);
+
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("select 1");
+		assertThat(ps.getConnection()).isSameAs(con);
+		ps.setInt(1, 1);
+		JdbcUtils.closeStatement(ps);
+		assertThat(ps.isClosed()).isTrue();
+		assertThatExceptionOfType(SQLException.class).isThrownBy(() -> ps.setInt(1, 2));
+
+		PreparedStatement reused = con.prepareStatement("select 1");
+		assertThat(reused.unwrap(PreparedStatement.class)).isSameAs(reused);
+		reused.setInt(1, 3);
+		reused.close();
+
+		verify(this.connection, times(1)).prepareStatement("select 1");
+		verify(target).setInt(1, 1);
+		verify(target).setInt(1, 3);
+		verify(target, times(2)).clearParameters();
+		verify(target, never()).close();
+		assertThat(this.dataSource.getStatementCacheHitCount()).isEqualTo(1);
+		assertThat(this.dataSource.getStatementCacheMissCount()).isEqualTo(1);
+		assertThat(this.dataSource.getStatementCacheHitRatio()).isEqualTo(0.5);
+
+		con.close();
+		verify(target).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	void statementsKeyedByCreationArguments() throws SQLException {
+		PreparedStatement plain = mock(PreparedStatement.class);
+		PreparedStatement keys = mock(PreparedStatement.class);
+		CallableStatement call = mock(CallableStatement.class);
+		given(this.connection.prepareStatement("sql")).willReturn(plain);
+		given(this.connection.prepareStatement("sql", new String[] {"id"})).willReturn(keys);
+		given(this.connection.prepareCall("sql")).willReturn(call);
+
+		Connection con = this.dataSource.getConnection();
+		con.prepareStatement("sql").close();
+		con.prepareStatement("sql", new String[] {"id"}).close();
+		CallableStatement cs = con.prepareCall("sql");
+		assertThat(cs.unwrap(CallableStatement.class)).isSameAs(cs);
+		cs.close();
+
+		con.prepareStatement("sql", new String[] {"id"}).close();
+		con.prepareCall("sql").close();
+
+		verify(this.connection).prepareStatement("sql");
+		verify(this.connection).prepareStatement("sql", new String[] {"id"});
+		verify(this.connection).prepareCall("sql");
+		assertThat(this.dataSource.getStatementCacheHitCount()).isEqualTo(2);
+		assertThat(this.dataSource.getStatementCacheMissCount()).isEqualTo(3);
+	}
+
+	@Test
+	void concurrentlyCheckedOutStatementsAreDistinct() throws SQLException {
+		PreparedStatement first = mock(PreparedStatement.class);
+		PreparedStatement second = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("sql")).willReturn(first, second);
+
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps1 = con.prepareStatement("sql");
+		PreparedStatement ps2 = con.prepareStatement("sql");
+		ps1.close();
+		ps2.close();
+
+		verify(first, never()).close();
+		verify(second).close();
+	}
+
+	@Test
+	void leastRecentlyUsedStatementEvicted() throws SQLException {
+		PreparedStatement ps1 = mock(PreparedStatement.class);
+		PreparedStatement ps2 = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("sql1")).willReturn(ps1);
+		given(this.connection.prepareStatement("sql2")).willReturn(ps2);
+		this.dataSource.setStatementCacheSize(1);
+
+		Connection con = this.dataSource.getConnection();
+		con.prepareStatement("sql1").close();
+		con.prepareStatement("sql2").close();
+
+		verify(ps1).close();
+		verify(ps2, never()).close();
+		assertThat(this.dataSource.getStatementCacheEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void openResultSetsClosedOnReuse() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		ResultSet rs = mock(ResultSet.class);
+		ResultSet keys = mock(ResultSet.class);
+		given(this.connection.prepareStatement("insert", new String[] {"id"})).willReturn(target);
+		given(target.executeQuery()).willReturn(rs);
+		given(target.getResultSet()).willReturn(rs);
+		given(target.getGeneratedKeys()).willReturn(keys);
+
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("insert", new String[] {"id"});
+		ps.executeQuery();
+		ps.getGeneratedKeys();
+		ps.close();
+
+		verify(rs).close();
+		verify(keys).close();
+		verify(target, never()).close();
+	}
+
+	@Test
+	void generatedKeysNotRequestedIfNotReturned() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("sql")).willReturn(target);
+
+		Connection con = this.dataSource.getConnection();
+		con.prepareStatement("sql").close();
+
+		verify(target).getResultSet();
+		verify(target, never()).getGeneratedKeys();
+		verify(target, never()).close();
+	}
+
+	@Test
+	void initialSettingsRestoredOnReuse() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("sql")).willReturn(target);
+
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("sql");
+		ps.setFetchSize(10);
+		given(target.getFetchSize()).willReturn(10);
+		ps.close();
+
+		verify(target).setFetchSize(10);
+		verify(target).setFetchSize(0);
+	}
+
+	@Test
+	void otherSettingsRestoredOnReuse() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("sql")).willReturn(target);
+
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("sql");
+		given(target.getMaxFieldSize()).willReturn(100);
+		given(target.isPoolable()).willReturn(true);
+		ps.close();
+
+		verify(target).setMaxFieldSize(0);
+		verify(target).setPoolable(false);
+		verify(target).clearBatch();
+		verify(target, never()).close();
+	}
+
+	@Test
+	void statementDiscardedIfBatchCannotBeCleared() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("sql")).willReturn(target);
+		willThrow(new SQLException("no batch")).given(target).clearBatch();
+
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("sql");
+		ps.addBatch();
+		ps.close();
+
+		verify(target).close();
+		con.prepareStatement("sql");
+		verify(this.connection, times(2)).prepareStatement("sql");
+	}
+
+	@Test
+	void statementWithUnrestorableSettingsNotReused() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("sql")).willReturn(target);
+
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("sql");
+		ps.setEscapeProcessing(false);
+		ps.close();
+
+		verify(target).setEscapeProcessing(false);
+		verify(target).close();
+		assertThat(this.dataSource.getStatementCacheHitCount()).isEqualTo(0);
+	}
+
+	@Test
+	void cachingDisabled() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("sql")).willReturn(target);
+		this.dataSource.setStatementCacheSize(0);
+
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("sql");
+		assertThat(ps).isSameAs(target);
+	}
+
+	@Test
+	void statementsReusedWithinTransaction() throws SQLException {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.getAutoCommit()).willReturn(false);
+		given(this.connection.prepareStatement("update t set x = ?")).willReturn(target);
+		given(target.executeUpdate()).willReturn(1);
+
+		DataSourceTransactionManager tm = new DataSourceTransactionManager(this.dataSource);
+		JdbcTemplate template = new JdbcTemplate(tm.getDataSource());
+		new TransactionTemplate(tm).executeWithoutResult(status -> {
+			for (int i = 0; i < 3; i++) {
+				template.update("update t set x = ?", i);
+			}
+		});
+
+		verify(this.connection).prepareStatement("update t set x = ?");
+		verify(target, times(3)).executeUpdate();
+		verify(target).close();
+		verify(this.connection).commit();
+		verify(this.connection).close();
+		assertThat(this.dataSource.getStatementCacheHitCount()).isEqualTo(2);
+	}
+
+}
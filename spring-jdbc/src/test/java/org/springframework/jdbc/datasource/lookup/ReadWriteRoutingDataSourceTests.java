@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link ReadWriteRoutingDataSource}.
+ *
+ * @author agent
+ */
+class ReadWriteRoutingDataSourceTests {
+
+	private final DataSource primary = mock(DataSource.class);
+
+	private final DataSource replica1 = mock(DataSource.class);
+
+	private final DataSource replica2 = mock(DataSource.class);
+
+	private final Connection primaryConnection = mock(Connection.class);
+
+	private final Connection replicaConnection1 = mock(Connection.class);
+
+	private final Connection replicaConnection2 = mock(Connection.class);
+
+	private final ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource();
+
+
+	@BeforeEach
+	void setup() throws SQLException {
+		given(this.primary.getConnection()).willReturn(this.primaryConnection);
+		given(this.replica1.getConnection()).willReturn(this.replicaConnection1);
+		given(this.replica2.getConnection()).willReturn(this.replicaConnection2);
+		this.dataSource.setPrimaryDataSource(this.primary);
+		this.dataSource.setReplicaDataSources(Arrays.asList(this.replica1, this.replica2));
+		this.dataSource.afterPropertiesSet();
+	}
+
+	@AfterEach
+	void reset() {
+		TransactionSynchronizationManager.clear();
+		this.dataSource.releasePrimaryPin();
+	}
+
+
+	@Test
+	void readWriteWorkRoutedToPrimary() throws SQLException {
+		beginTransaction(false);
+		Connection con = this.dataSource.getConnection();
+		con.createStatement();
+		verify(this.primaryConnection).createStatement();
+		assertThat(this.dataSource.isPinnedToPrimary()).isTrue();
+	}
+
+	@Test
+	void workOutsideOfTransactionNotPinned() throws SQLException {
+		this.dataSource.getConnection().createStatement();
+		verify(this.primaryConnection).createStatement();
+		assertThat(this.dataSource.isPinnedToPrimary()).isFalse();
+	}
+
+	@Test
+	void readOnlyWorkBalancedAcrossReplicas() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		this.dataSource.getConnection().createStatement();
+		this.dataSource.getConnection().createStatement();
+		verify(this.replicaConnection1).createStatement();
+		verify(this.replicaConnection2).createStatement();
+		verify(this.primaryConnection, never()).createStatement();
+	}
+
+	@Test
+	void routingDeferredUntilFirstStatement() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		con.createStatement();
+		verify(this.replicaConnection1).createStatement();
+	}
+
+	@Test
+	void readOnlyWorkPinnedToPrimaryAfterWrite() throws SQLException {
+		beginTransaction(false);
+		this.dataSource.getConnection().createStatement();
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		assertThat(this.dataSource.isPinnedToPrimary()).isTrue();
+
+		beginTransaction(true);
+		this.dataSource.getConnection().createStatement();
+		verify(this.primaryConnection, times(2)).createStatement();
+
+		this.dataSource.releasePrimaryPin();
+		this.dataSource.getConnection().createStatement();
+		verify(this.replicaConnection1).createStatement();
+	}
+
+	@Test
+	void readOnlyWorkPinnedToPrimaryWhileWriteTransactionInProgress() throws SQLException {
+		beginTransaction(false);
+		this.dataSource.getConnection().createStatement();
+		this.dataSource.releasePrimaryPin();
+		assertThat(this.dataSource.isPinnedToPrimary()).isTrue();
+	}
+
+	@Test
+	void pinClearedOnRollback() throws SQLException {
+		beginTransaction(false);
+		this.dataSource.getConnection().createStatement();
+		assertThat(this.dataSource.isPinnedToPrimary()).isTrue();
+		completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertThat(this.dataSource.isPinnedToPrimary()).isFalse();
+
+		beginTransaction(true);
+		this.dataSource.getConnection().createStatement();
+		verify(this.replicaConnection1).createStatement();
+	}
+
+	@Test
+	void readYourWritesWindowExpires() throws SQLException {
+		this.dataSource.setReadYourWritesWindow(0);
+		beginTransaction(false);
+		this.dataSource.getConnection().createStatement();
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		assertThat(this.dataSource.isPinnedToPrimary()).isFalse();
+	}
+
+	@Test
+	void failedReplicaSkipped() throws SQLException {
+		given(this.replica1.getConnection()).willThrow(new SQLException("down"));
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		this.dataSource.getConnection().createStatement();
+		this.dataSource.getConnection().createStatement();
+		verify(this.replicaConnection2, times(2)).createStatement();
+		verify(this.replica1).getConnection();
+	}
+
+	@Test
+	void fallbackToPrimaryWithoutReplicas() throws SQLException {
+		given(this.replica1.getConnection()).willThrow(new SQLException("down"));
+		given(this.replica2.getConnection()).willThrow(new SQLException("down"));
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		this.dataSource.getConnection().createStatement();
+		verify(this.primaryConnection).createStatement();
+		assertThat(this.dataSource.isPinnedToPrimary()).isFalse();
+	}
+
+
+	private static void beginTransaction(boolean readOnly) {
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+	}
+
+	private static void completeTransaction(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clear();
+		TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+	}
+
+}
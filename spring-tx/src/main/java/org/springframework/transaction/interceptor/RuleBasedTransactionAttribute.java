@@ -20,6 +20,8 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -52,9 +54,16 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 	/** Static for optimal serializability. */
 	private static final Log logger = LogFactory.getLog(RuleBasedTransactionAttribute.class);
 
+	/** Maximum number of exception types to cache rollback decisions for. */
+	private static final int ROLLBACK_DECISION_CACHE_LIMIT = 64;
+
 	@Nullable
 	private List<RollbackRuleAttribute> rollbackRules;
 
+	/** Rollback decisions per exception type, reset whenever the rollback rules may change. */
+	@Nullable
+	private transient volatile RollbackDecisions rollbackDecisions;
+
 
 	/**
 	 * Create a new RuleBasedTransactionAttribute, with default settings.
@@ -108,16 +117,20 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 	 */
 	public void setRollbackRules(List<RollbackRuleAttribute> rollbackRules) {
 		this.rollbackRules = rollbackRules;
+		this.rollbackDecisions = null;
 	}
 
 	/**
 	 * Return the list of {@code RollbackRuleAttribute} objects
 	 * (never {@code null}).
+	 * <p>The returned list may be modified in place, so any rollback
+	 * decisions cached so far are discarded.
 	 */
 	public List<RollbackRuleAttribute> getRollbackRules() {
 		if (this.rollbackRules == null) {
 			this.rollbackRules = new LinkedList<>();
 		}
+		this.rollbackDecisions = null;
 		return this.rollbackRules;
 	}
 
@@ -130,6 +143,25 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 	 */
 	@Override
 	public boolean rollbackOn(Throwable ex) {
+		// Rollback rules match on exception type names only: decisions can be cached per type.
+		RollbackDecisions decisions = this.rollbackDecisions;
+		if (decisions == null) {
+			decisions = new RollbackDecisions();
+			this.rollbackDecisions = decisions;
+		}
+		Class<?> exceptionType = ex.getClass();
+		Boolean decision = decisions.get(exceptionType);
+		if (decision == null) {
+			decision = determineRollback(ex);
+			decisions.put(exceptionType, decision);
+		}
+		return decision;
+	}
+
+	/**
+	 * Apply the rollback rules to the given exception, without caching.
+	 */
+	private boolean determineRollback(Throwable ex) {
 		if (logger.isTraceEnabled()) {
 			logger.trace("Applying rules to determine whether transaction should rollback on " + ex);
 		}
@@ -173,4 +205,24 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 		return result.toString();
 	}
 
+
+	/**
+	 * Cache of rollback decisions per exception type for the current rules.
+	 */
+	private static final class RollbackDecisions {
+
+		private final Map<Class<?>, Boolean> decisions = new ConcurrentHashMap<>(8);
+
+		@Nullable
+		Boolean get(Class<?> exceptionType) {
+			return this.decisions.get(exceptionType);
+		}
+
+		void put(Class<?> exceptionType, boolean decision) {
+			if (this.decisions.size() < ROLLBACK_DECISION_CACHE_LIMIT) {
+				this.decisions.put(exceptionType, decision);
+			}
+		}
+	}
+
 }
@@ -33,6 +33,7 @@ import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.core.KotlinDetector;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ReactiveAdapter;
 import org.springframework.core.ReactiveAdapterRegistry;
@@ -50,6 +51,7 @@ import org.springframework.transaction.support.CallbackPreferringPlatformTransac
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -179,6 +181,16 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	private final ConcurrentMap<Method, ReactiveTransactionSupport> transactionSupportCache =
 			new ConcurrentReferenceHashMap<>(1024);
 
+	/**
+	 * Transaction plans keyed by Method for the first target class seen,
+	 * and by MethodClassKey for any further target classes.
+	 */
+	private final ConcurrentMap<Object, TransactionPlan> transactionPlanCache =
+			new ConcurrentReferenceHashMap<>(1024);
+
+	/** Whether transaction plans can be cached: not with a custom {@link #determineTransactionManager}. */
+	private final boolean transactionPlanCacheable;
+
 
 	protected TransactionAspectSupport() {
 		if (reactiveStreamsPresent) {
@@ -187,6 +199,10 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		else {
 			this.reactiveAdapterRegistry = null;
 		}
+		Method determineMethod = ReflectionUtils.findMethod(
+				getClass(), "determineTransactionManager", TransactionAttribute.class);
+		this.transactionPlanCacheable =
+				(determineMethod != null && determineMethod.getDeclaringClass() == TransactionAspectSupport.class);
 	}
 
 
@@ -197,6 +213,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionManagerBeanName(@Nullable String transactionManagerBeanName) {
 		this.transactionManagerBeanName = transactionManagerBeanName;
+		this.transactionPlanCache.clear();
 	}
 
 	/**
@@ -218,6 +235,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionManager(@Nullable TransactionManager transactionManager) {
 		this.transactionManager = transactionManager;
+		this.transactionPlanCache.clear();
 	}
 
 	/**
@@ -246,6 +264,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		NameMatchTransactionAttributeSource tas = new NameMatchTransactionAttributeSource();
 		tas.setProperties(transactionAttributes);
 		this.transactionAttributeSource = tas;
+		this.transactionPlanCache.clear();
 	}
 
 	/**
@@ -258,6 +277,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionAttributeSources(TransactionAttributeSource... transactionAttributeSources) {
 		this.transactionAttributeSource = new CompositeTransactionAttributeSource(transactionAttributeSources);
+		this.transactionPlanCache.clear();
 	}
 
 	/**
@@ -271,6 +291,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionAttributeSource(@Nullable TransactionAttributeSource transactionAttributeSource) {
 		this.transactionAttributeSource = transactionAttributeSource;
+		this.transactionPlanCache.clear();
 	}
 
 	/**
@@ -287,6 +308,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	@Override
 	public void setBeanFactory(@Nullable BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
+		this.transactionPlanCache.clear();
 	}
 
 	/**
@@ -331,9 +353,9 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 			final InvocationCallback invocation) throws Throwable {
 
 		// If the transaction attribute is null, the method is non-transactional.
-		TransactionAttributeSource tas = getTransactionAttributeSource();
-		final TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
-		final TransactionManager tm = determineTransactionManager(txAttr);
+		TransactionPlan plan = getTransactionPlan(method, targetClass);
+		final TransactionAttribute txAttr = plan.transactionAttribute;
+		final TransactionManager tm = plan.transactionManager;
 
 		if (this.reactiveAdapterRegistry != null && tm instanceof ReactiveTransactionManager) {
 			ReactiveTransactionSupport txSupport = this.transactionSupportCache.computeIfAbsent(method, key -> {
@@ -354,7 +376,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 
 		PlatformTransactionManager ptm = asPlatformTransactionManager(tm);
-		final String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+		final String joinpointIdentification = plan.joinpointIdentification;
 
 		if (txAttr == null || !(ptm instanceof CallbackPreferringPlatformTransactionManager)) {
 			// Standard transaction demarcation with getTransaction and commit/rollback calls.
@@ -457,6 +479,64 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		this.beanFactory = null;
 	}
 
+	/**
+	 * Obtain the transaction plan for the given method and target class:
+	 * the transaction attribute, the transaction manager and the joinpoint
+	 * identification, resolved once and cached for subsequent invocations
+	 * if the transaction attribute source is known to be static.
+	 * @param method the method being invoked
+	 * @param targetClass the target class that we're invoking the method on
+	 * @return the transaction plan (never {@code null})
+	 */
+	private TransactionPlan getTransactionPlan(Method method, @Nullable Class<?> targetClass) {
+		TransactionPlan plan = this.transactionPlanCache.get(method);
+		if (plan != null && plan.targetClass == targetClass) {
+			return plan;
+		}
+		Object cacheKey = method;
+		if (plan != null) {
+			cacheKey = new MethodClassKey(method, targetClass);
+			TransactionPlan keyedPlan = this.transactionPlanCache.get(cacheKey);
+			if (keyedPlan != null) {
+				return keyedPlan;
+			}
+		}
+
+		TransactionAttributeSource tas = getTransactionAttributeSource();
+		TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+		TransactionManager tm = determineTransactionManager(txAttr);
+		plan = new TransactionPlan(targetClass, txAttr, tm, methodIdentification(method, targetClass, txAttr));
+		if (this.transactionPlanCacheable && isStaticAttributeSource(tas)) {
+			this.transactionPlanCache.put(cacheKey, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * Determine whether the given source always returns the same attribute for
+	 * the same method and target class, so that a transaction plan built from it
+	 * can be reused. Custom sources may compute attributes per invocation and
+	 * are therefore consulted every time.
+	 * @param tas the transaction attribute source (may be {@code null})
+	 */
+	private static boolean isStaticAttributeSource(@Nullable TransactionAttributeSource tas) {
+		if (tas == null || tas instanceof AbstractFallbackTransactionAttributeSource ||
+				tas instanceof NameMatchTransactionAttributeSource ||
+				tas instanceof MatchAlwaysTransactionAttributeSource) {
+			return true;
+		}
+		if (tas instanceof CompositeTransactionAttributeSource) {
+			for (TransactionAttributeSource source :
+					((CompositeTransactionAttributeSource) tas).getTransactionAttributeSources()) {
+				if (!isStaticAttributeSource(source)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Determine the specific transaction manager to use for the given transaction.
 	 */
@@ -786,6 +866,33 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	}
 
 
+	/**
+	 * Resolved transaction setup for a specific method and target class.
+	 */
+	private static final class TransactionPlan {
+
+		@Nullable
+		final Class<?> targetClass;
+
+		@Nullable
+		final TransactionAttribute transactionAttribute;
+
+		@Nullable
+		final TransactionManager transactionManager;
+
+		final String joinpointIdentification;
+
+		TransactionPlan(@Nullable Class<?> targetClass, @Nullable TransactionAttribute transactionAttribute,
+				@Nullable TransactionManager transactionManager, String joinpointIdentification) {
+
+			this.targetClass = targetClass;
+			this.transactionAttribute = transactionAttribute;
+			this.transactionManager = transactionManager;
+			this.joinpointIdentification = joinpointIdentification;
+		}
+	}
+
+
 	/**
 	 * Internal holder class for a Throwable in a callback transaction model.
 	 */
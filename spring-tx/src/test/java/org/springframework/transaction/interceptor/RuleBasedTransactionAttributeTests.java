@@ -18,6 +18,7 @@ package org.springframework.transaction.interceptor;
 
 import java.io.IOException;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -163,6 +164,43 @@ public class RuleBasedTransactionAttributeTests {
 		assertThat(rta.rollbackOn(new MyBusinessWarningException())).isFalse();
 	}
 
+	@Test
+	public void testCachedDecisionReflectsRuleChanges() {
+		RuleBasedTransactionAttribute rta = new RuleBasedTransactionAttribute();
+		assertThat(rta.rollbackOn(new IOException())).isFalse();
+		assertThat(rta.rollbackOn(new IOException())).isFalse();
+
+		rta.getRollbackRules().add(new RollbackRuleAttribute(IOException.class));
+		assertThat(rta.rollbackOn(new IOException())).isTrue();
+
+		rta.setRollbackRules(Collections.singletonList(new NoRollbackRuleAttribute(Exception.class)));
+		assertThat(rta.rollbackOn(new IOException())).isFalse();
+		assertThat(rta.rollbackOn(new MyRuntimeException(""))).isFalse();
+	}
+
+	@Test
+	public void testCachedDecisionReflectsSameSizeRuleChanges() {
+		RuleBasedTransactionAttribute rta = new RuleBasedTransactionAttribute();
+		rta.getRollbackRules().add(new RollbackRuleAttribute(IOException.class));
+		assertThat(rta.rollbackOn(new IOException())).isTrue();
+
+		rta.getRollbackRules().set(0, new NoRollbackRuleAttribute(IOException.class));
+		assertThat(rta.rollbackOn(new IOException())).isFalse();
+	}
+
+	@Test
+	public void testCachedDecisionResetWhenSameListIsSetAgain() {
+		List<RollbackRuleAttribute> rules = new ArrayList<>();
+		rules.add(new RollbackRuleAttribute(IOException.class));
+		RuleBasedTransactionAttribute rta = new RuleBasedTransactionAttribute();
+		rta.setRollbackRules(rules);
+		assertThat(rta.rollbackOn(new IOException())).isTrue();
+
+		rules.set(0, new NoRollbackRuleAttribute(IOException.class));
+		rta.setRollbackRules(rules);
+		assertThat(rta.rollbackOn(new IOException())).isFalse();
+	}
+
 
 	@SuppressWarnings("serial")
 	private static class MyBusinessException extends Exception {}
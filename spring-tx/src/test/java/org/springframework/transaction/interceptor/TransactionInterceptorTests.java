@@ -24,6 +24,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
 import org.springframework.core.testfixture.io.SerializationTestUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -36,6 +38,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -262,6 +265,42 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		verify(beanFactory, times(1)).getBean(TransactionManager.class);
 	}
 
+	@Test
+	public void transactionAttributeResolvedOncePerMethodForStaticSource() throws Exception {
+		TransactionAttribute txatt = new DefaultTransactionAttribute();
+		NameMatchTransactionAttributeSource tas = spy(new NameMatchTransactionAttributeSource());
+		tas.addTransactionalMethod("getName", txatt);
+
+		TransactionStatus status = mock(TransactionStatus.class);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		given(ptm.getTransaction(txatt)).willReturn(status);
+
+		ITestBean itb = (ITestBean) advised(new TestBean(), ptm, tas);
+		itb.getName();
+		itb.getName();
+
+		verify(tas, times(1)).getTransactionAttribute(getNameMethod, TestBean.class);
+		verify(ptm, times(2)).commit(status);
+	}
+
+	@Test
+	public void transactionAttributeResolvedPerInvocationForCustomSource() throws Exception {
+		TransactionAttribute txatt = new DefaultTransactionAttribute();
+		TransactionAttributeSource tas = mock(TransactionAttributeSource.class);
+		given(tas.getTransactionAttribute(getNameMethod, TestBean.class)).willReturn(txatt);
+
+		TransactionStatus status = mock(TransactionStatus.class);
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		given(ptm.getTransaction(txatt)).willReturn(status);
+
+		ITestBean itb = (ITestBean) advised(new TestBean(), ptm, tas);
+		itb.getName();
+		itb.getName();
+
+		verify(tas, times(2)).getTransactionAttribute(getNameMethod, TestBean.class);
+		verify(ptm, times(2)).commit(status);
+	}
+
 
 	private TransactionInterceptor createTransactionInterceptor(BeanFactory beanFactory,
 			String transactionManagerName, PlatformTransactionManager transactionManager) {
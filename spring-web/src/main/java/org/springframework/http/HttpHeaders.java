@@ -416,6 +416,12 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 
 	final MultiValueMap<String, String> headers;
 
+	@Nullable
+	private transient ParsedHeader<MediaType> parsedContentType;
+
+	@Nullable
+	private transient ParsedHeader<List<MediaType>> parsedAccept;
+
 
 	/**
 	 * Construct a new, empty instance of the {@code HttpHeaders} object.
@@ -461,9 +467,20 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 	 * Return the list of acceptable {@linkplain MediaType media types},
 	 * as specified by the {@code Accept} header.
 	 * <p>Returns an empty list when the acceptable media types are unspecified.
+	 * <p>The parsed media types are cached for as long as the raw header values
+	 * remain the same, so repeated calls do not re-parse the header.
 	 */
 	public List<MediaType> getAccept() {
-		return MediaType.parseMediaTypes(get(ACCEPT));
+		List<String> values = get(ACCEPT);
+		if (CollectionUtils.isEmpty(values)) {
+			return Collections.emptyList();
+		}
+		ParsedHeader<List<MediaType>> parsed = this.parsedAccept;
+		if (parsed == null || !parsed.rawValue.equals(values)) {
+			parsed = new ParsedHeader<>(new ArrayList<>(values), MediaType.parseMediaTypes(values));
+			this.parsedAccept = parsed;
+		}
+		return new ArrayList<>(parsed.value);
 	}
 
 	/**
@@ -960,11 +977,21 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 	 * Return the {@linkplain MediaType media type} of the body, as specified
 	 * by the {@code Content-Type} header.
 	 * <p>Returns {@code null} when the content-type is unknown.
+	 * <p>The parsed media type is cached for as long as the raw header value
+	 * remains the same, so repeated calls do not re-parse the header.
 	 */
 	@Nullable
 	public MediaType getContentType() {
 		String value = getFirst(CONTENT_TYPE);
-		return (StringUtils.hasLength(value) ? MediaType.parseMediaType(value) : null);
+		if (!StringUtils.hasLength(value)) {
+			return null;
+		}
+		ParsedHeader<MediaType> parsed = this.parsedContentType;
+		if (parsed == null || !parsed.rawValue.equals(value)) {
+			parsed = new ParsedHeader<>(value, MediaType.parseMediaType(value));
+			this.parsedContentType = parsed;
+		}
+		return parsed.value;
 	}
 
 	/**
@@ -1856,4 +1883,21 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 		return DATE_FORMATTER.format(time);
 	}
 
+
+	/**
+	 * Holder for a parsed header value along with the raw value it was parsed
+	 * from, used to skip re-parsing as long as the raw value is unchanged.
+	 */
+	private static final class ParsedHeader<T> {
+
+		final Object rawValue;
+
+		final T value;
+
+		ParsedHeader(Object rawValue, T value) {
+			this.rawValue = rawValue;
+			this.value = value;
+		}
+	}
+
 }
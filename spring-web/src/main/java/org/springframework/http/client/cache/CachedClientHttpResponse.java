@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpResponse;
+
+/**
+ * {@link org.springframework.http.client.ClientHttpResponse} for a
+ * {@link CachedResponse}.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+final class CachedClientHttpResponse extends AbstractClientHttpResponse {
+
+	private final CachedResponse response;
+
+
+	CachedClientHttpResponse(CachedResponse response) {
+		this.response = response;
+	}
+
+
+	@Override
+	public int getRawStatusCode() {
+		return this.response.getStatusCode();
+	}
+
+	@Override
+	public String getStatusText() {
+		HttpStatus status = HttpStatus.resolve(this.response.getStatusCode());
+		return (status != null ? status.getReasonPhrase() : "");
+	}
+
+	@Override
+	public HttpHeaders getHeaders() {
+		return this.response.getHeaders();
+	}
+
+	@Override
+	public InputStream getBody() {
+		return new ByteArrayInputStream(this.response.getBody());
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * A response held in an {@link HttpCacheStore}, along with the request header
+ * values it was selected by, and the logic to decide whether it may still be
+ * used according to RFC 7234 for a shared cache.
+ *
+ * <p>Since the same store typically serves the requests of many users of a
+ * server-side client, responses marked {@code private} are not stored, and
+ * responses to requests with an {@code Authorization} header are only stored
+ * if explicitly allowed by the response, as per RFC 7234, section 3.2.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public final class CachedResponse {
+
+	private final int statusCode;
+
+	private final HttpHeaders headers;
+
+	private final byte[] body;
+
+	private final Map<String, List<String>> varyValues;
+
+	private final long responseTime;
+
+	private final Map<String, String> cacheControl;
+
+
+	/**
+	 * Create a new {@code CachedResponse}.
+	 * @param statusCode the response status code
+	 * @param headers the response headers
+	 * @param body the response body
+	 * @param varyValues the values of the request headers named by the
+	 * {@code Vary} response header, keyed by header name
+	 * @param responseTime the time, in milliseconds since the epoch, at which
+	 * the response was received or last revalidated
+	 */
+	public CachedResponse(int statusCode, HttpHeaders headers, byte[] body,
+			Map<String, List<String>> varyValues, long responseTime) {
+
+		Assert.notNull(headers, "HttpHeaders must not be null");
+		Assert.notNull(body, "Body must not be null");
+		Assert.notNull(varyValues, "Vary values must not be null");
+		this.statusCode = statusCode;
+		this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+		this.body = body;
+		this.varyValues = Collections.unmodifiableMap(varyValues);
+		this.responseTime = responseTime;
+		this.cacheControl = parseCacheControl(headers.get(HttpHeaders.CACHE_CONTROL));
+	}
+
+
+	/**
+	 * Return the response status code.
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * Return the read-only response headers.
+	 */
+	public HttpHeaders getHeaders() {
+		return this.headers;
+	}
+
+	/**
+	 * Return the response body.
+	 */
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	/**
+	 * Return the values of the request headers named by the {@code Vary}
+	 * response header, keyed by header name.
+	 */
+	public Map<String, List<String>> getVaryValues() {
+		return this.varyValues;
+	}
+
+	/**
+	 * Return the time, in milliseconds since the epoch, at which the response
+	 * was received or last revalidated.
+	 */
+	public long getResponseTime() {
+		return this.responseTime;
+	}
+
+
+	/**
+	 * Whether this response was selected by the same {@code Vary} request
+	 * header values as the given request headers.
+	 * @param requestHeaders the headers of the current request
+	 */
+	public boolean matches(HttpHeaders requestHeaders) {
+		for (Map.Entry<String, List<String>> entry : this.varyValues.entrySet()) {
+			if (!ObjectUtils.nullSafeEquals(entry.getValue(), requestHeaders.get(entry.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether this response may be used without revalidation at the given time.
+	 * @param now the current time in milliseconds since the epoch
+	 */
+	public boolean isFresh(long now) {
+		return (!this.cacheControl.containsKey("no-cache") && getAge(now) < getFreshnessLifetime());
+	}
+
+	/**
+	 * Whether this response is stale, but may still be used at the given time
+	 * while it is revalidated in the background, as allowed by the
+	 * {@code stale-while-revalidate} directive.
+	 * @param now the current time in milliseconds since the epoch
+	 */
+	public boolean isStaleWhileRevalidate(long now) {
+		if (this.cacheControl.containsKey("no-cache") || this.cacheControl.containsKey("must-revalidate") ||
+				this.cacheControl.containsKey("proxy-revalidate")) {
+			return false;
+		}
+		long staleWhileRevalidate = getDirectiveMillis("stale-while-revalidate");
+		return (staleWhileRevalidate > 0 && getAge(now) < getFreshnessLifetime() + staleWhileRevalidate);
+	}
+
+	/**
+	 * Whether this response has validators to issue a conditional request with.
+	 */
+	public boolean hasValidators() {
+		return (this.headers.getETag() != null || this.headers.getLastModified() != -1);
+	}
+
+	/**
+	 * Add {@code If-None-Match} and {@code If-Modified-Since} headers for the
+	 * validators of this response to the given request headers.
+	 * @param requestHeaders the headers of the request to revalidate with
+	 */
+	public void addConditionalHeaders(HttpHeaders requestHeaders) {
+		String etag = this.headers.getETag();
+		if (etag != null) {
+			requestHeaders.setIfNoneMatch(etag);
+		}
+		long lastModified = this.headers.getLastModified();
+		if (lastModified != -1) {
+			requestHeaders.setIfModifiedSince(lastModified);
+		}
+	}
+
+	/**
+	 * Return a copy of this response, revalidated by a {@code 304 Not Modified}
+	 * response with the given headers.
+	 * @param notModifiedHeaders the headers of the 304 response
+	 * @param now the current time in milliseconds since the epoch
+	 */
+	public CachedResponse revalidated(HttpHeaders notModifiedHeaders, long now) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.putAll(this.headers);
+		notModifiedHeaders.forEach((name, values) -> {
+			if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				headers.put(name, values);
+			}
+		});
+		return new CachedResponse(this.statusCode, headers, this.body, this.varyValues, now);
+	}
+
+	private long getAge(long now) {
+		long age = Math.max(0, now - this.responseTime);
+		String ageHeader = this.headers.getFirst(HttpHeaders.AGE);
+		if (ageHeader != null) {
+			try {
+				age += Long.parseLong(ageHeader.trim()) * 1000;
+			}
+			catch (NumberFormatException ex) {
+				// ignore
+			}
+		}
+		return age;
+	}
+
+	private long getFreshnessLifetime() {
+		long sharedMaxAge = getDirectiveMillis("s-maxage");
+		if (sharedMaxAge >= 0) {
+			return sharedMaxAge;
+		}
+		long maxAge = getDirectiveMillis("max-age");
+		if (maxAge >= 0) {
+			return maxAge;
+		}
+		try {
+			long expires = this.headers.getExpires();
+			if (expires != -1) {
+				long date = this.headers.getDate();
+				return Math.max(0, expires - (date != -1 ? date : this.responseTime));
+			}
+		}
+		catch (IllegalArgumentException ex) {
+			// Invalid date means already expired
+		}
+		return 0;
+	}
+
+	private long getDirectiveMillis(String directive) {
+		String value = this.cacheControl.get(directive);
+		if (value != null) {
+			try {
+				return Long.parseLong(value) * 1000;
+			}
+			catch (NumberFormatException ex) {
+				// ignore
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Whether a response with the given status and headers may be stored by a
+	 * shared cache for the given request, and can be reused, either because
+	 * of an explicit freshness lifetime or through revalidation.
+	 * <p>Responses to requests with an {@code Authorization} header are only
+	 * considered cacheable with a {@code public}, {@code s-maxage}, or
+	 * {@code must-revalidate} response directive.
+	 * @param requestHeaders the request headers
+	 * @param statusCode the response status code
+	 * @param responseHeaders the response headers
+	 */
+	public static boolean isCacheable(HttpHeaders requestHeaders, int statusCode, HttpHeaders responseHeaders) {
+		if (!isCacheableStatus(statusCode) ||
+				parseCacheControl(requestHeaders.get(HttpHeaders.CACHE_CONTROL)).containsKey("no-store")) {
+			return false;
+		}
+		Map<String, String> cacheControl = parseCacheControl(responseHeaders.get(HttpHeaders.CACHE_CONTROL));
+		if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private") ||
+				responseHeaders.getVary().contains("*")) {
+			return false;
+		}
+		if (requestHeaders.containsKey(HttpHeaders.AUTHORIZATION) && !cacheControl.containsKey("public") &&
+				!cacheControl.containsKey("s-maxage") && !cacheControl.containsKey("must-revalidate")) {
+			return false;
+		}
+		return (cacheControl.containsKey("max-age") || cacheControl.containsKey("s-maxage") ||
+				responseHeaders.containsKey(HttpHeaders.EXPIRES) || responseHeaders.containsKey(HttpHeaders.ETAG) ||
+				responseHeaders.containsKey(HttpHeaders.LAST_MODIFIED));
+	}
+
+	/**
+	 * Create a {@code CachedResponse} for the given request and response,
+	 * capturing the request header values named by the {@code Vary} response
+	 * header.
+	 * @param requestHeaders the request headers
+	 * @param statusCode the response status code
+	 * @param responseHeaders the response headers
+	 * @param body the response body
+	 * @param now the current time in milliseconds since the epoch
+	 * @see #isCacheable(HttpHeaders, int, HttpHeaders)
+	 */
+	public static CachedResponse create(HttpHeaders requestHeaders, int statusCode,
+			HttpHeaders responseHeaders, byte[] body, long now) {
+
+		Map<String, List<String>> varyValues = new LinkedHashMap<>();
+		for (String vary : responseHeaders.getVary()) {
+			varyValues.put(vary, requestHeaders.get(vary));
+		}
+		return new CachedResponse(statusCode, responseHeaders, body, varyValues, now);
+	}
+
+	/**
+	 * Whether the given request headers forbid the use of a stored response
+	 * without revalidation.
+	 * @param requestHeaders the headers of the current request
+	 */
+	public static boolean isNoCacheRequest(HttpHeaders requestHeaders) {
+		Map<String, String> cacheControl = parseCacheControl(requestHeaders.get(HttpHeaders.CACHE_CONTROL));
+		return (cacheControl.containsKey("no-cache") || cacheControl.containsKey("no-store") ||
+				"no-cache".equalsIgnoreCase(requestHeaders.getPragma()));
+	}
+
+	private static boolean isCacheableStatus(int statusCode) {
+		switch (statusCode) {
+			case 200:
+			case 203:
+			case 204:
+			case 300:
+			case 301:
+			case 404:
+			case 405:
+			case 410:
+			case 414:
+			case 501:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static Map<String, String> parseCacheControl(@Nullable List<String> headerValues) {
+		if (headerValues == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> directives = new LinkedHashMap<>();
+		for (String headerValue : headerValues) {
+			for (String directive : StringUtils.tokenizeToStringArray(headerValue, ",")) {
+				int index = directive.indexOf('=');
+				String name = (index != -1 ? directive.substring(0, index) : directive).trim();
+				String value = (index != -1 ? StringUtils.trimAllWhitespace(directive.substring(index + 1)) : "");
+				if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+					value = value.substring(1, value.length() - 1);
+				}
+				directives.put(name.toLowerCase(Locale.ROOT), value);
+			}
+		}
+		return directives;
+	}
+
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ClientHttpRequestInterceptor} that caches {@code GET} responses in an
+ * {@link HttpCacheStore}, honoring {@code Cache-Control}, {@code Expires},
+ * {@code ETag}, {@code Last-Modified}, and {@code Vary} as a shared cache.
+ *
+ * <p>Fresh responses are served from the store without a request. Stale
+ * responses with validators are revalidated with a conditional request, and
+ * served from the store if the server responds with {@code 304 Not Modified}.
+ * If a {@link #setRevalidationExecutor revalidation executor} is configured,
+ * responses within their {@code stale-while-revalidate} window are served
+ * from the store right away while being revalidated in the background, with
+ * at most one background revalidation in progress per stored response.
+ *
+ * <p>Successful responses to unsafe methods, e.g. {@code POST}, invalidate
+ * the response stored for the same URI.
+ *
+ * <p>Since the store may be shared by all requests going through this
+ * interceptor, e.g. on behalf of different users, responses are stored and
+ * reused according to the rules for a shared cache in RFC 7234: responses
+ * marked {@code Cache-Control: private} are not stored, and responses to
+ * requests with an {@code Authorization} header are only stored if marked
+ * {@code public}, {@code s-maxage}, or {@code must-revalidate}. Such
+ * responses are stored by URI only, and so are served to later requests
+ * with other credentials, or without any.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see org.springframework.web.client.RestTemplate#setInterceptors
+ */
+public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+	private static final Log logger = LogFactory.getLog(CachingClientHttpRequestInterceptor.class);
+
+	private final HttpCacheStore store;
+
+	private int maxEntrySize = 1024 * 1024;
+
+	@Nullable
+	private Executor revalidationExecutor;
+
+	private Clock clock = Clock.systemUTC();
+
+	private final Set<String> revalidatingKeys = ConcurrentHashMap.newKeySet();
+
+
+	/**
+	 * Create a new interceptor that stores responses in the given store.
+	 * @param store the store to use
+	 */
+	public CachingClientHttpRequestInterceptor(HttpCacheStore store) {
+		Assert.notNull(store, "HttpCacheStore must not be null");
+		this.store = store;
+	}
+
+
+	/**
+	 * Set the maximum size of a response body to store. Larger responses are
+	 * passed through without being stored.
+	 * <p>By default set to 1MB.
+	 * @param maxEntrySize the maximum body size in bytes
+	 */
+	public void setMaxEntrySize(int maxEntrySize) {
+		Assert.isTrue(maxEntrySize >= 0, "Max entry size must not be negative");
+		this.maxEntrySize = maxEntrySize;
+	}
+
+	/**
+	 * Return the configured maximum size of a response body to store.
+	 */
+	public int getMaxEntrySize() {
+		return this.maxEntrySize;
+	}
+
+	/**
+	 * Set the executor to revalidate responses on that are served within their
+	 * {@code stale-while-revalidate} window.
+	 * <p>By default not set, in which case such responses are revalidated
+	 * before being served like any other stale response.
+	 * @param revalidationExecutor the executor to use
+	 */
+	public void setRevalidationExecutor(@Nullable Executor revalidationExecutor) {
+		this.revalidationExecutor = revalidationExecutor;
+	}
+
+	/**
+	 * Return the configured revalidation executor, if any.
+	 */
+	@Nullable
+	public Executor getRevalidationExecutor() {
+		return this.revalidationExecutor;
+	}
+
+	/**
+	 * Set the {@link Clock} to determine the age of stored responses with.
+	 * <p>By default, {@link Clock#systemUTC()}.
+	 * @param clock the clock to use
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "Clock must not be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Return the configured clock.
+	 */
+	public Clock getClock() {
+		return this.clock;
+	}
+
+
+	@Override
+	public ClientHttpResponse intercept(
+			HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+
+		HttpMethod method = request.getMethod();
+		String key = request.getURI().toString();
+
+		if (method != HttpMethod.GET) {
+			ClientHttpResponse response = execution.execute(request, body);
+			if (method != HttpMethod.HEAD && method != HttpMethod.OPTIONS && method != HttpMethod.TRACE) {
+				int statusCode = response.getRawStatusCode();
+				if (statusCode >= 200 && statusCode < 400) {
+					this.store.remove(key);
+				}
+			}
+			return response;
+		}
+
+		CachedResponse cached = this.store.get(key);
+		if (cached != null && !cached.matches(request.getHeaders())) {
+			cached = null;
+		}
+		if (cached != null && !CachedResponse.isNoCacheRequest(request.getHeaders())) {
+			long now = this.clock.millis();
+			if (cached.isFresh(now)) {
+				return new CachedClientHttpResponse(cached);
+			}
+			Executor executor = this.revalidationExecutor;
+			if (executor != null && cached.hasValidators() && cached.isStaleWhileRevalidate(now)) {
+				if (this.revalidatingKeys.add(key)) {
+					CachedResponse stale = cached;
+					try {
+						executor.execute(() -> revalidate(request, body, execution, key, stale));
+					}
+					catch (RuntimeException ex) {
+						this.revalidatingKeys.remove(key);
+						throw ex;
+					}
+				}
+				return new CachedClientHttpResponse(cached);
+			}
+		}
+		return execute(request, body, execution, key, cached);
+	}
+
+	private void revalidate(HttpRequest request, byte[] body, ClientHttpRequestExecution execution,
+			String key, CachedResponse cached) {
+
+		try {
+			execute(request, body, execution, key, cached).close();
+		}
+		catch (IOException | RuntimeException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to revalidate cached response for " + key, ex);
+			}
+		}
+		finally {
+			this.revalidatingKeys.remove(key);
+		}
+	}
+
+	private ClientHttpResponse execute(HttpRequest request, byte[] body, ClientHttpRequestExecution execution,
+			String key, @Nullable CachedResponse cached) throws IOException {
+
+		HttpRequest requestToUse = request;
+		if (cached != null && cached.hasValidators()) {
+			HttpHeaders headers = new HttpHeaders();
+			headers.putAll(request.getHeaders());
+			cached.addConditionalHeaders(headers);
+			requestToUse = new HttpRequestWrapper(request) {
+				@Override
+				public HttpHeaders getHeaders() {
+					return headers;
+				}
+			};
+		}
+
+		ClientHttpResponse response = execution.execute(requestToUse, body);
+		int statusCode = response.getRawStatusCode();
+
+		if (cached != null && statusCode == HttpStatus.NOT_MODIFIED.value() &&
+				requestToUse != request) {
+			CachedResponse revalidated = cached.revalidated(response.getHeaders(), this.clock.millis());
+			response.close();
+			this.store.put(key, revalidated);
+			return new CachedClientHttpResponse(revalidated);
+		}
+
+		HttpHeaders responseHeaders = response.getHeaders();
+		if (!CachedResponse.isCacheable(request.getHeaders(), statusCode, responseHeaders) ||
+				responseHeaders.getContentLength() > this.maxEntrySize) {
+			return response;
+		}
+
+		InputStream responseBody = response.getBody();
+		byte[] content = read(responseBody, this.maxEntrySize + 1);
+		if (content.length > this.maxEntrySize) {
+			return new PartiallyReadClientHttpResponse(response, content, responseBody);
+		}
+		response.close();
+		CachedResponse cachedResponse = CachedResponse.create(
+				request.getHeaders(), statusCode, responseHeaders, content, this.clock.millis());
+		this.store.put(key, cachedResponse);
+		return new CachedClientHttpResponse(cachedResponse);
+	}
+
+	private static byte[] read(InputStream inputStream, int maxByteCount) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.min(maxByteCount, 4096));
+		byte[] buffer = new byte[4096];
+		int remaining = maxByteCount;
+		int bytesRead;
+		while (remaining > 0 && (bytesRead = inputStream.read(buffer, 0, Math.min(buffer.length, remaining))) != -1) {
+			outputStream.write(buffer, 0, bytesRead);
+			remaining -= bytesRead;
+		}
+		return outputStream.toByteArray();
+	}
+
+
+	/**
+	 * Response with a body that was partially read before finding out that it
+	 * is too large to store.
+	 */
+	private static class PartiallyReadClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private final InputStream body;
+
+
+		PartiallyReadClientHttpResponse(ClientHttpResponse response, byte[] content, InputStream remainder) {
+			this.response = response;
+			this.body = new SequenceInputStream(new ByteArrayInputStream(content), remainder);
+		}
+
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return this.response.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return this.response.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return this.response.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.response.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() {
+			return this.body;
+		}
+
+		@Override
+		public void close() {
+			this.response.close();
+		}
+	}
+
+}
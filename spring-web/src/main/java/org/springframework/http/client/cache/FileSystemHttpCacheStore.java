@@ -0,0 +1,234 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+/**
+ * {@link HttpCacheStore} that keeps each response in a file of its own in a
+ * given directory, so that cached responses survive restarts.
+ *
+ * <p>Files are named after a digest of their key, and are written to a
+ * temporary file first and then moved into place, so that concurrent readers
+ * never see partially written responses. Responses are only removed when
+ * replaced or {@linkplain #remove(String) removed} explicitly; the directory
+ * is expected to be purged externally if its size needs to be bounded.
+ * Files with lengths that do not fit within the file, e.g. when truncated
+ * or corrupted, are treated as if there was no stored response.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public class FileSystemHttpCacheStore implements HttpCacheStore {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String FILE_SUFFIX = ".response";
+
+
+	private static final Log logger = LogFactory.getLog(FileSystemHttpCacheStore.class);
+
+	private final Path directory;
+
+
+	/**
+	 * Create a store for the given directory, which is created if it does not
+	 * exist yet.
+	 * @param directory the directory to store responses in
+	 * @throws IOException if the directory cannot be created
+	 */
+	public FileSystemHttpCacheStore(Path directory) throws IOException {
+		Assert.notNull(directory, "Directory must not be null");
+		this.directory = Files.createDirectories(directory);
+	}
+
+
+	/**
+	 * Return the directory responses are stored in.
+	 */
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+
+	@Override
+	@Nullable
+	public CachedResponse get(String key) {
+		Path file = getFile(key);
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			long fileSize = Files.size(file);
+			if (input.readInt() != FORMAT_VERSION || !key.equals(readString(input, fileSize))) {
+				return null;
+			}
+			return readResponse(input, fileSize);
+		}
+		catch (NoSuchFileException ex) {
+			return null;
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to read cached response from " + file, ex);
+			}
+			return null;
+		}
+	}
+
+	@Override
+	public void put(String key, CachedResponse response) {
+		Path file = getFile(key);
+		Path tempFile = null;
+		try {
+			tempFile = Files.createTempFile(this.directory, null, ".tmp");
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				output.writeInt(FORMAT_VERSION);
+				writeString(output, key);
+				writeResponse(output, response);
+			}
+			try {
+				Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write cached response to " + file, ex);
+			}
+			if (tempFile != null) {
+				deleteQuietly(tempFile);
+			}
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		deleteQuietly(getFile(key));
+	}
+
+	private Path getFile(String key) {
+		return this.directory.resolve(DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + FILE_SUFFIX);
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException ex) {
+			// ignore
+		}
+	}
+
+
+	private static void writeResponse(DataOutputStream output, CachedResponse response) throws IOException {
+		output.writeInt(response.getStatusCode());
+		output.writeLong(response.getResponseTime());
+		writeValues(output, response.getHeaders());
+		writeValues(output, response.getVaryValues());
+		output.writeInt(response.getBody().length);
+		output.write(response.getBody());
+	}
+
+	private static CachedResponse readResponse(DataInputStream input, long fileSize) throws IOException {
+		int statusCode = input.readInt();
+		long responseTime = input.readLong();
+		HttpHeaders headers = new HttpHeaders();
+		headers.putAll(readValues(input, fileSize));
+		Map<String, List<String>> varyValues = readValues(input, fileSize);
+		byte[] body = new byte[readLength(input, fileSize)];
+		input.readFully(body);
+		return new CachedResponse(statusCode, headers, body, varyValues, responseTime);
+	}
+
+	private static void writeValues(DataOutputStream output, Map<String, List<String>> map) throws IOException {
+		output.writeInt(map.size());
+		for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+			writeString(output, entry.getKey());
+			List<String> values = entry.getValue();
+			output.writeInt(values != null ? values.size() : -1);
+			if (values != null) {
+				for (String value : values) {
+					writeString(output, value);
+				}
+			}
+		}
+	}
+
+	private static Map<String, List<String>> readValues(DataInputStream input, long fileSize) throws IOException {
+		int size = readLength(input, fileSize);
+		Map<String, List<String>> map = new LinkedHashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			String name = readString(input, fileSize);
+			int count = input.readInt();
+			List<String> values = null;
+			if (count != -1) {
+				values = new ArrayList<>(checkLength(count, fileSize));
+				for (int j = 0; j < count; j++) {
+					values.add(readString(input, fileSize));
+				}
+			}
+			map.put(name, values);
+		}
+		return map;
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(DataInputStream input, long fileSize) throws IOException {
+		byte[] bytes = new byte[readLength(input, fileSize)];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int readLength(DataInputStream input, long fileSize) throws IOException {
+		return checkLength(input.readInt(), fileSize);
+	}
+
+	private static int checkLength(int length, long fileSize) throws IOException {
+		if (length < 0 || length > fileSize) {
+			throw new IOException("Invalid length " + length + " for file of " + fileSize + " bytes");
+		}
+		return length;
+	}
+
+}
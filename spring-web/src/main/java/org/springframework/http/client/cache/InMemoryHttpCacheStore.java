@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link HttpCacheStore} that keeps responses in memory, evicting the least
+ * recently used responses once the total size of the stored bodies exceeds
+ * {@link #InMemoryHttpCacheStore(long) maxSize}.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public class InMemoryHttpCacheStore implements HttpCacheStore {
+
+	private final long maxSize;
+
+	private final LinkedHashMap<String, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+
+	/**
+	 * Create a store with a maximum size of 10MB.
+	 */
+	public InMemoryHttpCacheStore() {
+		this(10 * 1024 * 1024);
+	}
+
+	/**
+	 * Create a store with the given maximum size.
+	 * @param maxSize the maximum total size of the stored bodies in bytes
+	 */
+	public InMemoryHttpCacheStore(long maxSize) {
+		Assert.isTrue(maxSize > 0, "Max size must be positive");
+		this.maxSize = maxSize;
+	}
+
+
+	/**
+	 * Return the maximum total size of the stored bodies in bytes.
+	 */
+	public long getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Return the current total size of the stored bodies in bytes.
+	 */
+	public synchronized long getSize() {
+		return this.size;
+	}
+
+
+	@Override
+	@Nullable
+	public synchronized CachedResponse get(String key) {
+		return this.responses.get(key);
+	}
+
+	@Override
+	public synchronized void put(String key, CachedResponse response) {
+		if (response.getBody().length > this.maxSize) {
+			remove(key);
+			return;
+		}
+		CachedResponse previous = this.responses.put(key, response);
+		if (previous != null) {
+			this.size -= previous.getBody().length;
+		}
+		this.size += response.getBody().length;
+		Iterator<Map.Entry<String, CachedResponse>> iterator = this.responses.entrySet().iterator();
+		while (this.size > this.maxSize && iterator.hasNext()) {
+			this.size -= iterator.next().getValue().getBody().length;
+			iterator.remove();
+		}
+	}
+
+	@Override
+	public synchronized void remove(String key) {
+		CachedResponse previous = this.responses.remove(key);
+		if (previous != null) {
+			this.size -= previous.getBody().length;
+		}
+	}
+
+}
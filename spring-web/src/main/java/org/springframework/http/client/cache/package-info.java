@@ -0,0 +1,10 @@
+/**
+ * Client-side HTTP response caching, with pluggable stores, for use with
+ * {@code RestTemplate} and similar clients.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.http.client.cache;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
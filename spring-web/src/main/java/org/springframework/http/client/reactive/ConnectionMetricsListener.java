@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * Callback for connection-level metrics of a {@link ClientHttpConnector},
+ * e.g. in order to detect connection pool saturation before requests start
+ * to fail with acquire timeouts.
+ *
+ * <p>Remote addresses are reported as
+ * {@link InetSocketAddress#createUnresolved unresolved} host and port pairs.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see ReactorClientHttpConnector#ReactorClientHttpConnector(reactor.netty.http.client.HttpClient, ConnectionMetricsListener)
+ */
+public interface ConnectionMetricsListener {
+
+	/**
+	 * Invoked when a connection has been obtained for a request.
+	 * @param remoteAddress the remote address of the request
+	 * @param acquireTime the time from the start of the request until a
+	 * connection was available to write it to
+	 */
+	default void connectionAcquired(InetSocketAddress remoteAddress, Duration acquireTime) {
+	}
+
+	/**
+	 * Invoked whenever the number of connections to a remote address, or the
+	 * number of requests waiting for one, changes.
+	 * @param remoteAddress the remote address
+	 * @param active the number of connections in use
+	 * @param idle the number of open connections not currently in use
+	 * @param pending the number of requests waiting for a connection
+	 */
+	default void connectionCountsChanged(InetSocketAddress remoteAddress, int active, int idle, int pending) {
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.Channel;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Tracks connections and pending requests per remote address for a
+ * {@link ReactorClientHttpConnector}, and reports them to a
+ * {@link ConnectionMetricsListener}.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+class ConnectionMetricsRecorder implements ConnectionObserver {
+
+	private final ConnectionMetricsListener listener;
+
+	private final Map<InetSocketAddress, RemoteAddressStats> stats = new ConcurrentHashMap<>();
+
+
+	ConnectionMetricsRecorder(ConnectionMetricsListener listener) {
+		this.listener = listener;
+	}
+
+
+	/**
+	 * Record the start of a request.
+	 * @param uri the request URI
+	 * @return the handle to signal the outcome of acquiring a connection with
+	 */
+	public PendingRequest requestStarted(URI uri) {
+		int port = uri.getPort();
+		if (port == -1) {
+			port = ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+		}
+		InetSocketAddress address = InetSocketAddress.createUnresolved(uri.getHost(), port);
+		RemoteAddressStats stats = getStats(address);
+		stats.pending.incrementAndGet();
+		report(address, stats);
+		return new PendingRequest(address, stats);
+	}
+
+	@Override
+	public void onStateChange(Connection connection, State newState) {
+		Channel channel = connection.channel();
+		SocketAddress remoteAddress = channel.remoteAddress();
+		if (!(remoteAddress instanceof InetSocketAddress)) {
+			return;
+		}
+		InetSocketAddress socketAddress = (InetSocketAddress) remoteAddress;
+		InetSocketAddress address =
+				InetSocketAddress.createUnresolved(socketAddress.getHostString(), socketAddress.getPort());
+		RemoteAddressStats stats = getStats(address);
+		if (newState == State.CONNECTED || newState == State.ACQUIRED) {
+			stats.update(channel, Boolean.TRUE);
+		}
+		else if (newState == State.RELEASED) {
+			stats.update(channel, Boolean.FALSE);
+		}
+		else if (newState == State.DISCONNECTING) {
+			stats.update(channel, null);
+		}
+		else {
+			return;
+		}
+		report(address, stats);
+	}
+
+	private RemoteAddressStats getStats(InetSocketAddress address) {
+		return this.stats.computeIfAbsent(address, key -> new RemoteAddressStats());
+	}
+
+	private void report(InetSocketAddress address, RemoteAddressStats stats) {
+		this.listener.connectionCountsChanged(
+				address, stats.active.get(), stats.idle.get(), stats.pending.get());
+	}
+
+
+	/**
+	 * Handle for a request waiting for a connection.
+	 */
+	class PendingRequest {
+
+		private final InetSocketAddress address;
+
+		private final RemoteAddressStats stats;
+
+		private final long startTime = System.nanoTime();
+
+		private final AtomicBoolean done = new AtomicBoolean();
+
+
+		PendingRequest(InetSocketAddress address, RemoteAddressStats stats) {
+			this.address = address;
+			this.stats = stats;
+		}
+
+
+		/**
+		 * Signal that a connection was obtained, ignored after the first call.
+		 */
+		public void acquired() {
+			if (this.done.compareAndSet(false, true)) {
+				this.stats.pending.decrementAndGet();
+				Duration acquireTime = Duration.ofNanos(System.nanoTime() - this.startTime);
+				listener.connectionAcquired(this.address, acquireTime);
+				report(this.address, this.stats);
+			}
+		}
+
+		/**
+		 * Signal that the request completed, failed or was cancelled, possibly
+		 * without ever obtaining a connection.
+		 */
+		public void finished() {
+			if (this.done.compareAndSet(false, true)) {
+				this.stats.pending.decrementAndGet();
+				report(this.address, this.stats);
+			}
+		}
+	}
+
+
+	private static class RemoteAddressStats {
+
+		private final Map<Channel, Boolean> connections = new ConcurrentHashMap<>();
+
+		private final AtomicInteger active = new AtomicInteger();
+
+		private final AtomicInteger idle = new AtomicInteger();
+
+		private final AtomicInteger pending = new AtomicInteger();
+
+
+		/**
+		 * Move a connection to the active or idle state, or remove it if
+		 * the given state is {@code null}.
+		 */
+		public void update(Channel channel, @Nullable Boolean active) {
+			Boolean previous = (active != null ? this.connections.put(channel, active) : this.connections.remove(channel));
+			if (previous != null) {
+				(previous ? this.active : this.idle).decrementAndGet();
+			}
+			if (active != null) {
+				(active ? this.active : this.idle).incrementAndGet();
+			}
+		}
+	}
+
+}
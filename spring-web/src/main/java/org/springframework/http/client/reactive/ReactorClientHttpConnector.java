@@ -28,6 +28,7 @@ import reactor.netty.resources.ConnectionProvider;
 import reactor.netty.resources.LoopResources;
 
 import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 /**
@@ -45,6 +46,9 @@ public class ReactorClientHttpConnector implements ClientHttpConnector {
 
 	private final HttpClient httpClient;
 
+	@Nullable
+	private final ConnectionMetricsRecorder metricsRecorder;
+
 
 	/**
 	 * Default constructor. Initializes {@link HttpClient} via:
@@ -54,6 +58,7 @@ public class ReactorClientHttpConnector implements ClientHttpConnector {
 	 */
 	public ReactorClientHttpConnector() {
 		this.httpClient = defaultInitializer.apply(HttpClient.create());
+		this.metricsRecorder = null;
 	}
 
 	/**
@@ -74,6 +79,7 @@ public class ReactorClientHttpConnector implements ClientHttpConnector {
 	 */
 	public ReactorClientHttpConnector(ReactorResourceFactory factory, Function<HttpClient, HttpClient> mapper) {
 		this.httpClient = defaultInitializer.andThen(mapper).apply(initHttpClient(factory));
+		this.metricsRecorder = null;
 	}
 
 	private static HttpClient initHttpClient(ReactorResourceFactory resourceFactory) {
@@ -92,6 +98,25 @@ public class ReactorClientHttpConnector implements ClientHttpConnector {
 	public ReactorClientHttpConnector(HttpClient httpClient) {
 		Assert.notNull(httpClient, "HttpClient is required");
 		this.httpClient = httpClient;
+		this.metricsRecorder = null;
+	}
+
+	/**
+	 * Constructor with a pre-configured {@code HttpClient} instance, and a
+	 * listener to report acquire latency along with the number of active,
+	 * idle, and pending connections per remote address to.
+	 * <p>Connection pool sizing, pending acquire limits, and idle eviction
+	 * can be configured on the {@link ConnectionProvider} of the client, or
+	 * through the corresponding options of {@link ReactorResourceFactory}.
+	 * @param httpClient the client to use
+	 * @param metricsListener the listener to report connection metrics to
+	 * @since 5.2.13
+	 */
+	public ReactorClientHttpConnector(HttpClient httpClient, ConnectionMetricsListener metricsListener) {
+		Assert.notNull(httpClient, "HttpClient is required");
+		Assert.notNull(metricsListener, "ConnectionMetricsListener is required");
+		this.metricsRecorder = new ConnectionMetricsRecorder(metricsListener);
+		this.httpClient = httpClient.observe(this.metricsRecorder);
 	}
 
 
@@ -103,12 +128,32 @@ public class ReactorClientHttpConnector implements ClientHttpConnector {
 			return Mono.error(new IllegalArgumentException("URI is not absolute: " + uri));
 		}
 
+		ConnectionMetricsRecorder recorder = this.metricsRecorder;
+		if (recorder == null) {
+			return connect(method, uri, requestCallback, null);
+		}
+		return Mono.defer(() -> {
+			ConnectionMetricsRecorder.PendingRequest pendingRequest = recorder.requestStarted(uri);
+			return connect(method, uri, requestCallback, pendingRequest)
+					.doFinally(signalType -> pendingRequest.finished());
+		});
+	}
+
+	private Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+			Function<? super ClientHttpRequest, Mono<Void>> requestCallback,
+			@Nullable ConnectionMetricsRecorder.PendingRequest pendingRequest) {
+
 		AtomicReference<ReactorClientHttpResponse> responseRef = new AtomicReference<>();
 
 		return this.httpClient
 				.request(io.netty.handler.codec.http.HttpMethod.valueOf(method.name()))
 				.uri(uri.toString())
-				.send((request, outbound) -> requestCallback.apply(adaptRequest(method, uri, request, outbound)))
+				.send((request, outbound) -> {
+					if (pendingRequest != null) {
+						pendingRequest.acquired();
+					}
+					return requestCallback.apply(adaptRequest(method, uri, request, outbound));
+				})
 				.responseConnection((response, connection) -> {
 					responseRef.set(new ReactorClientHttpResponse(response, connection));
 					return Mono.just((ClientHttpResponse) responseRef.get());
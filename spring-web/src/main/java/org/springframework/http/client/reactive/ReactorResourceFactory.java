@@ -48,8 +48,7 @@ public class ReactorResourceFactory implements InitializingBean, DisposableBean
 	@Nullable
 	private Consumer<HttpResources> globalResourcesConsumer;
 
-	@SuppressWarnings("deprecation")
-	private Supplier<ConnectionProvider> connectionProviderSupplier = () -> ConnectionProvider.fixed("webflux", 500);
+	private Supplier<ConnectionProvider> connectionProviderSupplier = this::initConnectionProvider;
 
 	@Nullable
 	private ConnectionProvider connectionProvider;
@@ -67,6 +66,18 @@ public class ReactorResourceFactory implements InitializingBean, DisposableBean
 
 	private Duration shutdownTimeout = Duration.ofSeconds(LoopResources.DEFAULT_SHUTDOWN_TIMEOUT);
 
+	@Nullable
+	private Integer maxConnections;
+
+	@Nullable
+	private Integer pendingAcquireMaxCount;
+
+	@Nullable
+	private Duration pendingAcquireTimeout;
+
+	@Nullable
+	private Duration maxIdleTime;
+
 
 	/**
 	 * Whether to use global Reactor Netty resources via {@link HttpResources}.
@@ -114,6 +125,62 @@ public class ReactorResourceFactory implements InitializingBean, DisposableBean
 		this.connectionProviderSupplier = supplier;
 	}
 
+	/**
+	 * Set the maximum number of connections per remote address in the managed
+	 * {@code ConnectionProvider}. Reactor Netty keeps a separate pool for each
+	 * remote address, so this effectively sizes the pool per host.
+	 * <p>By default, 500.
+	 * <p>Note that this option, like the other connection pool options, is
+	 * ignored if {@code useGlobalResources=true}, or if a
+	 * {@link #setConnectionProviderSupplier supplier} or
+	 * {@link #setConnectionProvider connection provider} is set.
+	 * @param maxConnections the maximum number of connections per remote address
+	 * @since 5.2.13
+	 */
+	public void setMaxConnections(int maxConnections) {
+		Assert.isTrue(maxConnections > 0, "maxConnections should be greater than 0");
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * Set the maximum number of requests that may wait for a connection from a
+	 * pool, beyond which acquiring fails immediately instead of queueing.
+	 * <p>By default, the Reactor Netty default is used.
+	 * @param pendingAcquireMaxCount the maximum number of pending acquires,
+	 * or -1 for no limit
+	 * @since 5.2.13
+	 * @see #setMaxConnections(int)
+	 */
+	public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+		this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+	}
+
+	/**
+	 * Set the maximum amount of time a request waits for a connection from a
+	 * pool before failing.
+	 * <p>By default, the Reactor Netty default of 45 seconds is used.
+	 * @param pendingAcquireTimeout the pending acquire timeout
+	 * @since 5.2.13
+	 * @see #setMaxConnections(int)
+	 */
+	public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+		Assert.notNull(pendingAcquireTimeout, "pendingAcquireTimeout should not be null");
+		this.pendingAcquireTimeout = pendingAcquireTimeout;
+	}
+
+	/**
+	 * Set the amount of time after which an idle connection is closed rather
+	 * than handed out again.
+	 * <p>By default, idle connections are kept until the server closes them.
+	 * @param maxIdleTime the maximum idle time of a pooled connection
+	 * @since 5.2.13
+	 * @see #setMaxConnections(int)
+	 */
+	public void setMaxIdleTime(Duration maxIdleTime) {
+		Assert.notNull(maxIdleTime, "maxIdleTime should not be null");
+		this.maxIdleTime = maxIdleTime;
+	}
+
 	/**
 	 * Use this when you want to provide an externally managed
 	 * {@link ConnectionProvider} instance.
@@ -195,6 +262,27 @@ public class ReactorResourceFactory implements InitializingBean, DisposableBean
 	}
 
 
+	@SuppressWarnings("deprecation")
+	private ConnectionProvider initConnectionProvider() {
+		if (this.maxConnections == null && this.pendingAcquireMaxCount == null &&
+				this.pendingAcquireTimeout == null && this.maxIdleTime == null) {
+			return ConnectionProvider.fixed("webflux", 500);
+		}
+		ConnectionProvider.Builder builder = ConnectionProvider.builder("webflux")
+				.maxConnections(this.maxConnections != null ? this.maxConnections : 500);
+		if (this.pendingAcquireMaxCount != null) {
+			builder = builder.pendingAcquireMaxCount(this.pendingAcquireMaxCount);
+		}
+		if (this.pendingAcquireTimeout != null) {
+			builder = builder.pendingAcquireTimeout(this.pendingAcquireTimeout);
+		}
+		if (this.maxIdleTime != null) {
+			builder = builder.maxIdleTime(this.maxIdleTime);
+		}
+		return builder.build();
+	}
+
+
 	@Override
 	public void afterPropertiesSet() {
 		if (this.useGlobalResources) {
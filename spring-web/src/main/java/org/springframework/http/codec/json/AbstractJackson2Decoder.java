@@ -100,7 +100,7 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 		JavaType javaType = getObjectMapper().constructType(elementType.getType());
 		// Skip String: CharSequenceDecoder + "*/*" comes after
 		return (!CharSequence.class.isAssignableFrom(elementType.toClass()) &&
-				getObjectMapper().canDeserialize(javaType) && supportsMimeType(mimeType));
+				getObjectCache().canDeserialize(javaType, null) && supportsMimeType(mimeType));
 	}
 
 	@Override
@@ -185,9 +185,7 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 		}
 		JavaType javaType = getJavaType(elementType.getType(), contextClass);
 		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
-		return jsonView != null ?
-				getObjectMapper().readerWithView(jsonView).forType(javaType) :
-				getObjectMapper().readerFor(javaType);
+		return getObjectCache().getReader(javaType, jsonView);
 	}
 
 	@Nullable
@@ -121,7 +121,8 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 			}
 		}
 		return (Object.class == clazz ||
-				(!String.class.isAssignableFrom(elementType.resolve(clazz)) && getObjectMapper().canSerialize(clazz)));
+				(!String.class.isAssignableFrom(elementType.resolve(clazz)) &&
+						getObjectCache().canSerialize(clazz, null)));
 	}
 
 	@Override
@@ -265,13 +266,8 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 
 		JavaType javaType = getJavaType(valueType.getType(), null);
 		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
-		ObjectWriter writer = (jsonView != null ?
-				getObjectMapper().writerWithView(jsonView) : getObjectMapper().writer());
-
-		if (javaType.isContainerType()) {
-			writer = writer.forType(javaType);
-		}
-
+		ObjectWriter writer = getObjectCache().getWriter(
+				(javaType.isContainerType() ? javaType : null), jsonView, null, null);
 		return customizeWriter(writer, mimeType, valueType, hints);
 	}
 
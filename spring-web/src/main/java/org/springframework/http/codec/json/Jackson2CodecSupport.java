@@ -34,6 +34,7 @@ import org.springframework.core.MethodParameter;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.Hints;
 import org.springframework.http.HttpLogging;
+import org.springframework.http.converter.json.Jackson2ObjectCache;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.lang.Nullable;
@@ -44,6 +45,11 @@ import org.springframework.util.ObjectUtils;
 /**
  * Base class providing support methods for Jackson 2.9 encoding and decoding.
  *
+ * <p>As of 5.2.13, readers and writers are cached in a {@link Jackson2ObjectCache}
+ * and capture the {@code ObjectMapper} configuration when they are created.
+ * The {@code ObjectMapper} must therefore be fully configured before the
+ * codec is first used; see {@link #getObjectMapper()}.
+ *
  * @author Sebastien Deleuze
  * @author Rossen Stoyanchev
  * @since 5.0
@@ -79,6 +85,8 @@ public abstract class Jackson2CodecSupport {
 
 	private final ObjectMapper objectMapper;
 
+	private Jackson2ObjectCache objectCache;
+
 	private final List<MimeType> mimeTypes;
 
 
@@ -88,15 +96,48 @@ public abstract class Jackson2CodecSupport {
 	protected Jackson2CodecSupport(ObjectMapper objectMapper, MimeType... mimeTypes) {
 		Assert.notNull(objectMapper, "ObjectMapper must not be null");
 		this.objectMapper = objectMapper;
+		this.objectCache = new Jackson2ObjectCache(objectMapper);
 		this.mimeTypes = !ObjectUtils.isEmpty(mimeTypes) ?
 				Collections.unmodifiableList(Arrays.asList(mimeTypes)) : DEFAULT_MIME_TYPES;
 	}
 
 
+	/**
+	 * Return the {@code ObjectMapper} for this codec.
+	 * <p><b>Note:</b> As of 5.2.13, changes to the configuration of the returned
+	 * {@code ObjectMapper} are not applied to readers and writers that have
+	 * already been cached. After reconfiguring the mapper once the codec is
+	 * in use, call {@link Jackson2ObjectCache#clear() clear()} on the
+	 * {@link #getObjectCache() object cache}.
+	 */
 	public ObjectMapper getObjectMapper() {
 		return this.objectMapper;
 	}
 
+	/**
+	 * Set a shared {@link Jackson2ObjectCache} for readers and writers, e.g.
+	 * to share it with the Spring MVC Jackson message converters or to apply
+	 * a custom limit. The cache must be bound to the same {@code ObjectMapper}
+	 * as this codec.
+	 * <p>By default, a cache with {@link Jackson2ObjectCache#DEFAULT_CACHE_LIMIT}
+	 * is created for the given {@code ObjectMapper}.
+	 * @since 5.2.13
+	 */
+	public void setObjectCache(Jackson2ObjectCache objectCache) {
+		Assert.notNull(objectCache, "Jackson2ObjectCache must not be null");
+		Assert.isTrue(objectCache.getObjectMapper() == this.objectMapper,
+				"Jackson2ObjectCache must be bound to the ObjectMapper of this codec");
+		this.objectCache = objectCache;
+	}
+
+	/**
+	 * Return the {@link Jackson2ObjectCache} for readers and writers.
+	 * @since 5.2.13
+	 */
+	public Jackson2ObjectCache getObjectCache() {
+		return this.objectCache;
+	}
+
 	/**
 	 * Subclasses should expose this as "decodable" or "encodable" mime types.
 	 */
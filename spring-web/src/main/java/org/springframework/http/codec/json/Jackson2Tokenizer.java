@@ -17,6 +17,7 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -71,6 +72,7 @@ final class Jackson2Tokenizer {
 
 	// TODO: change to ByteBufferFeeder when supported by Jackson
 	// See https://github.com/FasterXML/jackson-core/issues/478
+	// Until then, heap buffers are fed through their backing array
 	private final ByteArrayFeeder inputFeeder;
 
 
@@ -90,12 +92,8 @@ final class Jackson2Tokenizer {
 
 	private List<TokenBuffer> tokenize(DataBuffer dataBuffer) {
 		int bufferSize = dataBuffer.readableByteCount();
-		byte[] bytes = new byte[bufferSize];
-		dataBuffer.read(bytes);
-		DataBufferUtils.release(dataBuffer);
-
 		try {
-			this.inputFeeder.feedInput(bytes, 0, bytes.length);
+			feedInput(dataBuffer, bufferSize);
 			List<TokenBuffer> result = parseTokenBufferFlux();
 			assertInMemorySize(bufferSize, result);
 			return result;
@@ -106,6 +104,27 @@ final class Jackson2Tokenizer {
 		catch (IOException ex) {
 			throw Exceptions.propagate(ex);
 		}
+		finally {
+			// All available input has been consumed by the parser at this point
+			DataBufferUtils.release(dataBuffer);
+		}
+	}
+
+	/**
+	 * Feed the readable bytes of the given buffer to the parser, passing the
+	 * backing array of heap buffers directly, and copying only otherwise.
+	 */
+	private void feedInput(DataBuffer dataBuffer, int length) throws IOException {
+		ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+		if (byteBuffer.hasArray()) {
+			int start = byteBuffer.arrayOffset() + byteBuffer.position();
+			this.inputFeeder.feedInput(byteBuffer.array(), start, start + length);
+		}
+		else {
+			byte[] bytes = new byte[length];
+			byteBuffer.get(bytes);
+			this.inputFeeder.feedInput(bytes, 0, length);
+		}
 	}
 
 	private Flux<TokenBuffer> endOfInput() {
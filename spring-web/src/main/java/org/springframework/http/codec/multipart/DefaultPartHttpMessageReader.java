@@ -0,0 +1,313 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.log.LogFormatUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.LoggingCodecSupport;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Default {@code HttpMessageReader} for parsing {@code "multipart/form-data"}
+ * requests to a stream of {@link Part}s.
+ *
+ * <p>Unlike {@link SynchronossPartHttpMessageReader}, this reader does not
+ * depend on a third-party library: boundaries are scanned directly over the
+ * incoming {@code DataBuffer}s, and part content is kept as slices of those
+ * buffers, without copying. Parts that exceed the
+ * {@linkplain #setMaxInMemorySize(int) in-memory threshold} are written to a
+ * temporary file in the {@linkplain #setFileStorageDirectory(Path) file storage
+ * directory}, using the {@linkplain #setBlockingOperationScheduler(Scheduler)
+ * blocking operation scheduler}.
+ *
+ * <p>Part content that the application does not consume is released, and
+ * temporary files are deleted, once the request has completed: to that end,
+ * a {@link Disposable.Composite} is expected in the Reactor {@code Context}
+ * under {@link #PART_CLEANUP_CONTEXT_KEY}, as provided by
+ * {@link org.springframework.web.server.adapter.HttpWebHandlerAdapter}.
+ *
+ * <p>This reader can be provided to {@link MultipartHttpMessageReader} in order
+ * to aggregate all parts into a Map.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see MultipartHttpMessageReader
+ */
+public class DefaultPartHttpMessageReader extends LoggingCodecSupport implements HttpMessageReader<Part> {
+
+	/**
+	 * Reactor {@code Context} key for a {@link Disposable.Composite} to which
+	 * the content of parsed parts is added, to be disposed once the request
+	 * has completed.
+	 */
+	public static final String PART_CLEANUP_CONTEXT_KEY = DefaultPartHttpMessageReader.class.getName() + ".PART_CLEANUP";
+
+	private static final String IDENTIFIER = "spring-multipart";
+
+
+	private int maxInMemorySize = 256 * 1024;
+
+	private int maxHeadersSize = 8 * 1024;
+
+	private long maxDiskUsagePerPart = -1;
+
+	private long maxTotalSize = -1;
+
+	private int maxParts = -1;
+
+	private Scheduler blockingOperationScheduler = Schedulers.boundedElastic();
+
+	private Mono<Path> fileStorageDirectory = Mono.defer(this::defaultFileStorageDirectory).cache();
+
+	private Charset headersCharset = StandardCharsets.UTF_8;
+
+
+	/**
+	 * Configure the maximum amount of memory that is allowed per part.
+	 * When the limit is exceeded:
+	 * <ul>
+	 * <li>file parts are written to a temporary file.
+	 * <li>non-file parts are rejected with {@link DataBufferLimitException}.
+	 * </ul>
+	 * <p>By default this is set to 256K.
+	 * @param maxInMemorySize the in-memory limit in bytes; if set to -1 the
+	 * entire contents of all parts are kept in memory
+	 */
+	public void setMaxInMemorySize(int maxInMemorySize) {
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+	/**
+	 * Get the {@link #setMaxInMemorySize configured} maximum in-memory size.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Configure the maximum amount of memory allowed for the headers of
+	 * each part. When the limit is exceeded, the request is rejected with
+	 * a {@link DataBufferLimitException}.
+	 * <p>By default this is set to 8K.
+	 * @param byteCount the maximum header size in bytes
+	 */
+	public void setMaxHeadersSize(int byteCount) {
+		this.maxHeadersSize = byteCount;
+	}
+
+	/**
+	 * Configure the maximum amount of disk space allowed for file parts.
+	 * When the limit is exceeded, the request is rejected with a
+	 * {@link DataBufferLimitException}.
+	 * <p>By default this is set to -1, meaning that there is no maximum.
+	 * @param maxDiskUsagePerPart the disk limit in bytes, or -1 for unlimited
+	 */
+	public void setMaxDiskUsagePerPart(long maxDiskUsagePerPart) {
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Get the {@link #setMaxDiskUsagePerPart configured} maximum disk usage.
+	 */
+	public long getMaxDiskUsagePerPart() {
+		return this.maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Configure the maximum size of the entire multipart request body.
+	 * When the limit is exceeded, the request is rejected with a
+	 * {@link DataBufferLimitException}.
+	 * <p>By default this is set to -1, meaning that there is no maximum.
+	 * @param maxTotalSize the total limit in bytes, or -1 for unlimited
+	 */
+	public void setMaxTotalSize(long maxTotalSize) {
+		this.maxTotalSize = maxTotalSize;
+	}
+
+	/**
+	 * Get the {@link #setMaxTotalSize configured} maximum total size.
+	 */
+	public long getMaxTotalSize() {
+		return this.maxTotalSize;
+	}
+
+	/**
+	 * Specify the maximum number of parts allowed in a given multipart request.
+	 * <p>By default this is set to -1, meaning that there is no maximum.
+	 */
+	public void setMaxParts(int maxParts) {
+		this.maxParts = maxParts;
+	}
+
+	/**
+	 * Return the {@link #setMaxParts configured} limit on the number of parts.
+	 */
+	public int getMaxParts() {
+		return this.maxParts;
+	}
+
+	/**
+	 * Set the directory used to store parts larger than
+	 * {@link #setMaxInMemorySize(int) maxInMemorySize}.
+	 * <p>By default, a directory named {@code spring-multipart} is created
+	 * under the system temporary directory.
+	 * @param fileStorageDirectory the directory to store files in
+	 * @throws IOException if an I/O error occurs, or the parent directory
+	 * does not exist
+	 */
+	public void setFileStorageDirectory(Path fileStorageDirectory) throws IOException {
+		Assert.notNull(fileStorageDirectory, "FileStorageDirectory must not be null");
+		if (!Files.exists(fileStorageDirectory)) {
+			Files.createDirectory(fileStorageDirectory);
+		}
+		this.fileStorageDirectory = Mono.just(fileStorageDirectory);
+	}
+
+	/**
+	 * Set the Reactor {@link Scheduler} to be used for creating files and
+	 * directories, and writing to files.
+	 * <p>By default, {@link Schedulers#boundedElastic()} is used, but this
+	 * property allows for changing it to an externally managed scheduler.
+	 * @see Schedulers#newBoundedElastic
+	 */
+	public void setBlockingOperationScheduler(Scheduler blockingOperationScheduler) {
+		Assert.notNull(blockingOperationScheduler, "BlockingOperationScheduler must not be null");
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+	/**
+	 * Set the character set used to decode headers.
+	 * <p>Defaults to UTF-8 as per RFC 7578.
+	 * @param headersCharset the charset to use for decoding headers
+	 * @see <a href="https://tools.ietf.org/html/rfc7578#section-5.1">RFC-7578 Section 5.1</a>
+	 */
+	public void setHeadersCharset(Charset headersCharset) {
+		Assert.notNull(headersCharset, "HeadersCharset must not be null");
+		this.headersCharset = headersCharset;
+	}
+
+
+	@Override
+	public List<MediaType> getReadableMediaTypes() {
+		return MultipartHttpMessageReader.MIME_TYPES;
+	}
+
+	@Override
+	public boolean canRead(ResolvableType elementType, @Nullable MediaType mediaType) {
+		if (Part.class.equals(elementType.toClass())) {
+			if (mediaType == null) {
+				return true;
+			}
+			for (MediaType supportedMediaType : getReadableMediaTypes()) {
+				if (supportedMediaType.isCompatibleWith(mediaType)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Mono<Part> readMono(ResolvableType elementType, ReactiveHttpInputMessage message,
+			Map<String, Object> hints) {
+
+		return Mono.error(new UnsupportedOperationException("Cannot read multipart request body into single Part"));
+	}
+
+	@Override
+	public Flux<Part> read(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Mono.subscriberContext().flatMapMany(context -> {
+			byte[] boundary = boundary(message);
+			if (boundary == null) {
+				return Flux.error(new DecodingException("No multipart boundary found in Content-Type: \"" +
+						message.getHeaders().getContentType() + "\""));
+			}
+			Flux<MultipartParser.Token> tokens = MultipartParser.parse(message.getBody(), boundary,
+					this.maxHeadersSize, this.maxTotalSize, this.headersCharset);
+
+			Disposable.Composite partCleanup = context.getOrDefault(PART_CLEANUP_CONTEXT_KEY, null);
+
+			return PartGenerator.createParts(tokens, this.maxParts, this.maxInMemorySize, this.maxDiskUsagePerPart,
+					this.fileStorageDirectory, this.blockingOperationScheduler, partCleanup)
+					.doOnNext(part -> {
+						if (!Hints.isLoggingSuppressed(hints)) {
+							LogFormatUtils.traceDebug(logger, traceOn -> Hints.getLogPrefix(hints) + "Parsed " +
+									(isEnableLoggingRequestDetails() ?
+											LogFormatUtils.formatValue(part, !traceOn) :
+											"parts '" + part.name() + "' (content masked)"));
+						}
+					});
+		});
+	}
+
+	@Nullable
+	private static byte[] boundary(ReactiveHttpInputMessage message) {
+		MediaType contentType = message.getHeaders().getContentType();
+		if (contentType != null) {
+			String boundary = contentType.getParameter("boundary");
+			if (boundary != null) {
+				int length = boundary.length();
+				if (length > 2 && boundary.charAt(0) == '"' && boundary.charAt(length - 1) == '"') {
+					boundary = boundary.substring(1, length - 1);
+				}
+				return boundary.getBytes(StandardCharsets.ISO_8859_1);
+			}
+		}
+		return null;
+	}
+
+	private Mono<Path> defaultFileStorageDirectory() {
+		return Mono.fromCallable(() -> {
+			Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"), IDENTIFIER);
+			if (!Files.exists(tempDirectory)) {
+				try {
+					Files.createDirectory(tempDirectory);
+				}
+				catch (IOException ex) {
+					if (!Files.isDirectory(tempDirectory)) {
+						throw new UncheckedIOException(ex);
+					}
+				}
+			}
+			return tempDirectory;
+		}).subscribeOn(this.blockingOperationScheduler);
+	}
+
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+
+/**
+ * Default implementations of {@link Part} and subtypes, as created by
+ * {@link DefaultPartHttpMessageReader}.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+abstract class DefaultParts {
+
+	// Static DataBufferFactory to wrap bytes[] or to read from files
+	private static final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private static final int FILE_BUFFER_SIZE = 8192;
+
+
+	/**
+	 * Create a new {@link FormFieldPart} with the given parameters.
+	 * @param headers the part headers
+	 * @param value the form field value
+	 * @return the created part
+	 */
+	public static FormFieldPart formFieldPart(HttpHeaders headers, String value) {
+		Assert.notNull(headers, "Headers must not be null");
+		Assert.notNull(value, "Value must not be null");
+		return new DefaultFormFieldPart(headers, value);
+	}
+
+	/**
+	 * Create a new {@link Part} or {@link FilePart} with the given parameters.
+	 * Returns {@link FilePart} if the {@code Content-Disposition} of the given
+	 * headers contains a filename, or a "normal" {@link Part} otherwise
+	 * @param headers the part headers
+	 * @param content the content of the part
+	 * @return {@link Part} or {@link FilePart}, depending on {@link HttpHeaders#getContentDisposition()}
+	 */
+	public static Part part(HttpHeaders headers, Content content) {
+		Assert.notNull(headers, "Headers must not be null");
+		Assert.notNull(content, "Content must not be null");
+		String filename = headers.getContentDisposition().getFilename();
+		if (filename != null) {
+			return new DefaultFilePart(headers, filename, content);
+		}
+		else {
+			return new DefaultPart(headers, content);
+		}
+	}
+
+	/**
+	 * Return the charset of the given headers, defaulting to UTF-8.
+	 */
+	static Charset charset(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		if (contentType != null) {
+			Charset charset = contentType.getCharset();
+			if (charset != null) {
+				return charset;
+			}
+		}
+		return StandardCharsets.UTF_8;
+	}
+
+
+	/**
+	 * Abstract base class.
+	 */
+	private abstract static class AbstractPart implements Part {
+
+		private final HttpHeaders headers;
+
+		protected AbstractPart(HttpHeaders headers) {
+			this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+		}
+
+		@Override
+		public String name() {
+			String name = headers().getContentDisposition().getName();
+			Assert.state(name != null, "No name available");
+			return name;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	/**
+	 * Default implementation of {@link FormFieldPart}.
+	 */
+	private static class DefaultFormFieldPart extends AbstractPart implements FormFieldPart {
+
+		private final String value;
+
+		public DefaultFormFieldPart(HttpHeaders headers, String value) {
+			super(headers);
+			this.value = value;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> {
+				byte[] bytes = this.value.getBytes(charset(headers()));
+				return Flux.just(bufferFactory.wrap(bytes));
+			});
+		}
+
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			String name = headers().getContentDisposition().getName();
+			if (name != null) {
+				return "DefaultFormFieldPart{" + name + "}";
+			}
+			else {
+				return "DefaultFormFieldPart";
+			}
+		}
+	}
+
+
+	/**
+	 * Default implementation of {@link Part}.
+	 */
+	private static class DefaultPart extends AbstractPart {
+
+		protected final Content content;
+
+		public DefaultPart(HttpHeaders headers, Content content) {
+			super(headers);
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return this.content.content();
+		}
+
+		@Override
+		public String toString() {
+			String name = headers().getContentDisposition().getName();
+			if (name != null) {
+				return "DefaultPart{" + name + "}";
+			}
+			else {
+				return "DefaultPart";
+			}
+		}
+	}
+
+
+	/**
+	 * Default implementation of {@link FilePart}.
+	 */
+	private static final class DefaultFilePart extends DefaultPart implements FilePart {
+
+		private final String filename;
+
+		public DefaultFilePart(HttpHeaders headers, String filename, Content content) {
+			super(headers, content);
+			this.filename = filename;
+		}
+
+		@Override
+		public String filename() {
+			return this.filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return this.content.transferTo(dest);
+		}
+
+		@Override
+		public String toString() {
+			ContentDisposition contentDisposition = headers().getContentDisposition();
+			String name = contentDisposition.getName();
+			if (name != null) {
+				return "DefaultFilePart{" + name + " (" + this.filename + ")}";
+			}
+			else {
+				return "DefaultFilePart{(" + this.filename + ")}";
+			}
+		}
+	}
+
+
+	/**
+	 * Part content abstraction. Content is {@linkplain #dispose() disposed}
+	 * once the request has completed, releasing it if it was never consumed.
+	 */
+	interface Content extends Disposable {
+
+		Flux<DataBuffer> content();
+
+		Mono<Void> transferTo(Path dest);
+	}
+
+
+	/**
+	 * {@code Content} implementation based on a list of buffers, which are
+	 * the (sliced) buffers of the request body, without copying. The content
+	 * can therefore be consumed only once, and is released on disposal if it
+	 * has not been consumed by then.
+	 */
+	static final class MemoryContent implements Content {
+
+		private final List<DataBuffer> content;
+
+		private final AtomicBoolean consumed = new AtomicBoolean();
+
+		public MemoryContent(List<DataBuffer> content) {
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> {
+				if (!this.consumed.compareAndSet(false, true)) {
+					return Flux.error(new IllegalStateException("Part content has already been consumed or released"));
+				}
+				return Flux.fromIterable(this.content);
+			});
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return DataBufferUtils.write(content(), dest);
+		}
+
+		@Override
+		public void dispose() {
+			if (this.consumed.compareAndSet(false, true)) {
+				this.content.forEach(DataBufferUtils::release);
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return this.consumed.get();
+		}
+	}
+
+
+	/**
+	 * {@code Content} implementation based on a temporary file, which is
+	 * moved on {@link #transferTo(Path)}, or deleted after it has been read
+	 * through {@link #content()}, or on disposal otherwise. Blocking file
+	 * operations are performed on the given scheduler.
+	 */
+	static final class FileContent implements Content {
+
+		private final Path file;
+
+		private final Scheduler scheduler;
+
+		private final AtomicBoolean disposed = new AtomicBoolean();
+
+		public FileContent(Path file, Scheduler scheduler) {
+			this.file = file;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return DataBufferUtils.readByteChannel(
+					() -> Files.newByteChannel(this.file, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE),
+					bufferFactory, FILE_BUFFER_SIZE)
+					.subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.<Void>fromCallable(() -> {
+				Files.move(this.file, dest, StandardCopyOption.REPLACE_EXISTING);
+				return null;
+			}).subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public void dispose() {
+			if (this.disposed.compareAndSet(false, true)) {
+				this.scheduler.schedule(() -> {
+					try {
+						Files.deleteIfExists(this.file);
+					}
+					catch (IOException ex) {
+						// ignore
+					}
+				});
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return this.disposed.get();
+		}
+	}
+
+}
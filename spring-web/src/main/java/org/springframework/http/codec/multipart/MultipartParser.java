@@ -0,0 +1,606 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+
+/**
+ * Subscribes to a buffer stream and produces a flux of {@link Token} instances,
+ * scanning for multipart boundaries directly over the data buffers with a
+ * streaming state machine.
+ *
+ * <p>Body content is emitted as slices of the original buffers, without
+ * copying, so that pooled buffers are released once the slices are released.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+final class MultipartParser extends BaseSubscriber<DataBuffer> {
+
+	private static final byte CR = '\r';
+
+	private static final byte LF = '\n';
+
+	private static final byte HYPHEN = '-';
+
+	private static final byte[] CR_LF = {CR, LF};
+
+	private static final byte[] TWO_HYPHENS = {HYPHEN, HYPHEN};
+
+	private static final String HEADER_ENTRY_SEPARATOR = "\r\n";
+
+
+	private final AtomicReference<State> state;
+
+	private final FluxSink<Token> sink;
+
+	private final byte[] boundary;
+
+	private final int maxHeadersSize;
+
+	private final long maxTotalSize;
+
+	private final Charset headersCharset;
+
+	private long totalSize;
+
+
+	private MultipartParser(FluxSink<Token> sink, byte[] boundary, int maxHeadersSize,
+			long maxTotalSize, Charset headersCharset) {
+
+		this.sink = sink;
+		this.boundary = boundary;
+		this.maxHeadersSize = maxHeadersSize;
+		this.maxTotalSize = maxTotalSize;
+		this.headersCharset = headersCharset;
+		this.state = new AtomicReference<>(new PreambleState());
+	}
+
+
+	/**
+	 * Parse the given stream of data buffers into a stream of tokens.
+	 * @param buffers the input buffers
+	 * @param boundary the multipart boundary, as found in the {@code Content-Type} header
+	 * @param maxHeadersSize the maximum buffered header size, per part
+	 * @param maxTotalSize the maximum size of the entire multipart body, or -1 for unlimited
+	 * @param headersCharset the charset to use for decoding headers
+	 * @return a stream of parsed tokens
+	 */
+	public static Flux<Token> parse(Flux<DataBuffer> buffers, byte[] boundary, int maxHeadersSize,
+			long maxTotalSize, Charset headersCharset) {
+
+		return Flux.create(sink -> {
+			MultipartParser parser = new MultipartParser(sink, boundary, maxHeadersSize, maxTotalSize, headersCharset);
+			sink.onCancel(parser::onSinkCancel);
+			sink.onRequest(n -> parser.requestBuffer());
+			buffers.subscribe(parser);
+		});
+	}
+
+
+	@Override
+	protected void hookOnSubscribe(Subscription subscription) {
+		requestBuffer();
+	}
+
+	@Override
+	protected void hookOnNext(DataBuffer value) {
+		this.totalSize += value.readableByteCount();
+		if (this.maxTotalSize >= 0 && this.totalSize > this.maxTotalSize) {
+			DataBufferUtils.release(value);
+			State oldState = this.state.getAndSet(DisposedState.INSTANCE);
+			oldState.dispose();
+			cancel();
+			this.sink.error(new DataBufferLimitException(
+					"Multipart body exceeded the limit of " + this.maxTotalSize + " bytes"));
+			return;
+		}
+		this.state.get().onNext(value);
+		requestBuffer();
+	}
+
+	@Override
+	protected void hookOnComplete() {
+		this.state.get().onComplete();
+	}
+
+	@Override
+	protected void hookOnError(Throwable throwable) {
+		State oldState = this.state.getAndSet(DisposedState.INSTANCE);
+		oldState.dispose();
+		this.sink.error(throwable);
+	}
+
+	private void onSinkCancel() {
+		State oldState = this.state.getAndSet(DisposedState.INSTANCE);
+		oldState.dispose();
+		cancel();
+	}
+
+	boolean changeState(State oldState, State newState, @Nullable DataBuffer remainder) {
+		if (this.state.compareAndSet(oldState, newState)) {
+			oldState.dispose();
+			if (remainder != null) {
+				if (remainder.readableByteCount() > 0) {
+					newState.onNext(remainder);
+				}
+				else {
+					DataBufferUtils.release(remainder);
+				}
+			}
+			return true;
+		}
+		else {
+			DataBufferUtils.release(remainder);
+			return false;
+		}
+	}
+
+	void emitHeaders(HttpHeaders headers) {
+		this.sink.next(new HeadersToken(headers));
+	}
+
+	void emitBody(DataBuffer buffer) {
+		this.sink.next(new BodyToken(buffer));
+	}
+
+	void emitError(Throwable error) {
+		cancel();
+		this.sink.error(error);
+	}
+
+	void emitComplete() {
+		cancel();
+		this.sink.complete();
+	}
+
+	private void requestBuffer() {
+		if (upstream() != null && !this.sink.isCancelled() && this.sink.requestedFromDownstream() > 0) {
+			request(1);
+		}
+	}
+
+	private static byte[] concat(byte[]... byteArrays) {
+		int length = 0;
+		for (byte[] byteArray : byteArrays) {
+			length += byteArray.length;
+		}
+		byte[] result = new byte[length];
+		int offset = 0;
+		for (byte[] byteArray : byteArrays) {
+			System.arraycopy(byteArray, 0, result, offset, byteArray.length);
+			offset += byteArray.length;
+		}
+		return result;
+	}
+
+	/**
+	 * Slice the given buffer up to (and excluding) the given index, retaining the slice.
+	 */
+	private static DataBuffer sliceTo(DataBuffer buffer, int index) {
+		int length = index - buffer.readPosition();
+		return buffer.retainedSlice(buffer.readPosition(), length);
+	}
+
+	/**
+	 * Slice the given buffer from (and excluding) the given index, retaining the slice.
+	 */
+	private static DataBuffer sliceFrom(DataBuffer buffer, int index) {
+		int position = index + 1;
+		return buffer.retainedSlice(position, buffer.writePosition() - position);
+	}
+
+
+	/**
+	 * Represents the output of {@link #parse(Flux, byte[], int, long, Charset)}.
+	 */
+	public abstract static class Token {
+
+		public abstract HttpHeaders headers();
+
+		public abstract DataBuffer buffer();
+	}
+
+
+	/**
+	 * Represents a token that contains {@link HttpHeaders}.
+	 */
+	public static final class HeadersToken extends Token {
+
+		private final HttpHeaders headers;
+
+		public HeadersToken(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+
+		@Override
+		public DataBuffer buffer() {
+			throw new IllegalStateException("Headers token does not contain a buffer");
+		}
+	}
+
+
+	/**
+	 * Represents a token that contains a {@link DataBuffer} of part content.
+	 */
+	public static final class BodyToken extends Token {
+
+		private final DataBuffer buffer;
+
+		public BodyToken(DataBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			throw new IllegalStateException("Body token does not contain headers");
+		}
+
+		@Override
+		public DataBuffer buffer() {
+			return this.buffer;
+		}
+	}
+
+
+	/**
+	 * Represents the internal state of the {@link MultipartParser}.
+	 * The flow for well-formed multipart messages is shown below:
+	 * <p><pre>
+	 *     PREAMBLE
+	 *         |
+	 *         v
+	 *  +-->HEADERS--->DISPOSED
+	 *  |      |
+	 *  |      v
+	 *  +----BODY
+	 *  </pre>
+	 * For malformed messages the flow ends in DISPOSED, with an error.
+	 */
+	private interface State {
+
+		void onNext(DataBuffer buf);
+
+		void onComplete();
+
+		default void dispose() {
+		}
+	}
+
+
+	/**
+	 * The initial state of the parser. Looks for the first boundary of the
+	 * multipart message. Note that the first boundary is not necessarily
+	 * prefixed with {@code CR LF}; only the prefix {@code --} is required.
+	 */
+	private final class PreambleState implements State {
+
+		private final DataBufferUtils.Matcher firstBoundary;
+
+		PreambleState() {
+			this.firstBoundary = DataBufferUtils.matcher(concat(TWO_HYPHENS, MultipartParser.this.boundary));
+		}
+
+		@Override
+		public void onNext(DataBuffer buf) {
+			int endIdx = this.firstBoundary.match(buf);
+			if (endIdx != -1) {
+				DataBuffer headersBuf = sliceFrom(buf, endIdx);
+				DataBufferUtils.release(buf);
+				changeState(this, new HeadersState(), headersBuf);
+			}
+			else {
+				DataBufferUtils.release(buf);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			if (changeState(this, DisposedState.INSTANCE, null)) {
+				emitComplete();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "PREAMBLE";
+		}
+	}
+
+
+	/**
+	 * The state of the parser dealing with part headers. Parses header
+	 * buffers into a {@link HttpHeaders} instance, making sure that the
+	 * amount does not exceed the configured maximum, or detects the end of
+	 * the multipart message if the boundary is followed by {@code --}.
+	 */
+	private final class HeadersState implements State {
+
+		private final DataBufferUtils.Matcher endHeaders = DataBufferUtils.matcher(concat(CR_LF, CR_LF));
+
+		private final List<DataBuffer> buffers = new ArrayList<>();
+
+		private int byteCount;
+
+		@Override
+		public void onNext(DataBuffer buf) {
+			if (isLastBoundary(buf)) {
+				DataBufferUtils.release(buf);
+				if (changeState(this, DisposedState.INSTANCE, null)) {
+					emitComplete();
+				}
+				return;
+			}
+			int endIdx = this.endHeaders.match(buf);
+			if (endIdx != -1) {
+				this.byteCount += (endIdx + 1 - buf.readPosition());
+				if (!checkSize()) {
+					DataBufferUtils.release(buf);
+					return;
+				}
+				DataBuffer headerBuf = sliceTo(buf, endIdx + 1);
+				this.buffers.add(headerBuf);
+				DataBuffer bodyBuf = sliceFrom(buf, endIdx);
+				DataBufferUtils.release(buf);
+				emitHeaders(parseHeaders());
+				changeState(this, new BodyState(), bodyBuf);
+			}
+			else {
+				this.byteCount += buf.readableByteCount();
+				this.buffers.add(buf);
+				checkSize();
+			}
+		}
+
+		/**
+		 * Whether the boundary is directly followed by {@code --}, which marks
+		 * the end of the multipart message. Takes into account that the
+		 * hyphens may be split across buffers.
+		 */
+		private boolean isLastBoundary(DataBuffer buf) {
+			if (this.byteCount == 0) {
+				return (buf.readableByteCount() >= 2 &&
+						buf.getByte(buf.readPosition()) == HYPHEN &&
+						buf.getByte(buf.readPosition() + 1) == HYPHEN);
+			}
+			else if (this.byteCount == 1 && this.buffers.size() == 1) {
+				DataBuffer first = this.buffers.get(0);
+				return (first.getByte(first.readPosition()) == HYPHEN &&
+						buf.readableByteCount() >= 1 && buf.getByte(buf.readPosition()) == HYPHEN);
+			}
+			return false;
+		}
+
+		private boolean checkSize() {
+			if (this.byteCount > MultipartParser.this.maxHeadersSize) {
+				if (changeState(this, DisposedState.INSTANCE, null)) {
+					emitError(new DataBufferLimitException("Part headers exceeded the memory usage limit of " +
+							MultipartParser.this.maxHeadersSize + " bytes"));
+				}
+				return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Parse the buffered header bytes into a {@link HttpHeaders} instance.
+		 * The header bytes are joined first, since header lines may be split
+		 * across buffers.
+		 */
+		private HttpHeaders parseHeaders() {
+			if (this.buffers.isEmpty()) {
+				return HttpHeaders.EMPTY;
+			}
+			byte[] bytes = new byte[this.byteCount];
+			int offset = 0;
+			for (DataBuffer buffer : this.buffers) {
+				int length = buffer.readableByteCount();
+				buffer.read(bytes, offset, length);
+				offset += length;
+				DataBufferUtils.release(buffer);
+			}
+			this.buffers.clear();
+			String string = new String(bytes, 0, offset, MultipartParser.this.headersCharset);
+			HttpHeaders result = new HttpHeaders();
+			for (String line : string.split(HEADER_ENTRY_SEPARATOR)) {
+				int idx = line.indexOf(':');
+				if (idx != -1) {
+					String name = line.substring(0, idx).trim();
+					String value = line.substring(idx + 1).trim();
+					if (!name.isEmpty()) {
+						result.add(name, value);
+					}
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public void onComplete() {
+			if (changeState(this, DisposedState.INSTANCE, null)) {
+				emitError(new DecodingException("Could not find end of headers"));
+			}
+		}
+
+		@Override
+		public void dispose() {
+			this.buffers.forEach(DataBufferUtils::release);
+			this.buffers.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "HEADERS";
+		}
+	}
+
+
+	/**
+	 * The state of the parser dealing with part bodies. Emits body tokens
+	 * as long as the delimiter ({@code CR LF --} followed by the boundary)
+	 * has not been found, holding back just enough trailing bytes to cover
+	 * a delimiter that is split across buffers.
+	 */
+	private final class BodyState implements State {
+
+		private final DataBufferUtils.Matcher delimiterMatcher;
+
+		private final int delimiterLength;
+
+		private final Deque<DataBuffer> queue = new ArrayDeque<>();
+
+		private int queuedByteCount;
+
+		BodyState() {
+			byte[] delimiter = concat(CR_LF, TWO_HYPHENS, MultipartParser.this.boundary);
+			this.delimiterMatcher = DataBufferUtils.matcher(delimiter);
+			this.delimiterLength = delimiter.length;
+		}
+
+		@Override
+		public void onNext(DataBuffer buf) {
+			int endIdx = this.delimiterMatcher.match(buf);
+			if (endIdx != -1) {
+				int length = endIdx + 1 - buf.readPosition() - this.delimiterLength;
+				if (length < 0) {
+					// the delimiter started in previously queued buffers
+					trimQueue(-length);
+				}
+				flushQueue();
+				if (length > 0) {
+					emitBody(sliceTo(buf, buf.readPosition() + length));
+				}
+				DataBuffer headersBuf = sliceFrom(buf, endIdx);
+				DataBufferUtils.release(buf);
+				changeState(this, new HeadersState(), headersBuf);
+			}
+			else {
+				this.queue.add(buf);
+				this.queuedByteCount += buf.readableByteCount();
+				DataBuffer first = this.queue.peekFirst();
+				while (first != null && this.queuedByteCount - first.readableByteCount() >= this.delimiterLength) {
+					this.queue.pollFirst();
+					this.queuedByteCount -= first.readableByteCount();
+					emitBody(first);
+					first = this.queue.peekFirst();
+				}
+			}
+		}
+
+		private void trimQueue(int byteCount) {
+			while (byteCount > 0) {
+				DataBuffer last = this.queue.pollLast();
+				if (last == null) {
+					return;
+				}
+				int length = last.readableByteCount();
+				this.queuedByteCount -= length;
+				if (length <= byteCount) {
+					byteCount -= length;
+				}
+				else {
+					DataBuffer trimmed = last.retainedSlice(last.readPosition(), length - byteCount);
+					this.queue.addLast(trimmed);
+					this.queuedByteCount += trimmed.readableByteCount();
+					byteCount = 0;
+				}
+				DataBufferUtils.release(last);
+			}
+		}
+
+		private void flushQueue() {
+			DataBuffer buffer;
+			while ((buffer = this.queue.pollFirst()) != null) {
+				if (buffer.readableByteCount() > 0) {
+					emitBody(buffer);
+				}
+				else {
+					DataBufferUtils.release(buffer);
+				}
+			}
+			this.queuedByteCount = 0;
+		}
+
+		@Override
+		public void onComplete() {
+			if (changeState(this, DisposedState.INSTANCE, null)) {
+				emitError(new DecodingException("Could not find end of body"));
+			}
+		}
+
+		@Override
+		public void dispose() {
+			this.queue.forEach(DataBufferUtils::release);
+			this.queue.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "BODY";
+		}
+	}
+
+
+	/**
+	 * The state of the parser when finished, either due to seeing the final
+	 * boundary or to a malformed message. Releases all incoming buffers.
+	 */
+	private static final class DisposedState implements State {
+
+		public static final DisposedState INSTANCE = new DisposedState();
+
+		private DisposedState() {
+		}
+
+		@Override
+		public void onNext(DataBuffer buf) {
+			DataBufferUtils.release(buf);
+		}
+
+		@Override
+		public void onComplete() {
+		}
+
+		@Override
+		public String toString() {
+			return "DISPOSED";
+		}
+	}
+
+}
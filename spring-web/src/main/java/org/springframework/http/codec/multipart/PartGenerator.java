@@ -0,0 +1,302 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+
+/**
+ * Subscribes to a token stream (i.e. the result of
+ * {@link MultipartParser#parse(Flux, byte[], int, long, java.nio.charset.Charset)}),
+ * and produces a flux of {@link Part} objects.
+ *
+ * <p>Part content is kept in memory, as the (sliced) buffers of the request
+ * body, up to the configured in-memory threshold. Above that threshold, file
+ * parts are written to a temporary file on the given blocking scheduler, while
+ * other parts are rejected with a {@link DataBufferLimitException}.
+ *
+ * <p>The content of each emitted part is added to the given
+ * {@link Disposable.Composite}, if any, so that content that is never
+ * consumed is released, or its temporary file deleted, once the composite
+ * is disposed at the end of the request.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+final class PartGenerator {
+
+	private final int maxParts;
+
+	private final int maxInMemorySize;
+
+	private final long maxDiskUsagePerPart;
+
+	private final Mono<Path> fileStorageDirectory;
+
+	private final Scheduler blockingOperationScheduler;
+
+	@Nullable
+	private final Disposable.Composite partCleanup;
+
+	private int partCount;
+
+	@Nullable
+	private PartContent current;
+
+
+	private PartGenerator(int maxParts, int maxInMemorySize, long maxDiskUsagePerPart,
+			Mono<Path> fileStorageDirectory, Scheduler blockingOperationScheduler,
+			@Nullable Disposable.Composite partCleanup) {
+
+		this.maxParts = maxParts;
+		this.maxInMemorySize = maxInMemorySize;
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+		this.fileStorageDirectory = fileStorageDirectory;
+		this.blockingOperationScheduler = blockingOperationScheduler;
+		this.partCleanup = partCleanup;
+	}
+
+
+	/**
+	 * Create parts from the given stream of tokens.
+	 * @param partCleanup the composite to add the content of created parts to
+	 * for disposal at the end of the request, or {@code null} if none
+	 */
+	public static Flux<Part> createParts(Flux<MultipartParser.Token> tokens, int maxParts, int maxInMemorySize,
+			long maxDiskUsagePerPart, Mono<Path> fileStorageDirectory, Scheduler blockingOperationScheduler,
+			@Nullable Disposable.Composite partCleanup) {
+
+		return Flux.defer(() -> {
+			PartGenerator generator = new PartGenerator(maxParts, maxInMemorySize, maxDiskUsagePerPart,
+					fileStorageDirectory, blockingOperationScheduler, partCleanup);
+			return tokens
+					.concatMap(generator::onToken)
+					.concatWith(Mono.defer(generator::onComplete))
+					.doOnDiscard(MultipartParser.BodyToken.class, token -> DataBufferUtils.release(token.buffer()))
+					.doOnCancel(generator::dispose)
+					.doOnError(ex -> generator.dispose());
+		});
+	}
+
+
+	private Publisher<Part> onToken(MultipartParser.Token token) {
+		if (token instanceof MultipartParser.HeadersToken) {
+			this.partCount++;
+			if (this.maxParts != -1 && this.partCount > this.maxParts) {
+				return Mono.error(new DecodingException("Too many parts (" + this.maxParts + " allowed)"));
+			}
+			PartContent previous = this.current;
+			this.current = new PartContent(token.headers());
+			return (previous != null ? previous.finish() : Mono.empty());
+		}
+		else {
+			DataBuffer buffer = token.buffer();
+			PartContent current = this.current;
+			if (current == null) {
+				DataBufferUtils.release(buffer);
+				return Mono.empty();
+			}
+			return current.add(buffer).then(Mono.empty());
+		}
+	}
+
+	private Mono<Part> onComplete() {
+		PartContent current = this.current;
+		this.current = null;
+		return (current != null ? current.finish() : Mono.empty());
+	}
+
+	private void dispose() {
+		PartContent current = this.current;
+		this.current = null;
+		if (current != null) {
+			current.dispose();
+		}
+	}
+
+	private DefaultParts.Content track(DefaultParts.Content content) {
+		if (this.partCleanup != null) {
+			this.partCleanup.add(content);
+		}
+		return content;
+	}
+
+	private static boolean isFormField(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		return (contentType == null || MediaType.TEXT_PLAIN.equalsTypeAndSubtype(contentType)) &&
+				headers.getContentDisposition().getFilename() == null;
+	}
+
+
+	/**
+	 * The content of a single part, kept in memory up to the threshold,
+	 * and written to a temporary file above it.
+	 */
+	private final class PartContent {
+
+		private final HttpHeaders headers;
+
+		private final boolean filePart;
+
+		private final List<DataBuffer> buffers = new ArrayList<>();
+
+		private long byteCount;
+
+		@Nullable
+		private Path file;
+
+		@Nullable
+		private WritableByteChannel channel;
+
+		PartContent(HttpHeaders headers) {
+			this.headers = headers;
+			this.filePart = (headers.getContentDisposition().getFilename() != null);
+		}
+
+		public Mono<Void> add(DataBuffer buffer) {
+			this.byteCount += buffer.readableByteCount();
+			if (this.channel == null) {
+				if (maxInMemorySize == -1 || this.byteCount <= maxInMemorySize) {
+					this.buffers.add(buffer);
+					return Mono.empty();
+				}
+				if (!this.filePart) {
+					DataBufferUtils.release(buffer);
+					return Mono.error(new DataBufferLimitException("Part " + partDescription() +
+							" exceeded the in-memory limit of " + maxInMemorySize + " bytes"));
+				}
+			}
+			if (maxDiskUsagePerPart != -1 && this.byteCount > maxDiskUsagePerPart) {
+				DataBufferUtils.release(buffer);
+				return Mono.error(new DataBufferLimitException("Part " + partDescription() +
+						" exceeded the disk usage limit of " + maxDiskUsagePerPart + " bytes"));
+			}
+			return fileStorageDirectory
+					.flatMap(directory -> Mono.<Void>fromCallable(() -> {
+						try {
+							if (this.channel == null) {
+								openFile(directory);
+							}
+							write(buffer);
+							return null;
+						}
+						finally {
+							DataBufferUtils.release(buffer);
+						}
+					}).subscribeOn(blockingOperationScheduler));
+		}
+
+		private void openFile(Path directory) throws IOException {
+			Path file = Files.createTempFile(directory, null, ".multipart");
+			this.file = file;
+			this.channel = Files.newByteChannel(file, StandardOpenOption.WRITE);
+			for (DataBuffer buffer : this.buffers) {
+				try {
+					write(buffer);
+				}
+				finally {
+					DataBufferUtils.release(buffer);
+				}
+			}
+			this.buffers.clear();
+		}
+
+		private void write(DataBuffer buffer) throws IOException {
+			WritableByteChannel channel = this.channel;
+			if (channel != null) {
+				ByteBuffer byteBuffer = buffer.asByteBuffer();
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer);
+				}
+			}
+		}
+
+		public Mono<Part> finish() {
+			WritableByteChannel channel = this.channel;
+			Path file = this.file;
+			if (channel != null && file != null) {
+				return Mono.fromCallable(() -> {
+					channel.close();
+					return DefaultParts.part(this.headers,
+							track(new DefaultParts.FileContent(file, blockingOperationScheduler)));
+				}).subscribeOn(blockingOperationScheduler);
+			}
+			else if (isFormField(this.headers)) {
+				byte[] bytes = new byte[(int) this.byteCount];
+				int offset = 0;
+				for (DataBuffer buffer : this.buffers) {
+					int length = buffer.readableByteCount();
+					buffer.read(bytes, offset, length);
+					offset += length;
+					DataBufferUtils.release(buffer);
+				}
+				this.buffers.clear();
+				String value = new String(bytes, 0, offset, DefaultParts.charset(this.headers));
+				return Mono.just(DefaultParts.formFieldPart(this.headers, value));
+			}
+			else {
+				List<DataBuffer> content = new ArrayList<>(this.buffers);
+				this.buffers.clear();
+				return Mono.just(DefaultParts.part(this.headers, track(new DefaultParts.MemoryContent(content))));
+			}
+		}
+
+		public void dispose() {
+			this.buffers.forEach(DataBufferUtils::release);
+			this.buffers.clear();
+			WritableByteChannel channel = this.channel;
+			Path file = this.file;
+			if (channel != null && file != null) {
+				blockingOperationScheduler.schedule(() -> {
+					try {
+						channel.close();
+						Files.deleteIfExists(file);
+					}
+					catch (IOException ex) {
+						// ignore
+					}
+				});
+			}
+		}
+
+		private String partDescription() {
+			String name = this.headers.getContentDisposition().getName();
+			return (name != null ? "'" + name + "'" : "[" + partCount + "]");
+		}
+	}
+
+}
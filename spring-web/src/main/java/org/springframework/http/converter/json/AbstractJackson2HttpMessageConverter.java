@@ -40,7 +40,6 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
 import com.fasterxml.jackson.databind.ser.FilterProvider;
@@ -65,6 +64,11 @@ import org.springframework.util.TypeUtils;
  *
  * <p>Compatible with Jackson 2.9 and higher, as of Spring 5.0.
  *
+ * <p>As of 5.2.13, readers and writers are cached in a {@link Jackson2ObjectCache}
+ * and capture the {@code ObjectMapper} configuration when they are created.
+ * The {@code ObjectMapper} must therefore be fully configured before the
+ * converter is first used; see {@link #getObjectMapper()}.
+ *
  * @author Arjen Poutsma
  * @author Keith Donald
  * @author Rossen Stoyanchev
@@ -96,6 +100,8 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 
 	protected ObjectMapper objectMapper;
 
+	private Jackson2ObjectCache objectCache;
+
 	@Nullable
 	private Boolean prettyPrint;
 
@@ -105,6 +111,7 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 
 	protected AbstractJackson2HttpMessageConverter(ObjectMapper objectMapper) {
 		this.objectMapper = objectMapper;
+		this.objectCache = new Jackson2ObjectCache(objectMapper);
 		DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter();
 		prettyPrinter.indentObjectsWith(new DefaultIndenter("  ", "\ndata:"));
 		this.ssePrettyPrinter = prettyPrinter;
@@ -135,16 +142,46 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 	public void setObjectMapper(ObjectMapper objectMapper) {
 		Assert.notNull(objectMapper, "ObjectMapper must not be null");
 		this.objectMapper = objectMapper;
+		this.objectCache = new Jackson2ObjectCache(objectMapper);
 		configurePrettyPrint();
 	}
 
 	/**
 	 * Return the underlying {@code ObjectMapper} for this view.
+	 * <p><b>Note:</b> As of 5.2.13, changes to the configuration of the returned
+	 * {@code ObjectMapper} are not applied to readers and writers that have
+	 * already been cached. After reconfiguring the mapper once the converter
+	 * is in use, call {@link Jackson2ObjectCache#clear() clear()} on the
+	 * {@link #getObjectCache() object cache}, or set the mapper again via
+	 * {@link #setObjectMapper(ObjectMapper)}.
 	 */
 	public ObjectMapper getObjectMapper() {
 		return this.objectMapper;
 	}
 
+	/**
+	 * Set a shared {@link Jackson2ObjectCache} for readers and writers, e.g.
+	 * to share it with the WebFlux Jackson codecs or to apply a custom limit.
+	 * This also sets the cache's {@code ObjectMapper} as the mapper to use.
+	 * <p>By default, a cache with {@link Jackson2ObjectCache#DEFAULT_CACHE_LIMIT}
+	 * is created for the configured {@code ObjectMapper}.
+	 * @since 5.2.13
+	 */
+	public void setObjectCache(Jackson2ObjectCache objectCache) {
+		Assert.notNull(objectCache, "Jackson2ObjectCache must not be null");
+		this.objectMapper = objectCache.getObjectMapper();
+		this.objectCache = objectCache;
+		configurePrettyPrint();
+	}
+
+	/**
+	 * Return the {@link Jackson2ObjectCache} for readers and writers.
+	 * @since 5.2.13
+	 */
+	public Jackson2ObjectCache getObjectCache() {
+		return this.objectCache;
+	}
+
 	/**
 	 * Whether to use the {@link DefaultPrettyPrinter} when writing JSON.
 	 * This is a shortcut for setting up an {@code ObjectMapper} as follows:
@@ -162,6 +199,7 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 	private void configurePrettyPrint() {
 		if (this.prettyPrint != null) {
 			this.objectMapper.configure(SerializationFeature.INDENT_OUTPUT, this.prettyPrint);
+			this.objectCache.clear();
 		}
 	}
 
@@ -178,7 +216,7 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 		}
 		JavaType javaType = getJavaType(type, contextClass);
 		AtomicReference<Throwable> causeRef = new AtomicReference<>();
-		if (this.objectMapper.canDeserialize(javaType, causeRef)) {
+		if (this.objectCache.canDeserialize(javaType, causeRef)) {
 			return true;
 		}
 		logWarningIfNecessary(javaType, causeRef.get());
@@ -197,7 +235,7 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 			}
 		}
 		AtomicReference<Throwable> causeRef = new AtomicReference<>();
-		if (this.objectMapper.canSerialize(clazz, causeRef)) {
+		if (this.objectCache.canSerialize(clazz, causeRef)) {
 			return true;
 		}
 		logWarningIfNecessary(clazz, causeRef.get());
@@ -257,25 +295,17 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 
 		boolean isUnicode = ENCODINGS.containsKey(charset.name());
 		try {
+			Class<?> deserializationView = null;
 			if (inputMessage instanceof MappingJacksonInputMessage) {
-				Class<?> deserializationView = ((MappingJacksonInputMessage) inputMessage).getDeserializationView();
-				if (deserializationView != null) {
-					ObjectReader objectReader = this.objectMapper.readerWithView(deserializationView).forType(javaType);
-					if (isUnicode) {
-						return objectReader.readValue(inputMessage.getBody());
-					}
-					else {
-						Reader reader = new InputStreamReader(inputMessage.getBody(), charset);
-						return objectReader.readValue(reader);
-					}
-				}
+				deserializationView = ((MappingJacksonInputMessage) inputMessage).getDeserializationView();
 			}
+			ObjectReader objectReader = this.objectCache.getReader(javaType, deserializationView);
 			if (isUnicode) {
-				return this.objectMapper.readValue(inputMessage.getBody(), javaType);
+				return objectReader.readValue(inputMessage.getBody());
 			}
 			else {
 				Reader reader = new InputStreamReader(inputMessage.getBody(), charset);
-				return this.objectMapper.readValue(reader, javaType);
+				return objectReader.readValue(reader);
 			}
 		}
 		catch (InvalidDefinitionException ex) {
@@ -330,19 +360,15 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 				javaType = getJavaType(type, null);
 			}
 
-			ObjectWriter objectWriter = (serializationView != null ?
-					this.objectMapper.writerWithView(serializationView) : this.objectMapper.writer());
-			if (filters != null) {
-				objectWriter = objectWriter.with(filters);
-			}
-			if (javaType != null && javaType.isContainerType()) {
-				objectWriter = objectWriter.forType(javaType);
+			if (javaType != null && !javaType.isContainerType()) {
+				javaType = null;
 			}
-			SerializationConfig config = objectWriter.getConfig();
+			PrettyPrinter prettyPrinter = null;
 			if (contentType != null && contentType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM) &&
-					config.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
-				objectWriter = objectWriter.with(this.ssePrettyPrinter);
+					this.objectMapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+				prettyPrinter = this.ssePrettyPrinter;
 			}
+			ObjectWriter objectWriter = this.objectCache.getWriter(javaType, serializationView, filters, prettyPrinter);
 			objectWriter.writeValue(generator, value);
 
 			writeSuffix(generator, object);
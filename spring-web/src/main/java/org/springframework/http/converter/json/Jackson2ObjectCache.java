@@ -0,0 +1,305 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.converter.json;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Bounded cache of fully configured Jackson {@link ObjectWriter} and
+ * {@link ObjectReader} instances for a given {@link ObjectMapper}, keyed by
+ * target type, JSON view and {@link PrettyPrinter}. Also remembers positive
+ * {@code canSerialize} / {@code canDeserialize} checks, which may otherwise
+ * trigger serializer construction per request.
+ *
+ * <p>A single instance may be shared between
+ * {@link AbstractJackson2HttpMessageConverter} and the WebFlux Jackson codecs
+ * ({@link org.springframework.http.codec.json.Jackson2CodecSupport}) as long
+ * as they use the same {@code ObjectMapper}. Note that readers and writers
+ * capture the mapper configuration at the time of creation: the mapper is
+ * expected to be fully configured before first use, or {@link #clear()} needs
+ * to be called after reconfiguring it.
+ *
+ * <p>Writers with a {@link FilterProvider} are not cached since filters are
+ * typically specific to a request. Pretty printers are compared by identity,
+ * so they are best kept as shared instances.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public class Jackson2ObjectCache {
+
+	/**
+	 * Default maximum number of cached readers, writers and type checks, respectively.
+	 */
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
+
+	private final ObjectMapper objectMapper;
+
+	private final ConcurrentLruCache<WriterKey, ObjectWriter> writerCache;
+
+	private final ConcurrentLruCache<ReaderKey, ObjectReader> readerCache;
+
+	private final ConcurrentLruCache<Class<?>, Boolean> serializableTypes;
+
+	private final ConcurrentLruCache<JavaType, Boolean> deserializableTypes;
+
+	private final AtomicLong requestCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	/**
+	 * Create a new cache for the given {@code ObjectMapper}, using
+	 * {@link #DEFAULT_CACHE_LIMIT} as limit for readers and writers.
+	 */
+	public Jackson2ObjectCache(ObjectMapper objectMapper) {
+		this(objectMapper, DEFAULT_CACHE_LIMIT);
+	}
+
+	/**
+	 * Create a new cache for the given {@code ObjectMapper}.
+	 * @param objectMapper the mapper to derive readers and writers from
+	 * @param cacheLimit the maximum number of cached readers, writers and
+	 * type checks, respectively (0 indicates no caching)
+	 */
+	public Jackson2ObjectCache(ObjectMapper objectMapper, int cacheLimit) {
+		Assert.notNull(objectMapper, "ObjectMapper must not be null");
+		this.objectMapper = objectMapper;
+		this.writerCache = new ConcurrentLruCache<>(cacheLimit, this::createWriter);
+		this.readerCache = new ConcurrentLruCache<>(cacheLimit, this::createReader);
+		this.serializableTypes = new ConcurrentLruCache<>(cacheLimit, type -> Boolean.TRUE);
+		this.deserializableTypes = new ConcurrentLruCache<>(cacheLimit, type -> Boolean.TRUE);
+	}
+
+
+	/**
+	 * Return the {@code ObjectMapper} that this cache derives readers and writers from.
+	 * <p>Configuration changes made to the returned mapper are not seen by
+	 * readers and writers that are already cached: call {@link #clear()}
+	 * after any such change.
+	 */
+	public ObjectMapper getObjectMapper() {
+		return this.objectMapper;
+	}
+
+	/**
+	 * Return an {@code ObjectWriter} for the given settings.
+	 * @param type the type to write as, or {@code null} to let Jackson
+	 * determine the serializer from the runtime type of the value
+	 * @param serializationView the JSON view to apply, if any
+	 * @param filters the filter provider to apply, if any
+	 * (bypassing the cache since filters are usually specific to a request)
+	 * @param prettyPrinter a specific pretty printer to apply, if any
+	 */
+	public ObjectWriter getWriter(@Nullable JavaType type, @Nullable Class<?> serializationView,
+			@Nullable FilterProvider filters, @Nullable PrettyPrinter prettyPrinter) {
+
+		this.requestCount.incrementAndGet();
+		if (filters != null) {
+			return createWriter(new WriterKey(type, serializationView, prettyPrinter)).with(filters);
+		}
+		return this.writerCache.get(new WriterKey(type, serializationView, prettyPrinter));
+	}
+
+	/**
+	 * Return an {@code ObjectReader} for the given target type and JSON view.
+	 * @param type the type to read
+	 * @param deserializationView the JSON view to apply, if any
+	 */
+	public ObjectReader getReader(JavaType type, @Nullable Class<?> deserializationView) {
+		this.requestCount.incrementAndGet();
+		return this.readerCache.get(new ReaderKey(type, deserializationView));
+	}
+
+	/**
+	 * Variant of {@link ObjectMapper#canSerialize(Class, AtomicReference)}
+	 * which remembers positive results.
+	 */
+	public boolean canSerialize(Class<?> clazz, @Nullable AtomicReference<Throwable> causeRef) {
+		if (this.serializableTypes.contains(clazz)) {
+			return true;
+		}
+		boolean result = (causeRef != null ?
+				this.objectMapper.canSerialize(clazz, causeRef) : this.objectMapper.canSerialize(clazz));
+		if (result) {
+			this.serializableTypes.get(clazz);
+		}
+		return result;
+	}
+
+	/**
+	 * Variant of {@link ObjectMapper#canDeserialize(JavaType, AtomicReference)}
+	 * which remembers positive results.
+	 */
+	public boolean canDeserialize(JavaType type, @Nullable AtomicReference<Throwable> causeRef) {
+		if (this.deserializableTypes.contains(type)) {
+			return true;
+		}
+		boolean result = (causeRef != null ?
+				this.objectMapper.canDeserialize(type, causeRef) : this.objectMapper.canDeserialize(type));
+		if (result) {
+			this.deserializableTypes.get(type);
+		}
+		return result;
+	}
+
+	/**
+	 * Remove all cached readers, writers and type checks, for example
+	 * after a change in the {@code ObjectMapper} configuration.
+	 */
+	public void clear() {
+		this.writerCache.clear();
+		this.readerCache.clear();
+		this.serializableTypes.clear();
+		this.deserializableTypes.clear();
+	}
+
+	/**
+	 * Return the number of reader and writer lookups served from the cache.
+	 */
+	public long getHitCount() {
+		return this.requestCount.get() - this.missCount.get();
+	}
+
+	/**
+	 * Return the number of reader and writer lookups that required
+	 * a new instance to be created.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the number of currently cached readers and writers.
+	 */
+	public int size() {
+		return this.writerCache.size() + this.readerCache.size();
+	}
+
+
+	private ObjectWriter createWriter(WriterKey key) {
+		this.missCount.incrementAndGet();
+		ObjectWriter writer = (key.view != null ?
+				this.objectMapper.writerWithView(key.view) : this.objectMapper.writer());
+		if (key.type != null) {
+			writer = writer.forType(key.type);
+		}
+		if (key.prettyPrinter != null) {
+			writer = writer.with(key.prettyPrinter);
+		}
+		return writer;
+	}
+
+	private ObjectReader createReader(ReaderKey key) {
+		this.missCount.incrementAndGet();
+		return (key.view != null ?
+				this.objectMapper.readerWithView(key.view).forType(key.type) :
+				this.objectMapper.readerFor(key.type));
+	}
+
+
+	private static final class WriterKey {
+
+		@Nullable
+		private final JavaType type;
+
+		@Nullable
+		private final Class<?> view;
+
+		@Nullable
+		private final PrettyPrinter prettyPrinter;
+
+		private final int hashCode;
+
+		WriterKey(@Nullable JavaType type, @Nullable Class<?> view, @Nullable PrettyPrinter prettyPrinter) {
+			this.type = type;
+			this.view = view;
+			this.prettyPrinter = prettyPrinter;
+			int hash = ObjectUtils.nullSafeHashCode(type);
+			hash = 31 * hash + ObjectUtils.nullSafeHashCode(view);
+			hash = 31 * hash + System.identityHashCode(prettyPrinter);
+			this.hashCode = hash;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof WriterKey)) {
+				return false;
+			}
+			WriterKey otherKey = (WriterKey) other;
+			return (ObjectUtils.nullSafeEquals(this.type, otherKey.type) && this.view == otherKey.view &&
+					this.prettyPrinter == otherKey.prettyPrinter);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	private static final class ReaderKey {
+
+		private final JavaType type;
+
+		@Nullable
+		private final Class<?> view;
+
+		private final int hashCode;
+
+		ReaderKey(JavaType type, @Nullable Class<?> view) {
+			this.type = type;
+			this.view = view;
+			this.hashCode = 31 * type.hashCode() + ObjectUtils.nullSafeHashCode(view);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ReaderKey)) {
+				return false;
+			}
+			ReaderKey otherKey = (ReaderKey) other;
+			return (this.type.equals(otherKey.type) && this.view == otherKey.view);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+}
@@ -141,6 +141,8 @@ public class ServletServerHttpRequest implements ServerHttpRequest {
 		if (this.headers == null) {
 			this.headers = new HttpHeaders();
 
+			// Copy eagerly: the headers may outlive the request (e.g. in SockJS sessions),
+			// while the container recycles the HttpServletRequest once it is complete.
 			for (Enumeration<?> names = this.servletRequest.getHeaderNames(); names.hasMoreElements();) {
 				String headerName = (String) names.nextElement();
 				for (Enumeration<?> headerValues = this.servletRequest.getHeaders(headerName);
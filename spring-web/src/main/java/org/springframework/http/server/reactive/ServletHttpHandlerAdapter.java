@@ -41,6 +41,7 @@ import org.reactivestreams.Subscription;
 
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBufferFactory;
 import org.springframework.http.HttpLogging;
 import org.springframework.http.HttpMethod;
 import org.springframework.lang.Nullable;
@@ -108,6 +109,13 @@ public class ServletHttpHandlerAdapter implements Servlet {
 		return this.servletPath;
 	}
 
+	/**
+	 * Set the {@code DataBufferFactory} to use for request and response buffers.
+	 * <p>By default, this is an unpooled {@link DefaultDataBufferFactory}.
+	 * A {@link PooledDataBufferFactory} can be set instead in order to recycle
+	 * the memory of released buffers.
+	 * @see #setPooledDataBuffers
+	 */
 	public void setDataBufferFactory(DataBufferFactory dataBufferFactory) {
 		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -117,6 +125,30 @@ public class ServletHttpHandlerAdapter implements Servlet {
 		return this.dataBufferFactory;
 	}
 
+	/**
+	 * Whether to use a {@link PooledDataBufferFactory} for request and response
+	 * buffers, which recycles the memory of released buffers, instead of an
+	 * unpooled {@link DefaultDataBufferFactory}. This is a shortcut for
+	 * {@link #setDataBufferFactory} with a new factory of either type.
+	 * <p>By default this is off. Only turn it on if the application releases
+	 * all buffers it consumes, and does not access buffers after releasing
+	 * them, since their memory may be in use by another request by then.
+	 * @since 5.2.13
+	 */
+	public void setPooledDataBuffers(boolean pooledDataBuffers) {
+		this.dataBufferFactory = (pooledDataBuffers ?
+				new PooledDataBufferFactory() : new DefaultDataBufferFactory(false));
+	}
+
+	/**
+	 * Whether a {@link PooledDataBufferFactory} is used for request and
+	 * response buffers.
+	 * @since 5.2.13
+	 */
+	public boolean isPooledDataBuffers() {
+		return (this.dataBufferFactory instanceof PooledDataBufferFactory);
+	}
+
 
 	// Servlet methods...
 
@@ -26,6 +26,7 @@ import org.reactivestreams.Subscription;
 
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBufferFactory;
 import org.springframework.http.HttpLogging;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.Assert;
@@ -54,6 +55,13 @@ public class UndertowHttpHandlerAdapter implements io.undertow.server.HttpHandle
 	}
 
 
+	/**
+	 * Set the {@code DataBufferFactory} to use for request and response buffers.
+	 * <p>By default, this is an unpooled {@link DefaultDataBufferFactory}.
+	 * A {@link PooledDataBufferFactory} can be set instead in order to recycle
+	 * the memory of released buffers.
+	 * @see #setPooledDataBuffers
+	 */
 	public void setDataBufferFactory(DataBufferFactory bufferFactory) {
 		Assert.notNull(bufferFactory, "DataBufferFactory must not be null");
 		this.bufferFactory = bufferFactory;
@@ -63,6 +71,30 @@ public class UndertowHttpHandlerAdapter implements io.undertow.server.HttpHandle
 		return this.bufferFactory;
 	}
 
+	/**
+	 * Whether to use a {@link PooledDataBufferFactory} for request and response
+	 * buffers, which recycles the memory of released buffers, instead of an
+	 * unpooled {@link DefaultDataBufferFactory}. This is a shortcut for
+	 * {@link #setDataBufferFactory} with a new factory of either type.
+	 * <p>By default this is off. Only turn it on if the application releases
+	 * all buffers it consumes, and does not access buffers after releasing
+	 * them, since their memory may be in use by another request by then.
+	 * @since 5.2.13
+	 */
+	public void setPooledDataBuffers(boolean pooledDataBuffers) {
+		this.bufferFactory = (pooledDataBuffers ?
+				new PooledDataBufferFactory() : new DefaultDataBufferFactory(false));
+	}
+
+	/**
+	 * Whether a {@link PooledDataBufferFactory} is used for request and
+	 * response buffers.
+	 * @since 5.2.13
+	 */
+	public boolean isPooledDataBuffers() {
+		return (this.bufferFactory instanceof PooledDataBufferFactory);
+	}
+
 
 	@Override
 	public void handleRequest(HttpServerExchange exchange) {
@@ -16,25 +16,38 @@
 
 package org.springframework.web.accept;
 
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.StringUtils;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.context.request.NativeWebRequest;
 
 /**
  * A {@code ContentNegotiationStrategy} that checks the 'Accept' request header.
  *
+ * <p>As of 5.2.13, the parsed and sorted media types are cached by raw header
+ * value, given that clients tend to send a small number of distinct values.
+ * The returned lists are unmodifiable.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 3.2
  */
 public class HeaderContentNegotiationStrategy implements ContentNegotiationStrategy {
 
+	private static final int CACHE_LIMIT = 64;
+
+
+	private final ConcurrentLruCache<String, List<MediaType>> mediaTypesCache =
+			new ConcurrentLruCache<>(CACHE_LIMIT, HeaderContentNegotiationStrategy::parseAndSort);
+
+
 	/**
 	 * {@inheritDoc}
 	 * @throws HttpMediaTypeNotAcceptableException if the 'Accept' header cannot be parsed
@@ -48,16 +61,22 @@ public class HeaderContentNegotiationStrategy implements ContentNegotiationStrat
 			return MEDIA_TYPE_ALL_LIST;
 		}
 
-		List<String> headerValues = Arrays.asList(headerValueArray);
+		String headerValue = (headerValueArray.length == 1 ? headerValueArray[0] :
+				StringUtils.arrayToDelimitedString(headerValueArray, ", "));
 		try {
-			List<MediaType> mediaTypes = MediaType.parseMediaTypes(headerValues);
-			MediaType.sortBySpecificityAndQuality(mediaTypes);
+			List<MediaType> mediaTypes = this.mediaTypesCache.get(headerValue);
 			return !CollectionUtils.isEmpty(mediaTypes) ? mediaTypes : MEDIA_TYPE_ALL_LIST;
 		}
 		catch (InvalidMediaTypeException ex) {
 			throw new HttpMediaTypeNotAcceptableException(
-					"Could not parse 'Accept' header " + headerValues + ": " + ex.getMessage());
+					"Could not parse 'Accept' header [" + headerValue + "]: " + ex.getMessage());
 		}
 	}
 
+	private static List<MediaType> parseAndSort(String headerValue) {
+		List<MediaType> mediaTypes = MediaType.parseMediaTypes(headerValue);
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+		return Collections.unmodifiableList(mediaTypes);
+	}
+
 }
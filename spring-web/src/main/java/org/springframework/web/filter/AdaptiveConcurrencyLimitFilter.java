@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.util.AdaptiveConcurrencyLimiter;
+import org.springframework.util.Assert;
+
+/**
+ * {@code Filter} that limits the number of concurrently processed requests
+ * with an {@link AdaptiveConcurrencyLimiter} per partition, and rejects
+ * requests beyond the limit immediately with a 503 status, rather than
+ * letting them queue up under overload.
+ *
+ * <p>By default all requests share a single partition. A
+ * {@link #setPartitionKeyResolver partition key resolver} can be set to
+ * limit groups of requests independently, e.g. by path prefix. To partition
+ * by the matched handler instead, see
+ * {@code org.springframework.web.servlet.handler.AdaptiveConcurrencyLimitInterceptor}.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+	private Supplier<AdaptiveConcurrencyLimiter> limiterSupplier = AdaptiveConcurrencyLimiter::new;
+
+	private Function<HttpServletRequest, String> partitionKeyResolver = request -> "";
+
+
+	/**
+	 * Set the supplier for the limiter of each partition.
+	 * <p>By default, {@link AdaptiveConcurrencyLimiter#AdaptiveConcurrencyLimiter()}.
+	 * @param limiterSupplier the supplier to use
+	 */
+	public void setLimiterSupplier(Supplier<AdaptiveConcurrencyLimiter> limiterSupplier) {
+		Assert.notNull(limiterSupplier, "Limiter supplier must not be null");
+		this.limiterSupplier = limiterSupplier;
+	}
+
+	/**
+	 * Set the function to determine the partition of a request with.
+	 * <p>By default all requests share the same partition.
+	 * @param partitionKeyResolver the resolver to use
+	 */
+	public void setPartitionKeyResolver(Function<HttpServletRequest, String> partitionKeyResolver) {
+		Assert.notNull(partitionKeyResolver, "Partition key resolver must not be null");
+		this.partitionKeyResolver = partitionKeyResolver;
+	}
+
+	/**
+	 * Return the limiters created so far, keyed by partition, e.g. to expose
+	 * their limit, in-flight, and rejected counts as metrics.
+	 */
+	public Map<String, AdaptiveConcurrencyLimiter> getLimiters() {
+		return Collections.unmodifiableMap(this.limiters);
+	}
+
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain) throws ServletException, IOException {
+
+		String key = this.partitionKeyResolver.apply(request);
+		AdaptiveConcurrencyLimiter limiter = this.limiters.computeIfAbsent(key, k -> this.limiterSupplier.get());
+		AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+		if (permit == null) {
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return;
+		}
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			if (isAsyncStarted(request)) {
+				request.getAsyncContext().addListener(new PermitReleasingListener(permit));
+			}
+			else {
+				permit.release();
+			}
+		}
+	}
+
+
+	/**
+	 * Releases the permit of an asynchronously processed request, remaining
+	 * registered if async processing is started again.
+	 */
+	private static class PermitReleasingListener implements AsyncListener {
+
+		private final AdaptiveConcurrencyLimiter.Permit permit;
+
+		PermitReleasingListener(AdaptiveConcurrencyLimiter.Permit permit) {
+			this.permit = permit;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			this.permit.release();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			this.permit.releaseDropped();
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			this.permit.release();
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// Listeners are dropped when async is started again
+			event.getAsyncContext().addListener(this);
+		}
+	}
+
+}
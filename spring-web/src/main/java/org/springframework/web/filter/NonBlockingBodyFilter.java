@@ -0,0 +1,701 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.FastByteArrayOutputStream;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * {@code Filter} that reads request bodies, and optionally writes response
+ * bodies, through Servlet 3.1 non-blocking I/O, so that container threads
+ * are not held while bytes from or to slow clients are in flight.
+ *
+ * <p>A request with a body is put in asynchronous mode, its content is read
+ * via a {@link ReadListener}, and the request is then dispatched again (as an
+ * {@link DispatcherType#ASYNC ASYNC} dispatch) with an input stream over the
+ * buffered content. {@code @RequestBody} arguments and any
+ * {@code HttpMessageConverter} therefore read without blocking. Content up to
+ * {@link #setMaxInMemorySize maxInMemorySize} is kept in memory, while larger
+ * bodies are spooled to a temporary file that is deleted once the request
+ * completes. Form and multipart requests are not affected since those are
+ * parsed by the container.
+ *
+ * <p>If {@link #setWriteResponseBody writeResponseBody} is enabled, the
+ * response content is buffered, and content above the configured
+ * {@link #setResponseWriteThreshold threshold} is written to the client via
+ * a {@link WriteListener}. Streaming responses (e.g. Server-Sent Events) are
+ * buffered as well and should be excluded via {@link #shouldNotFilter}.
+ *
+ * <p>This filter must be mapped to the {@code ASYNC} dispatcher type, and the
+ * {@code DispatcherServlet} must support async processing.
+ *
+ * <p><strong>Note:</strong> for a request whose body is read with non-blocking
+ * I/O, the filter chain is <em>not</em> continued on the initial
+ * {@code REQUEST} dispatch. Filters ordered after this one, and the servlet,
+ * are invoked only once, on the subsequent {@code ASYNC} dispatch, and
+ * therefore must be mapped to the {@code ASYNC} dispatcher type as well (as
+ * {@code AbstractDispatcherServletInitializer} does when async is supported).
+ * {@link OncePerRequestFilter} subclasses such as {@link CharacterEncodingFilter},
+ * {@link FormContentFilter} or {@link CorsFilter} do process that dispatch
+ * even with the default {@link #shouldNotFilterAsyncDispatch()} of
+ * {@code true}, since it does not carry a concurrent result from the
+ * {@link org.springframework.web.context.request.async.WebAsyncManager}.
+ * Custom filters that only act on {@link DispatcherType#REQUEST} dispatches
+ * must be ordered ahead of this filter. Filters ahead of this one are invoked
+ * for both the initial and the async dispatch.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public class NonBlockingBodyFilter extends OncePerRequestFilter {
+
+	private static final String BODY_ATTRIBUTE = NonBlockingBodyFilter.class.getName() + ".BODY";
+
+	private static final int READ_BUFFER_SIZE = 8192;
+
+
+	private int maxInMemorySize = 256 * 1024;
+
+	private boolean writeResponseBody = false;
+
+	private int responseWriteThreshold = 32 * 1024;
+
+	private long asyncTimeout = -1;
+
+
+	/**
+	 * Set the maximum number of bytes to buffer in memory for a request body.
+	 * Larger bodies are spooled to a temporary file instead.
+	 * <p>By default this is set to 256K.
+	 */
+	public void setMaxInMemorySize(int maxInMemorySize) {
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+	/**
+	 * Return the configured maximum number of bytes to buffer for a request body.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Whether to also write response bodies with non-blocking I/O.
+	 * <p>By default this is set to {@code false}.
+	 */
+	public void setWriteResponseBody(boolean writeResponseBody) {
+		this.writeResponseBody = writeResponseBody;
+	}
+
+	/**
+	 * Return whether response bodies are written with non-blocking I/O.
+	 */
+	public boolean isWriteResponseBody() {
+		return this.writeResponseBody;
+	}
+
+	/**
+	 * Set the minimum size of response content to write with non-blocking I/O.
+	 * Smaller responses are copied directly, since they typically fit into
+	 * the container's response buffer anyway.
+	 * <p>By default this is set to 32K.
+	 */
+	public void setResponseWriteThreshold(int responseWriteThreshold) {
+		this.responseWriteThreshold = responseWriteThreshold;
+	}
+
+	/**
+	 * Return the minimum size of response content to write with non-blocking I/O.
+	 */
+	public int getResponseWriteThreshold() {
+		return this.responseWriteThreshold;
+	}
+
+	/**
+	 * Set the timeout in milliseconds for reading a request body or writing
+	 * a response body. If not set, the container default applies.
+	 */
+	public void setAsyncTimeout(long asyncTimeout) {
+		this.asyncTimeout = asyncTimeout;
+	}
+
+	/**
+	 * Return the configured timeout in milliseconds, or -1 if not set.
+	 */
+	public long getAsyncTimeout() {
+		return this.asyncTimeout;
+	}
+
+
+	/**
+	 * The default value is {@code false} so that the filter can process
+	 * the dispatch that follows the non-blocking read of the request body,
+	 * which is where the rest of the filter chain is invoked.
+	 */
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		Object body = request.getAttribute(BODY_ATTRIBUTE);
+		if (body instanceof BufferedBody) {
+			request.removeAttribute(BODY_ATTRIBUTE);
+			BufferedBody bufferedBody = (BufferedBody) body;
+			try {
+				doFilterAndWriteResponse(new BufferedBodyRequestWrapper(request, bufferedBody), response, filterChain);
+			}
+			finally {
+				if (request.isAsyncStarted()) {
+					request.getAsyncContext().addListener(new BodyCleanupListener(bufferedBody));
+				}
+				else {
+					bufferedBody.delete();
+				}
+			}
+		}
+		else if (isEligibleForNonBlockingRead(request)) {
+			startNonBlockingRead(request, response);
+		}
+		else {
+			doFilterAndWriteResponse(request, response, filterChain);
+		}
+	}
+
+	private void doFilterAndWriteResponse(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		if (!this.writeResponseBody) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		HttpServletResponse responseToUse = response;
+		BufferedBodyResponseWrapper wrapper = WebUtils.getNativeResponse(response, BufferedBodyResponseWrapper.class);
+		if (wrapper == null) {
+			wrapper = new BufferedBodyResponseWrapper(response);
+			responseToUse = wrapper;
+		}
+
+		filterChain.doFilter(request, responseToUse);
+
+		if (!request.isAsyncStarted()) {
+			writeResponseBody(request, wrapper);
+		}
+	}
+
+	/**
+	 * Whether the body of the given request should be read with non-blocking I/O.
+	 * By default this is {@code true} for an initial request dispatch with a
+	 * body that is not form or multipart content.
+	 * @param request current HTTP request
+	 */
+	protected boolean isEligibleForNonBlockingRead(HttpServletRequest request) {
+		if (request.getDispatcherType() != DispatcherType.REQUEST || !request.isAsyncSupported()) {
+			return false;
+		}
+		long contentLength = request.getContentLengthLong();
+		if (contentLength == 0 ||
+				(contentLength < 0 && request.getHeader(HttpHeaders.TRANSFER_ENCODING) == null)) {
+			return false;
+		}
+		String contentType = request.getContentType();
+		if (StringUtils.hasLength(contentType)) {
+			try {
+				MediaType mediaType = MediaType.parseMediaType(contentType);
+				return (!MediaType.APPLICATION_FORM_URLENCODED.includes(mediaType) &&
+						!"multipart".equals(mediaType.getType()));
+			}
+			catch (InvalidMediaTypeException ex) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void startNonBlockingRead(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		AsyncContext asyncContext = request.startAsync();
+		if (this.asyncTimeout != -1) {
+			asyncContext.setTimeout(this.asyncTimeout);
+		}
+		BufferedBody body = new BufferedBody(this.maxInMemorySize, request.getContentLengthLong());
+		asyncContext.addListener(new TimeoutListener(HttpServletResponse.SC_REQUEST_TIMEOUT, body));
+		ServletInputStream inputStream = request.getInputStream();
+		inputStream.setReadListener(new BodyReadListener(asyncContext, request, response, inputStream, body));
+	}
+
+	private void writeResponseBody(HttpServletRequest request, BufferedBodyResponseWrapper wrapper)
+			throws IOException {
+
+		HttpServletResponse rawResponse = (HttpServletResponse) wrapper.getResponse();
+		int contentSize = wrapper.getContentSize();
+		if (contentSize < this.responseWriteThreshold || rawResponse.isCommitted() || !request.isAsyncSupported()) {
+			wrapper.copyBodyToResponse();
+			return;
+		}
+		byte[] content = wrapper.getContentAsByteArray();
+		wrapper.resetBuffer();
+		if (rawResponse.getHeader(HttpHeaders.TRANSFER_ENCODING) == null) {
+			rawResponse.setContentLength(contentSize);
+		}
+
+		AsyncContext asyncContext = request.startAsync();
+		if (this.asyncTimeout != -1) {
+			asyncContext.setTimeout(this.asyncTimeout);
+		}
+		asyncContext.addListener(new TimeoutListener(HttpServletResponse.SC_SERVICE_UNAVAILABLE, null));
+		ServletOutputStream outputStream = rawResponse.getOutputStream();
+		outputStream.setWriteListener(new BodyWriteListener(asyncContext, outputStream, content));
+	}
+
+
+	/**
+	 * Reads the request body and dispatches once all data is read.
+	 * Callbacks for the same request are serialized by the container.
+	 */
+	private class BodyReadListener implements ReadListener {
+
+		private final AsyncContext asyncContext;
+
+		private final HttpServletRequest request;
+
+		private final HttpServletResponse response;
+
+		private final ServletInputStream inputStream;
+
+		private final BufferedBody body;
+
+		private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+
+		private boolean completed;
+
+		BodyReadListener(AsyncContext asyncContext, HttpServletRequest request,
+				HttpServletResponse response, ServletInputStream inputStream, BufferedBody body) {
+
+			this.asyncContext = asyncContext;
+			this.request = request;
+			this.response = response;
+			this.inputStream = inputStream;
+			this.body = body;
+		}
+
+		@Override
+		public void onDataAvailable() throws IOException {
+			while (!this.completed && this.inputStream.isReady()) {
+				int read = this.inputStream.read(this.buffer);
+				if (read == -1) {
+					return;
+				}
+				this.body.write(this.buffer, 0, read);
+			}
+		}
+
+		@Override
+		public void onAllDataRead() {
+			if (!this.completed) {
+				try {
+					this.body.finish();
+				}
+				catch (IOException ex) {
+					onError(ex);
+					return;
+				}
+				this.completed = true;
+				this.request.setAttribute(BODY_ATTRIBUTE, this.body);
+				this.asyncContext.dispatch();
+			}
+		}
+
+		@Override
+		public void onError(Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to read request body: " + ex);
+			}
+			complete(HttpServletResponse.SC_BAD_REQUEST);
+		}
+
+		private void complete(int status) {
+			if (!this.completed) {
+				this.completed = true;
+				this.body.delete();
+				if (!this.response.isCommitted()) {
+					this.response.setStatus(status);
+				}
+				this.asyncContext.complete();
+			}
+		}
+	}
+
+
+	/**
+	 * Writes buffered response content whenever the output stream is ready.
+	 */
+	private class BodyWriteListener implements WriteListener {
+
+		private final AsyncContext asyncContext;
+
+		private final ServletOutputStream outputStream;
+
+		private final byte[] content;
+
+		private int offset;
+
+		BodyWriteListener(AsyncContext asyncContext, ServletOutputStream outputStream, byte[] content) {
+			this.asyncContext = asyncContext;
+			this.outputStream = outputStream;
+			this.content = content;
+		}
+
+		@Override
+		public void onWritePossible() throws IOException {
+			while (this.outputStream.isReady()) {
+				if (this.offset == this.content.length) {
+					this.asyncContext.complete();
+					return;
+				}
+				int length = Math.min(READ_BUFFER_SIZE, this.content.length - this.offset);
+				this.outputStream.write(this.content, this.offset, length);
+				this.offset += length;
+			}
+		}
+
+		@Override
+		public void onError(Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write response body: " + ex);
+			}
+			this.asyncContext.complete();
+		}
+	}
+
+
+	/**
+	 * Completes the request with the given status on timeout, instead of
+	 * letting the container perform an error dispatch.
+	 */
+	private static class TimeoutListener implements AsyncListener {
+
+		private final int status;
+
+		@Nullable
+		private final BufferedBody body;
+
+		TimeoutListener(int status, @Nullable BufferedBody body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			if (this.body != null) {
+				this.body.delete();
+			}
+			HttpServletResponse response = (HttpServletResponse) event.getAsyncContext().getResponse();
+			if (!response.isCommitted()) {
+				response.setStatus(this.status);
+			}
+			event.getAsyncContext().complete();
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+		}
+	}
+
+
+	/**
+	 * Deletes a spooled request body once async processing completes.
+	 */
+	private static class BodyCleanupListener implements AsyncListener {
+
+		private final BufferedBody body;
+
+		BodyCleanupListener(BufferedBody body) {
+			this.body = body;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			this.body.delete();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+	}
+
+
+	/**
+	 * Request body content, kept in memory up to a given size and spooled
+	 * to a temporary file beyond that.
+	 */
+	private static class BufferedBody {
+
+		private final int maxInMemorySize;
+
+		@Nullable
+		private FastByteArrayOutputStream memory;
+
+		@Nullable
+		private Path file;
+
+		@Nullable
+		private OutputStream fileOutputStream;
+
+		@Nullable
+		private InputStream inputStream;
+
+		private long size;
+
+		BufferedBody(int maxInMemorySize, long contentLength) {
+			this.maxInMemorySize = maxInMemorySize;
+			long initialSize = (contentLength > 0 ? Math.min(contentLength, maxInMemorySize) : READ_BUFFER_SIZE);
+			this.memory = new FastByteArrayOutputStream((int) Math.max(initialSize, 1));
+		}
+
+		void write(byte[] bytes, int offset, int length) throws IOException {
+			if (this.memory != null && this.memory.size() + length > this.maxInMemorySize) {
+				this.file = Files.createTempFile("spring-request-body-", ".tmp");
+				this.fileOutputStream = Files.newOutputStream(this.file);
+				this.memory.writeTo(this.fileOutputStream);
+				this.memory = null;
+			}
+			if (this.memory != null) {
+				this.memory.write(bytes, offset, length);
+			}
+			else if (this.fileOutputStream != null) {
+				this.fileOutputStream.write(bytes, offset, length);
+			}
+			this.size += length;
+		}
+
+		void finish() throws IOException {
+			if (this.fileOutputStream != null) {
+				this.fileOutputStream.close();
+				this.fileOutputStream = null;
+			}
+		}
+
+		long size() {
+			return this.size;
+		}
+
+		/**
+		 * Return the single stream over the buffered content, opened on first access.
+		 */
+		InputStream getInputStream() throws IOException {
+			if (this.inputStream == null) {
+				if (this.memory != null) {
+					this.inputStream = this.memory.getInputStream();
+				}
+				else if (this.file != null) {
+					this.inputStream = Files.newInputStream(this.file);
+				}
+				else {
+					throw new IllegalStateException("Request body has been deleted");
+				}
+			}
+			return this.inputStream;
+		}
+
+		void delete() {
+			try {
+				finish();
+				if (this.inputStream != null) {
+					this.inputStream.close();
+				}
+				if (this.file != null) {
+					Files.deleteIfExists(this.file);
+					this.file = null;
+				}
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+
+	/**
+	 * Request wrapper that exposes the body read with non-blocking I/O.
+	 */
+	private static class BufferedBodyRequestWrapper extends HttpServletRequestWrapper {
+
+		private final BufferedBody body;
+
+		@Nullable
+		private ServletInputStream inputStream;
+
+		@Nullable
+		private BufferedReader reader;
+
+		BufferedBodyRequestWrapper(HttpServletRequest request, BufferedBody body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public int getContentLength() {
+			return (this.body.size() <= Integer.MAX_VALUE ? (int) this.body.size() : -1);
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return this.body.size();
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (this.reader != null) {
+				throw new IllegalStateException(
+						"Cannot call getInputStream() after getReader() has already been called for the current request");
+			}
+			if (this.inputStream == null) {
+				this.inputStream = new BufferedServletInputStream(this.body.getInputStream());
+			}
+			return this.inputStream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			if (this.reader == null) {
+				if (this.inputStream != null) {
+					throw new IllegalStateException(
+							"Cannot call getReader() after getInputStream() has already been called for the current request");
+				}
+				String encoding = getCharacterEncoding();
+				Charset charset = (encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1);
+				this.reader = new BufferedReader(new InputStreamReader(this.body.getInputStream(), charset));
+			}
+			return this.reader;
+		}
+	}
+
+
+	private static class BufferedServletInputStream extends ServletInputStream {
+
+		private final InputStream delegate;
+
+		private boolean finished;
+
+		BufferedServletInputStream(InputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int result = this.delegate.read();
+			this.finished = (result == -1);
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = this.delegate.read(b, off, len);
+			this.finished = (result == -1);
+			return result;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return this.delegate.available();
+		}
+
+		@Override
+		public boolean isFinished() {
+			return this.finished;
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			try {
+				readListener.onDataAvailable();
+				readListener.onAllDataRead();
+			}
+			catch (IOException ex) {
+				readListener.onError(ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Marker subclass to find the wrapper created by this filter.
+	 */
+	private static class BufferedBodyResponseWrapper extends ContentCachingResponseWrapper {
+
+		BufferedBodyResponseWrapper(HttpServletResponse response) {
+			super(response);
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter.reactive;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AdaptiveConcurrencyLimiter;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * {@link WebFilter} that limits the number of concurrently processed requests
+ * with an {@link AdaptiveConcurrencyLimiter} per partition, and rejects
+ * requests beyond the limit immediately with a 503 status, rather than
+ * letting them queue up under overload.
+ *
+ * <p>By default all requests share a single partition. A
+ * {@link #setPartitionKeyResolver partition key resolver} can be set to
+ * limit groups of requests independently, e.g. by path prefix. Note that
+ * web filters run before handler mapping, so partitions cannot be derived
+ * from the matched handler or pattern here.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public class AdaptiveConcurrencyLimitWebFilter implements WebFilter {
+
+	private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+	private Supplier<AdaptiveConcurrencyLimiter> limiterSupplier = AdaptiveConcurrencyLimiter::new;
+
+	private Function<ServerWebExchange, String> partitionKeyResolver = exchange -> "";
+
+
+	/**
+	 * Set the supplier for the limiter of each partition.
+	 * <p>By default, {@link AdaptiveConcurrencyLimiter#AdaptiveConcurrencyLimiter()}.
+	 * @param limiterSupplier the supplier to use
+	 */
+	public void setLimiterSupplier(Supplier<AdaptiveConcurrencyLimiter> limiterSupplier) {
+		Assert.notNull(limiterSupplier, "Limiter supplier must not be null");
+		this.limiterSupplier = limiterSupplier;
+	}
+
+	/**
+	 * Set the function to determine the partition of a request with.
+	 * <p>By default all requests share the same partition.
+	 * @param partitionKeyResolver the resolver to use
+	 */
+	public void setPartitionKeyResolver(Function<ServerWebExchange, String> partitionKeyResolver) {
+		Assert.notNull(partitionKeyResolver, "Partition key resolver must not be null");
+		this.partitionKeyResolver = partitionKeyResolver;
+	}
+
+	/**
+	 * Return the limiters created so far, keyed by partition, e.g. to expose
+	 * their limit, in-flight, and rejected counts as metrics.
+	 */
+	public Map<String, AdaptiveConcurrencyLimiter> getLimiters() {
+		return Collections.unmodifiableMap(this.limiters);
+	}
+
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		return Mono.defer(() -> {
+			String key = this.partitionKeyResolver.apply(exchange);
+			AdaptiveConcurrencyLimiter limiter = this.limiters.computeIfAbsent(key, k -> this.limiterSupplier.get());
+			AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+			if (permit == null) {
+				exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+				return exchange.getResponse().setComplete();
+			}
+			return chain.filter(exchange).doFinally(signalType -> permit.release());
+		});
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,16 +21,24 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.IdGenerator;
 import org.springframework.util.JdkIdGenerator;
@@ -39,6 +47,14 @@ import org.springframework.web.server.WebSession;
 /**
  * Simple Map-based storage for {@link WebSession} instances.
  *
+ * <p>By default sessions are kept in a single map that is periodically scanned
+ * for expired sessions, and attempts to store sessions beyond
+ * {@link #setMaxSessions(int) maxSessions} are rejected. Alternatively, a
+ * {@link #setShardCount(int) shard count} may be configured to spread sessions
+ * across independently locked shards, expire sessions through buckets ordered
+ * by expiration time, and evict the least recently used session once the
+ * limit is reached.
+ *
  * @author Rossen Stoyanchev
  * @author Rob Winch
  * @since 5.0
@@ -47,6 +63,14 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 	private static final IdGenerator idGenerator = new JdkIdGenerator();
 
+	/** Duration of an expiration bucket when sessions are sharded. */
+	private static final long BUCKET_DURATION = 1000;
+
+	/** Sessions idle for longer than this are only removed through eviction. */
+	private static final Duration MAX_SCHEDULED_IDLE_TIME = Duration.ofDays(365 * 100);
+
+	private static final long UNSCHEDULED = -1;
+
 
 	private int maxSessions = 10000;
 
@@ -56,11 +80,20 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 	private final ExpiredSessionChecker expiredSessionChecker = new ExpiredSessionChecker();
 
+	@Nullable
+	private volatile ShardedSessions shardedSessions;
+
+	private final AtomicLong expiredSessionCount = new AtomicLong();
+
+	private final AtomicLong evictedSessionCount = new AtomicLong();
+
 
 	/**
 	 * Set the maximum number of sessions that can be stored. Once the limit is
 	 * reached, any attempt to store an additional session will result in an
-	 * {@link IllegalStateException}.
+	 * {@link IllegalStateException}, unless a {@link #setShardCount(int) shard
+	 * count} is configured, in which case the least recently used session is
+	 * evicted instead.
 	 * <p>By default set to 10000.
 	 * @param maxSessions the maximum number of sessions
 	 * @since 5.0.8
@@ -99,14 +132,72 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		return this.clock;
 	}
 
+	/**
+	 * Set the number of shards to spread sessions across.
+	 * <p>When set to a positive value, each shard is guarded by its own lock,
+	 * expiration only visits sessions whose idle time may have elapsed, and
+	 * the least recently used session of a shard is evicted rather than
+	 * rejecting new sessions once {@link #setMaxSessions(int) maxSessions}
+	 * is reached. The limit is divided evenly across the shards.
+	 * <p>By default set to 0, i.e. a single map with periodic full scans.
+	 * This must be configured before any session is stored.
+	 * @param shardCount the number of shards, or 0 for a single map
+	 * @since 5.2.13
+	 */
+	public void setShardCount(int shardCount) {
+		Assert.isTrue(shardCount >= 0, "Shard count must not be negative");
+		Assert.state(getActiveSessionCount() == 0, "Shard count cannot be changed once sessions are stored");
+		this.shardedSessions = (shardCount > 0 ? new ShardedSessions(shardCount) : null);
+	}
+
+	/**
+	 * Return the configured number of shards, or 0 if sessions are kept in a
+	 * single map.
+	 * @since 5.2.13
+	 */
+	public int getShardCount() {
+		ShardedSessions sharded = this.shardedSessions;
+		return (sharded != null ? sharded.shards.length : 0);
+	}
+
 	/**
 	 * Return the map of sessions with an {@link Collections#unmodifiableMap
 	 * unmodifiable} wrapper. This could be used for management purposes, to
 	 * list active sessions, invalidate expired ones, etc.
+	 * <p>When a {@link #setShardCount(int) shard count} is configured, the
+	 * returned map is a snapshot rather than a live view.
 	 * @since 5.0.8
 	 */
 	public Map<String, WebSession> getSessions() {
-		return Collections.unmodifiableMap(this.sessions);
+		ShardedSessions sharded = this.shardedSessions;
+		return Collections.unmodifiableMap(sharded != null ? sharded.snapshot() : this.sessions);
+	}
+
+	/**
+	 * Return the number of sessions currently stored.
+	 * @since 5.2.13
+	 */
+	public int getActiveSessionCount() {
+		ShardedSessions sharded = this.shardedSessions;
+		return (sharded != null ? sharded.size() : this.sessions.size());
+	}
+
+	/**
+	 * Return the number of sessions removed so far because they expired.
+	 * @since 5.2.13
+	 */
+	public long getExpiredSessionCount() {
+		return this.expiredSessionCount.get();
+	}
+
+	/**
+	 * Return the number of sessions evicted so far to stay within
+	 * {@link #setMaxSessions(int) maxSessions}. Always 0 unless a
+	 * {@link #setShardCount(int) shard count} is configured.
+	 * @since 5.2.13
+	 */
+	public long getEvictedSessionCount() {
+		return this.evictedSessionCount.get();
 	}
 
 
@@ -115,7 +206,7 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 		// Opportunity to clean expired sessions
 		Instant now = this.clock.instant();
-		this.expiredSessionChecker.checkIfNecessary(now);
+		checkExpiredSessionsIfNecessary(now);
 
 		return Mono.<WebSession>fromSupplier(() -> new InMemoryWebSession(now))
 				.subscribeOn(Schedulers.boundedElastic());
@@ -124,13 +215,15 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 	@Override
 	public Mono<WebSession> retrieveSession(String id) {
 		Instant now = this.clock.instant();
-		this.expiredSessionChecker.checkIfNecessary(now);
-		InMemoryWebSession session = this.sessions.get(id);
+		checkExpiredSessionsIfNecessary(now);
+		ShardedSessions sharded = this.shardedSessions;
+		InMemoryWebSession session = (sharded != null ? sharded.get(id, now) : this.sessions.get(id));
 		if (session == null) {
 			return Mono.empty();
 		}
 		else if (session.isExpired(now)) {
-			this.sessions.remove(id);
+			removeStoredSession(id);
+			this.expiredSessionCount.incrementAndGet();
 			return Mono.empty();
 		}
 		else {
@@ -141,7 +234,7 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 	@Override
 	public Mono<Void> removeSession(String id) {
-		this.sessions.remove(id);
+		removeStoredSession(id);
 		return Mono.empty();
 	}
 
@@ -162,7 +255,43 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 	 * @since 5.0.8
 	 */
 	public void removeExpiredSessions() {
-		this.expiredSessionChecker.removeExpiredSessions(this.clock.instant());
+		ShardedSessions sharded = this.shardedSessions;
+		if (sharded != null) {
+			sharded.removeExpiredSessions(this.clock.instant());
+		}
+		else {
+			this.expiredSessionChecker.removeExpiredSessions(this.clock.instant());
+		}
+	}
+
+	private void checkExpiredSessionsIfNecessary(Instant now) {
+		ShardedSessions sharded = this.shardedSessions;
+		if (sharded != null) {
+			sharded.checkIfNecessary(now);
+		}
+		else {
+			this.expiredSessionChecker.checkIfNecessary(now);
+		}
+	}
+
+	private void storeSession(InMemoryWebSession session) {
+		ShardedSessions sharded = this.shardedSessions;
+		if (sharded != null) {
+			sharded.put(session);
+		}
+		else {
+			this.sessions.put(session.getId(), session);
+		}
+	}
+
+	private void removeStoredSession(String id) {
+		ShardedSessions sharded = this.shardedSessions;
+		if (sharded != null) {
+			sharded.remove(id);
+		}
+		else {
+			this.sessions.remove(id);
+		}
 	}
 
 
@@ -180,6 +309,9 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 		private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
 
+		/** Expiration bucket this session is scheduled in, guarded by its shard's lock. */
+		private long scheduledBucket = UNSCHEDULED;
+
 
 		public InMemoryWebSession(Instant creationTime) {
 			this.creationTime = creationTime;
@@ -229,10 +361,10 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		@Override
 		public Mono<Void> changeSessionId() {
 			String currentId = this.id.get();
-			InMemoryWebSessionStore.this.sessions.remove(currentId);
+			removeStoredSession(currentId);
 			String newId = String.valueOf(idGenerator.generateId());
 			this.id.set(newId);
-			InMemoryWebSessionStore.this.sessions.put(this.getId(), this);
+			storeSession(this);
 			return Mono.empty();
 		}
 
@@ -240,7 +372,7 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		public Mono<Void> invalidate() {
 			this.state.set(State.EXPIRED);
 			getAttributes().clear();
-			InMemoryWebSessionStore.this.sessions.remove(this.id.get());
+			removeStoredSession(this.id.get());
 			return Mono.empty();
 		}
 
@@ -256,11 +388,11 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 			if (isStarted()) {
 				// Save
-				InMemoryWebSessionStore.this.sessions.put(this.getId(), this);
+				storeSession(this);
 
 				// Unless it was invalidated
 				if (this.state.get().equals(State.EXPIRED)) {
-					InMemoryWebSessionStore.this.sessions.remove(this.getId());
+					removeStoredSession(this.getId());
 					return Mono.error(new IllegalStateException("Session was invalidated"));
 				}
 			}
@@ -269,6 +401,10 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		}
 
 		private void checkMaxSessionsLimit() {
+			if (shardedSessions != null) {
+				// Sharded storage evicts instead
+				return;
+			}
 			if (sessions.size() >= maxSessions) {
 				expiredSessionChecker.removeExpiredSessions(clock.instant());
 				if (sessions.size() >= maxSessions) {
@@ -301,6 +437,19 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		private void updateLastAccessTime(Instant currentTime) {
 			this.lastAccessTime = currentTime;
 		}
+
+		/**
+		 * Return the first expiration bucket that ends after this session
+		 * expires, or {@link #UNSCHEDULED} if it does not expire.
+		 */
+		private long getExpirationBucket() {
+			Duration maxIdleTime = this.maxIdleTime;
+			if (maxIdleTime.isNegative() || maxIdleTime.compareTo(MAX_SCHEDULED_IDLE_TIME) > 0) {
+				return UNSCHEDULED;
+			}
+			long expirationTime = this.lastAccessTime.toEpochMilli() + maxIdleTime.toMillis();
+			return expirationTime / BUCKET_DURATION + 1;
+		}
 	}
 
 
@@ -333,6 +482,7 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 						if (session.isExpired(now)) {
 							iterator.remove();
 							session.invalidate();
+							expiredSessionCount.incrementAndGet();
 						}
 					}
 				}
@@ -345,6 +495,236 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 	}
 
 
+	/**
+	 * Sessions spread across shards, each with its own lock, LRU ordering and
+	 * expiration buckets.
+	 */
+	private class ShardedSessions {
+
+		private final Shard[] shards;
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private volatile long checkTime;
+
+
+		public ShardedSessions(int shardCount) {
+			this.shards = new Shard[shardCount];
+			for (int i = 0; i < shardCount; i++) {
+				this.shards[i] = new Shard();
+			}
+		}
+
+		@Nullable
+		public InMemoryWebSession get(String id, Instant now) {
+			return getShard(id).get(id, now);
+		}
+
+		public void put(InMemoryWebSession session) {
+			int maxSessionsPerShard = Math.max(1, (maxSessions + this.shards.length - 1) / this.shards.length);
+			getShard(session.getId()).put(session, maxSessionsPerShard, clock.instant());
+		}
+
+		public void remove(String id) {
+			getShard(id).remove(id);
+		}
+
+		public int size() {
+			int size = 0;
+			for (Shard shard : this.shards) {
+				size += shard.size;
+			}
+			return size;
+		}
+
+		public Map<String, WebSession> snapshot() {
+			Map<String, WebSession> snapshot = new LinkedHashMap<>();
+			for (Shard shard : this.shards) {
+				shard.copyTo(snapshot);
+			}
+			return snapshot;
+		}
+
+		public void checkIfNecessary(Instant now) {
+			if (this.checkTime <= now.toEpochMilli()) {
+				removeExpiredSessions(now);
+			}
+		}
+
+		public void removeExpiredSessions(Instant now) {
+			if (this.lock.tryLock()) {
+				try {
+					for (Shard shard : this.shards) {
+						shard.removeExpiredSessions(now);
+					}
+				}
+				finally {
+					this.checkTime = now.toEpochMilli() + BUCKET_DURATION;
+					this.lock.unlock();
+				}
+			}
+		}
+
+		private Shard getShard(String id) {
+			int hash = id.hashCode();
+			hash ^= (hash >>> 16);
+			return this.shards[(hash & Integer.MAX_VALUE) % this.shards.length];
+		}
+	}
+
+
+	/**
+	 * A single shard with sessions in access order, and expiration buckets
+	 * keyed by their end time so that expiring only visits due buckets.
+	 * Sessions accessed after being scheduled are moved to a later bucket
+	 * when their original bucket comes due. Sessions that are removed,
+	 * evicted or moved to another shard are dropped from their bucket.
+	 */
+	private class Shard {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final LinkedHashMap<String, InMemoryWebSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+		private final TreeMap<Long, Set<InMemoryWebSession>> buckets = new TreeMap<>();
+
+		private volatile int size;
+
+
+		@Nullable
+		public InMemoryWebSession get(String id, Instant now) {
+			this.lock.lock();
+			try {
+				removeExpiredSessions(now);
+				return this.sessions.get(id);
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public void put(InMemoryWebSession session, int maxSessions, Instant now) {
+			List<InMemoryWebSession> evicted = null;
+			this.lock.lock();
+			try {
+				removeExpiredSessions(now);
+				if (this.sessions.put(session.getId(), session) == null) {
+					Iterator<InMemoryWebSession> iterator = this.sessions.values().iterator();
+					while (this.sessions.size() > maxSessions) {
+						InMemoryWebSession eldest = iterator.next();
+						iterator.remove();
+						unschedule(eldest);
+						evicted = (evicted != null ? evicted : new ArrayList<>());
+						evicted.add(eldest);
+					}
+					this.size = this.sessions.size();
+				}
+				schedule(session, UNSCHEDULED);
+			}
+			finally {
+				this.lock.unlock();
+			}
+			if (evicted != null) {
+				evicted.forEach(InMemoryWebSession::invalidate);
+				evictedSessionCount.addAndGet(evicted.size());
+			}
+		}
+
+		public void remove(String id) {
+			this.lock.lock();
+			try {
+				InMemoryWebSession session = this.sessions.remove(id);
+				if (session != null) {
+					unschedule(session);
+				}
+				this.size = this.sessions.size();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public void copyTo(Map<String, WebSession> target) {
+			this.lock.lock();
+			try {
+				target.putAll(this.sessions);
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public void removeExpiredSessions(Instant now) {
+			long currentBucket = now.toEpochMilli() / BUCKET_DURATION;
+			List<InMemoryWebSession> expired = null;
+			this.lock.lock();
+			try {
+				Map.Entry<Long, Set<InMemoryWebSession>> entry;
+				while ((entry = this.buckets.firstEntry()) != null && entry.getKey() <= currentBucket) {
+					this.buckets.pollFirstEntry();
+					for (InMemoryWebSession session : entry.getValue()) {
+						session.scheduledBucket = UNSCHEDULED;
+						if (this.sessions.get(session.getId()) != session) {
+							continue;
+						}
+						if (session.isExpired(now)) {
+							this.sessions.remove(session.getId());
+							expired = (expired != null ? expired : new ArrayList<>());
+							expired.add(session);
+						}
+						else {
+							schedule(session, currentBucket + 1);
+						}
+					}
+				}
+				this.size = this.sessions.size();
+			}
+			finally {
+				this.lock.unlock();
+			}
+			if (expired != null) {
+				expired.forEach(InMemoryWebSession::invalidate);
+				expiredSessionCount.addAndGet(expired.size());
+			}
+		}
+
+		private void schedule(InMemoryWebSession session, long minBucket) {
+			long bucket = session.getExpirationBucket();
+			if (bucket == UNSCHEDULED) {
+				return;
+			}
+			bucket = Math.max(bucket, minBucket);
+			if (session.scheduledBucket != UNSCHEDULED && session.scheduledBucket <= bucket) {
+				// Checked again when the earlier bucket comes due
+				return;
+			}
+			unschedule(session);
+			session.scheduledBucket = bucket;
+			this.buckets.computeIfAbsent(bucket, key -> new LinkedHashSet<>()).add(session);
+		}
+
+		/**
+		 * Remove the given session from its expiration bucket, if any, so that
+		 * it is neither retained by this shard nor skipped by another shard
+		 * it moves to.
+		 */
+		private void unschedule(InMemoryWebSession session) {
+			long bucket = session.scheduledBucket;
+			if (bucket == UNSCHEDULED) {
+				return;
+			}
+			session.scheduledBucket = UNSCHEDULED;
+			Set<InMemoryWebSession> scheduled = this.buckets.get(bucket);
+			if (scheduled != null) {
+				scheduled.remove(session);
+				if (scheduled.isEmpty()) {
+					this.buckets.remove(bucket);
+				}
+			}
+		}
+	}
+
+
 	private enum State { NEW, STARTED, EXPIRED }
 
 }
@@ -151,6 +151,30 @@ public class HttpHeadersTests {
 		assertThat(headers.getFirst("Content-Type")).as("Invalid Content-Type header").isEqualTo("text/html;charset=UTF-8");
 	}
 
+	@Test
+	public void contentTypeParsedOnce() {
+		headers.set(HttpHeaders.CONTENT_TYPE, "text/html;charset=UTF-8");
+		MediaType contentType = headers.getContentType();
+		assertThat(headers.getContentType()).isSameAs(contentType);
+
+		headers.set(HttpHeaders.CONTENT_TYPE, "text/plain");
+		assertThat(headers.getContentType()).isEqualTo(MediaType.TEXT_PLAIN);
+
+		headers.remove(HttpHeaders.CONTENT_TYPE);
+		assertThat(headers.getContentType()).isNull();
+	}
+
+	@Test
+	public void acceptParsedOnce() {
+		headers.add(HttpHeaders.ACCEPT, "text/html");
+		List<MediaType> accept = headers.getAccept();
+		accept.clear();
+		assertThat(headers.getAccept()).containsExactly(MediaType.TEXT_HTML);
+
+		headers.get(HttpHeaders.ACCEPT).add("text/plain");
+		assertThat(headers.getAccept()).containsExactly(MediaType.TEXT_HTML, MediaType.TEXT_PLAIN);
+	}
+
 	@Test
 	public void location() throws URISyntaxException {
 		URI location = new URI("https://www.example.com/hotels");
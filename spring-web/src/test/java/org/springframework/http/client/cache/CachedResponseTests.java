@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CachedResponse}.
+ *
+ * @author agent
+ */
+class CachedResponseTests {
+
+	private static final long NOW = 1_600_000_000_000L;
+
+
+	@Test
+	void maxAge() {
+		CachedResponse response = create(responseHeaders("max-age=60"));
+		assertThat(response.isFresh(NOW + 59_000)).isTrue();
+		assertThat(response.isFresh(NOW + 60_000)).isFalse();
+		assertThat(response.isStaleWhileRevalidate(NOW + 60_000)).isFalse();
+	}
+
+	@Test
+	void ageHeader() {
+		HttpHeaders headers = responseHeaders("max-age=60");
+		headers.set(HttpHeaders.AGE, "30");
+		CachedResponse response = create(headers);
+		assertThat(response.isFresh(NOW + 29_000)).isTrue();
+		assertThat(response.isFresh(NOW + 30_000)).isFalse();
+	}
+
+	@Test
+	void expires() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setDate(NOW);
+		headers.setExpires(NOW + 10_000);
+		CachedResponse response = create(headers);
+		assertThat(response.isFresh(NOW + 9_000)).isTrue();
+		assertThat(response.isFresh(NOW + 10_000)).isFalse();
+	}
+
+	@Test
+	void staleWhileRevalidate() {
+		CachedResponse response = create(responseHeaders("max-age=60, stale-while-revalidate=30"));
+		assertThat(response.isFresh(NOW + 70_000)).isFalse();
+		assertThat(response.isStaleWhileRevalidate(NOW + 70_000)).isTrue();
+		assertThat(response.isStaleWhileRevalidate(NOW + 90_000)).isFalse();
+
+		response = create(responseHeaders("max-age=60, stale-while-revalidate=30, must-revalidate"));
+		assertThat(response.isStaleWhileRevalidate(NOW + 70_000)).isFalse();
+	}
+
+	@Test
+	void noCache() {
+		HttpHeaders headers = responseHeaders("max-age=60, no-cache");
+		headers.setETag("\"foo\"");
+		CachedResponse response = create(headers);
+		assertThat(response.isFresh(NOW)).isFalse();
+
+		HttpHeaders requestHeaders = new HttpHeaders();
+		response.addConditionalHeaders(requestHeaders);
+		assertThat(requestHeaders.getIfNoneMatch()).containsExactly("\"foo\"");
+	}
+
+	@Test
+	void isCacheable() {
+		HttpHeaders requestHeaders = new HttpHeaders();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("max-age=60"))).isTrue();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 500, responseHeaders("max-age=60"))).isFalse();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("no-store"))).isFalse();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, new HttpHeaders())).isFalse();
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setLastModified(NOW);
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, headers)).isTrue();
+		headers.setVary(Collections.singletonList("*"));
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, headers)).isFalse();
+
+		requestHeaders.setCacheControl("no-store");
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("max-age=60"))).isFalse();
+	}
+
+	@Test
+	void isCacheableWithSharedCacheRules() {
+		HttpHeaders requestHeaders = new HttpHeaders();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("private, max-age=60"))).isFalse();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("s-maxage=60"))).isTrue();
+
+		requestHeaders.setBasicAuth("user", "password");
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("max-age=60"))).isFalse();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("public, max-age=60"))).isTrue();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("s-maxage=60"))).isTrue();
+		assertThat(CachedResponse.isCacheable(requestHeaders, 200, responseHeaders("max-age=60, must-revalidate"))).isTrue();
+	}
+
+	@Test
+	void sharedMaxAge() {
+		CachedResponse response = create(responseHeaders("max-age=60, s-maxage=10"));
+		assertThat(response.isFresh(NOW + 9_000)).isTrue();
+		assertThat(response.isFresh(NOW + 10_000)).isFalse();
+	}
+
+	@Test
+	void vary() {
+		HttpHeaders requestHeaders = new HttpHeaders();
+		requestHeaders.set(HttpHeaders.ACCEPT_LANGUAGE, "en");
+		HttpHeaders responseHeaders = responseHeaders("max-age=60");
+		responseHeaders.set(HttpHeaders.VARY, "Accept-Language, Accept");
+		CachedResponse response = CachedResponse.create(requestHeaders, 200, responseHeaders, new byte[0], NOW);
+
+		assertThat(response.matches(requestHeaders)).isTrue();
+		HttpHeaders otherHeaders = new HttpHeaders();
+		otherHeaders.set(HttpHeaders.ACCEPT_LANGUAGE, "de");
+		assertThat(response.matches(otherHeaders)).isFalse();
+	}
+
+	@Test
+	void revalidated() {
+		HttpHeaders headers = responseHeaders("max-age=60");
+		headers.setContentLength(3);
+		CachedResponse response = create(headers);
+
+		HttpHeaders notModifiedHeaders = responseHeaders("max-age=120");
+		notModifiedHeaders.setContentLength(0);
+		CachedResponse revalidated = response.revalidated(notModifiedHeaders, NOW + 100_000);
+		assertThat(revalidated.getBody()).isSameAs(response.getBody());
+		assertThat(revalidated.getHeaders().getContentLength()).isEqualTo(3);
+		assertThat(revalidated.isFresh(NOW + 219_000)).isTrue();
+	}
+
+
+	private static HttpHeaders responseHeaders(String cacheControl) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl(cacheControl);
+		return headers;
+	}
+
+	private static CachedResponse create(HttpHeaders responseHeaders) {
+		return CachedResponse.create(new HttpHeaders(), 200, responseHeaders, "foo".getBytes(), NOW);
+	}
+
+}
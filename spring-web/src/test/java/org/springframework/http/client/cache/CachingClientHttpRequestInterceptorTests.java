@@ -0,0 +1,244 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CachingClientHttpRequestInterceptor}.
+ *
+ * @author agent
+ */
+class CachingClientHttpRequestInterceptorTests {
+
+	private static final URI DEFAULT_URL = URI.create("https://example.com/foo");
+
+	private static final Instant NOW = Instant.ofEpochSecond(1_600_000_000L);
+
+
+	private final InMemoryHttpCacheStore store = new InMemoryHttpCacheStore();
+
+	private final CachingClientHttpRequestInterceptor interceptor = new CachingClientHttpRequestInterceptor(this.store);
+
+	private final List<HttpRequest> requests = new ArrayList<>();
+
+	private final List<TestResponse> responses = new ArrayList<>();
+
+	private final ClientHttpRequestExecution execution = (request, body) -> {
+		this.requests.add(request);
+		return this.responses.remove(0);
+	};
+
+
+	@Test
+	void freshResponseIsServedFromStore() throws Exception {
+		this.interceptor.setClock(clock(0));
+		this.responses.add(new TestResponse(200, "max-age=60", "foo"));
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(this.responses).isEmpty();
+
+		this.interceptor.setClock(clock(30));
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(this.requests).hasSize(1);
+	}
+
+	@Test
+	void staleResponseIsRevalidated() throws Exception {
+		this.interceptor.setClock(clock(0));
+		TestResponse response = new TestResponse(200, "max-age=60", "foo");
+		response.getHeaders().setETag("\"1\"");
+		this.responses.add(response);
+		assertThat(bodyOf(get())).isEqualTo("foo");
+
+		this.interceptor.setClock(clock(90));
+		TestResponse notModified = new TestResponse(304, "max-age=60", "");
+		this.responses.add(notModified);
+		ClientHttpResponse result = get();
+		assertThat(result.getRawStatusCode()).isEqualTo(200);
+		assertThat(bodyOf(result)).isEqualTo("foo");
+		assertThat(this.requests.get(1).getHeaders().getIfNoneMatch()).containsExactly("\"1\"");
+		assertThat(notModified.closed).isTrue();
+
+		// Freshness is renewed by revalidation
+		this.interceptor.setClock(clock(120));
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	void staleWhileRevalidate() throws Exception {
+		List<Runnable> tasks = new ArrayList<>();
+		this.interceptor.setRevalidationExecutor(tasks::add);
+		this.interceptor.setClock(clock(0));
+		TestResponse response = new TestResponse(200, "max-age=60, stale-while-revalidate=60", "foo");
+		response.getHeaders().setETag("\"1\"");
+		this.responses.add(response);
+		get();
+
+		this.interceptor.setClock(clock(90));
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(this.requests).hasSize(1);
+		assertThat(tasks).hasSize(1);
+
+		// Only one revalidation at a time
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(tasks).hasSize(1);
+
+		TestResponse updated = new TestResponse(200, "max-age=60", "bar");
+		updated.getHeaders().setETag("\"2\"");
+		this.responses.add(updated);
+		tasks.get(0).run();
+		assertThat(this.requests).hasSize(2);
+		assertThat(bodyOf(get())).isEqualTo("bar");
+	}
+
+	@Test
+	void uncacheableResponseIsPassedThrough() throws Exception {
+		TestResponse response = new TestResponse(200, "no-store", "foo");
+		this.responses.add(response);
+		assertThat(get()).isSameAs(response);
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNull();
+	}
+
+	@Test
+	void responseToAuthorizedRequestIsNotStored() throws Exception {
+		HttpRequest request = request(HttpMethod.GET);
+		request.getHeaders().setBasicAuth("user", "password");
+		this.responses.add(new TestResponse(200, "max-age=60", "foo"));
+		assertThat(bodyOf(this.interceptor.intercept(request, new byte[0], this.execution))).isEqualTo("foo");
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNull();
+
+		this.responses.add(new TestResponse(200, "public, max-age=60", "foo"));
+		this.interceptor.intercept(request, new byte[0], this.execution);
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNotNull();
+	}
+
+	@Test
+	void tooLargeResponseIsPassedThrough() throws Exception {
+		this.interceptor.setMaxEntrySize(2);
+		this.responses.add(new TestResponse(200, "max-age=60", "foo"));
+		assertThat(bodyOf(get())).isEqualTo("foo");
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNull();
+	}
+
+	@Test
+	void unsafeMethodInvalidates() throws Exception {
+		this.responses.add(new TestResponse(200, "max-age=60", "foo"));
+		get();
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNotNull();
+
+		this.responses.add(new TestResponse(204, null, ""));
+		this.interceptor.intercept(request(HttpMethod.POST), new byte[0], this.execution);
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNull();
+	}
+
+
+	private ClientHttpResponse get() throws Exception {
+		return this.interceptor.intercept(request(HttpMethod.GET), new byte[0], this.execution);
+	}
+
+	private static String bodyOf(ClientHttpResponse response) throws Exception {
+		return StreamUtils.copyToString(response.getBody(), UTF_8);
+	}
+
+	private static Clock clock(long seconds) {
+		return Clock.fixed(NOW.plus(Duration.ofSeconds(seconds)), ZoneOffset.UTC);
+	}
+
+	private static HttpRequest request(HttpMethod method) {
+		HttpHeaders headers = new HttpHeaders();
+		return new HttpRequest() {
+			@Override
+			public String getMethodValue() {
+				return method.name();
+			}
+			@Override
+			public URI getURI() {
+				return DEFAULT_URL;
+			}
+			@Override
+			public HttpHeaders getHeaders() {
+				return headers;
+			}
+		};
+	}
+
+
+	private static class TestResponse extends AbstractClientHttpResponse {
+
+		private final int statusCode;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final byte[] body;
+
+		private boolean closed;
+
+		TestResponse(int statusCode, String cacheControl, String body) {
+			this.statusCode = statusCode;
+			this.headers.setCacheControl(cacheControl);
+			this.body = body.getBytes(UTF_8);
+		}
+
+		@Override
+		public int getRawStatusCode() {
+			return this.statusCode;
+		}
+
+		@Override
+		public String getStatusText() {
+			return "";
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		@Override
+		public InputStream getBody() {
+			return new ByteArrayInputStream(this.body);
+		}
+
+		@Override
+		public void close() {
+			this.closed = true;
+		}
+	}
+
+}
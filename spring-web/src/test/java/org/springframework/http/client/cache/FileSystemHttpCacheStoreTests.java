@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.http.HttpHeaders;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FileSystemHttpCacheStore}.
+ *
+ * @author agent
+ */
+class FileSystemHttpCacheStoreTests {
+
+	@TempDir
+	Path directory;
+
+
+	@Test
+	void putAndGet() throws Exception {
+		FileSystemHttpCacheStore store = new FileSystemHttpCacheStore(this.directory.resolve("cache"));
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("max-age=60");
+		headers.add("foo", "bar");
+		headers.add("foo", "baz");
+		Map<String, List<String>> varyValues = new LinkedHashMap<>();
+		varyValues.put(HttpHeaders.ACCEPT, Collections.singletonList("text/plain"));
+		varyValues.put(HttpHeaders.ACCEPT_LANGUAGE, null);
+		store.put("https://example.com/foo", new CachedResponse(203, headers, "body".getBytes(UTF_8), varyValues, 42));
+
+		CachedResponse response = new FileSystemHttpCacheStore(store.getDirectory()).get("https://example.com/foo");
+		assertThat(response).isNotNull();
+		assertThat(response.getStatusCode()).isEqualTo(203);
+		assertThat(response.getResponseTime()).isEqualTo(42);
+		assertThat(response.getHeaders().get("foo")).containsExactly("bar", "baz");
+		assertThat(response.getHeaders().getCacheControl()).isEqualTo("max-age=60");
+		assertThat(response.getVaryValues()).isEqualTo(varyValues);
+		assertThat(new String(response.getBody(), UTF_8)).isEqualTo("body");
+
+		assertThat(store.get("https://example.com/bar")).isNull();
+		store.remove("https://example.com/foo");
+		assertThat(store.get("https://example.com/foo")).isNull();
+	}
+
+	@Test
+	void lengthExceedingFileSize() throws Exception {
+		FileSystemHttpCacheStore store = new FileSystemHttpCacheStore(this.directory);
+		store.put("https://example.com/foo", new CachedResponse(
+				200, new HttpHeaders(), "body".getBytes(UTF_8), Collections.emptyMap(), 42));
+		assertThat(store.get("https://example.com/foo")).isNotNull();
+
+		Path file;
+		try (Stream<Path> files = Files.list(this.directory)) {
+			file = files.findFirst().get();
+		}
+		byte[] content = Files.readAllBytes(file);
+		ByteBuffer.wrap(content).putInt(content.length - 8, Integer.MAX_VALUE);
+		Files.write(file, content);
+		assertThat(store.get("https://example.com/foo")).isNull();
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.cache;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link InMemoryHttpCacheStore}.
+ *
+ * @author agent
+ */
+class InMemoryHttpCacheStoreTests {
+
+	private final InMemoryHttpCacheStore store = new InMemoryHttpCacheStore(10);
+
+
+	@Test
+	void evictsLeastRecentlyUsed() {
+		this.store.put("a", response(4));
+		this.store.put("b", response(4));
+		assertThat(this.store.get("a")).isNotNull();
+
+		this.store.put("c", response(4));
+		assertThat(this.store.get("a")).isNotNull();
+		assertThat(this.store.get("b")).isNull();
+		assertThat(this.store.get("c")).isNotNull();
+		assertThat(this.store.getSize()).isEqualTo(8);
+	}
+
+	@Test
+	void replaceAndRemove() {
+		this.store.put("a", response(4));
+		this.store.put("a", response(6));
+		assertThat(this.store.getSize()).isEqualTo(6);
+
+		this.store.remove("a");
+		assertThat(this.store.get("a")).isNull();
+		assertThat(this.store.getSize()).isEqualTo(0);
+	}
+
+	@Test
+	void tooLargeToStore() {
+		this.store.put("a", response(4));
+		this.store.put("a", response(11));
+		assertThat(this.store.get("a")).isNull();
+		assertThat(this.store.getSize()).isEqualTo(0);
+	}
+
+
+	private static CachedResponse response(int size) {
+		return new CachedResponse(200, new HttpHeaders(), new byte[size], Collections.emptyMap(), 0);
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.channel.Channel;
+import org.junit.jupiter.api.Test;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link ConnectionMetricsRecorder}.
+ *
+ * @author agent
+ */
+class ConnectionMetricsRecorderTests {
+
+	private final TestListener listener = new TestListener();
+
+	private final ConnectionMetricsRecorder recorder = new ConnectionMetricsRecorder(this.listener);
+
+
+	@Test
+	void pendingRequests() {
+		ConnectionMetricsRecorder.PendingRequest request1 = this.recorder.requestStarted(URI.create("https://example.org/foo"));
+		ConnectionMetricsRecorder.PendingRequest request2 = this.recorder.requestStarted(URI.create("https://example.org:443/bar"));
+		assertThat(this.listener.lastCounts).isEqualTo("example.org:443 0/0/2");
+
+		request1.acquired();
+		request1.finished();
+		assertThat(this.listener.lastCounts).isEqualTo("example.org:443 0/0/1");
+		assertThat(this.listener.acquireTimes).hasSize(1);
+
+		request2.finished();
+		request2.acquired();
+		assertThat(this.listener.lastCounts).isEqualTo("example.org:443 0/0/0");
+		assertThat(this.listener.acquireTimes).hasSize(1);
+	}
+
+	@Test
+	void connectionStates() {
+		Connection connection1 = connection("example.org", 8080);
+		Connection connection2 = connection("example.org", 8080);
+
+		this.recorder.onStateChange(connection1, ConnectionObserver.State.CONNECTED);
+		this.recorder.onStateChange(connection2, ConnectionObserver.State.CONNECTED);
+		assertThat(this.listener.lastCounts).isEqualTo("example.org:8080 2/0/0");
+
+		this.recorder.onStateChange(connection1, ConnectionObserver.State.RELEASED);
+		assertThat(this.listener.lastCounts).isEqualTo("example.org:8080 1/1/0");
+
+		this.recorder.onStateChange(connection1, ConnectionObserver.State.ACQUIRED);
+		this.recorder.onStateChange(connection2, ConnectionObserver.State.RELEASED);
+		assertThat(this.listener.lastCounts).isEqualTo("example.org:8080 1/1/0");
+
+		this.recorder.onStateChange(connection2, ConnectionObserver.State.DISCONNECTING);
+		this.recorder.onStateChange(connection2, ConnectionObserver.State.DISCONNECTING);
+		assertThat(this.listener.lastCounts).isEqualTo("example.org:8080 1/0/0");
+	}
+
+
+	private static Connection connection(String host, int port) {
+		Channel channel = mock(Channel.class);
+		given(channel.remoteAddress()).willReturn(InetSocketAddress.createUnresolved(host, port));
+		Connection connection = mock(Connection.class);
+		given(connection.channel()).willReturn(channel);
+		return connection;
+	}
+
+
+	private static class TestListener implements ConnectionMetricsListener {
+
+		private final List<Duration> acquireTimes = new ArrayList<>();
+
+		private String lastCounts;
+
+		@Override
+		public void connectionAcquired(InetSocketAddress remoteAddress, Duration acquireTime) {
+			this.acquireTimes.add(acquireTime);
+		}
+
+		@Override
+		public void connectionCountsChanged(InetSocketAddress remoteAddress, int active, int idle, int pending) {
+			this.lastCounts = remoteAddress.getHostString() + ":" + remoteAddress.getPort() +
+					" " + active + "/" + idle + "/" + pending;
+		}
+	}
+
+}
@@ -92,6 +92,24 @@ public class ReactorResourceFactoryTests {
 		assertThat(loopResources.isDisposed()).isTrue();
 	}
 
+	@Test
+	void localResourcesWithConnectionPoolSettings() throws Exception {
+
+		this.resourceFactory.setUseGlobalResources(false);
+		this.resourceFactory.setMaxConnections(10);
+		this.resourceFactory.setPendingAcquireMaxCount(20);
+		this.resourceFactory.setPendingAcquireTimeout(Duration.ofSeconds(5));
+		this.resourceFactory.setMaxIdleTime(Duration.ofSeconds(30));
+		this.resourceFactory.afterPropertiesSet();
+
+		ConnectionProvider connectionProvider = this.resourceFactory.getConnectionProvider();
+		assertThat(connectionProvider).isNotSameAs(HttpResources.get());
+
+		this.resourceFactory.destroy();
+
+		assertThat(connectionProvider.isDisposed()).isTrue();
+	}
+
 	@Test
 	void localResourcesViaSupplier() throws Exception {
 
@@ -39,6 +39,7 @@ import reactor.test.StepVerifier;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.testfixture.io.buffer.AbstractLeakCheckingTests;
 
 import static java.util.Arrays.asList;
@@ -256,6 +257,34 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTests {
 				.verify();
 	}
 
+	@Test
+	public void tokenizeSlicedBuffers() {
+		String json = "[{\"id\":1,\"name\":\"Robert\"},{\"id\":2,\"name\":\"Raide\"}]";
+		DataBuffer buffer = stringBuffer("xxx" + json + "yyy");
+		int split = json.indexOf(',') + 1;
+		Flux<DataBuffer> source = Flux.just(
+				buffer.retainedSlice(3, split),
+				buffer.retainedSlice(3 + split, json.length() - split));
+		DataBufferUtils.release(buffer);
+
+		Flux<String> result = Jackson2Tokenizer.tokenize(source, this.jsonFactory, this.objectMapper, true,
+				false, -1)
+				.map(tokenBuffer -> {
+					try {
+						return this.objectMapper.writeValueAsString(
+								this.objectMapper.readTree(tokenBuffer.asParser()));
+					}
+					catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+
+		StepVerifier.create(result)
+				.expectNext("{\"id\":1,\"name\":\"Robert\"}")
+				.expectNext("{\"id\":2,\"name\":\"Raide\"}")
+				.verifyComplete();
+	}
+
 	@Test  // SPR-16521
 	public void jsonEOFExceptionIsWrappedAsDecodingError() {
 		Flux<DataBuffer> source = Flux.just(stringBuffer("{\"status\": \"noClosingQuote}"));
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.testfixture.io.buffer.LeakAwareDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ *
+ * @author agent
+ */
+class DefaultPartHttpMessageReaderTests {
+
+	private static final String BOUNDARY = "simple-boundary";
+
+	private static final String BODY = "preamble\r\n" +
+			"--" + BOUNDARY + "\r\n" +
+			"Content-Disposition: form-data; name=\"text\"\r\n" +
+			"\r\n" +
+			"sample-text\r\n" +
+			"--" + BOUNDARY + "\r\n" +
+			"Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n" +
+			"Content-Type: text/plain\r\n" +
+			"\r\n" +
+			"Lorem Ipsum.\r\n" +
+			"--" + BOUNDARY + "--\r\n" +
+			"epilogue";
+
+	private static final ResolvableType PART_TYPE = ResolvableType.forClass(Part.class);
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private final DefaultPartHttpMessageReader reader = new DefaultPartHttpMessageReader();
+
+
+	@Test
+	void canRead() {
+		assertThat(this.reader.canRead(PART_TYPE, MediaType.MULTIPART_FORM_DATA)).isTrue();
+		assertThat(this.reader.canRead(PART_TYPE, MediaType.MULTIPART_MIXED)).isTrue();
+		assertThat(this.reader.canRead(PART_TYPE, null)).isTrue();
+		assertThat(this.reader.canRead(PART_TYPE, MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(this.reader.canRead(ResolvableType.forClass(String.class), MediaType.MULTIPART_FORM_DATA)).isFalse();
+	}
+
+	@Test
+	void formFieldAndFilePart() {
+		Flux<Part> parts = this.reader.read(PART_TYPE, request(BODY, BODY.length()), emptyMap());
+
+		StepVerifier.create(parts)
+				.consumeNextWith(part -> {
+					assertThat(part).isInstanceOf(FormFieldPart.class);
+					assertThat(part.name()).isEqualTo("text");
+					assertThat(((FormFieldPart) part).value()).isEqualTo("sample-text");
+				})
+				.consumeNextWith(part -> {
+					assertThat(part).isInstanceOf(FilePart.class);
+					assertThat(part.name()).isEqualTo("file");
+					assertThat(((FilePart) part).filename()).isEqualTo("foo.txt");
+					assertThat(content(part)).isEqualTo("Lorem Ipsum.");
+				})
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	void boundarySplitAcrossBuffers() {
+		for (int chunkSize = 1; chunkSize < 24; chunkSize++) {
+			Flux<Part> parts = this.reader.read(PART_TYPE, request(BODY, chunkSize), emptyMap());
+
+			StepVerifier.create(parts)
+					.consumeNextWith(part -> assertThat(((FormFieldPart) part).value()).isEqualTo("sample-text"))
+					.consumeNextWith(part -> assertThat(content(part)).isEqualTo("Lorem Ipsum."))
+					.expectComplete()
+					.verify(Duration.ofSeconds(5));
+		}
+	}
+
+	@Test
+	void quotedBoundary() {
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header("Content-Type", "multipart/form-data; boundary=\"" + BOUNDARY + "\"")
+				.body(Flux.just(this.bufferFactory.wrap(BODY.getBytes(UTF_8))));
+
+		StepVerifier.create(this.reader.read(PART_TYPE, request, emptyMap()).map(Part::name))
+				.expectNext("text", "file")
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	void noBoundary() {
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(MediaType.MULTIPART_FORM_DATA)
+				.body(Flux.just(this.bufferFactory.wrap(BODY.getBytes(UTF_8))));
+
+		StepVerifier.create(this.reader.read(PART_TYPE, request, emptyMap()))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	void missingEndOfBody() {
+		String body = BODY.substring(0, BODY.indexOf("Lorem") + 5);
+
+		StepVerifier.create(this.reader.read(PART_TYPE, request(body, 8), emptyMap()))
+				.expectNextCount(1)
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	void fileSpilledToDisk(@TempDir Path tempDir) throws IOException {
+		this.reader.setMaxInMemorySize(4);
+		this.reader.setFileStorageDirectory(tempDir);
+
+		StepVerifier.create(this.reader.read(PART_TYPE, request(BODY, 8), emptyMap()))
+				.expectErrorSatisfies(ex -> assertThat(ex).isInstanceOf(DataBufferLimitException.class)
+						.hasMessageContaining("'text'"))
+				.verify(Duration.ofSeconds(5));
+
+		String body = BODY.substring(BODY.indexOf("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\""));
+		Path dest = tempDir.resolve("dest.txt");
+		StepVerifier.create(this.reader.read(PART_TYPE, request(body, 8), emptyMap())
+				.concatMap(part -> ((FilePart) part).transferTo(dest)))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+
+		assertThat(new String(Files.readAllBytes(dest), UTF_8)).isEqualTo("Lorem Ipsum.");
+	}
+
+	@Test
+	void unconsumedFilePartIsDeletedOnCleanup(@TempDir Path tempDir) throws IOException {
+		this.reader.setMaxInMemorySize(4);
+		this.reader.setFileStorageDirectory(tempDir);
+		this.reader.setBlockingOperationScheduler(Schedulers.immediate());
+		String body = BODY.substring(BODY.indexOf("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\""));
+		Disposable.Composite partCleanup = Disposables.composite();
+
+		List<Part> parts = this.reader.read(PART_TYPE, request(body, 8), emptyMap())
+				.subscriberContext(Context.of(DefaultPartHttpMessageReader.PART_CLEANUP_CONTEXT_KEY, partCleanup))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertThat(parts).hasSize(1);
+		assertThat(fileCount(tempDir)).isEqualTo(1);
+
+		partCleanup.dispose();
+		assertThat(fileCount(tempDir)).isEqualTo(0);
+	}
+
+	@Test
+	void unconsumedInMemoryPartIsReleasedOnCleanup() {
+		Disposable.Composite partCleanup = Disposables.composite();
+
+		List<Part> parts = this.reader.read(PART_TYPE, request(BODY, 8), emptyMap())
+				.subscriberContext(Context.of(DefaultPartHttpMessageReader.PART_CLEANUP_CONTEXT_KEY, partCleanup))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertThat(parts).hasSize(2);
+		partCleanup.dispose();
+
+		StepVerifier.create(parts.get(1).content())
+				.expectError(IllegalStateException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	void tooManyParts() {
+		this.reader.setMaxParts(1);
+
+		StepVerifier.create(this.reader.read(PART_TYPE, request(BODY, BODY.length()), emptyMap()))
+				.expectNextCount(1)
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	void totalSizeExceeded() {
+		this.reader.setMaxTotalSize(32);
+
+		StepVerifier.create(this.reader.read(PART_TYPE, request(BODY, 16), emptyMap()))
+				.expectError(DataBufferLimitException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	void buffersReleasedWhenTotalSizeExceeded() {
+		LeakAwareDataBufferFactory leakAwareFactory = new LeakAwareDataBufferFactory();
+		this.reader.setMaxTotalSize(40);
+
+		// Allocate lazily, so that only buffers that reach the parser are tracked
+		byte[] bytes = BODY.getBytes(UTF_8);
+		int chunkSize = 8;
+		Flux<DataBuffer> body = Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize).map(i -> {
+			int length = Math.min(chunkSize, bytes.length - i * chunkSize);
+			return leakAwareFactory.allocateBuffer(length).write(bytes, i * chunkSize, length);
+		});
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+				.body(body);
+
+		StepVerifier.create(this.reader.read(PART_TYPE, request, emptyMap()))
+				.expectError(DataBufferLimitException.class)
+				.verify(Duration.ofSeconds(5));
+
+		leakAwareFactory.checkForLeaks();
+	}
+
+	@Test
+	void headersSizeExceeded() {
+		this.reader.setMaxHeadersSize(16);
+
+		StepVerifier.create(this.reader.read(PART_TYPE, request(BODY, 8), emptyMap()))
+				.expectError(DataBufferLimitException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+
+	private MockServerHttpRequest request(String body, int chunkSize) {
+		byte[] bytes = body.getBytes(UTF_8);
+		List<DataBuffer> buffers = new ArrayList<>();
+		for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+			int length = Math.min(chunkSize, bytes.length - offset);
+			DataBuffer buffer = this.bufferFactory.allocateBuffer(length);
+			buffer.write(bytes, offset, length);
+			buffers.add(buffer);
+		}
+		return MockServerHttpRequest.post("/")
+				.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+				.body(Flux.fromIterable(buffers));
+	}
+
+	private static long fileCount(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static String content(Part part) {
+		DataBuffer buffer = DataBufferUtils.join(part.content()).block(Duration.ofSeconds(5));
+		assertThat(buffer).isNotNull();
+		String result = buffer.toString(UTF_8);
+		DataBufferUtils.release(buffer);
+		return result;
+	}
+
+}
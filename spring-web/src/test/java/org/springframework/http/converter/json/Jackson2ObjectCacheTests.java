@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.converter.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MockHttpInputMessage;
+import org.springframework.http.MockHttpOutputMessage;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Unit tests for {@link Jackson2ObjectCache}.
+ *
+ * @author agent
+ */
+class Jackson2ObjectCacheTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final Jackson2ObjectCache cache = new Jackson2ObjectCache(this.objectMapper);
+
+
+	@Test
+	void writerIsCachedPerTypeAndView() {
+		JavaType listType = this.objectMapper.getTypeFactory().constructCollectionType(List.class, String.class);
+
+		ObjectWriter writer = this.cache.getWriter(listType, null, null, null);
+		assertThat(this.cache.getWriter(listType, null, null, null)).isSameAs(writer);
+		assertThat(this.cache.getWriter(listType, View.class, null, null)).isNotSameAs(writer);
+		assertThat(this.cache.getWriter(null, null, null, null)).isNotSameAs(writer);
+
+		assertThat(this.cache.getMissCount()).isEqualTo(3);
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+		assertThat(this.cache.size()).isEqualTo(3);
+	}
+
+	@Test
+	void writerWithFiltersIsNotCached() {
+		JavaType beanType = this.objectMapper.constructType(Bean.class);
+		SimpleFilterProvider filters = new SimpleFilterProvider().setFailOnUnknownId(false);
+
+		ObjectWriter writer = this.cache.getWriter(beanType, null, filters, null);
+		assertThat(writer.getConfig().getFilterProvider()).isSameAs(filters);
+		assertThat(this.cache.getWriter(beanType, null, filters, null)).isNotSameAs(writer);
+		assertThat(this.cache.size()).isZero();
+	}
+
+	@Test
+	void readerIsCachedPerTypeAndView() {
+		JavaType beanType = this.objectMapper.constructType(Bean.class);
+
+		ObjectReader reader = this.cache.getReader(beanType, View.class);
+		assertThat(this.cache.getReader(this.objectMapper.constructType(Bean.class), View.class)).isSameAs(reader);
+		assertThat(this.cache.getReader(beanType, null)).isNotSameAs(reader);
+
+		assertThat(this.cache.getMissCount()).isEqualTo(2);
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void clear() {
+		JavaType beanType = this.objectMapper.constructType(Bean.class);
+		ObjectReader reader = this.cache.getReader(beanType, null);
+		this.cache.clear();
+
+		assertThat(this.cache.size()).isZero();
+		assertThat(this.cache.getReader(beanType, null)).isNotSameAs(reader);
+	}
+
+	@Test
+	void sizeLimit() {
+		Jackson2ObjectCache cache = new Jackson2ObjectCache(this.objectMapper, 1);
+		cache.getReader(this.objectMapper.constructType(Bean.class), null);
+		cache.getReader(this.objectMapper.constructType(String.class), null);
+
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	void canSerializeAndDeserialize() {
+		assertThat(this.cache.canSerialize(Bean.class, null)).isTrue();
+		assertThat(this.cache.canDeserialize(this.objectMapper.constructType(Bean.class), null)).isTrue();
+	}
+
+	@Test
+	void sharedWithConverter() throws IOException {
+		MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
+		converter.setObjectCache(this.cache);
+		assertThat(converter.getObjectMapper()).isSameAs(this.objectMapper);
+
+		MockHttpInputMessage inputMessage = new MockHttpInputMessage("{\"name\":\"foo\"}".getBytes(StandardCharsets.UTF_8));
+		inputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		Bean bean = (Bean) converter.read(Bean.class, inputMessage);
+		assertThat(bean.getName()).isEqualTo("foo");
+
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(bean, MediaType.APPLICATION_JSON, outputMessage);
+		assertThat(outputMessage.getBodyAsString(StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"foo\"}");
+
+		inputMessage = new MockHttpInputMessage("{\"name\":\"bar\"}".getBytes(StandardCharsets.UTF_8));
+		inputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		converter.read(Bean.class, inputMessage);
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+		assertThat(this.cache.getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	void sharedWithCodecRequiresSameObjectMapper() {
+		Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(this.objectMapper);
+		encoder.setObjectCache(this.cache);
+		assertThat(encoder.getObjectCache()).isSameAs(this.cache);
+
+		Jackson2JsonEncoder otherEncoder = new Jackson2JsonEncoder(new ObjectMapper());
+		assertThatIllegalArgumentException().isThrownBy(() -> otherEncoder.setObjectCache(this.cache));
+	}
+
+
+	interface View {
+	}
+
+
+	public static class Bean {
+
+		@JsonView(View.class)
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
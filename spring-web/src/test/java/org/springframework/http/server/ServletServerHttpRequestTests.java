@@ -151,6 +151,40 @@ public class ServletServerHttpRequestTests {
 		assertThat(headers.getContentType()).isNull();
 	}
 
+	@Test
+	public void getHeadersWithContentLengthProperty() {
+		mockRequest.setContent("Hello World".getBytes(StandardCharsets.UTF_8));
+
+		HttpHeaders headers = request.getHeaders();
+		assertThat(headers.getContentLength()).isEqualTo(11);
+		assertThat(headers.keySet()).contains(HttpHeaders.CONTENT_LENGTH);
+	}
+
+	@Test
+	public void getHeadersIsCopy() {
+		mockRequest.addHeader(HttpHeaders.ACCEPT, "text/plain");
+		HttpHeaders headers = request.getHeaders();
+		mockRequest.addHeader("MyHeader", "value");
+
+		assertThat(headers.getFirst("myheader")).isNull();
+		assertThat(headers.getAccept()).containsExactly(MediaType.TEXT_PLAIN);
+	}
+
+	@Test
+	public void modifyHeaders() {
+		mockRequest.addHeader(HttpHeaders.ACCEPT, "text/plain");
+		mockRequest.addHeader("MyHeader", "value");
+
+		HttpHeaders headers = request.getHeaders();
+		assertThat(headers.getFirst(HttpHeaders.ACCEPT)).isEqualTo("text/plain");
+		headers.set(HttpHeaders.ACCEPT, "application/json");
+		headers.add("MyHeader", "value2");
+
+		assertThat(headers.getAccept()).containsExactly(MediaType.APPLICATION_JSON);
+		assertThat(headers.get("myheader")).containsExactly("value", "value2");
+		assertThat(mockRequest.getHeader(HttpHeaders.ACCEPT)).isEqualTo("text/plain");
+	}
+
 	@Test
 	public void getBody() throws IOException {
 		byte[] content = "Hello World".getBytes("UTF-8");
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.server.reactive;
+
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.core.io.buffer.PooledDataBufferFactory;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.testfixture.http.server.reactive.bootstrap.AbstractHttpServer;
+import org.springframework.web.testfixture.http.server.reactive.bootstrap.TomcatHttpServer;
+import org.springframework.web.testfixture.http.server.reactive.bootstrap.UndertowHttpServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for server adapters configured with pooled data buffers.
+ *
+ * @author agent
+ */
+class PooledDataBuffersIntegrationTests {
+
+	private static final int REQUEST_SIZE = 4096 * 3;
+
+
+	@Test
+	void echoWithTomcat() throws Exception {
+		TomcatHttpServer server = new TomcatHttpServer();
+		server.setPooledDataBuffers(true);
+		assertEcho(server, true);
+	}
+
+	@Test
+	void echoWithUndertow() throws Exception {
+		UndertowHttpServer server = new UndertowHttpServer();
+		server.setPooledDataBuffers(true);
+		assertEcho(server, false);
+	}
+
+	private void assertEcho(AbstractHttpServer server, boolean pooledRequestBuffers) throws Exception {
+		PooledEchoHandler handler = new PooledEchoHandler();
+		server.setHandler(handler);
+		server.afterPropertiesSet();
+		server.start();
+		try {
+			byte[] body = new byte[REQUEST_SIZE];
+			new Random().nextBytes(body);
+			RequestEntity<byte[]> request = RequestEntity.post(new URI("http://localhost:" + server.getPort())).body(body);
+			ResponseEntity<byte[]> response = new RestTemplate().exchange(request, byte[].class);
+
+			assertThat(response.getBody()).isEqualTo(body);
+			assertThat(handler.pooledResponseFactory.get()).isTrue();
+			if (pooledRequestBuffers) {
+				// Undertow reads into buffers from its own pool instead
+				assertThat(handler.pooledRequestBuffers.get()).isTrue();
+			}
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+
+	private static class PooledEchoHandler implements HttpHandler {
+
+		final AtomicBoolean pooledResponseFactory = new AtomicBoolean();
+
+		final AtomicBoolean pooledRequestBuffers = new AtomicBoolean(true);
+
+		@Override
+		public Mono<Void> handle(ServerHttpRequest request, ServerHttpResponse response) {
+			this.pooledResponseFactory.set(response.bufferFactory() instanceof PooledDataBufferFactory);
+			return response.writeWith(request.getBody().doOnNext(this::checkPooled));
+		}
+
+		private void checkPooled(DataBuffer buffer) {
+			if (!(buffer instanceof PooledDataBuffer && buffer.factory() instanceof PooledDataBufferFactory)) {
+				this.pooledRequestBuffers.set(false);
+			}
+		}
+	}
+
+}
@@ -69,6 +69,16 @@ public class HeaderContentNegotiationStrategyTests {
 		assertThat(mediaTypes.get(3).toString()).isEqualTo("text/plain;q=0.5");
 	}
 
+	@Test
+	public void resolveMediaTypesCached() throws Exception {
+		this.servletRequest.addHeader("Accept", "text/plain; q=0.5, text/html");
+		List<MediaType> mediaTypes = this.strategy.resolveMediaTypes(this.webRequest);
+
+		MockHttpServletRequest otherRequest = new MockHttpServletRequest();
+		otherRequest.addHeader("Accept", "text/plain; q=0.5, text/html");
+		assertThat(this.strategy.resolveMediaTypes(new ServletWebRequest(otherRequest))).isSameAs(mediaTypes);
+	}
+
 	@Test
 	public void resolveMediaTypesParseError() throws Exception {
 		this.servletRequest.addHeader("Accept", "textplain; q=0.5");
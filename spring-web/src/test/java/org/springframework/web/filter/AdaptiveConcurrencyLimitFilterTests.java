@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.AdaptiveConcurrencyLimiter;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.testfixture.servlet.MockAsyncContext;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimitFilter}.
+ *
+ * @author agent
+ */
+class AdaptiveConcurrencyLimitFilterTests {
+
+	private final AdaptiveConcurrencyLimitFilter filter = new AdaptiveConcurrencyLimitFilter();
+
+
+	AdaptiveConcurrencyLimitFilterTests() {
+		this.filter.setLimiterSupplier(() ->
+				new AdaptiveConcurrencyLimiter((limit, inFlight, latency, dropped) -> limit, 1));
+	}
+
+
+	@Test
+	void rejectsBeyondLimit() throws Exception {
+		MockHttpServletRequest request = asyncRequest();
+		this.filter.doFilter(request, new MockHttpServletResponse(), startAsyncChain());
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.filter.doFilter(new MockHttpServletRequest(), response, (filterRequest, filterResponse) -> {});
+		assertThat(response.getStatus()).isEqualTo(503);
+
+		((MockAsyncContext) request.getAsyncContext()).complete();
+		AdaptiveConcurrencyLimiter limiter = this.filter.getLimiters().get("");
+		assertThat(limiter.getInFlight()).isEqualTo(0);
+		assertThat(limiter.getRejectedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void releasesPermitWhenAsyncIsStartedAgain() throws Exception {
+		MockHttpServletRequest request = asyncRequest();
+		this.filter.doFilter(request, new MockHttpServletResponse(), startAsyncChain());
+		AdaptiveConcurrencyLimiter limiter = this.filter.getLimiters().get("");
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+
+		// Start async again, as after an async dispatch: the container notifies
+		// the current listeners, and then drops them
+		MockAsyncContext firstContext = (MockAsyncContext) request.getAsyncContext();
+		List<AsyncListener> listeners = new ArrayList<>(firstContext.getListeners());
+		AsyncContext secondContext = request.startAsync();
+		for (AsyncListener listener : listeners) {
+			listener.onStartAsync(new AsyncEvent(secondContext, request, secondContext.getResponse()));
+		}
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+
+		((MockAsyncContext) secondContext).complete();
+		assertThat(limiter.getInFlight()).isEqualTo(0);
+	}
+
+
+	private static MockHttpServletRequest asyncRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setAsyncSupported(true);
+		return request;
+	}
+
+	private static FilterChain startAsyncChain() {
+		return (filterRequest, filterResponse) -> {
+			StandardServletAsyncWebRequest asyncWebRequest = new StandardServletAsyncWebRequest(
+					(HttpServletRequest) filterRequest, (HttpServletResponse) filterResponse);
+			WebAsyncUtils.getAsyncManager(filterRequest).setAsyncWebRequest(asyncWebRequest);
+			asyncWebRequest.startAsync();
+		};
+	}
+
+}
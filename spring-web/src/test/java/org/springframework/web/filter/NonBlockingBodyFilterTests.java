@@ -0,0 +1,346 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.testfixture.servlet.MockAsyncContext;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link NonBlockingBodyFilter}.
+ *
+ * @author agent
+ */
+public class NonBlockingBodyFilterTests {
+
+	private static final byte[] BODY = "{\"name\":\"Joe\"}".getBytes(StandardCharsets.UTF_8);
+
+
+	private final NonBlockingBodyFilter filter = new NonBlockingBodyFilter();
+
+
+	@Test
+	public void readBodyThenDispatch() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("POST", "/person", BODY);
+		request.setContentType("application/json");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<String> bodyRef = new AtomicReference<>();
+		FilterChain filterChain = (filterRequest, filterResponse) ->
+				bodyRef.set(StreamUtils.copyToString(filterRequest.getInputStream(), StandardCharsets.UTF_8));
+
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(bodyRef.get()).isNull();
+		assertThat(request.isAsyncStarted()).isTrue();
+		assertThat(((MockAsyncContext) request.getAsyncContext()).getDispatchedPath()).isEqualTo("/person");
+
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(bodyRef.get()).isEqualTo("{\"name\":\"Joe\"}");
+	}
+
+	@Test
+	public void bodyExceedsMaxInMemorySize() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("POST", "/person", BODY);
+		request.setContentType("application/json");
+		request.addHeader("Transfer-Encoding", "chunked");
+		request.setContentLengthUnknown();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<String> bodyRef = new AtomicReference<>();
+		AtomicReference<Long> lengthRef = new AtomicReference<>();
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			lengthRef.set(filterRequest.getContentLengthLong());
+			bodyRef.set(StreamUtils.copyToString(filterRequest.getInputStream(), StandardCharsets.UTF_8));
+		};
+
+		this.filter.setMaxInMemorySize(4);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(bodyRef.get()).isNull();
+		assertThat(request.isAsyncStarted()).isTrue();
+
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(lengthRef.get()).isEqualTo((long) BODY.length);
+		assertThat(bodyRef.get()).isEqualTo("{\"name\":\"Joe\"}");
+	}
+
+	@Test
+	public void declaredContentLengthExceedsMaxInMemorySize() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("POST", "/person", BODY);
+		request.setContentType("application/json");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<String> bodyRef = new AtomicReference<>();
+		FilterChain filterChain = (filterRequest, filterResponse) ->
+				bodyRef.set(StreamUtils.copyToString(filterRequest.getInputStream(), StandardCharsets.UTF_8));
+
+		this.filter.setMaxInMemorySize(4);
+		this.filter.doFilter(request, response, filterChain);
+		assertThat(request.isAsyncStarted()).isTrue();
+
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(bodyRef.get()).isEqualTo("{\"name\":\"Joe\"}");
+	}
+
+	@Test
+	public void inputStreamIsCreatedOnceAndClosedOnCompletion() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("POST", "/person", BODY);
+		request.setContentType("application/json");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<ServletInputStream> inputStreamRef = new AtomicReference<>();
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			ServletInputStream inputStream = filterRequest.getInputStream();
+			assertThat(inputStream.read()).isEqualTo('{');
+			assertThat(filterRequest.getInputStream()).isSameAs(inputStream);
+			assertThatIllegalStateException().isThrownBy(filterRequest::getReader);
+			inputStreamRef.set(inputStream);
+		};
+
+		this.filter.setMaxInMemorySize(4);
+		this.filter.doFilter(request, response, filterChain);
+
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(inputStreamRef.get()).isNotNull();
+		assertThatIOException().isThrownBy(() -> inputStreamRef.get().read());
+	}
+
+	@Test
+	public void readerExcludesInputStream() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("POST", "/person", BODY);
+		request.setContentType("application/json");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<String> bodyRef = new AtomicReference<>();
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			BufferedReader reader = filterRequest.getReader();
+			assertThat(filterRequest.getReader()).isSameAs(reader);
+			assertThatIllegalStateException().isThrownBy(filterRequest::getInputStream);
+			bodyRef.set(FileCopyUtils.copyToString(reader));
+		};
+
+		this.filter.doFilter(request, response, filterChain);
+
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(bodyRef.get()).isEqualTo("{\"name\":\"Joe\"}");
+	}
+
+	@Test
+	public void laterFiltersAreInvokedOnAsyncDispatch() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("POST", "/person",
+				"{\"name\":\"J\u00fcrgen\"}".getBytes(StandardCharsets.UTF_8));
+		request.setContentType("application/json");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		CharacterEncodingFilter encodingFilter = new CharacterEncodingFilter("UTF-8");
+		AtomicReference<String> bodyRef = new AtomicReference<>();
+		FilterChain filterChain = (filterRequest, filterResponse) ->
+				encodingFilter.doFilter(filterRequest, filterResponse, (encodedRequest, encodedResponse) ->
+						bodyRef.set(FileCopyUtils.copyToString(encodedRequest.getReader())));
+
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(request.isAsyncStarted()).isTrue();
+		assertThat(request.getCharacterEncoding()).isNull();
+		assertThat(bodyRef.get()).isNull();
+
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		this.filter.doFilter(request, response, filterChain);
+
+		assertThat(request.getCharacterEncoding()).isEqualTo("UTF-8");
+		assertThat(bodyRef.get()).isEqualTo("{\"name\":\"J\u00fcrgen\"}");
+	}
+
+	@Test
+	public void formContentIsNotRead() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("POST", "/person", "name=Joe".getBytes());
+		request.setContentType("application/x-www-form-urlencoded");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<HttpServletRequest> requestRef = new AtomicReference<>();
+
+		this.filter.doFilter(request, response, (filterRequest, filterResponse) ->
+				requestRef.set((HttpServletRequest) filterRequest));
+
+		assertThat(requestRef.get()).isSameAs(request);
+		assertThat(request.isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void requestWithoutBody() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("GET", "/person", null);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<HttpServletRequest> requestRef = new AtomicReference<>();
+
+		this.filter.doFilter(request, response, (filterRequest, filterResponse) ->
+				requestRef.set((HttpServletRequest) filterRequest));
+
+		assertThat(requestRef.get()).isSameAs(request);
+		assertThat(request.isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void writeSmallResponseBody() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("GET", "/person", null);
+		NonBlockingMockResponse response = new NonBlockingMockResponse();
+
+		this.filter.setWriteResponseBody(true);
+		this.filter.doFilter(request, response, (filterRequest, filterResponse) ->
+				FileCopyUtils.copy(BODY, filterResponse.getOutputStream()));
+
+		assertThat(request.isAsyncStarted()).isFalse();
+		assertThat(response.getContentLength()).isEqualTo(BODY.length);
+		assertThat(response.getContentAsByteArray()).isEqualTo(BODY);
+	}
+
+	@Test
+	public void writeLargeResponseBody() throws Exception {
+		NonBlockingMockRequest request = new NonBlockingMockRequest("GET", "/person", null);
+		NonBlockingMockResponse response = new NonBlockingMockResponse();
+		byte[] content = new byte[20000];
+
+		this.filter.setWriteResponseBody(true);
+		this.filter.setResponseWriteThreshold(BODY.length);
+		this.filter.doFilter(request, response, (filterRequest, filterResponse) ->
+				FileCopyUtils.copy(content, filterResponse.getOutputStream()));
+
+		assertThat(request.isAsyncStarted()).isFalse();
+		assertThat(response.getContentLength()).isEqualTo(content.length);
+		assertThat(response.getContentAsByteArray()).isEqualTo(content);
+	}
+
+
+	private static class NonBlockingMockRequest extends MockHttpServletRequest {
+
+		private boolean contentLengthUnknown;
+
+		NonBlockingMockRequest(String method, String requestURI, byte[] content) {
+			super(method, requestURI);
+			setContent(content);
+			setAsyncSupported(true);
+		}
+
+		void setContentLengthUnknown() {
+			this.contentLengthUnknown = true;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return (this.contentLengthUnknown ? -1 : super.getContentLengthLong());
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ServletInputStream delegate = super.getInputStream();
+			return new ServletInputStream() {
+				@Override
+				public int read() throws IOException {
+					return delegate.read();
+				}
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					return delegate.read(b, off, len);
+				}
+				@Override
+				public boolean isFinished() {
+					return delegate.isFinished();
+				}
+				@Override
+				public boolean isReady() {
+					return !delegate.isFinished();
+				}
+				@Override
+				public void setReadListener(ReadListener listener) {
+					try {
+						listener.onDataAvailable();
+						if (getAsyncContext() != null && isAsyncStarted()) {
+							listener.onAllDataRead();
+						}
+					}
+					catch (IOException ex) {
+						listener.onError(ex);
+					}
+				}
+			};
+		}
+	}
+
+
+	private static class NonBlockingMockResponse extends MockHttpServletResponse {
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			ServletOutputStream delegate = super.getOutputStream();
+			return new ServletOutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					delegate.write(b);
+				}
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					delegate.write(b, off, len);
+				}
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+				@Override
+				public void setWriteListener(WriteListener listener) {
+					try {
+						listener.onWritePossible();
+					}
+					catch (IOException ex) {
+						listener.onError(ex);
+					}
+				}
+			};
+		}
+	}
+
+}
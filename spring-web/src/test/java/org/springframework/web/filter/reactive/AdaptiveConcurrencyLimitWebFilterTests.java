@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter.reactive;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AdaptiveConcurrencyLimiter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.testfixture.server.MockServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimitWebFilter}.
+ *
+ * @author agent
+ */
+class AdaptiveConcurrencyLimitWebFilterTests {
+
+	private final AdaptiveConcurrencyLimitWebFilter filter = new AdaptiveConcurrencyLimitWebFilter();
+
+
+	@Test
+	void rejectsBeyondLimit() {
+		this.filter.setLimiterSupplier(() ->
+				new AdaptiveConcurrencyLimiter((limit, inFlight, latency, dropped) -> limit, 1));
+		WebFilterChain pendingChain = exchange -> Mono.never();
+
+		MockServerWebExchange exchange1 = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		Disposable pending = this.filter.filter(exchange1, pendingChain).subscribe();
+
+		MockServerWebExchange exchange2 = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		this.filter.filter(exchange2, exchange -> Mono.empty()).block();
+		assertThat(exchange2.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+		pending.dispose();
+		AdaptiveConcurrencyLimiter limiter = this.filter.getLimiters().get("");
+		assertThat(limiter.getInFlight()).isEqualTo(0);
+		assertThat(limiter.getRejectedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void partitionKeyResolver() {
+		this.filter.setPartitionKeyResolver(exchange -> exchange.getRequest().getPath().subPath(0, 2).value());
+		this.filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/foo/1")), exchange -> Mono.empty()).block();
+		this.filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/bar/1")), exchange -> Mono.empty()).block();
+		assertThat(this.filter.getLimiters()).containsOnlyKeys("/foo", "/bar");
+	}
+
+}
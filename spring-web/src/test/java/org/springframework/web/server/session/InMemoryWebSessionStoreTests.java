@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,9 @@ package org.springframework.web.server.session;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Disabled;
@@ -161,6 +163,97 @@ public class InMemoryWebSessionStoreTests {
 			.withMessage("Max sessions limit reached: 10000");
 	}
 
+	@Test
+	public void shardedExpiration() {
+		this.store.setShardCount(4);
+		WebSession idle = insertSession();
+		WebSession active = insertSession();
+		assertThat(this.store.getActiveSessionCount()).isEqualTo(2);
+
+		// Fast-forward 20 minutes and access one session
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(20)));
+		assertThat(this.store.retrieveSession(active.getId()).block()).isSameAs(active);
+
+		// Fast-forward 11 more minutes
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(11)));
+		assertThat(this.store.getActiveSessionCount()).isEqualTo(1);
+		assertThat(this.store.getExpiredSessionCount()).isEqualTo(1);
+		assertThat(this.store.getSessions()).containsOnlyKeys(active.getId());
+		assertThat(idle.isExpired()).isTrue();
+		assertThat(active.isExpired()).isFalse();
+
+		// Fast-forward 20 more minutes
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(20)));
+		assertThat(this.store.getActiveSessionCount()).isEqualTo(0);
+		assertThat(this.store.getExpiredSessionCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void shardedExpirationWithShorterMaxIdleTime() {
+		this.store.setShardCount(1);
+		WebSession session = insertSession();
+		session.setMaxIdleTime(Duration.ofMinutes(5));
+		session.save().block();
+
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(6)));
+		assertThat(this.store.getActiveSessionCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void shardedChangeSessionId() {
+		this.store.setShardCount(4);
+		WebSession session = insertSession();
+		String oldId = session.getId();
+		session.changeSessionId().block();
+
+		assertThat(this.store.retrieveSession(oldId).block()).isNull();
+		assertThat(this.store.retrieveSession(session.getId()).block()).isSameAs(session);
+		assertThat(this.store.getActiveSessionCount()).isEqualTo(1);
+
+		// Sessions moving across shards must still expire
+		List<WebSession> sessions = IntStream.range(0, 16).mapToObj(i -> insertSession()).collect(Collectors.toList());
+		sessions.forEach(movedSession -> movedSession.changeSessionId().block());
+		assertThat(this.store.getActiveSessionCount()).isEqualTo(17);
+
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(31)));
+		assertThat(this.store.getActiveSessionCount()).isEqualTo(0);
+		assertThat(this.store.getExpiredSessionCount()).isEqualTo(17);
+		assertThat(sessions).allMatch(WebSession::isExpired);
+	}
+
+	@Test
+	public void shardedRemoveSession() {
+		this.store.setShardCount(1);
+		WebSession session = insertSession();
+		this.store.removeSession(session.getId()).block();
+
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(31)));
+		assertThat(this.store.getActiveSessionCount()).isEqualTo(0);
+		assertThat(this.store.getExpiredSessionCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void shardedEvictsLeastRecentlyUsed() {
+		this.store.setShardCount(1);
+		this.store.setMaxSessions(2);
+		WebSession session1 = insertSession();
+		WebSession session2 = insertSession();
+
+		// Access the first session, so the second one is least recently used
+		assertThat(this.store.retrieveSession(session1.getId()).block()).isSameAs(session1);
+		WebSession session3 = insertSession();
+
+		assertThat(this.store.getSessions()).containsOnlyKeys(session1.getId(), session3.getId());
+		assertThat(this.store.getEvictedSessionCount()).isEqualTo(1);
+		assertThat(session2.isExpired()).isTrue();
+	}
+
+	@Test
+	public void shardCountCannotChangeOnceSessionsAreStored() {
+		insertSession();
+		assertThatIllegalStateException().isThrownBy(() -> this.store.setShardCount(4));
+	}
+
 	private WebSession insertSession() {
 		WebSession session = this.store.createWebSession().block();
 		assertThat(session).isNotNull();
@@ -39,6 +39,8 @@ public class TomcatHttpServer extends AbstractHttpServer {
 
 	private String servletMapping = "/";
 
+	private boolean pooledDataBuffers;
+
 	private Tomcat tomcatServer;
 
 
@@ -70,6 +72,10 @@ public class TomcatHttpServer extends AbstractHttpServer {
 		this.servletMapping = servletMapping;
 	}
 
+	public void setPooledDataBuffers(boolean pooledDataBuffers) {
+		this.pooledDataBuffers = pooledDataBuffers;
+	}
+
 
 	@Override
 	protected void initServer() throws Exception {
@@ -90,7 +96,9 @@ public class TomcatHttpServer extends AbstractHttpServer {
 	}
 
 	private ServletHttpHandlerAdapter initServletAdapter() {
-		return new TomcatHttpHandlerAdapter(resolveHttpHandler());
+		TomcatHttpHandlerAdapter adapter = new TomcatHttpHandlerAdapter(resolveHttpHandler());
+		adapter.setPooledDataBuffers(this.pooledDataBuffers);
+		return adapter;
 	}
 
 
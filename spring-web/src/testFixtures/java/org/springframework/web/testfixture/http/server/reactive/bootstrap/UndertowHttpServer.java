@@ -29,6 +29,13 @@ public class UndertowHttpServer extends AbstractHttpServer {
 
 	private Undertow server;
 
+	private boolean pooledDataBuffers;
+
+
+	public void setPooledDataBuffers(boolean pooledDataBuffers) {
+		this.pooledDataBuffers = pooledDataBuffers;
+	}
+
 
 	@Override
 	protected void initServer() throws Exception {
@@ -38,7 +45,9 @@ public class UndertowHttpServer extends AbstractHttpServer {
 	}
 
 	private UndertowHttpHandlerAdapter initHttpHandlerAdapter() {
-		return new UndertowHttpHandlerAdapter(resolveHttpHandler());
+		UndertowHttpHandlerAdapter adapter = new UndertowHttpHandlerAdapter(resolveHttpHandler());
+		adapter.setPooledDataBuffers(this.pooledDataBuffers);
+		return adapter;
 	}
 
 	@Override
@@ -16,34 +16,59 @@
 
 package org.springframework.web.reactive.accept;
 
+import java.util.Collections;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.NotAcceptableStatusException;
 import org.springframework.web.server.ServerWebExchange;
 
 /**
  * Resolver that looks at the 'Accept' header of the request.
  *
+ * <p>As of 5.2.13, the parsed and sorted media types are cached by raw header
+ * value, given that clients tend to send a small number of distinct values.
+ * The returned lists are unmodifiable.
+ *
  * @author Rossen Stoyanchev
  * @since 5.0
  */
 public class HeaderContentTypeResolver implements RequestedContentTypeResolver {
 
+	private static final int CACHE_LIMIT = 64;
+
+
+	private final ConcurrentLruCache<String, List<MediaType>> mediaTypesCache =
+			new ConcurrentLruCache<>(CACHE_LIMIT, HeaderContentTypeResolver::parseAndSort);
+
+
 	@Override
 	public List<MediaType> resolveMediaTypes(ServerWebExchange exchange) throws NotAcceptableStatusException {
+		List<String> headerValues = exchange.getRequest().getHeaders().get(HttpHeaders.ACCEPT);
+		if (CollectionUtils.isEmpty(headerValues)) {
+			return MEDIA_TYPE_ALL_LIST;
+		}
+		String headerValue = (headerValues.size() == 1 ? headerValues.get(0) :
+				StringUtils.collectionToDelimitedString(headerValues, ", "));
 		try {
-			List<MediaType> mediaTypes = exchange.getRequest().getHeaders().getAccept();
-			MediaType.sortBySpecificityAndQuality(mediaTypes);
+			List<MediaType> mediaTypes = this.mediaTypesCache.get(headerValue);
 			return (!CollectionUtils.isEmpty(mediaTypes) ? mediaTypes : MEDIA_TYPE_ALL_LIST);
 		}
 		catch (InvalidMediaTypeException ex) {
-			String value = exchange.getRequest().getHeaders().getFirst("Accept");
 			throw new NotAcceptableStatusException(
-					"Could not parse 'Accept' header [" + value + "]: " + ex.getMessage());
+					"Could not parse 'Accept' header [" + headerValue + "]: " + ex.getMessage());
 		}
 	}
 
+	private static List<MediaType> parseAndSort(String headerValue) {
+		List<MediaType> mediaTypes = MediaType.parseMediaTypes(headerValue);
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+		return Collections.unmodifiableList(mediaTypes);
+	}
+
 }
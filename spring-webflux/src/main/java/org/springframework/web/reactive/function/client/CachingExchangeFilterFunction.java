@@ -0,0 +1,292 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.cache.CachedResponse;
+import org.springframework.http.client.cache.HttpCacheStore;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.BodyExtractors;
+
+/**
+ * {@link ExchangeFilterFunction} that caches {@code GET} responses in an
+ * {@link HttpCacheStore}, honoring {@code Cache-Control}, {@code Expires},
+ * {@code ETag}, {@code Last-Modified}, and {@code Vary} as a shared cache.
+ *
+ * <p>Fresh responses are served from the store without an exchange. Stale
+ * responses with validators are revalidated with a conditional request, and
+ * served from the store if the server responds with {@code 304 Not Modified}.
+ * Responses within their {@code stale-while-revalidate} window are served from
+ * the store right away while being revalidated in the background, with at
+ * most one background revalidation in progress per stored response.
+ *
+ * <p>Response bodies are copied into the store as they are consumed, up to
+ * {@link #setMaxEntrySize(int) maxEntrySize}, so a response is only stored
+ * once its body has been read completely. Successful responses to unsafe
+ * methods, e.g. {@code POST}, invalidate the response stored for the same URI.
+ *
+ * <p>As with the {@code RestTemplate} interceptor, {@code private} responses
+ * are not stored, and authorized responses only if explicitly marked as
+ * shareable; those are then served to any later request for the same URI,
+ * regardless of its credentials.
+ *
+ * <p>Note that the store is accessed on the thread the exchange runs on,
+ * which makes a store that does not block, such as the
+ * {@link org.springframework.http.client.cache.InMemoryHttpCacheStore
+ * InMemoryHttpCacheStore}, the preferred choice.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see org.springframework.http.client.cache.CachingClientHttpRequestInterceptor
+ */
+public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
+
+	private static final Log logger = LogFactory.getLog(CachingExchangeFilterFunction.class);
+
+	private static final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+
+	private final HttpCacheStore store;
+
+	private ExchangeStrategies strategies = ExchangeStrategies.withDefaults();
+
+	private int maxEntrySize = 1024 * 1024;
+
+	private Clock clock = Clock.systemUTC();
+
+	private final Set<String> revalidatingKeys = ConcurrentHashMap.newKeySet();
+
+
+	/**
+	 * Create a new filter that stores responses in the given store.
+	 * @param store the store to use
+	 */
+	public CachingExchangeFilterFunction(HttpCacheStore store) {
+		Assert.notNull(store, "HttpCacheStore must not be null");
+		this.store = store;
+	}
+
+
+	/**
+	 * Set the strategies to read the bodies of responses served from the
+	 * store with.
+	 * <p>By default, {@link ExchangeStrategies#withDefaults()}.
+	 * @param strategies the strategies to use
+	 */
+	public void setExchangeStrategies(ExchangeStrategies strategies) {
+		Assert.notNull(strategies, "ExchangeStrategies must not be null");
+		this.strategies = strategies;
+	}
+
+	/**
+	 * Return the configured exchange strategies.
+	 */
+	public ExchangeStrategies getExchangeStrategies() {
+		return this.strategies;
+	}
+
+	/**
+	 * Set the maximum size of a response body to store. Larger responses are
+	 * passed through without being stored.
+	 * <p>By default set to 1MB.
+	 * @param maxEntrySize the maximum body size in bytes
+	 */
+	public void setMaxEntrySize(int maxEntrySize) {
+		Assert.isTrue(maxEntrySize >= 0, "Max entry size must not be negative");
+		this.maxEntrySize = maxEntrySize;
+	}
+
+	/**
+	 * Return the configured maximum size of a response body to store.
+	 */
+	public int getMaxEntrySize() {
+		return this.maxEntrySize;
+	}
+
+	/**
+	 * Set the {@link Clock} to determine the age of stored responses with.
+	 * <p>By default, {@link Clock#systemUTC()}.
+	 * @param clock the clock to use
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "Clock must not be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Return the configured clock.
+	 */
+	public Clock getClock() {
+		return this.clock;
+	}
+
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		HttpMethod method = request.method();
+		String key = request.url().toString();
+
+		if (method != HttpMethod.GET) {
+			Mono<ClientResponse> result = next.exchange(request);
+			if (method != HttpMethod.HEAD && method != HttpMethod.OPTIONS && method != HttpMethod.TRACE) {
+				result = result.doOnNext(response -> {
+					int statusCode = response.rawStatusCode();
+					if (statusCode >= 200 && statusCode < 400) {
+						this.store.remove(key);
+					}
+				});
+			}
+			return result;
+		}
+
+		return Mono.defer(() -> {
+			CachedResponse cached = this.store.get(key);
+			if (cached != null && !cached.matches(request.headers())) {
+				cached = null;
+			}
+			if (cached != null && !CachedResponse.isNoCacheRequest(request.headers())) {
+				long now = this.clock.millis();
+				if (cached.isFresh(now)) {
+					return Mono.just(createResponse(cached));
+				}
+				if (cached.hasValidators() && cached.isStaleWhileRevalidate(now)) {
+					if (this.revalidatingKeys.add(key)) {
+						revalidate(request, next, key, cached);
+					}
+					return Mono.just(createResponse(cached));
+				}
+			}
+			return exchange(request, next, key, cached);
+		});
+	}
+
+	private void revalidate(ClientRequest request, ExchangeFunction next, String key, CachedResponse cached) {
+		exchange(request, next, key, cached)
+				.flatMap(response -> response.body(BodyExtractors.toDataBuffers())
+						.doOnNext(DataBufferUtils::release)
+						.then())
+				.doFinally(signal -> this.revalidatingKeys.remove(key))
+				.subscribe(null, ex -> {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to revalidate cached response for " + key, ex);
+					}
+				});
+	}
+
+	private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next,
+			String key, @Nullable CachedResponse cached) {
+
+		boolean conditional = (cached != null && cached.hasValidators());
+		ClientRequest requestToUse = (conditional ?
+				ClientRequest.from(request).headers(cached::addConditionalHeaders).build() : request);
+
+		return next.exchange(requestToUse).flatMap(response -> {
+			int statusCode = response.rawStatusCode();
+			if (conditional && statusCode == HttpStatus.NOT_MODIFIED.value()) {
+				return response.releaseBody().then(Mono.fromSupplier(() -> {
+					CachedResponse revalidated = cached.revalidated(
+							response.headers().asHttpHeaders(), this.clock.millis());
+					this.store.put(key, revalidated);
+					return createResponse(revalidated);
+				}));
+			}
+			HttpHeaders responseHeaders = response.headers().asHttpHeaders();
+			if (!CachedResponse.isCacheable(request.headers(), statusCode, responseHeaders) ||
+					responseHeaders.getContentLength() > this.maxEntrySize) {
+				return Mono.just(response);
+			}
+			Flux<DataBuffer> body = Flux.defer(() -> {
+				ContentCopy copy = new ContentCopy(this.maxEntrySize);
+				return response.body(BodyExtractors.toDataBuffers())
+						.doOnNext(copy::add)
+						.doOnComplete(() -> {
+							byte[] content = copy.getContent();
+							if (content != null) {
+								this.store.put(key, CachedResponse.create(request.headers(), statusCode,
+										responseHeaders, content, this.clock.millis()));
+							}
+						});
+			});
+			return Mono.just(ClientResponse.from(response).body(body).build());
+		});
+	}
+
+	private ClientResponse createResponse(CachedResponse cached) {
+		byte[] content = cached.getBody();
+		Flux<DataBuffer> body = (content.length > 0 ?
+				Flux.defer(() -> Flux.just(bufferFactory.wrap(content))) : Flux.empty());
+		return ClientResponse.create(cached.getStatusCode(), this.strategies)
+				.headers(headers -> headers.addAll(cached.getHeaders()))
+				.body(body)
+				.build();
+	}
+
+
+	/**
+	 * Copy of the content of a response body, given up on once the body turns
+	 * out to be too large to store.
+	 */
+	private static class ContentCopy {
+
+		private final int maxSize;
+
+		@Nullable
+		private ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+
+		ContentCopy(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+
+		void add(DataBuffer buffer) {
+			if (this.content == null) {
+				return;
+			}
+			int count = buffer.readableByteCount();
+			if (this.content.size() + count > this.maxSize) {
+				this.content = null;
+				return;
+			}
+			byte[] bytes = new byte[count];
+			buffer.asByteBuffer().get(bytes);
+			this.content.write(bytes, 0, count);
+		}
+
+		@Nullable
+		byte[] getContent() {
+			return (this.content != null ? this.content.toByteArray() : null);
+		}
+	}
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.FastByteArrayOutputStream;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyExtractors;
+
+/**
+ * {@link ExchangeFilterFunction} that coalesces concurrent, identical
+ * {@code GET} and {@code HEAD} requests into a single exchange, e.g. to avoid
+ * a burst of identical requests to the same upstream when a cache entry
+ * expires. Requests are identical if their method, URI, cookies, and the
+ * values of the {@link #setHeaderNames key headers} are equal.
+ *
+ * <p>Only requests without any headers other than the key headers are
+ * coalesced, so that requests carrying credentials or other caller-specific
+ * headers (e.g. {@code X-Api-Key}) never receive the response of another
+ * caller. Such headers need to be declared as key headers in order for
+ * requests that carry them to be coalesced.
+ *
+ * <p>The first request receives the response of the exchange as it streams
+ * in. Requests that join while it is in flight, i.e. before its response
+ * status and headers are received, wait for the first request to consume
+ * the body, which is copied up to {@link #setMaxInMemorySize(int)
+ * maxInMemorySize} bytes and then replayed to each of them as a separate
+ * {@link ClientResponse}. If the body exceeds the limit, or the first
+ * request does not consume it, waiting requests fall back on an exchange
+ * of their own. A body is never copied when no other request joined.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public class CoalescingExchangeFilterFunction implements ExchangeFilterFunction {
+
+	private static final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+
+	private final Map<Object, InFlightExchange> inFlightExchanges = new ConcurrentHashMap<>();
+
+	private List<String> headerNames = Arrays.asList(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING,
+			HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE);
+
+	private int maxInMemorySize = 256 * 1024;
+
+
+	/**
+	 * Set the names of the request headers whose values, in addition to the
+	 * method, URI, and cookies, must be equal for requests to be coalesced.
+	 * Requests with any other header are not coalesced.
+	 * <p>By default, {@code Accept}, {@code Accept-Encoding},
+	 * {@code Accept-Language}, {@code Authorization}, and {@code Cookie}.
+	 * @param headerNames the names of the key headers
+	 */
+	public void setHeaderNames(String... headerNames) {
+		Assert.notNull(headerNames, "'headerNames' must not be null");
+		this.headerNames = Arrays.asList(headerNames);
+	}
+
+	/**
+	 * Return the configured names of the key headers.
+	 */
+	public List<String> getHeaderNames() {
+		return this.headerNames;
+	}
+
+	/**
+	 * Set the maximum number of bytes of a shared response body to copy
+	 * for waiting requests.
+	 * <p>By default, 256K.
+	 * @param byteCount the maximum number of bytes to buffer
+	 */
+	public void setMaxInMemorySize(int byteCount) {
+		Assert.isTrue(byteCount >= 0, "'byteCount' must not be negative");
+		this.maxInMemorySize = byteCount;
+	}
+
+	/**
+	 * Return the configured maximum number of bytes of a shared response body
+	 * to buffer.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		HttpMethod method = request.method();
+		if ((method != HttpMethod.GET && method != HttpMethod.HEAD) || !isCoalescable(request)) {
+			return next.exchange(request);
+		}
+		return Mono.defer(() -> {
+			Object key = getKey(request);
+			InFlightExchange exchange = new InFlightExchange(key);
+			InFlightExchange existing = this.inFlightExchanges.putIfAbsent(key, exchange);
+			if (existing == null) {
+				return exchange.perform(request, next);
+			}
+			Mono<SharedResponse> sharedResponse = existing.join();
+			if (sharedResponse == null) {
+				return next.exchange(request);
+			}
+			return sharedResponse
+					.map(SharedResponse::createResponse)
+					.onErrorResume(SharingAbortedException.class, ex -> next.exchange(request));
+		});
+	}
+
+	/**
+	 * Whether the given request may be coalesced with identical requests.
+	 * <p>By default, {@code true} if the request has no headers other than
+	 * the {@link #setHeaderNames key headers}.
+	 * @param request the current request
+	 */
+	protected boolean isCoalescable(ClientRequest request) {
+		for (String headerName : request.headers().keySet()) {
+			if (this.headerNames.stream().noneMatch(headerName::equalsIgnoreCase)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the key to coalesce the given request by.
+	 * <p>By default, a list with the method, URI, cookies, and the values of
+	 * the {@link #setHeaderNames key headers}. Subclasses may override this
+	 * to take other request properties into account.
+	 * @param request the current request
+	 * @return the key, with proper {@code equals} and {@code hashCode}
+	 */
+	protected Object getKey(ClientRequest request) {
+		List<Object> key = new ArrayList<>(this.headerNames.size() + 3);
+		key.add(request.method());
+		key.add(request.url());
+		key.add(request.cookies());
+		for (String headerName : this.headerNames) {
+			key.add(request.headers().get(headerName));
+		}
+		return key;
+	}
+
+
+	/**
+	 * An exchange in flight that other requests may join until its response
+	 * status and headers are received.
+	 */
+	private class InFlightExchange {
+
+		private final Object key;
+
+		private final MonoProcessor<SharedResponse> sharedResponse = MonoProcessor.create();
+
+		private int waiterCount;
+
+		private boolean closed;
+
+		InFlightExchange(Object key) {
+			this.key = key;
+		}
+
+		/**
+		 * Join this exchange, or return {@code null} if it no longer accepts
+		 * waiting requests.
+		 */
+		@Nullable
+		synchronized Mono<SharedResponse> join() {
+			if (this.closed) {
+				return null;
+			}
+			this.waiterCount++;
+			return this.sharedResponse;
+		}
+
+		Mono<ClientResponse> perform(ClientRequest request, ExchangeFunction next) {
+			return next.exchange(request)
+					.map(response -> (close() ? share(response, request.method()) : response))
+					.doOnError(ex -> {
+						if (close()) {
+							this.sharedResponse.onError(ex);
+						}
+					})
+					.doOnCancel(() -> {
+						if (close()) {
+							abort();
+						}
+					});
+		}
+
+		/**
+		 * Stop accepting waiting requests, and return whether any joined.
+		 */
+		private boolean close() {
+			boolean hasWaiters;
+			synchronized (this) {
+				this.closed = true;
+				hasWaiters = (this.waiterCount > 0);
+			}
+			inFlightExchanges.remove(this.key, this);
+			return hasWaiters;
+		}
+
+		private ClientResponse share(ClientResponse response, HttpMethod method) {
+			if (method == HttpMethod.HEAD) {
+				this.sharedResponse.onNext(new SharedResponse(response, new byte[0]));
+				return response;
+			}
+			FastByteArrayOutputStream content = new FastByteArrayOutputStream();
+			Flux<DataBuffer> body = response.body(BodyExtractors.toDataBuffers())
+					.doOnNext(buffer -> {
+						if (this.sharedResponse.isTerminated()) {
+							return;
+						}
+						if (content.size() + buffer.readableByteCount() > maxInMemorySize) {
+							abort();
+							return;
+						}
+						ByteBuffer byteBuffer = buffer.asByteBuffer();
+						byte[] bytes = new byte[byteBuffer.remaining()];
+						byteBuffer.get(bytes);
+						content.write(bytes, 0, bytes.length);
+					})
+					.doOnComplete(() -> {
+						if (!this.sharedResponse.isTerminated()) {
+							this.sharedResponse.onNext(new SharedResponse(response, content.toByteArray()));
+						}
+					})
+					.doOnError(ex -> abort())
+					.doOnCancel(this::abort);
+			return ClientResponse.from(response).body(body).build();
+		}
+
+		private void abort() {
+			if (!this.sharedResponse.isTerminated()) {
+				this.sharedResponse.onError(new SharingAbortedException());
+			}
+		}
+	}
+
+
+	/**
+	 * Signals waiting requests to perform an exchange of their own.
+	 */
+	@SuppressWarnings("serial")
+	private static class SharingAbortedException extends RuntimeException {
+
+		SharingAbortedException() {
+			super("Shared response not available", null, false, false);
+		}
+	}
+
+
+	/**
+	 * Status, headers, cookies, and content of a shared exchange, from which
+	 * a separate {@link ClientResponse} is created for every waiting request.
+	 */
+	private static class SharedResponse {
+
+		private final int statusCode;
+
+		private final HttpHeaders headers;
+
+		private final MultiValueMap<String, ResponseCookie> cookies;
+
+		private final byte[] content;
+
+		private final ExchangeStrategies strategies;
+
+
+		SharedResponse(ClientResponse response, byte[] content) {
+			this.statusCode = response.rawStatusCode();
+			this.headers = HttpHeaders.readOnlyHttpHeaders(response.headers().asHttpHeaders());
+			this.cookies = new LinkedMultiValueMap<>(response.cookies());
+			this.content = content;
+			this.strategies = response.strategies();
+		}
+
+
+		ClientResponse createResponse() {
+			Flux<DataBuffer> body = (this.content.length > 0 ?
+					Flux.defer(() -> Flux.just(bufferFactory.wrap(this.content))) : Flux.empty());
+			return ClientResponse.create(this.statusCode, this.strategies)
+					.headers(headers -> headers.addAll(this.headers))
+					.cookies(cookies -> cookies.addAll(this.cookies))
+					.body(body)
+					.build();
+		}
+	}
+
+}
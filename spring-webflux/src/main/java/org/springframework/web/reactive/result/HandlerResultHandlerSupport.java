@@ -33,6 +33,7 @@ import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.http.MediaType;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.HandlerResult;
 import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
@@ -51,6 +52,10 @@ public abstract class HandlerResultHandlerSupport implements Ordered {
 	private static final List<MediaType> ALL_APPLICATION_MEDIA_TYPES =
 			Arrays.asList(MediaType.ALL, new MediaType("application"));
 
+	private static final int SELECTION_CACHE_LIMIT = 256;
+
+	private static final Object NO_MATCH = new Object();
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -58,6 +63,12 @@ public abstract class HandlerResultHandlerSupport implements Ordered {
 
 	private final ReactiveAdapterRegistry adapterRegistry;
 
+	private final ConcurrentLruCache<SelectionKey, Object> selectionCache =
+			new ConcurrentLruCache<>(SELECTION_CACHE_LIMIT, key -> {
+				MediaType selected = selectMediaType(key.acceptableTypes, key.producibleTypes);
+				return (selected != null ? selected : NO_MATCH);
+			});
+
 	private int order = LOWEST_PRECEDENCE;
 
 
@@ -112,6 +123,8 @@ public abstract class HandlerResultHandlerSupport implements Ordered {
 
 	/**
 	 * Select the best media type for the current request through a content negotiation algorithm.
+	 * <p>The result is cached for each combination of acceptable and producible
+	 * media types, since there are usually only a few distinct combinations.
 	 * @param exchange the current request
 	 * @param producibleTypesSupplier the media types that can be produced for the current request
 	 * @return the selected media type, or {@code null} if none
@@ -131,6 +144,25 @@ public abstract class HandlerResultHandlerSupport implements Ordered {
 		List<MediaType> acceptableTypes = getAcceptableTypes(exchange);
 		List<MediaType> producibleTypes = getProducibleTypes(exchange, producibleTypesSupplier);
 
+		Object cached = this.selectionCache.get(new SelectionKey(acceptableTypes, producibleTypes));
+		MediaType selected = (cached != NO_MATCH ? (MediaType) cached : null);
+
+		if (selected != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Using '" + selected + "' given " + acceptableTypes +
+						" and supported " + producibleTypes);
+			}
+		}
+		else if (logger.isDebugEnabled()) {
+			logger.debug(exchange.getLogPrefix() +
+					"No match for " + acceptableTypes + ", supported: " + producibleTypes);
+		}
+
+		return selected;
+	}
+
+	@Nullable
+	private MediaType selectMediaType(List<MediaType> acceptableTypes, List<MediaType> producibleTypes) {
 		Set<MediaType> compatibleMediaTypes = new LinkedHashSet<>();
 		for (MediaType acceptable : acceptableTypes) {
 			for (MediaType producible : producibleTypes) {
@@ -143,31 +175,15 @@ public abstract class HandlerResultHandlerSupport implements Ordered {
 		List<MediaType> result = new ArrayList<>(compatibleMediaTypes);
 		MediaType.sortBySpecificityAndQuality(result);
 
-		MediaType selected = null;
 		for (MediaType mediaType : result) {
 			if (mediaType.isConcrete()) {
-				selected = mediaType;
-				break;
+				return mediaType.removeQualityValue();
 			}
 			else if (mediaType.isPresentIn(ALL_APPLICATION_MEDIA_TYPES)) {
-				selected = MediaType.APPLICATION_OCTET_STREAM;
-				break;
-			}
-		}
-
-		if (selected != null) {
-			selected = selected.removeQualityValue();
-			if (logger.isDebugEnabled()) {
-				logger.debug("Using '" + selected + "' given " + acceptableTypes +
-						" and supported " + producibleTypes);
+				return MediaType.APPLICATION_OCTET_STREAM;
 			}
 		}
-		else if (logger.isDebugEnabled()) {
-			logger.debug(exchange.getLogPrefix() +
-					"No match for " + acceptableTypes + ", supported: " + producibleTypes);
-		}
-
-		return selected;
+		return null;
 	}
 
 	private List<MediaType> getAcceptableTypes(ServerWebExchange exchange) {
@@ -187,4 +203,42 @@ public abstract class HandlerResultHandlerSupport implements Ordered {
 		return (comparator.compare(acceptable, producible) <= 0 ? acceptable : producible);
 	}
 
+
+	/**
+	 * Cache key for the media type selected for a combination of acceptable
+	 * and producible media types.
+	 */
+	private static final class SelectionKey {
+
+		private final List<MediaType> acceptableTypes;
+
+		private final List<MediaType> producibleTypes;
+
+		private final int hashCode;
+
+		SelectionKey(List<MediaType> acceptableTypes, List<MediaType> producibleTypes) {
+			this.acceptableTypes = acceptableTypes;
+			this.producibleTypes = producibleTypes;
+			this.hashCode = 31 * acceptableTypes.hashCode() + producibleTypes.hashCode();
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof SelectionKey)) {
+				return false;
+			}
+			SelectionKey otherKey = (SelectionKey) other;
+			return (this.acceptableTypes.equals(otherKey.acceptableTypes) &&
+					this.producibleTypes.equals(otherKey.producibleTypes));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
@@ -18,6 +18,7 @@ package org.springframework.web.reactive.result.method.annotation;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -38,6 +39,7 @@ import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
 import org.springframework.web.reactive.result.HandlerResultHandlerSupport;
@@ -56,8 +58,14 @@ public abstract class AbstractMessageWriterResultHandler extends HandlerResultHa
 
 	private static final String COROUTINES_FLOW_CLASS_NAME = "kotlinx.coroutines.flow.Flow";
 
+	private static final int MEDIA_TYPES_CACHE_LIMIT = 256;
+
+
 	private final List<HttpMessageWriter<?>> messageWriters;
 
+	private final ConcurrentLruCache<ResolvableType, List<MediaType>> mediaTypesCache =
+			new ConcurrentLruCache<>(MEDIA_TYPES_CACHE_LIMIT, this::initMediaTypesFor);
+
 
 	/**
 	 * Constructor with {@link HttpMessageWriter HttpMessageWriters} and a
@@ -194,13 +202,17 @@ public abstract class AbstractMessageWriterResultHandler extends HandlerResultHa
 	}
 
 	private List<MediaType> getMediaTypesFor(ResolvableType elementType) {
+		return this.mediaTypesCache.get(elementType);
+	}
+
+	private List<MediaType> initMediaTypesFor(ResolvableType elementType) {
 		List<MediaType> writableMediaTypes = new ArrayList<>();
 		for (HttpMessageWriter<?> converter : getMessageWriters()) {
 			if (converter.canWrite(elementType, null)) {
 				writableMediaTypes.addAll(converter.getWritableMediaTypes());
 			}
 		}
-		return writableMediaTypes;
+		return Collections.unmodifiableList(writableMediaTypes);
 	}
 
 
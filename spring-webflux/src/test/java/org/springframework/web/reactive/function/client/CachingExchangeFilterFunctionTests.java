@@ -0,0 +1,180 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.cache.InMemoryHttpCacheStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CachingExchangeFilterFunction}.
+ *
+ * @author agent
+ */
+class CachingExchangeFilterFunctionTests {
+
+	private static final URI DEFAULT_URL = URI.create("https://example.com/foo");
+
+	private static final Instant NOW = Instant.ofEpochSecond(1_600_000_000L);
+
+
+	private final InMemoryHttpCacheStore store = new InMemoryHttpCacheStore();
+
+	private final CachingExchangeFilterFunction filter = new CachingExchangeFilterFunction(this.store);
+
+	private final List<ClientRequest> requests = new ArrayList<>();
+
+	private final List<ClientResponse> responses = new ArrayList<>();
+
+	private final ExchangeFunction exchange = request -> {
+		this.requests.add(request);
+		return Mono.just(this.responses.remove(0));
+	};
+
+
+	@Test
+	void freshResponseIsServedFromStore() {
+		this.filter.setClock(clock(0));
+		this.responses.add(response(HttpStatus.OK, "max-age=60", "foo"));
+		assertThat(get()).isEqualTo("foo");
+
+		this.filter.setClock(clock(30));
+		assertThat(get()).isEqualTo("foo");
+		assertThat(this.requests).hasSize(1);
+	}
+
+	@Test
+	void responseIsStoredOnceConsumed() {
+		this.responses.add(response(HttpStatus.OK, "max-age=60", "foo"));
+		ClientResponse response = this.filter.filter(request(HttpMethod.GET), this.exchange).block();
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNull();
+
+		assertThat(response.bodyToMono(String.class).block()).isEqualTo("foo");
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNotNull();
+	}
+
+	@Test
+	void staleResponseIsRevalidated() {
+		this.filter.setClock(clock(0));
+		this.responses.add(ClientResponse.create(HttpStatus.OK)
+				.header(HttpHeaders.CACHE_CONTROL, "max-age=60")
+				.header(HttpHeaders.ETAG, "\"1\"")
+				.body("foo").build());
+		get();
+
+		this.filter.setClock(clock(90));
+		this.responses.add(response(HttpStatus.NOT_MODIFIED, "max-age=60", ""));
+		assertThat(get()).isEqualTo("foo");
+		assertThat(this.requests.get(1).headers().getIfNoneMatch()).containsExactly("\"1\"");
+	}
+
+	@Test
+	void staleWhileRevalidate() {
+		this.filter.setClock(clock(0));
+		this.responses.add(ClientResponse.create(HttpStatus.OK)
+				.header(HttpHeaders.CACHE_CONTROL, "max-age=60, stale-while-revalidate=60")
+				.header(HttpHeaders.ETAG, "\"1\"")
+				.body("foo").build());
+		get();
+
+		this.filter.setClock(clock(90));
+		this.responses.add(response(HttpStatus.OK, "max-age=60", "bar"));
+		assertThat(get()).isEqualTo("foo");
+		assertThat(this.requests).hasSize(2);
+		assertThat(get()).isEqualTo("bar");
+	}
+
+	@Test
+	void singleRevalidationInProgress() {
+		this.filter.setClock(clock(0));
+		this.responses.add(ClientResponse.create(HttpStatus.OK)
+				.header(HttpHeaders.CACHE_CONTROL, "max-age=60, stale-while-revalidate=60")
+				.header(HttpHeaders.ETAG, "\"1\"")
+				.body("foo").build());
+		get();
+
+		this.filter.setClock(clock(90));
+		ExchangeFunction pendingExchange = request -> {
+			this.requests.add(request);
+			return Mono.never();
+		};
+		for (int i = 0; i < 3; i++) {
+			assertThat(this.filter.filter(request(HttpMethod.GET), pendingExchange)
+					.flatMap(response -> response.bodyToMono(String.class))
+					.block()).isEqualTo("foo");
+		}
+		assertThat(this.requests).hasSize(2);
+	}
+
+	@Test
+	void responseToAuthorizedRequestIsNotStored() {
+		this.responses.add(response(HttpStatus.OK, "max-age=60", "foo"));
+		ClientRequest request = ClientRequest.create(HttpMethod.GET, DEFAULT_URL)
+				.headers(headers -> headers.setBasicAuth("user", "password"))
+				.build();
+		assertThat(this.filter.filter(request, this.exchange)
+				.flatMap(response -> response.bodyToMono(String.class))
+				.block()).isEqualTo("foo");
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNull();
+	}
+
+	@Test
+	void unsafeMethodInvalidates() {
+		this.responses.add(response(HttpStatus.OK, "max-age=60", "foo"));
+		get();
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNotNull();
+
+		this.responses.add(ClientResponse.create(HttpStatus.NO_CONTENT).build());
+		this.filter.filter(request(HttpMethod.DELETE), this.exchange).block();
+		assertThat(this.store.get(DEFAULT_URL.toString())).isNull();
+	}
+
+
+	private String get() {
+		return this.filter.filter(request(HttpMethod.GET), this.exchange)
+				.flatMap(response -> response.bodyToMono(String.class))
+				.defaultIfEmpty("")
+				.block();
+	}
+
+	private static ClientRequest request(HttpMethod method) {
+		return ClientRequest.create(method, DEFAULT_URL).build();
+	}
+
+	private static ClientResponse response(HttpStatus status, String cacheControl, String body) {
+		return ClientResponse.create(status).header(HttpHeaders.CACHE_CONTROL, cacheControl).body(body).build();
+	}
+
+	private static Clock clock(long seconds) {
+		return Clock.fixed(NOW.plus(Duration.ofSeconds(seconds)), ZoneOffset.UTC);
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CoalescingExchangeFilterFunction}.
+ *
+ * @author agent
+ */
+class CoalescingExchangeFilterFunctionTests {
+
+	private static final URI DEFAULT_URL = URI.create("https://example.com");
+
+
+	private final CoalescingExchangeFilterFunction filter = new CoalescingExchangeFilterFunction();
+
+	private final AtomicInteger exchangeCount = new AtomicInteger();
+
+	private MonoProcessor<ClientResponse> pendingResponse = MonoProcessor.create();
+
+	private final ExchangeFunction exchange = request -> {
+		this.exchangeCount.incrementAndGet();
+		return this.pendingResponse;
+	};
+
+
+	@Test
+	void concurrentRequestsAreCoalesced() {
+		List<String> bodies = new ArrayList<>();
+		filter(get().build()).subscribe(bodies::add);
+		filter(get().build()).subscribe(bodies::add);
+		assertThat(this.exchangeCount.get()).isEqualTo(1);
+
+		this.pendingResponse.onNext(ClientResponse.create(HttpStatus.OK).body("foo").build());
+		assertThat(bodies).containsExactly("foo", "foo");
+
+		// Once completed, a new exchange is performed
+		this.pendingResponse = MonoProcessor.create();
+		filter(get().build()).subscribe(bodies::add);
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	void sharedResponseStatusAndHeaders() {
+		Mono<ClientResponse> result = this.filter.filter(get().build(), this.exchange);
+		this.pendingResponse.onNext(ClientResponse.create(HttpStatus.NOT_FOUND)
+				.header("foo", "bar").body("baz").build());
+
+		ClientResponse response = result.block();
+		assertThat(response).isNotNull();
+		assertThat(response.statusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(response.headers().header("foo")).containsExactly("bar");
+		assertThat(response.bodyToMono(String.class).block()).isEqualTo("baz");
+	}
+
+	@Test
+	void differentKeyHeadersAreNotCoalesced() {
+		filter(get().header(HttpHeaders.AUTHORIZATION, "foo").build()).subscribe();
+		filter(get().header(HttpHeaders.AUTHORIZATION, "bar").build()).subscribe();
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	void customKeyHeaders() {
+		this.filter.setHeaderNames("X-Tenant");
+		filter(get().header("X-Tenant", "foo").build()).subscribe();
+		filter(get().header("x-tenant", "foo").build()).subscribe();
+		assertThat(this.exchangeCount.get()).isEqualTo(1);
+
+		filter(get().header("X-Tenant", "bar").build()).subscribe();
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	void requestsWithOtherHeadersAreNotCoalesced() {
+		filter(get().header("X-Api-Key", "foo").build()).subscribe();
+		filter(get().header("X-Api-Key", "bar").build()).subscribe();
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	void singleRequestIsNotBuffered() {
+		this.filter.setMaxInMemorySize(2);
+		List<String> bodies = new ArrayList<>();
+		filter(get().build()).subscribe(bodies::add);
+
+		this.pendingResponse.onNext(ClientResponse.create(HttpStatus.OK).body("foo").build());
+		assertThat(bodies).containsExactly("foo");
+		assertThat(this.exchangeCount.get()).isEqualTo(1);
+	}
+
+	@Test
+	void newerExchangeIsNotRemovedByEarlierOne() {
+		filter(get().build()).subscribe();
+		this.pendingResponse.onNext(ClientResponse.create(HttpStatus.OK).body("foo").build());
+
+		this.pendingResponse = MonoProcessor.create();
+		filter(get().build()).subscribe();
+		filter(get().build()).subscribe();
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	void unsafeMethodsAreNotCoalesced() {
+		ClientRequest request = ClientRequest.create(HttpMethod.POST, DEFAULT_URL).build();
+		filter(request).subscribe();
+		filter(request).subscribe();
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	void bodyExceedingLimitFallsBackOnSeparateExchanges() {
+		this.filter.setMaxInMemorySize(2);
+		List<String> bodies = new ArrayList<>();
+		filter(get().build()).subscribe(bodies::add);
+		filter(get().build()).subscribe(bodies::add);
+
+		this.pendingResponse.onNext(ClientResponse.create(HttpStatus.OK).body("foo").build());
+		assertThat(bodies).startsWith("foo");
+		assertThat(this.exchangeCount.get()).isEqualTo(2);
+	}
+
+
+	private static ClientRequest.Builder get() {
+		return ClientRequest.create(HttpMethod.GET, DEFAULT_URL);
+	}
+
+	private Mono<String> filter(ClientRequest request) {
+		return this.filter.filter(request, this.exchange)
+				.flatMap(response -> response.bodyToMono(String.class));
+	}
+
+}
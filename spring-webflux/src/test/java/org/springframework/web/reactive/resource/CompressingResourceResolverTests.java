@@ -0,0 +1,226 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.testfixture.server.MockServerWebExchange;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CompressingResourceResolver}.
+ *
+ * @author agent
+ */
+class CompressingResourceResolverTests {
+
+	private static final String CONTENT = String.join("", Collections.nCopies(200, "body { color: red; }\n"));
+
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+
+	@TempDir
+	Path tempDir;
+
+	private final CompressingResourceResolver compressingResolver = new CompressingResourceResolver();
+
+	private ResourceResolverChain resolver;
+
+	private List<Resource> locations;
+
+
+	@BeforeEach
+	void setup() throws IOException {
+		Files.write(this.tempDir.resolve("foo.css"), CONTENT.getBytes(UTF_8));
+		Files.write(this.tempDir.resolve("small.css"), "body {}".getBytes(UTF_8));
+		Files.write(this.tempDir.resolve("foo.png"), CONTENT.getBytes(UTF_8));
+
+		List<ResourceResolver> resolvers = new ArrayList<>();
+		resolvers.add(this.compressingResolver);
+		resolvers.add(new PathResourceResolver());
+		this.resolver = new DefaultResourceResolverChain(resolvers);
+		this.locations = Collections.singletonList(new FileSystemResource(this.tempDir.toString() + "/"));
+	}
+
+
+	@Test
+	void resolveCompressed() throws IOException {
+		Resource resource = this.resolver.resolveResource(gzipExchange(), "foo.css", this.locations).block(TIMEOUT);
+
+		assertThat(resource).isInstanceOf(HttpResource.class);
+		assertThat(resource.getFilename()).isEqualTo("foo.css");
+		assertThat(resource.contentLength()).isLessThan(CONTENT.length());
+		assertThat(decompress(resource)).isEqualTo(CONTENT);
+
+		HttpHeaders headers = ((HttpResource) resource).getResponseHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(headers.getFirst(HttpHeaders.VARY)).isEqualTo("Accept-Encoding");
+		assertThat(headers.getETag()).endsWith("-gzip\"");
+	}
+
+	@Test
+	void resolveWithoutAcceptEncoding() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(""));
+		Resource resource = this.resolver.resolveResource(exchange, "foo.css", this.locations).block(TIMEOUT);
+
+		assertThat(resource).isNotInstanceOf(HttpResource.class);
+	}
+
+	@Test
+	void resolveNotCompressible() {
+		Resource resource = this.resolver.resolveResource(gzipExchange(), "small.css", this.locations).block(TIMEOUT);
+		assertThat(resource).isNotInstanceOf(HttpResource.class);
+
+		resource = this.resolver.resolveResource(gzipExchange(), "foo.png", this.locations).block(TIMEOUT);
+		assertThat(resource).isNotInstanceOf(HttpResource.class);
+	}
+
+	@Test
+	void resolveFromCacheDirectory() throws IOException {
+		Path cacheDir = this.tempDir.resolve("cache");
+		this.compressingResolver.setCacheDirectory(cacheDir);
+
+		Resource resource = this.resolver.resolveResource(gzipExchange(), "foo.css", this.locations).block(TIMEOUT);
+		String eTag = ((HttpResource) resource).getResponseHeaders().getETag();
+		String hash = eTag.substring(1, eTag.indexOf("-gzip"));
+		assertThat(cacheDir.resolve(hash + ".gz")).exists();
+
+		// Compressed content is read from the directory rather than compressed again
+		Files.write(cacheDir.resolve(hash + ".gz"), compress("cached"));
+		CompressingResourceResolver other = new CompressingResourceResolver();
+		other.setCacheDirectory(cacheDir);
+		ResourceResolverChain chain = new DefaultResourceResolverChain(
+				Arrays.asList(other, new PathResourceResolver()));
+		resource = chain.resolveResource(gzipExchange(), "foo.css", this.locations).block(TIMEOUT);
+		assertThat(decompress(resource)).isEqualTo("cached");
+	}
+
+	@Test
+	void resolveModified() throws IOException {
+		Resource resource = this.resolver.resolveResource(gzipExchange(), "foo.css", this.locations).block(TIMEOUT);
+		String eTag = ((HttpResource) resource).getResponseHeaders().getETag();
+
+		String changed = CONTENT + "p { color: blue; }\n";
+		Files.write(this.tempDir.resolve("foo.css"), changed.getBytes(UTF_8));
+		resource = this.resolver.resolveResource(gzipExchange(), "foo.css", this.locations).block(TIMEOUT);
+
+		assertThat(((HttpResource) resource).getResponseHeaders().getETag()).isNotEqualTo(eTag);
+		assertThat(decompress(resource)).isEqualTo(changed);
+	}
+
+	@Test
+	void cacheEntriesLimited() throws IOException {
+		Path cacheDir = this.tempDir.resolve("cache");
+		this.compressingResolver.setCacheDirectory(cacheDir);
+		this.compressingResolver.setMaxCacheEntries(1);
+		byte[] random = new byte[2048];
+		new Random(42).nextBytes(random);
+		Files.write(this.tempDir.resolve("random.css"), random);
+
+		Resource resource = this.resolver.resolveResource(gzipExchange(), "foo.css", this.locations).block(TIMEOUT);
+		String eTag = ((HttpResource) resource).getResponseHeaders().getETag();
+		String hash = eTag.substring(1, eTag.indexOf("-gzip"));
+		Files.write(cacheDir.resolve(hash + ".gz"), compress("cached"));
+
+		// Content that is not worth compressing takes up an entry as well
+		resource = this.resolver.resolveResource(gzipExchange(), "random.css", this.locations).block(TIMEOUT);
+		assertThat(resource).isNotInstanceOf(HttpResource.class);
+
+		// Evicted from memory, so read from the directory again
+		resource = this.resolver.resolveResource(gzipExchange(), "foo.css", this.locations).block(TIMEOUT);
+		assertThat(decompress(resource)).isEqualTo("cached");
+	}
+
+	@Test
+	void compressOffCallingThread() {
+		AtomicReference<String> readThread = new AtomicReference<>();
+		Resource original = new FileSystemResource(this.tempDir.resolve("foo.css")) {
+			@Override
+			public InputStream getInputStream() throws IOException {
+				readThread.set(Thread.currentThread().getName());
+				return super.getInputStream();
+			}
+		};
+		ResourceResolver originalResolver = new AbstractResourceResolver() {
+			@Override
+			protected Mono<Resource> resolveResourceInternal(@Nullable ServerWebExchange exchange,
+					String requestPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+
+				return Mono.just(original);
+			}
+
+			@Override
+			protected Mono<String> resolveUrlPathInternal(String resourceUrlPath,
+					List<? extends Resource> locations, ResourceResolverChain chain) {
+
+				return Mono.just(resourceUrlPath);
+			}
+		};
+		ResourceResolverChain chain = new DefaultResourceResolverChain(
+				Arrays.asList(this.compressingResolver, originalResolver));
+
+		Resource resource = chain.resolveResource(gzipExchange(), "foo.css", this.locations).block(TIMEOUT);
+		assertThat(resource).isInstanceOf(HttpResource.class);
+		assertThat(readThread.get()).startsWith("boundedElastic");
+	}
+
+
+	private static MockServerWebExchange gzipExchange() {
+		return MockServerWebExchange.from(MockServerHttpRequest.get("").header("Accept-Encoding", "gzip, deflate"));
+	}
+
+	private static byte[] compress(String content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(content.getBytes(UTF_8));
+		}
+		return out.toByteArray();
+	}
+
+	private static String decompress(Resource resource) throws IOException {
+		return StreamUtils.copyToString(new GZIPInputStream(resource.getInputStream()), UTF_8);
+	}
+
+}
@@ -112,6 +112,21 @@ public class HandlerResultHandlerTests {
 		assertThat(actual).isEqualTo(TEXT_PLAIN);
 	}
 
+	@Test
+	void selectedMediaTypeIsCached() {
+		List<MediaType> mediaTypes = Arrays.asList(APPLICATION_JSON, TEXT_PLAIN);
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/path")
+				.header("Accept", "text/plain; q=0.5, application/json"));
+		MediaType actual = this.resultHandler.selectMediaType(exchange, () -> mediaTypes);
+
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/path")
+				.header("Accept", "text/plain; q=0.5, application/json"));
+		assertThat(this.resultHandler.selectMediaType(exchange, () -> mediaTypes)).isSameAs(actual);
+
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/path").header("Accept", "text/plain"));
+		assertThat(this.resultHandler.selectMediaType(exchange, () -> mediaTypes)).isEqualTo(TEXT_PLAIN);
+	}
+
 
 	@SuppressWarnings("WeakerAccess")
 	private static class TestResultHandler extends HandlerResultHandlerSupport {
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.AdaptiveConcurrencyLimiter;
+import org.springframework.util.Assert;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Interceptor that limits the number of concurrently processed requests with
+ * an {@link AdaptiveConcurrencyLimiter} per route, and rejects requests
+ * beyond the limit immediately with a 503 status, rather than letting them
+ * queue up under overload.
+ *
+ * <p>Routes are partitioned by {@link HandlerMethod}, or by the
+ * {@link HandlerMapping#BEST_MATCHING_PATTERN_ATTRIBUTE best matching pattern}
+ * for other handlers; see {@link #getPartitionKey}. Permits of asynchronously
+ * processed requests are held until the async dispatch completes.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see org.springframework.web.filter.AdaptiveConcurrencyLimitFilter
+ */
+public class AdaptiveConcurrencyLimitInterceptor extends HandlerInterceptorAdapter {
+
+	private static final String PERMIT_ATTRIBUTE = AdaptiveConcurrencyLimitInterceptor.class.getName() + ".PERMIT";
+
+
+	private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+	private Supplier<AdaptiveConcurrencyLimiter> limiterSupplier = AdaptiveConcurrencyLimiter::new;
+
+
+	/**
+	 * Set the supplier for the limiter of each partition.
+	 * <p>By default, {@link AdaptiveConcurrencyLimiter#AdaptiveConcurrencyLimiter()}.
+	 * @param limiterSupplier the supplier to use
+	 */
+	public void setLimiterSupplier(Supplier<AdaptiveConcurrencyLimiter> limiterSupplier) {
+		Assert.notNull(limiterSupplier, "Limiter supplier must not be null");
+		this.limiterSupplier = limiterSupplier;
+	}
+
+	/**
+	 * Return the limiters created so far, keyed by partition, e.g. to expose
+	 * their limit, in-flight, and rejected counts as metrics.
+	 */
+	public Map<String, AdaptiveConcurrencyLimiter> getLimiters() {
+		return Collections.unmodifiableMap(this.limiters);
+	}
+
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+			// Async dispatch of a request that holds a permit already
+			return true;
+		}
+		String key = getPartitionKey(request, handler);
+		AdaptiveConcurrencyLimiter limiter = this.limiters.computeIfAbsent(key, k -> this.limiterSupplier.get());
+		AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+		if (permit == null) {
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return false;
+		}
+		request.setAttribute(PERMIT_ATTRIBUTE, permit);
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+			Object handler, @Nullable Exception ex) {
+
+		Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+		if (permit instanceof AdaptiveConcurrencyLimiter.Permit) {
+			request.removeAttribute(PERMIT_ATTRIBUTE);
+			((AdaptiveConcurrencyLimiter.Permit) permit).release();
+		}
+	}
+
+	/**
+	 * Return the partition to limit the given request in.
+	 * <p>By default, the bean type and method name for a {@link HandlerMethod},
+	 * or else the best matching pattern, if any.
+	 * @param request the current request
+	 * @param handler the handler for the request
+	 * @return the partition key
+	 */
+	protected String getPartitionKey(HttpServletRequest request, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			HandlerMethod handlerMethod = (HandlerMethod) handler;
+			return handlerMethod.getBeanType().getName() + "#" + handlerMethod.getMethod().getName();
+		}
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return (pattern != null ? pattern.toString() : "");
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.web.servlet.mvc.method.annotation;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -53,6 +54,9 @@ import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.accept.ContentNegotiationManager;
@@ -87,6 +91,8 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 	private static final List<MediaType> ALL_APPLICATION_MEDIA_TYPES =
 			Arrays.asList(MediaType.ALL, new MediaType("application"));
 
+	private static final int NEGOTIATION_CACHE_LIMIT = 256;
+
 	private static final Type RESOURCE_REGION_LIST_TYPE =
 			new ParameterizedTypeReference<List<ResourceRegion>>() { }.getType();
 
@@ -95,6 +101,9 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 
 	private final Set<String> safeExtensions = new HashSet<>();
 
+	@Nullable
+	private final ConcurrentLruCache<NegotiationKey, Negotiation> negotiationCache;
+
 
 	/**
 	 * Constructor with list of converters only.
@@ -124,6 +133,18 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		this.contentNegotiationManager = (manager != null ? manager : new ContentNegotiationManager());
 		this.safeExtensions.addAll(this.contentNegotiationManager.getAllFileExtensions());
 		this.safeExtensions.addAll(SAFE_EXTENSIONS);
+		this.negotiationCache = (isProducibleMediaTypesOverridden() ? null :
+				new ConcurrentLruCache<>(NEGOTIATION_CACHE_LIMIT, this::negotiate));
+	}
+
+	/**
+	 * The content negotiation result can only be cached if the producible media
+	 * types depend on the cache key only, i.e. if not customized by a subclass.
+	 */
+	private boolean isProducibleMediaTypesOverridden() {
+		Method method = ReflectionUtils.findMethod(getClass(), "getProducibleMediaTypes",
+				HttpServletRequest.class, Class.class, Type.class);
+		return (method != null && method.getDeclaringClass() != AbstractMessageConverterMethodProcessor.class);
 	}
 
 
@@ -203,32 +224,27 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		}
 
 		MediaType selectedMediaType = null;
+		HttpMessageConverter<?> selectedConverter = null;
 		MediaType contentType = outputMessage.getHeaders().getContentType();
 		boolean isContentTypePreset = contentType != null && contentType.isConcrete();
 		if (isContentTypePreset) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Found 'Content-Type:" + contentType + "' in response");
 			}
-			selectedMediaType = contentType;
+			selectedMediaType = contentType.removeQualityValue();
+			selectedConverter = findConverter(valueType, targetType, selectedMediaType);
 		}
 		else {
 			HttpServletRequest request = inputMessage.getServletRequest();
 			List<MediaType> acceptableTypes = getAcceptableMediaTypes(request);
-			List<MediaType> producibleTypes = getProducibleMediaTypes(request, valueType, targetType);
+			Negotiation negotiation = getNegotiation(request, acceptableTypes, valueType, targetType);
+			List<MediaType> producibleTypes = negotiation.producibleTypes;
 
 			if (body != null && producibleTypes.isEmpty()) {
 				throw new HttpMessageNotWritableException(
 						"No converter found for return value of type: " + valueType);
 			}
-			List<MediaType> mediaTypesToUse = new ArrayList<>();
-			for (MediaType requestedType : acceptableTypes) {
-				for (MediaType producibleType : producibleTypes) {
-					if (requestedType.isCompatibleWith(producibleType)) {
-						mediaTypesToUse.add(getMostSpecificMediaType(requestedType, producibleType));
-					}
-				}
-			}
-			if (mediaTypesToUse.isEmpty()) {
+			if (!negotiation.compatible) {
 				if (body != null) {
 					throw new HttpMediaTypeNotAcceptableException(producibleTypes);
 				}
@@ -238,18 +254,8 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 				return;
 			}
 
-			MediaType.sortBySpecificityAndQuality(mediaTypesToUse);
-
-			for (MediaType mediaType : mediaTypesToUse) {
-				if (mediaType.isConcrete()) {
-					selectedMediaType = mediaType;
-					break;
-				}
-				else if (mediaType.isPresentIn(ALL_APPLICATION_MEDIA_TYPES)) {
-					selectedMediaType = MediaType.APPLICATION_OCTET_STREAM;
-					break;
-				}
-			}
+			selectedMediaType = negotiation.mediaType;
+			selectedConverter = negotiation.converter;
 
 			if (logger.isDebugEnabled()) {
 				logger.debug("Using '" + selectedMediaType + "', given " +
@@ -257,37 +263,31 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 			}
 		}
 
-		if (selectedMediaType != null) {
-			selectedMediaType = selectedMediaType.removeQualityValue();
-			for (HttpMessageConverter<?> converter : this.messageConverters) {
-				GenericHttpMessageConverter genericConverter = (converter instanceof GenericHttpMessageConverter ?
-						(GenericHttpMessageConverter<?>) converter : null);
-				if (genericConverter != null ?
-						((GenericHttpMessageConverter) converter).canWrite(targetType, valueType, selectedMediaType) :
-						converter.canWrite(valueType, selectedMediaType)) {
-					body = getAdvice().beforeBodyWrite(body, returnType, selectedMediaType,
-							(Class<? extends HttpMessageConverter<?>>) converter.getClass(),
-							inputMessage, outputMessage);
-					if (body != null) {
-						Object theBody = body;
-						LogFormatUtils.traceDebug(logger, traceOn ->
-								"Writing [" + LogFormatUtils.formatValue(theBody, !traceOn) + "]");
-						addContentDispositionHeader(inputMessage, outputMessage);
-						if (genericConverter != null) {
-							genericConverter.write(body, targetType, selectedMediaType, outputMessage);
-						}
-						else {
-							((HttpMessageConverter) converter).write(body, selectedMediaType, outputMessage);
-						}
-					}
-					else {
-						if (logger.isDebugEnabled()) {
-							logger.debug("Nothing to write: null body");
-						}
-					}
-					return;
+		if (selectedMediaType != null && selectedConverter != null) {
+			HttpMessageConverter<?> converter = selectedConverter;
+			GenericHttpMessageConverter genericConverter = (converter instanceof GenericHttpMessageConverter ?
+					(GenericHttpMessageConverter<?>) converter : null);
+			body = getAdvice().beforeBodyWrite(body, returnType, selectedMediaType,
+					(Class<? extends HttpMessageConverter<?>>) converter.getClass(),
+					inputMessage, outputMessage);
+			if (body != null) {
+				Object theBody = body;
+				LogFormatUtils.traceDebug(logger, traceOn ->
+						"Writing [" + LogFormatUtils.formatValue(theBody, !traceOn) + "]");
+				addContentDispositionHeader(inputMessage, outputMessage);
+				if (genericConverter != null) {
+					genericConverter.write(body, targetType, selectedMediaType, outputMessage);
+				}
+				else {
+					((HttpMessageConverter) converter).write(body, selectedMediaType, outputMessage);
 				}
 			}
+			else {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Nothing to write: null body");
+				}
+			}
+			return;
 		}
 
 		if (body != null) {
@@ -358,6 +358,12 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 
 		Set<MediaType> mediaTypes =
 				(Set<MediaType>) request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+		return getProducibleMediaTypes(mediaTypes, valueClass, targetType);
+	}
+
+	private List<MediaType> getProducibleMediaTypes(
+			@Nullable Set<MediaType> mediaTypes, Class<?> valueClass, @Nullable Type targetType) {
+
 		if (!CollectionUtils.isEmpty(mediaTypes)) {
 			return new ArrayList<>(mediaTypes);
 		}
@@ -380,6 +386,83 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		}
 	}
 
+	/**
+	 * Return the content negotiation result for the given acceptable media types
+	 * and value type, from the cache if available.
+	 */
+	@SuppressWarnings("unchecked")
+	private Negotiation getNegotiation(HttpServletRequest request, List<MediaType> acceptableTypes,
+			Class<?> valueType, @Nullable Type targetType) {
+
+		Set<MediaType> producesCondition =
+				(Set<MediaType>) request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+		if (this.negotiationCache != null) {
+			return this.negotiationCache.get(new NegotiationKey(acceptableTypes, producesCondition, valueType, targetType));
+		}
+		List<MediaType> producibleTypes = getProducibleMediaTypes(request, valueType, targetType);
+		return negotiate(acceptableTypes, producibleTypes, valueType, targetType);
+	}
+
+	private Negotiation negotiate(NegotiationKey key) {
+		List<MediaType> producibleTypes = getProducibleMediaTypes(key.producesCondition, key.valueType, key.targetType);
+		return negotiate(key.acceptableTypes, producibleTypes, key.valueType, key.targetType);
+	}
+
+	private Negotiation negotiate(List<MediaType> acceptableTypes, List<MediaType> producibleTypes,
+			Class<?> valueType, @Nullable Type targetType) {
+
+		List<MediaType> mediaTypesToUse = new ArrayList<>();
+		for (MediaType requestedType : acceptableTypes) {
+			for (MediaType producibleType : producibleTypes) {
+				if (requestedType.isCompatibleWith(producibleType)) {
+					mediaTypesToUse.add(getMostSpecificMediaType(requestedType, producibleType));
+				}
+			}
+		}
+		if (mediaTypesToUse.isEmpty()) {
+			return new Negotiation(producibleTypes, false, null, null);
+		}
+
+		MediaType.sortBySpecificityAndQuality(mediaTypesToUse);
+
+		MediaType selectedMediaType = null;
+		for (MediaType mediaType : mediaTypesToUse) {
+			if (mediaType.isConcrete()) {
+				selectedMediaType = mediaType;
+				break;
+			}
+			else if (mediaType.isPresentIn(ALL_APPLICATION_MEDIA_TYPES)) {
+				selectedMediaType = MediaType.APPLICATION_OCTET_STREAM;
+				break;
+			}
+		}
+
+		if (selectedMediaType == null) {
+			return new Negotiation(producibleTypes, true, null, null);
+		}
+		selectedMediaType = selectedMediaType.removeQualityValue();
+		HttpMessageConverter<?> converter = findConverter(valueType, targetType, selectedMediaType);
+		return new Negotiation(producibleTypes, true, selectedMediaType, converter);
+	}
+
+	/**
+	 * Find the first converter that can write the given value type as the given media type.
+	 */
+	@Nullable
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private HttpMessageConverter<?> findConverter(
+			Class<?> valueType, @Nullable Type targetType, MediaType selectedMediaType) {
+
+		for (HttpMessageConverter<?> converter : this.messageConverters) {
+			if (converter instanceof GenericHttpMessageConverter ?
+					((GenericHttpMessageConverter) converter).canWrite(targetType, valueType, selectedMediaType) :
+					converter.canWrite(valueType, selectedMediaType)) {
+				return converter;
+			}
+		}
+		return null;
+	}
+
 	private List<MediaType> getAcceptableMediaTypes(HttpServletRequest request)
 			throws HttpMediaTypeNotAcceptableException {
 
@@ -485,4 +568,82 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 				mediaType.getSubtype().endsWith("+xml"));
 	}
 
+
+	/**
+	 * Cache key for a content negotiation result.
+	 */
+	private static final class NegotiationKey {
+
+		private final List<MediaType> acceptableTypes;
+
+		@Nullable
+		private final Set<MediaType> producesCondition;
+
+		private final Class<?> valueType;
+
+		@Nullable
+		private final Type targetType;
+
+		private final int hashCode;
+
+		NegotiationKey(List<MediaType> acceptableTypes, @Nullable Set<MediaType> producesCondition,
+				Class<?> valueType, @Nullable Type targetType) {
+
+			this.acceptableTypes = acceptableTypes;
+			this.producesCondition = producesCondition;
+			this.valueType = valueType;
+			this.targetType = targetType;
+			this.hashCode = ObjectUtils.nullSafeHashCode(new Object[] {
+					acceptableTypes, producesCondition, valueType, targetType});
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof NegotiationKey)) {
+				return false;
+			}
+			NegotiationKey otherKey = (NegotiationKey) other;
+			return (this.valueType == otherKey.valueType &&
+					ObjectUtils.nullSafeEquals(this.targetType, otherKey.targetType) &&
+					this.acceptableTypes.equals(otherKey.acceptableTypes) &&
+					ObjectUtils.nullSafeEquals(this.producesCondition, otherKey.producesCondition));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	/**
+	 * The result of content negotiation: the producible media types, whether any
+	 * of them is compatible with the acceptable media types, and the selected
+	 * media type along with the converter to write it with, if any.
+	 */
+	private static final class Negotiation {
+
+		final List<MediaType> producibleTypes;
+
+		final boolean compatible;
+
+		@Nullable
+		final MediaType mediaType;
+
+		@Nullable
+		final HttpMessageConverter<?> converter;
+
+		Negotiation(List<MediaType> producibleTypes, boolean compatible,
+				@Nullable MediaType mediaType, @Nullable HttpMessageConverter<?> converter) {
+
+			this.producibleTypes = Collections.unmodifiableList(producibleTypes);
+			this.compatible = compatible;
+			this.mediaType = mediaType;
+			this.converter = converter;
+		}
+	}
+
 }
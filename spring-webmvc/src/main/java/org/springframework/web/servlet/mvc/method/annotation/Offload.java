@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation that marks a {@code @RequestMapping} method, or all such methods
+ * of a controller when declared at the type level, to be invoked on an
+ * {@link org.springframework.core.task.AsyncTaskExecutor AsyncTaskExecutor}
+ * rather than on the Servlet container thread.
+ *
+ * <p>Argument resolution and the method invocation take place on the executor
+ * thread, while the container thread is released through Servlet async
+ * processing. The return value is then handled as usual after the request
+ * is dispatched back to the container, as for a
+ * {@link java.util.concurrent.Callable Callable} return value.
+ *
+ * <p>Offloading can also be enabled without annotations via
+ * {@link RequestMappingHandlerAdapter#setOffloadPredicate}.
+ *
+ * @author agent
+ * @since 5.2.13
+ * @see RequestMappingHandlerAdapter#setOffloadExecutor
+ * @see org.springframework.core.task.VirtualThreadTaskExecutor
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Offload {
+
+	/**
+	 * The bean name of a specific
+	 * {@link org.springframework.core.task.AsyncTaskExecutor AsyncTaskExecutor}
+	 * to invoke the handler method on.
+	 * <p>By default, the {@link RequestMappingHandlerAdapter#setOffloadExecutor
+	 * offload executor} of the {@code RequestMappingHandlerAdapter} is used.
+	 */
+	String value() default "";
+
+	/**
+	 * The async request timeout in milliseconds for offloaded invocations.
+	 * <p>By default, the {@link RequestMappingHandlerAdapter#setAsyncRequestTimeout
+	 * async request timeout} of the {@code RequestMappingHandlerAdapter} applies.
+	 */
+	long timeout() default -1;
+
+}
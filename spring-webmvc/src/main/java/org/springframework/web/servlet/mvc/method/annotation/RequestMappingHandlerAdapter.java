@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -34,10 +35,12 @@ import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.MethodIntrospector;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
@@ -50,6 +53,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ReflectionUtils.MethodFilter;
+import org.springframework.util.StringUtils;
 import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -60,6 +64,8 @@ import org.springframework.web.bind.support.SessionAttributeStore;
 import org.springframework.web.bind.support.WebBindingInitializer;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.context.request.async.AsyncWebRequest;
@@ -128,6 +134,10 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 			(!AnnotatedElementUtils.hasAnnotation(method, RequestMapping.class) &&
 					AnnotatedElementUtils.hasAnnotation(method, ModelAttribute.class));
 
+	private static final Object NO_OFFLOAD = new Object();
+
+	private static final Offload DEFAULT_OFFLOAD = AnnotationUtils.synthesizeAnnotation(Offload.class);
+
 
 	@Nullable
 	private List<HandlerMethodArgumentResolver> customArgumentResolvers;
@@ -161,6 +171,12 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 	@Nullable
 	private Long asyncRequestTimeout;
 
+	@Nullable
+	private AsyncTaskExecutor offloadExecutor;
+
+	@Nullable
+	private Predicate<HandlerMethod> offloadPredicate;
+
 	private CallableProcessingInterceptor[] callableInterceptors = new CallableProcessingInterceptor[0];
 
 	private DeferredResultProcessingInterceptor[] deferredResultInterceptors = new DeferredResultProcessingInterceptor[0];
@@ -182,6 +198,8 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 	private final Map<Class<?>, SessionAttributesHandler> sessionAttributesHandlerCache = new ConcurrentHashMap<>(64);
 
+	private final Map<MethodClassKey, Object> offloadCache = new ConcurrentHashMap<>(64);
+
 	private final Map<Class<?>, Set<Method>> initBinderCache = new ConcurrentHashMap<>(64);
 
 	private final Map<ControllerAdviceBean, Set<Method>> initBinderAdviceCache = new LinkedHashMap<>();
@@ -420,6 +438,33 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 		this.asyncRequestTimeout = timeout;
 	}
 
+	/**
+	 * Set the {@link AsyncTaskExecutor} to invoke {@link Offload @Offload}
+	 * handler methods, or handler methods matching the
+	 * {@link #setOffloadPredicate offload predicate}, on. For blocking handlers
+	 * on JDK 21+, consider a
+	 * {@link org.springframework.core.task.VirtualThreadTaskExecutor}.
+	 * <p>By default, the {@link #setTaskExecutor task executor} is used.
+	 * @since 5.2.13
+	 */
+	public void setOffloadExecutor(@Nullable AsyncTaskExecutor offloadExecutor) {
+		this.offloadExecutor = offloadExecutor;
+	}
+
+	/**
+	 * Configure a predicate to select handler methods to invoke on the
+	 * {@link #setOffloadExecutor offload executor}, in addition to those
+	 * annotated with {@link Offload @Offload}. The Servlet container thread
+	 * is then released via async request processing while the handler runs.
+	 * <p>Note that {@link WebRequest#checkNotModified} is not supported for
+	 * offloaded handler methods.
+	 * <p>By default, only {@code @Offload} handler methods are offloaded.
+	 * @since 5.2.13
+	 */
+	public void setOffloadPredicate(@Nullable Predicate<HandlerMethod> offloadPredicate) {
+		this.offloadPredicate = offloadPredicate;
+	}
+
 	/**
 	 * Configure {@code CallableProcessingInterceptor}'s to register on async requests.
 	 * @param interceptors the interceptors to register
@@ -866,13 +911,23 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 
 			if (asyncManager.hasConcurrentResult()) {
 				Object result = asyncManager.getConcurrentResult();
-				mavContainer = (ModelAndViewContainer) asyncManager.getConcurrentResultContext()[0];
+				Object[] resultContext = asyncManager.getConcurrentResultContext();
+				mavContainer = (ModelAndViewContainer) resultContext[0];
 				asyncManager.clearConcurrentResult();
 				LogFormatUtils.traceDebug(logger, traceOn -> {
 					String formatted = LogFormatUtils.formatValue(result, !traceOn);
 					return "Resume with async result [" + formatted + "]";
 				});
-				invocableMethod = invocableMethod.wrapConcurrentResult(result);
+				invocableMethod = (resultContext.length > 1 && resultContext[1] instanceof Offload ?
+						invocableMethod.wrapOffloadedResult(result) : invocableMethod.wrapConcurrentResult(result));
+			}
+			else if (request.isAsyncSupported()) {
+				Offload offload = getOffload(handlerMethod);
+				if (offload != null) {
+					startOffloadedInvocation(invocableMethod, offload, request, response, mavContainer,
+							asyncWebRequest, asyncManager);
+					return null;
+				}
 			}
 
 			invocableMethod.invokeAndHandle(webRequest, mavContainer);
@@ -887,6 +942,66 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
 		}
 	}
 
+	/**
+	 * Return the {@link Offload} settings for the given handler method, or
+	 * {@code null} if the handler method is to be invoked on the current thread.
+	 */
+	@Nullable
+	private Offload getOffload(HandlerMethod handlerMethod) {
+		MethodClassKey cacheKey = new MethodClassKey(handlerMethod.getMethod(), handlerMethod.getBeanType());
+		Object offload = this.offloadCache.get(cacheKey);
+		if (offload == null) {
+			offload = handlerMethod.getMethodAnnotation(Offload.class);
+			if (offload == null) {
+				offload = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Offload.class);
+			}
+			this.offloadCache.put(cacheKey, (offload != null ? offload : NO_OFFLOAD));
+		}
+		if (offload instanceof Offload) {
+			return (Offload) offload;
+		}
+		if (this.offloadPredicate != null && this.offloadPredicate.test(handlerMethod)) {
+			return DEFAULT_OFFLOAD;
+		}
+		return null;
+	}
+
+	private void startOffloadedInvocation(ServletInvocableHandlerMethod invocableMethod, Offload offload,
+			HttpServletRequest request, HttpServletResponse response, ModelAndViewContainer mavContainer,
+			AsyncWebRequest asyncWebRequest, WebAsyncManager asyncManager) throws Exception {
+
+		// The original ServletWebRequest is completed once the container thread is released,
+		// so the handler method gets its own, which is completed along with the async request:
+		// request-scoped beans are only destroyed after the result has been handled.
+		ServletWebRequest webRequest = new ServletWebRequest(request, response);
+		asyncWebRequest.addCompletionHandler(webRequest::requestCompleted);
+
+		Callable<Object> callable = () -> {
+			RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+			RequestContextHolder.setRequestAttributes(webRequest);
+			try {
+				return invocableMethod.invokeForRequest(webRequest, mavContainer);
+			}
+			finally {
+				RequestContextHolder.setRequestAttributes(previousAttributes);
+			}
+		};
+
+		Long timeout = (offload.timeout() >= 0 ? offload.timeout() : null);
+		WebAsyncTask<Object> asyncTask;
+		if (StringUtils.hasLength(offload.value())) {
+			asyncTask = new WebAsyncTask<>(timeout, offload.value(), callable);
+			if (this.beanFactory != null) {
+				asyncTask.setBeanFactory(this.beanFactory);
+			}
+		}
+		else {
+			AsyncTaskExecutor executor = (this.offloadExecutor != null ? this.offloadExecutor : this.taskExecutor);
+			asyncTask = new WebAsyncTask<>(timeout, executor, callable);
+		}
+		asyncManager.startCallableProcessing(asyncTask, mavContainer, offload);
+	}
+
 	/**
 	 * Create a {@link ServletInvocableHandlerMethod} from the given {@link HandlerMethod} definition.
 	 * @param handlerMethod the {@link HandlerMethod} definition
@@ -191,6 +191,18 @@ public class ServletInvocableHandlerMethod extends InvocableHandlerMethod {
 		return new ConcurrentResultHandlerMethod(result, new ConcurrentResultMethodParameter(result));
 	}
 
+	/**
+	 * Variant of {@link #wrapConcurrentResult} for the result of an invocation
+	 * of this method on a separate thread, i.e. with the value (or exception)
+	 * as returned from the controller method itself, to be handled based on
+	 * the declared return type of this method.
+	 * @since 5.2.13
+	 * @see Offload
+	 */
+	ServletInvocableHandlerMethod wrapOffloadedResult(@Nullable Object result) {
+		return new ConcurrentResultHandlerMethod(result, getReturnValueType(result));
+	}
+
 
 	/**
 	 * A nested subclass of {@code ServletInvocableHandlerMethod} that uses a
@@ -202,7 +214,7 @@ public class ServletInvocableHandlerMethod extends InvocableHandlerMethod {
 
 		private final MethodParameter returnType;
 
-		public ConcurrentResultHandlerMethod(final Object result, ConcurrentResultMethodParameter returnType) {
+		public ConcurrentResultHandlerMethod(@Nullable Object result, MethodParameter returnType) {
 			super((Callable<Object>) () -> {
 				if (result instanceof Exception) {
 					throw (Exception) result;
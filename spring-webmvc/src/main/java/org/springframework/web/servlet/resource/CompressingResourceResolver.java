@@ -0,0 +1,417 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Resolver that delegates to the chain, and if a resource is found that is
+ * compressible and the request accepts gzip, returns a gzip compressed
+ * variant of it, compressed once and kept in a bounded in-memory cache, and
+ * optionally in a {@link #setCacheDirectory cache directory} as well.
+ *
+ * <p>Compressed variants carry {@code Content-Encoding}, {@code Vary}, and an
+ * {@code ETag} derived from the content hash of the original resource, and
+ * support range requests on the compressed representation. Brotli is not
+ * produced since the JDK has no encoder for it, but pre-compressed
+ * {@code .br} files are still served by an {@link EncodedResourceResolver}.
+ *
+ * <p>Note that this resolver must be ordered ahead of an
+ * {@link EncodedResourceResolver}, so that pre-compressed files take
+ * precedence, and ahead of a {@link VersionResourceResolver} with a
+ * content-based version strategy, to ensure the version calculation is not
+ * impacted by the compression.
+ *
+ * @author agent
+ * @since 5.2.13
+ */
+public class CompressingResourceResolver extends AbstractResourceResolver {
+
+	/**
+	 * The default compressible media types.
+	 */
+	public static final List<MediaType> DEFAULT_COMPRESSIBLE_TYPES = Collections.unmodifiableList(Arrays.asList(
+			MediaType.parseMediaType("text/*"), MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML,
+			MediaType.parseMediaType("application/javascript"), MediaType.parseMediaType("image/svg+xml")));
+
+
+	private final List<MediaType> compressibleTypes = new ArrayList<>(DEFAULT_COMPRESSIBLE_TYPES);
+
+	private int minSize = 1024;
+
+	private int maxCacheSize = 10 * 1024 * 1024;
+
+	private int maxCacheEntries = 1024;
+
+	@Nullable
+	private Path cacheDirectory;
+
+	private final LinkedHashMap<String, CompressedContent> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long cacheSize;
+
+
+	/**
+	 * Configure the media types of resources to compress.
+	 * <p>By default, {@link #DEFAULT_COMPRESSIBLE_TYPES}.
+	 * @param compressibleTypes the media types, possibly with wildcards
+	 */
+	public void setCompressibleTypes(List<MediaType> compressibleTypes) {
+		Assert.notNull(compressibleTypes, "Compressible types must not be null");
+		this.compressibleTypes.clear();
+		this.compressibleTypes.addAll(compressibleTypes);
+	}
+
+	/**
+	 * Return a read-only list with the media types of resources to compress.
+	 */
+	public List<MediaType> getCompressibleTypes() {
+		return Collections.unmodifiableList(this.compressibleTypes);
+	}
+
+	/**
+	 * Configure the minimum size of resources to compress, below which
+	 * compression is not worth the effort.
+	 * <p>By default set to 1024 bytes.
+	 * @param minSize the minimum size in bytes
+	 */
+	public void setMinSize(int minSize) {
+		this.minSize = minSize;
+	}
+
+	/**
+	 * Return the minimum size of resources to compress.
+	 */
+	public int getMinSize() {
+		return this.minSize;
+	}
+
+	/**
+	 * Configure the maximum total size of compressed content to keep in
+	 * memory. Resources larger than this are not compressed.
+	 * <p>By default set to 10MB.
+	 * @param maxCacheSize the maximum size in bytes
+	 */
+	public void setMaxCacheSize(int maxCacheSize) {
+		Assert.isTrue(maxCacheSize > 0, "Max cache size must be positive");
+		this.maxCacheSize = maxCacheSize;
+	}
+
+	/**
+	 * Return the maximum total size of compressed content to keep in memory.
+	 */
+	public int getMaxCacheSize() {
+		return this.maxCacheSize;
+	}
+
+	/**
+	 * Configure the maximum number of resources to keep compression results
+	 * for in memory, including those that are not worth compressing.
+	 * <p>By default set to 1024.
+	 * @param maxCacheEntries the maximum number of entries
+	 */
+	public void setMaxCacheEntries(int maxCacheEntries) {
+		Assert.isTrue(maxCacheEntries > 0, "Max cache entries must be positive");
+		this.maxCacheEntries = maxCacheEntries;
+	}
+
+	/**
+	 * Return the maximum number of resources to keep compression results for.
+	 */
+	public int getMaxCacheEntries() {
+		return this.maxCacheEntries;
+	}
+
+	/**
+	 * Configure a directory to keep compressed content in, named by the
+	 * content hash of the original resource, so that it does not need to be
+	 * compressed again after it is evicted from memory or after a restart.
+	 * <p>By default not set, in which case compressed content is only kept
+	 * in memory.
+	 * @param cacheDirectory the directory to use
+	 */
+	public void setCacheDirectory(@Nullable Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Return the configured cache directory, if any.
+	 */
+	@Nullable
+	public Path getCacheDirectory() {
+		return this.cacheDirectory;
+	}
+
+
+	@Override
+	protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		Resource resource = chain.resolveResource(request, requestPath, locations);
+		if (resource == null || request == null) {
+			return resource;
+		}
+
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+			return resource;
+		}
+
+		try {
+			if (!isCompressible(resource)) {
+				return resource;
+			}
+			CompressedContent content = getCompressedContent(resource);
+			return (content.isWorthwhile() ? new CompressedResource(resource, content) : resource);
+		}
+		catch (IOException ex) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Failed to compress [" + resource.getFilename() + "]", ex);
+			}
+			return resource;
+		}
+	}
+
+	private boolean isCompressible(Resource resource) throws IOException {
+		if (resource instanceof HttpResource &&
+				((HttpResource) resource).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+			return false;
+		}
+		long length = resource.contentLength();
+		if (length < this.minSize || length > this.maxCacheSize) {
+			return false;
+		}
+		Optional<MediaType> mediaType = MediaTypeFactory.getMediaType(resource);
+		return (mediaType.isPresent() && this.compressibleTypes.stream().anyMatch(type -> type.includes(mediaType.get())));
+	}
+
+	private CompressedContent getCompressedContent(Resource resource) throws IOException {
+		String key = resource.getDescription();
+		long lastModified = resource.lastModified();
+		long length = resource.contentLength();
+		synchronized (this.cache) {
+			CompressedContent content = this.cache.get(key);
+			if (content != null && content.matches(lastModified, length)) {
+				return content;
+			}
+		}
+		byte[] original = StreamUtils.copyToByteArray(resource.getInputStream());
+		String hash = DigestUtils.md5DigestAsHex(original);
+		byte[] compressed = readFromCacheDirectory(hash);
+		if (compressed == null) {
+			compressed = compress(original);
+			writeToCacheDirectory(hash, compressed);
+		}
+		CompressedContent content = new CompressedContent(lastModified, length, hash,
+				(compressed.length < original.length ? compressed : null));
+		synchronized (this.cache) {
+			CompressedContent previous = this.cache.put(key, content);
+			if (previous != null) {
+				this.cacheSize -= previous.size();
+			}
+			this.cacheSize += content.size();
+			Iterator<CompressedContent> iterator = this.cache.values().iterator();
+			while ((this.cacheSize > this.maxCacheSize || this.cache.size() > this.maxCacheEntries) &&
+					iterator.hasNext()) {
+				this.cacheSize -= iterator.next().size();
+				iterator.remove();
+			}
+		}
+		return content;
+	}
+
+	private static byte[] compress(byte[] content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(content);
+		}
+		return out.toByteArray();
+	}
+
+	@Nullable
+	private byte[] readFromCacheDirectory(String hash) {
+		if (this.cacheDirectory != null) {
+			Path file = this.cacheDirectory.resolve(hash + ".gz");
+			try {
+				if (Files.isRegularFile(file)) {
+					return Files.readAllBytes(file);
+				}
+			}
+			catch (IOException ex) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Failed to read compressed content from " + file, ex);
+				}
+			}
+		}
+		return null;
+	}
+
+	private void writeToCacheDirectory(String hash, byte[] compressed) {
+		if (this.cacheDirectory != null) {
+			Path file = this.cacheDirectory.resolve(hash + ".gz");
+			try {
+				Files.createDirectories(this.cacheDirectory);
+				Path tempFile = Files.createTempFile(this.cacheDirectory, hash, ".tmp");
+				Files.write(tempFile, compressed);
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (IOException ex) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Failed to write compressed content to " + file, ex);
+				}
+			}
+		}
+	}
+
+	@Override
+	protected String resolveUrlPathInternal(String resourceUrlPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		return chain.resolveUrlPath(resourceUrlPath, locations);
+	}
+
+
+	/**
+	 * Compressed content of a resource, along with what it was compressed from.
+	 */
+	private static final class CompressedContent {
+
+		private final long lastModified;
+
+		private final long length;
+
+		private final String hash;
+
+		@Nullable
+		private final byte[] compressed;
+
+		CompressedContent(long lastModified, long length, String hash, @Nullable byte[] compressed) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.hash = hash;
+			this.compressed = compressed;
+		}
+
+		boolean matches(long lastModified, long length) {
+			return (this.lastModified == lastModified && this.length == length);
+		}
+
+		boolean isWorthwhile() {
+			return (this.compressed != null);
+		}
+
+		int size() {
+			return (this.compressed != null ? this.compressed.length : 0);
+		}
+	}
+
+
+	/**
+	 * A gzip compressed {@link HttpResource}.
+	 */
+	static final class CompressedResource extends AbstractResource implements HttpResource {
+
+		private final Resource original;
+
+		private final byte[] compressed;
+
+		private final String hash;
+
+		CompressedResource(Resource original, CompressedContent content) {
+			Assert.state(content.compressed != null, "No compressed content");
+			this.original = original;
+			this.compressed = content.compressed;
+			this.hash = content.hash;
+		}
+
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(this.compressed);
+		}
+
+		@Override
+		public boolean exists() {
+			return true;
+		}
+
+		@Override
+		public long contentLength() {
+			return this.compressed.length;
+		}
+
+		@Override
+		public long lastModified() throws IOException {
+			return this.original.lastModified();
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) throws IOException {
+			return this.original.createRelative(relativePath);
+		}
+
+		@Override
+		@Nullable
+		public String getFilename() {
+			return this.original.getFilename();
+		}
+
+		@Override
+		public String getDescription() {
+			return "Gzip compressed " + this.original.getDescription();
+		}
+
+		@Override
+		public HttpHeaders getResponseHeaders() {
+			HttpHeaders headers = new HttpHeaders();
+			if (this.original instanceof HttpResource) {
+				headers.putAll(((HttpResource) this.original).getResponseHeaders());
+			}
+			headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+			headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			headers.setETag("\"" + this.hash + "-gzip\"");
+			return headers;
+		}
+	}
+
+}
@@ -498,7 +498,8 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		checkRequest(request);
 
 		// Header phase
-		if (new ServletWebRequest(request, response).checkNotModified(resource.lastModified())) {
+		String eTag = (resource instanceof HttpResource ? ((HttpResource) resource).getResponseHeaders().getETag() : null);
+		if (new ServletWebRequest(request, response).checkNotModified(eTag, resource.lastModified())) {
 			logger.trace("Resource not modified");
 			return;
 		}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.AdaptiveConcurrencyLimiter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimitInterceptor}.
+ *
+ * @author agent
+ */
+class AdaptiveConcurrencyLimitInterceptorTests {
+
+	private final AdaptiveConcurrencyLimitInterceptor interceptor = new AdaptiveConcurrencyLimitInterceptor();
+
+
+	AdaptiveConcurrencyLimitInterceptorTests() {
+		this.interceptor.setLimiterSupplier(() ->
+				new AdaptiveConcurrencyLimiter((limit, inFlight, latency, dropped) -> limit, 1));
+	}
+
+
+	@Test
+	void rejectsBeyondLimitPerHandlerMethod() throws Exception {
+		HandlerMethod handler1 = new HandlerMethod(new TestController(), "handle1");
+		HandlerMethod handler2 = new HandlerMethod(new TestController(), "handle2");
+
+		MockHttpServletRequest request1 = new MockHttpServletRequest();
+		assertThat(this.interceptor.preHandle(request1, new MockHttpServletResponse(), handler1)).isTrue();
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertThat(this.interceptor.preHandle(new MockHttpServletRequest(), response, handler1)).isFalse();
+		assertThat(response.getStatus()).isEqualTo(503);
+
+		assertThat(this.interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler2)).isTrue();
+		assertThat(this.interceptor.getLimiters()).hasSize(2);
+
+		this.interceptor.afterCompletion(request1, new MockHttpServletResponse(), handler1, null);
+		AdaptiveConcurrencyLimiter limiter = this.interceptor.getLimiters().get(TestController.class.getName() + "#handle1");
+		assertThat(limiter.getInFlight()).isEqualTo(0);
+		assertThat(limiter.getRejectedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void partitionByPattern() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/foo/{id}");
+		assertThat(this.interceptor.preHandle(request, new MockHttpServletResponse(), new Object())).isTrue();
+		assertThat(this.interceptor.getLimiters()).containsOnlyKeys("/foo/{id}");
+	}
+
+	@Test
+	void asyncDispatchKeepsPermit() throws Exception {
+		Object handler = new Object();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		assertThat(this.interceptor.preHandle(request, new MockHttpServletResponse(), handler)).isTrue();
+
+		// Async dispatch of the same request
+		assertThat(this.interceptor.preHandle(request, new MockHttpServletResponse(), handler)).isTrue();
+		this.interceptor.afterCompletion(request, new MockHttpServletResponse(), handler, null);
+
+		assertThat(this.interceptor.getLimiters().get("").getInFlight()).isEqualTo(0);
+	}
+
+
+	@SuppressWarnings("unused")
+	private static class TestController {
+
+		public void handle1() {
+		}
+
+		public void handle2() {
+		}
+	}
+
+}
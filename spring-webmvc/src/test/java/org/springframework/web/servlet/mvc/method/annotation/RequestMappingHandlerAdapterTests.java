@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,11 +25,15 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.DispatcherType;
+
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.core.MethodParameter;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -46,6 +50,9 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.SessionAttributes;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.context.support.StaticWebApplicationContext;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.annotation.ModelMethodProcessor;
@@ -272,6 +279,100 @@ public class RequestMappingHandlerAdapterTests {
 		assertThat(this.response.getContentAsString()).isEqualTo("{\"status\":400,\"message\":\"body\"}");
 	}
 
+	@Test
+	public void offloadAnnotatedHandlerMethod() throws Exception {
+		this.handlerAdapter.setOffloadExecutor(new TaskExecutorAdapter(new SyncTaskExecutor()));
+		this.handlerAdapter.afterPropertiesSet();
+		this.request.setAsyncSupported(true);
+
+		HandlerMethod handlerMethod = handlerMethod(new OffloadController(), "handle");
+		ModelAndView mav = this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+
+		assertThat(mav).isNull();
+		assertThat(this.request.isAsyncStarted()).isTrue();
+		assertThat(WebAsyncUtils.getAsyncManager(this.request).getConcurrentResult()).isEqualTo(
+				new ResponseEntity<>("body", HttpStatus.ACCEPTED));
+
+		this.request.setAsyncStarted(false);
+		this.request.setDispatcherType(DispatcherType.ASYNC);
+		mav = this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+
+		assertThat(mav).isNull();
+		assertThat(this.response.getStatus()).isEqualTo(202);
+		assertThat(this.response.getContentAsString()).isEqualTo("body");
+	}
+
+	@Test
+	public void offloadedRequestScopeIsDestroyedOnAsyncCompletion() throws Exception {
+		this.handlerAdapter.setOffloadExecutor(new TaskExecutorAdapter(new SyncTaskExecutor()));
+		this.handlerAdapter.afterPropertiesSet();
+		this.request.setAsyncSupported(true);
+
+		OffloadController controller = new OffloadController();
+		HandlerMethod handlerMethod = handlerMethod(controller, "handleWithRequestScope");
+		this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+		assertThat(this.request.isAsyncStarted()).isTrue();
+		assertThat(controller.destroyed).isFalse();
+
+		this.request.setAsyncStarted(false);
+		this.request.setDispatcherType(DispatcherType.ASYNC);
+		this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+		assertThat(this.response.getContentAsString()).isEqualTo("body");
+		assertThat(controller.destroyed).isFalse();
+
+		this.request.getAsyncContext().complete();
+		assertThat(controller.destroyed).isTrue();
+	}
+
+	@Test
+	public void offloadInheritedHandlerMethodPerControllerType() throws Exception {
+		this.handlerAdapter.setOffloadExecutor(new TaskExecutorAdapter(new SyncTaskExecutor()));
+		this.handlerAdapter.afterPropertiesSet();
+		this.request.setAsyncSupported(true);
+
+		Method method = BaseController.class.getDeclaredMethod("handle");
+		this.handlerAdapter.handle(this.request, this.response,
+				new InvocableHandlerMethod(new OffloadSubclassController(), method));
+		assertThat(this.request.isAsyncStarted()).isTrue();
+
+		this.request = new MockHttpServletRequest("GET", "/");
+		this.request.setAsyncSupported(true);
+		this.response = new MockHttpServletResponse();
+		this.handlerAdapter.handle(this.request, this.response,
+				new InvocableHandlerMethod(new PlainSubclassController(), method));
+		assertThat(this.request.isAsyncStarted()).isFalse();
+		assertThat(this.response.getContentAsString()).isEqualTo("body");
+	}
+
+	@Test
+	public void offloadWithPredicate() throws Exception {
+		this.handlerAdapter.setOffloadExecutor(new TaskExecutorAdapter(new SyncTaskExecutor()));
+		this.handlerAdapter.setOffloadPredicate(handlerMethod -> handlerMethod.getMethod().getName().startsWith("handleBad"));
+		this.handlerAdapter.afterPropertiesSet();
+		this.request.setAsyncSupported(true);
+
+		this.handlerAdapter.handle(this.request, this.response, handlerMethod(new SimpleController(), "handleBadRequest"));
+		assertThat(this.request.isAsyncStarted()).isTrue();
+
+		this.request.setAsyncStarted(false);
+		this.request.setDispatcherType(DispatcherType.ASYNC);
+		this.handlerAdapter.handle(this.request, this.response, handlerMethod(new SimpleController(), "handleBadRequest"));
+		assertThat(this.response.getStatus()).isEqualTo(400);
+		assertThat(this.response.getContentAsString()).isEqualTo("body");
+	}
+
+	@Test
+	public void noOffloadWithoutAsyncSupport() throws Exception {
+		this.handlerAdapter.setOffloadExecutor(new TaskExecutorAdapter(new SyncTaskExecutor()));
+		this.handlerAdapter.afterPropertiesSet();
+
+		this.handlerAdapter.handle(this.request, this.response, handlerMethod(new OffloadController(), "handle"));
+
+		assertThat(this.request.isAsyncStarted()).isFalse();
+		assertThat(this.response.getStatus()).isEqualTo(202);
+		assertThat(this.response.getContentAsString()).isEqualTo("body");
+	}
+
 	private HandlerMethod handlerMethod(Object handler, String methodName, Class<?>... paramTypes) throws Exception {
 		Method method = handler.getClass().getDeclaredMethod(methodName, paramTypes);
 		return new InvocableHandlerMethod(handler, method);
@@ -308,6 +409,42 @@ public class RequestMappingHandlerAdapterTests {
 	}
 
 
+	@Offload
+	@SuppressWarnings("unused")
+	private static class OffloadController {
+
+		private volatile boolean destroyed;
+
+		public ResponseEntity<String> handle() {
+			return new ResponseEntity<>("body", HttpStatus.ACCEPTED);
+		}
+
+		public ResponseEntity<String> handleWithRequestScope() {
+			RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+					"scopedBean", () -> this.destroyed = true, RequestAttributes.SCOPE_REQUEST);
+			return new ResponseEntity<>("body", HttpStatus.OK);
+		}
+	}
+
+
+	@SuppressWarnings("unused")
+	private static class BaseController {
+
+		public ResponseEntity<String> handle() {
+			return new ResponseEntity<>("body", HttpStatus.OK);
+		}
+	}
+
+
+	@Offload
+	private static class OffloadSubclassController extends BaseController {
+	}
+
+
+	private static class PlainSubclassController extends BaseController {
+	}
+
+
 	@SessionAttributes("attr1")
 	private static class SessionAttributeController {
 
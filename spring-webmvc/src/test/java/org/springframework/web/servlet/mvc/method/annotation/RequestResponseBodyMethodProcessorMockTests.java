@@ -320,6 +320,23 @@ public class RequestResponseBodyMethodProcessorMockTests {
 		verify(stringMessageConverter).write(eq(body), eq(accepted), isA(HttpOutputMessage.class));
 	}
 
+	@Test
+	public void handleReturnValueWithCachedNegotiation() throws Exception {
+		MediaType accepted = MediaType.TEXT_PLAIN;
+		servletRequest.addHeader("Accept", accepted.toString());
+
+		String body = "Foo";
+		given(stringMessageConverter.canWrite(String.class, null)).willReturn(true);
+		given(stringMessageConverter.canWrite(String.class, accepted)).willReturn(true);
+
+		processor.handleReturnValue(body, returnTypeString, mavContainer, webRequest);
+		processor.handleReturnValue(body, returnTypeString, mavContainer, webRequest);
+
+		verify(stringMessageConverter, times(2)).write(eq(body), eq(accepted), isA(HttpOutputMessage.class));
+		verify(stringMessageConverter, times(1)).canWrite(String.class, null);
+		verify(stringMessageConverter, times(1)).canWrite(String.class, accepted);
+	}
+
 	@Test
 	public void handleReturnValueProduces() throws Exception {
 		String body = "Foo";